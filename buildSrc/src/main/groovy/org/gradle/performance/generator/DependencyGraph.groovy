@@ -20,6 +20,8 @@ class DependencyGraph {
     int size = 0
     int depth = 1
     boolean useSnapshotVersions = false
+    boolean withChains = false
+    boolean withConflicts = false
 
     boolean isEmpty() {
         size == 0
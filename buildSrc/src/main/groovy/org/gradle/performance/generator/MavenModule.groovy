@@ -50,6 +50,10 @@ class MavenModule {
         return this
     }
 
+    List getDependencies() {
+        return dependencies
+    }
+
     String shortNotation() {
         return "$groupId:$artifactId:$version"
     }
@@ -116,14 +120,18 @@ class MavenModule {
             pomFile << "\n$parentPomSection\n"
         }
 
-        dependencies.each { dependency ->
+        if (dependencies) {
             pomFile << """
-  <dependencies>
+  <dependencies>"""
+            dependencies.each { dependency ->
+                pomFile << """
     <dependency>
       <groupId>$dependency.groupId</groupId>
       <artifactId>$dependency.artifactId</artifactId>
       <version>$dependency.version</version>
-    </dependency>
+    </dependency>"""
+            }
+            pomFile << """
   </dependencies>"""
         }
 
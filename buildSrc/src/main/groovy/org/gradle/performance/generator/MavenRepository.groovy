@@ -20,6 +20,7 @@ class MavenRepository {
     int depth = 1
     final File rootDir
     List<MavenModule> modules = []
+    List<MavenModule> otherVersions = []
     MavenJarCreator mavenJarCreator = new MavenJarCreator()
 
     MavenRepository(File rootDir) {
@@ -39,10 +40,27 @@ class MavenRepository {
         return module
     }
 
+    /**
+     * Adds another version of the given module, with the same dependencies. The new version is published, but is not one of the {@link #modules} that projects depend on.
+     */
+    MavenModule addOtherVersion(MavenModule module, String version) {
+        def artifactDir = new File(rootDir, "${module.groupId.replace('.', '/')}/$module.artifactId/$version")
+        def otherVersion = new MavenModule(artifactDir, module.groupId, module.artifactId, version)
+        otherVersion.mavenJarCreator = mavenJarCreator
+        module.dependencies.each { dependency ->
+            otherVersion.dependsOn(dependency.groupId, dependency.artifactId, dependency.version)
+        }
+        otherVersions << otherVersion
+        return otherVersion
+    }
+
     void publish() {
         modules.each {
             it.publish()
         }
+        otherVersions.each {
+            it.publish()
+        }
     }
 
     List<MavenModule> getDependenciesOfTransitiveLevel(int level) {
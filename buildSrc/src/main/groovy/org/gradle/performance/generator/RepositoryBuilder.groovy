@@ -21,6 +21,8 @@ class RepositoryBuilder {
     private int numberOfArtifacts = 0
     private File targetDir
     boolean withSnapshotVersions = false
+    boolean withChains = false
+    boolean withConflicts = false
     private MavenJarCreator mavenJarCreator = new MavenJarCreator()
 
     public RepositoryBuilder(File targetDir) {
@@ -42,6 +44,22 @@ class RepositoryBuilder {
         return this;
     }
 
+    /**
+     * Splits the modules into chains of {@code depth} modules, where each module depends on the next one in its chain.
+     */
+    RepositoryBuilder withChains(boolean withChains) {
+        this.withChains = withChains
+        this
+    }
+
+    /**
+     * Makes the modules of each chain also depend on newer versions of modules further down the chain. Use together with {@link #withChains(boolean)}.
+     */
+    RepositoryBuilder withConflicts(boolean withConflicts) {
+        this.withConflicts = withConflicts
+        this
+    }
+
     RepositoryBuilder withMavenJarCreator(MavenJarCreator mavenJarCreator) {
         this.mavenJarCreator = mavenJarCreator
         this
@@ -63,13 +81,37 @@ class RepositoryBuilder {
         }
 
         transformGraphToDepth(repo.modules, depth)
+        if (withConflicts) {
+            addConflictingVersions(repo, depth)
+        }
         repo.setDepth(depth)
         repo.publish()
         repo
     }
 
+    /**
+     * Makes each module of a dependency chain also depend on a newer version of the module two levels further down the chain,
+     * so that resolving the graph involves conflict resolution between the two versions of that module.
+     */
+    void addConflictingVersions(MavenRepository repo, int depth) {
+        def conflicting = []
+        groupByChain(repo.modules, depth).each { idx, groupModules ->
+            for (int i = 0; i < groupModules.size() - 2; i++) {
+                def target = groupModules[i + 2]
+                def newerVersion = target.version.replaceFirst('^1\\.0', '1.1')
+                groupModules[i].dependsOn(target.groupId, target.artifactId, newerVersion)
+                conflicting << [module: target, version: newerVersion]
+            }
+        }
+        // Add the newer versions once all dependencies are in place, so that they have the same dependencies as the original versions
+        conflicting.each {
+            repo.addOtherVersion(it.module, it.version)
+        }
+    }
+
     void transformGraphToDepth(List<MavenModule> modules, int depth) {
-        def depGroups = modules.groupBy { (int) (it.artifactId - "artifact").toInteger() / depth }
+        // Without chains, this divides without truncating, so each module is in a group of its own. The existing test projects are generated this way.
+        def depGroups = withChains ? groupByChain(modules, depth) : modules.groupBy { (int) (it.artifactId - "artifact").toInteger() / depth }
         depGroups.each { idx, groupModules ->
             for (int i = 0; i < groupModules.size() - 1; i++) {
                 def next = groupModules[i + 1]
@@ -77,4 +119,8 @@ class RepositoryBuilder {
             }
         }
     }
+
+    private static Map<Integer, List<MavenModule>> groupByChain(List<MavenModule> modules, int depth) {
+        return modules.groupBy { (it.artifactId - "artifact").toInteger().intdiv(depth) }
+    }
 }
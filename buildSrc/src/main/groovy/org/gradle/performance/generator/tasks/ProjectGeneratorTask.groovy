@@ -124,6 +124,8 @@ abstract class ProjectGeneratorTask extends DefaultTask {
             .withArtifacts(dependencyGraph.size)
             .withDepth(dependencyGraph.depth)
             .withSnapshotVersions(dependencyGraph.useSnapshotVersions)
+            .withChains(dependencyGraph.withChains)
+            .withConflicts(dependencyGraph.withConflicts)
             .withMavenJarCreator(mavenJarCreator)
             .create()
         return repo;
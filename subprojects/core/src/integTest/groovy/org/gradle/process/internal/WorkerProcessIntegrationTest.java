@@ -30,6 +30,7 @@ import org.gradle.cache.CacheRepository;
 import org.gradle.cache.internal.*;
 import org.gradle.cache.internal.locklistener.NoOpFileLockContentionHandler;
 import org.gradle.internal.Actions;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
 import org.gradle.internal.id.LongIdGenerator;
 import org.gradle.internal.nativeintegration.ProcessEnvironment;
 import org.gradle.internal.event.ListenerBroadcast;
@@ -71,7 +72,7 @@ public class WorkerProcessIntegrationTest {
     @Rule
     public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider();
     private final ProcessMetaDataProvider metaDataProvider = new DefaultProcessMetaDataProvider(NativeServicesTestFixture.getInstance().get(ProcessEnvironment.class));
-    private final CacheFactory factory = new DefaultCacheFactory(new DefaultFileLockManager(metaDataProvider, new NoOpFileLockContentionHandler()));
+    private final CacheFactory factory = new DefaultCacheFactory(new DefaultFileLockManager(metaDataProvider, new NoOpFileLockContentionHandler()), new DefaultExecutorFactory());
     private final CacheScopeMapping scopeMapping = new DefaultCacheScopeMapping(tmpDir.getTestDirectory(), null, GradleVersion.current());
     private final CacheRepository cacheRepository = new DefaultCacheRepository(scopeMapping, factory);
     private final ModuleRegistry moduleRegistry = new DefaultModuleRegistry();
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.execution.internal;
+
+import org.gradle.api.execution.TaskExecutionGraph;
+
+/**
+ * An internal listener that is notified when the task graph is about to be executed.
+ */
+public interface InternalTaskExecutionGraphListener {
+    /**
+     * Called after all {@link org.gradle.api.execution.TaskExecutionGraphListener}s, including any {@code whenReady} closures, have been notified that the
+     * graph has been populated, and before the first task is executed.
+     */
+    void graphReady(TaskExecutionGraph graph);
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.serialize.LongSerializer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores task execution times in the task history cache, keyed by task path.
+ */
+public class CacheBackedTaskExecutionTimeRepository implements TaskExecutionTimeRepository {
+    private final TaskArtifactStateCacheAccess cacheAccess;
+    private final PersistentIndexedCache<String, Long> executionTimeCache;
+
+    public CacheBackedTaskExecutionTimeRepository(TaskArtifactStateCacheAccess cacheAccess) {
+        this.cacheAccess = cacheAccess;
+        this.executionTimeCache = cacheAccess.createCache("taskExecutionTimes", String.class, new LongSerializer());
+    }
+
+    public Map<String, Long> getExecutionTimes(final Collection<String> taskPaths) {
+        return cacheAccess.useCache("Load task execution times", new Factory<Map<String, Long>>() {
+            public Map<String, Long> create() {
+                Map<String, Long> executionTimes = new HashMap<String, Long>();
+                for (String taskPath : taskPaths) {
+                    Long executionTime = executionTimeCache.get(taskPath);
+                    if (executionTime != null) {
+                        executionTimes.put(taskPath, executionTime);
+                    }
+                }
+                return executionTimes;
+            }
+        });
+    }
+
+    public void recordExecutionTimes(final Map<String, Long> executionTimes) {
+        if (executionTimes.isEmpty()) {
+            return;
+        }
+        cacheAccess.useCache("Store task execution times", new Runnable() {
+            public void run() {
+                for (Map.Entry<String, Long> entry : executionTimes.entrySet()) {
+                    executionTimeCache.put(entry.getKey(), entry.getValue());
+                }
+            }
+        });
+    }
+}
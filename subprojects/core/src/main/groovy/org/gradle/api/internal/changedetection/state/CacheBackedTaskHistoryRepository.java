@@ -17,6 +17,8 @@ package org.gradle.api.internal.changedetection.state;
 
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.Decoder;
@@ -27,6 +29,7 @@ import java.io.File;
 import java.util.*;
 
 public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
+    private static final Logger LOGGER = Logging.getLogger(CacheBackedTaskHistoryRepository.class);
     private final TaskArtifactStateCacheAccess cacheAccess;
     private final FileSnapshotRepository snapshotRepository;
     private final PersistentIndexedCache<String, TaskHistory> taskHistoryCache;
@@ -47,11 +50,15 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         currentExecution.snapshotRepository = snapshotRepository;
         currentExecution.cacheAccess = cacheAccess;
         currentExecution.setOutputFiles(outputFiles(task));
-        final LazyTaskExecution previousExecution = findPreviousExecution(currentExecution, history);
-        if (previousExecution != null) {
-            previousExecution.snapshotRepository = snapshotRepository;
-            previousExecution.cacheAccess = cacheAccess;
+        LazyTaskExecution bestMatch = findPreviousExecution(currentExecution, history);
+        if (bestMatch != null) {
+            bestMatch.snapshotRepository = snapshotRepository;
+            bestMatch.cacheAccess = cacheAccess;
+            if (!loadSnapshots(task, history, bestMatch)) {
+                bestMatch = null;
+            }
         }
+        final LazyTaskExecution previousExecution = bestMatch;
 
         return new History() {
             public TaskExecution getPreviousExecution() {
@@ -110,6 +117,23 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         });
     }
 
+    /**
+     * Loads the file snapshots of the given execution. Discards the execution when one of its snapshots is missing, which can happen when the process
+     * stops before all the snapshots have been written, so that the task is considered out-of-date.
+     */
+    private boolean loadSnapshots(final TaskInternal task, final TaskHistory history, final LazyTaskExecution execution) {
+        return cacheAccess.useCache("Load task history snapshots", new Factory<Boolean>() {
+            public Boolean create() {
+                if (execution.loadSnapshots()) {
+                    return true;
+                }
+                LOGGER.info("Discarding task history of {} as a file snapshot is missing.", task);
+                history.configurations.remove(execution);
+                return false;
+            }
+        });
+    }
+
     private Set<String> outputFiles(TaskInternal task) {
         Set<String> outputFiles = new HashSet<String>();
         for (File file : task.getOutputs().getFiles()) {
@@ -181,13 +205,23 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         }
     }
 
-    private static class TaskHistory {
+    private static class TaskHistory implements EstimatedSize {
         private static final int MAX_HISTORY_ENTRIES = 3;
         private final List<LazyTaskExecution> configurations = new ArrayList<LazyTaskExecution>();
         public String toString() {
             return super.toString() + "[" + configurations.size() + "]";
         }
 
+        public long getEstimatedSize() {
+            // The file snapshots of an execution are counted by the file snapshot cache, which holds the same instances
+            long size = 64;
+            for (LazyTaskExecution execution : configurations) {
+                size += 96 + HeapSizeEstimator.estimateSize(execution.getTaskClass()) + HeapSizeEstimator.estimateSize(execution.getInputProperties())
+                    + HeapSizeEstimator.estimateSize(execution.getOutputFiles());
+            }
+            return size;
+        }
+
         public void beforeSerialized() {
             //cleaning up the transient fields, so that any in-memory caching is happy
             for (LazyTaskExecution c : configurations) {
@@ -208,6 +242,22 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         private transient FileCollectionSnapshot discoveredFilesSnapshot;
         private transient TaskArtifactStateCacheAccess cacheAccess;
 
+        /**
+         * Loads the file snapshots of this execution. Returns false when one of the snapshots is not available.
+         */
+        boolean loadSnapshots() {
+            if (inputFilesSnapshot == null) {
+                inputFilesSnapshot = snapshotRepository.get(inputFilesSnapshotId);
+            }
+            if (outputFilesSnapshot == null) {
+                outputFilesSnapshot = snapshotRepository.get(outputFilesSnapshotId);
+            }
+            if (discoveredFilesSnapshot == null) {
+                discoveredFilesSnapshot = snapshotRepository.get(discoveredFilesSnapshotId);
+            }
+            return inputFilesSnapshot != null && outputFilesSnapshot != null && discoveredFilesSnapshot != null;
+        }
+
         @Override
         public FileCollectionSnapshot getInputFilesSnapshot() {
             if (inputFilesSnapshot == null) {
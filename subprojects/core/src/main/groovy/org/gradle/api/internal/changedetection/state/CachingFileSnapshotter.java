@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.hash.Hasher;
@@ -47,17 +48,68 @@ public class CachingFileSnapshotter implements FileSnapshotter {
     }
 
     private FileInfo snapshot(File file, long length, long timestamp) {
-        String absolutePath = file.getAbsolutePath();
-        FileInfo info = cache.get(absolutePath);
+        FileInfo info = lookup(file, length, timestamp);
+        if (info != null) {
+            return info;
+        }
+
+        info = hash(file, length, timestamp);
+        store(file, info);
+        return info;
+    }
+
+    /**
+     * Returns the cached snapshot of the given file, or null when there is none or the file has changed since it was taken. Must be called while holding the cache.
+     */
+    @Nullable
+    public FileInfo lookup(FileTreeElement file) {
+        return lookup(file.getFile(), file.getSize(), file.getLastModified());
+    }
+
+    /**
+     * Returns the snapshot of the given file when it is held in memory and the file has not changed since it was taken, or null otherwise. Can be called
+     * from any thread, without holding the cache. When this method returns null, use {@link #lookup(FileTreeElement)} to look up the snapshot.
+     */
+    @Nullable
+    public FileInfo lookupInMemory(FileTreeElement file) {
+        if (!(cache instanceof InMemoryPersistentIndexedCache)) {
+            return null;
+        }
+        FileInfo info = ((InMemoryPersistentIndexedCache<String, FileInfo>) cache).getIfInMemory(file.getFile().getAbsolutePath());
+        if (info != null && file.getSize() == info.length && file.getLastModified() == info.timestamp) {
+            return info;
+        }
+        return null;
+    }
+
+    /**
+     * Hashes the given file without consulting or updating the cache. Can be called from any thread.
+     */
+    public FileInfo hash(FileTreeElement file) {
+        return hash(file.getFile(), file.getSize(), file.getLastModified());
+    }
+
+    /**
+     * Stores a snapshot previously created by {@link #hash(FileTreeElement)}. Must be called while holding the cache.
+     */
+    public void store(FileTreeElement file, FileInfo info) {
+        store(file.getFile(), info);
+    }
 
+    private FileInfo lookup(File file, long length, long timestamp) {
+        FileInfo info = cache.get(file.getAbsolutePath());
         if (info != null && length == info.length && timestamp == info.timestamp) {
             return info;
         }
+        return null;
+    }
 
-        byte[] hash = hasher.hash(file);
-        info = new FileInfo(hash, length, timestamp);
-        cache.put(stringInterner.intern(absolutePath), info);
-        return info;
+    private FileInfo hash(File file, long length, long timestamp) {
+        return new FileInfo(hasher.hash(file), length, timestamp);
+    }
+
+    private void store(File file, FileInfo info) {
+        cache.put(stringInterner.intern(file.getAbsolutePath()), info);
     }
 
     public static class FileInfo implements FileSnapshot {
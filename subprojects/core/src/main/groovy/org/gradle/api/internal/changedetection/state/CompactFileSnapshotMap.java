@@ -0,0 +1,300 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter.DirSnapshot;
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter.FileHashSnapshot;
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter.IncrementalFileSnapshot;
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter.MissingFileSnapshot;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map from absolute path to file snapshot, laid out to keep the retained heap of cached task history small.
+ *
+ * <p>Entries are kept sorted by path. Each path is stored as the number of characters it shares with the previous path plus the remaining characters,
+ * which are packed into a single char array. Every {@value #RESTART_INTERVAL}th path is stored in full, so a path can be located with a binary search
+ * over these restart points followed by a short forward scan. File hashes are packed into a single byte array.</p>
+ */
+class CompactFileSnapshotMap extends AbstractMap<String, IncrementalFileSnapshot> implements EstimatedSize {
+    static final int RESTART_INTERVAL = 16;
+    static final byte DIR = 1;
+    static final byte MISSING = 2;
+    static final byte FILE = 3;
+    static final CompactFileSnapshotMap EMPTY = new CompactFileSnapshotMap(0, new char[0], new int[1], new int[0], new byte[0], new byte[0], new int[1]);
+
+    private final int size;
+    final char[] pathChars;
+    final int[] suffixOffsets;
+    final int[] prefixLengths;
+    final byte[] kinds;
+    final byte[] hashes;
+    final int[] hashOffsets;
+
+    /**
+     * The path of entry {@code i} is the first {@code prefixLengths[i]} characters of the path of entry {@code i - 1}, followed by the characters of
+     * {@code pathChars} from {@code suffixOffsets[i]} to {@code suffixOffsets[i + 1]}. The hash of entry {@code i} is the bytes of {@code hashes}
+     * from {@code hashOffsets[i]} to {@code hashOffsets[i + 1]}.
+     */
+    CompactFileSnapshotMap(int size, char[] pathChars, int[] suffixOffsets, int[] prefixLengths, byte[] kinds, byte[] hashes, int[] hashOffsets) {
+        this.size = size;
+        this.pathChars = pathChars;
+        this.suffixOffsets = suffixOffsets;
+        this.prefixLengths = prefixLengths;
+        this.kinds = kinds;
+        this.hashes = hashes;
+        this.hashOffsets = hashOffsets;
+    }
+
+    /**
+     * Returns a compact copy of the given snapshots.
+     */
+    static CompactFileSnapshotMap of(Map<String, IncrementalFileSnapshot> snapshots) {
+        if (snapshots instanceof CompactFileSnapshotMap) {
+            return (CompactFileSnapshotMap) snapshots;
+        }
+        if (snapshots.isEmpty()) {
+            return EMPTY;
+        }
+        String[] paths = snapshots.keySet().toArray(new String[snapshots.size()]);
+        Arrays.sort(paths);
+        Builder builder = new Builder(paths.length);
+        for (String path : paths) {
+            builder.add(path, snapshots.get(path));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public long getEstimatedSize() {
+        // Object header and fields, plus an array header for each array
+        return 48 + 6 * 16 + 2L * pathChars.length + 4L * (suffixOffsets.length + prefixLengths.length + hashOffsets.length) + kinds.length + hashes.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public IncrementalFileSnapshot get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int index = indexOf((String) key);
+        return index < 0 ? null : snapshotAt(index);
+    }
+
+    @Override
+    public Set<Entry<String, IncrementalFileSnapshot>> entrySet() {
+        return new AbstractSet<Entry<String, IncrementalFileSnapshot>>() {
+            @Override
+            public Iterator<Entry<String, IncrementalFileSnapshot>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(String path) {
+        // Find the last restart point whose path is not greater than the given path
+        int low = 0;
+        int high = (size - 1) / RESTART_INTERVAL;
+        int restart = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int index = mid * RESTART_INTERVAL;
+            int comparison = compare(pathChars, suffixOffsets[index], suffixOffsets[index + 1], path);
+            if (comparison == 0) {
+                return index;
+            }
+            if (comparison < 0) {
+                restart = index;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (restart < 0) {
+            return -1;
+        }
+
+        // Scan forward from the restart point, rebuilding each path from its predecessor
+        char[] current = new char[Math.max(path.length(), 64)];
+        int end = Math.min(size, restart + RESTART_INTERVAL);
+        int currentLength = 0;
+        for (int index = restart; index < end; index++) {
+            int prefixLength = prefixLengths[index];
+            int suffixStart = suffixOffsets[index];
+            int suffixLength = suffixOffsets[index + 1] - suffixStart;
+            currentLength = prefixLength + suffixLength;
+            if (currentLength > current.length) {
+                current = Arrays.copyOf(current, Math.max(currentLength, current.length * 2));
+            }
+            System.arraycopy(pathChars, suffixStart, current, prefixLength, suffixLength);
+            if (index == restart) {
+                continue;
+            }
+            int comparison = compare(current, 0, currentLength, path);
+            if (comparison == 0) {
+                return index;
+            }
+            if (comparison > 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int compare(char[] chars, int start, int end, String path) {
+        int length = end - start;
+        int common = Math.min(length, path.length());
+        for (int i = 0; i < common; i++) {
+            char c1 = chars[start + i];
+            char c2 = path.charAt(i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return length - path.length();
+    }
+
+    private IncrementalFileSnapshot snapshotAt(int index) {
+        switch (kinds[index]) {
+            case DIR:
+                return DirSnapshot.getInstance();
+            case MISSING:
+                return MissingFileSnapshot.getInstance();
+            default:
+                return new FileHashSnapshot(Arrays.copyOfRange(hashes, hashOffsets[index], hashOffsets[index + 1]));
+        }
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, IncrementalFileSnapshot>> {
+        private final StringBuilder path = new StringBuilder();
+        private int next;
+
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        public Entry<String, IncrementalFileSnapshot> next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            path.setLength(prefixLengths[next]);
+            path.append(pathChars, suffixOffsets[next], suffixOffsets[next + 1] - suffixOffsets[next]);
+            Entry<String, IncrementalFileSnapshot> entry = new SimpleImmutableEntry<String, IncrementalFileSnapshot>(path.toString(), snapshotAt(next));
+            next++;
+            return entry;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Builds a map from entries added in path order.
+     */
+    static class Builder {
+        private final int size;
+        private final int[] suffixOffsets;
+        private final int[] prefixLengths;
+        private final byte[] kinds;
+        private final int[] hashOffsets;
+        private char[] pathChars = new char[1024];
+        private byte[] hashes = new byte[256];
+        private String previous;
+        private int count;
+
+        Builder(int size) {
+            this.size = size;
+            suffixOffsets = new int[size + 1];
+            prefixLengths = new int[size];
+            kinds = new byte[size];
+            hashOffsets = new int[size + 1];
+        }
+
+        void add(String path, IncrementalFileSnapshot snapshot) {
+            if (previous != null && previous.compareTo(path) >= 0) {
+                throw new IllegalArgumentException(String.format("Path '%s' added out of order.", path));
+            }
+            int prefixLength = count % RESTART_INTERVAL == 0 ? 0 : commonPrefixLength(previous, path);
+            int suffixLength = path.length() - prefixLength;
+            pathChars = ensureCapacity(pathChars, suffixOffsets[count] + suffixLength);
+            path.getChars(prefixLength, path.length(), pathChars, suffixOffsets[count]);
+            suffixOffsets[count + 1] = suffixOffsets[count] + suffixLength;
+            prefixLengths[count] = prefixLength;
+
+            int hashOffset = hashOffsets[count];
+            if (snapshot instanceof DirSnapshot) {
+                kinds[count] = DIR;
+            } else if (snapshot instanceof MissingFileSnapshot) {
+                kinds[count] = MISSING;
+            } else {
+                byte[] hash = ((FileHashSnapshot) snapshot).hash;
+                kinds[count] = FILE;
+                hashes = ensureCapacity(hashes, hashOffset + hash.length);
+                System.arraycopy(hash, 0, hashes, hashOffset, hash.length);
+                hashOffset += hash.length;
+            }
+            hashOffsets[count + 1] = hashOffset;
+
+            previous = path;
+            count++;
+        }
+
+        CompactFileSnapshotMap build() {
+            if (count != size) {
+                throw new IllegalStateException(String.format("Expected %s entries but %s were added.", size, count));
+            }
+            return new CompactFileSnapshotMap(size, Arrays.copyOf(pathChars, suffixOffsets[size]), suffixOffsets, prefixLengths, kinds, Arrays.copyOf(hashes, hashOffsets[size]), hashOffsets);
+        }
+
+        private static int commonPrefixLength(String s1, String s2) {
+            int max = Math.min(s1.length(), s2.length());
+            int i = 0;
+            while (i < max && s1.charAt(i) == s2.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+
+        private static char[] ensureCapacity(char[] chars, int capacity) {
+            return capacity <= chars.length ? chars : Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+        }
+
+        private static byte[] ensureCapacity(byte[] bytes, int capacity) {
+            return capacity <= bytes.length ? bytes : Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.changedetection.state;
 
 import com.google.common.collect.Lists;
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
@@ -37,16 +38,29 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
     private TaskArtifactStateCacheAccess cacheAccess;
     private final StringInterner stringInterner;
     private final FileResolver fileResolver;
+    private final ParallelFileHasher parallelFileHasher;
+    private final DirectoryTreeSnapshotCache directoryTreeCache;
 
     public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, FileResolver fileResolver) {
+        this(snapshotter, cacheAccess, stringInterner, fileResolver, null, null);
+    }
+
+    /**
+     * @param parallelFileHasher used to hash files concurrently with the walk of the file collection. When null, files are hashed one at a time by the given snapshotter.
+     * @param directoryTreeCache used to visit directory trees. When null, each directory tree is walked every time it is snapshotted.
+     */
+    public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, FileResolver fileResolver,
+                                            @Nullable ParallelFileHasher parallelFileHasher, @Nullable DirectoryTreeSnapshotCache directoryTreeCache) {
         this.snapshotter = snapshotter;
         this.cacheAccess = cacheAccess;
         this.stringInterner = stringInterner;
         this.fileResolver = fileResolver;
+        this.parallelFileHasher = parallelFileHasher;
+        this.directoryTreeCache = directoryTreeCache;
     }
 
     public void registerSerializers(SerializerRegistry<FileCollectionSnapshot> registry) {
-        registry.register(FileCollectionSnapshotImpl.class, new DefaultFileSnapshotterSerializer(stringInterner));
+        registry.register(FileCollectionSnapshotImpl.class, new DefaultFileSnapshotterSerializer());
     }
 
     public FileCollectionSnapshot emptySnapshot() {
@@ -54,26 +68,51 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
     }
 
     public FileCollectionSnapshot snapshot(final FileCollection input) {
-        final List<FileVisitDetails> allFileVisitDetails = Lists.newLinkedList();
+        final List<FileVisitDetails> allFileVisitDetails = Lists.newArrayList();
+        final List<FileSnapshot> fileSnapshots = Lists.newArrayList();
         final List<File> missingFiles = Lists.newArrayList();
+        final ParallelFileHasher.Batch batch = parallelFileHasher == null ? null : parallelFileHasher.newBatch();
+
+        visitFiles(input, new FileVisitor() {
+            @Override
+            public void visitDir(FileVisitDetails dirDetails) {
+                visit(dirDetails);
+            }
 
-        visitFiles(input, allFileVisitDetails, missingFiles);
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                visit(fileDetails);
+            }
+
+            private void visit(FileVisitDetails details) {
+                allFileVisitDetails.add(details);
+                if (batch != null) {
+                    fileSnapshots.add(details.isDirectory() ? null : batch.add(details));
+                }
+            }
+        }, missingFiles);
 
         if (allFileVisitDetails.isEmpty() && missingFiles.isEmpty()) {
             return new FileCollectionSnapshotImpl(Collections.<String, IncrementalFileSnapshot>emptyMap());
         }
 
+        if (batch != null) {
+            batch.finish();
+        }
+
         final Map<String, IncrementalFileSnapshot> snapshots = new HashMap<String, IncrementalFileSnapshot>();
 
-        cacheAccess.useCache("Create file snapshot", new Runnable() {
+        Runnable createSnapshots = new Runnable() {
             public void run() {
-                for (FileVisitDetails fileDetails : allFileVisitDetails) {
+                for (int i = 0; i < allFileVisitDetails.size(); i++) {
+                    FileVisitDetails fileDetails = allFileVisitDetails.get(i);
                     final String absolutePath = stringInterner.intern(fileDetails.getFile().getAbsolutePath());
                     if (!snapshots.containsKey(absolutePath)) {
                         if (fileDetails.isDirectory()) {
                             snapshots.put(absolutePath, DirSnapshot.getInstance());
                         } else {
-                            snapshots.put(absolutePath, new FileHashSnapshot(snapshotter.snapshot(fileDetails).getHash()));
+                            FileSnapshot fileSnapshot = batch != null ? fileSnapshots.get(i) : snapshotter.snapshot(fileDetails);
+                            snapshots.put(absolutePath, new FileHashSnapshot(fileSnapshot.getHash()));
                         }
                     }
                 }
@@ -84,28 +123,28 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
                     }
                 }
             }
-        });
+        };
+        if (batch != null) {
+            // The files have already been hashed, so there's no need to hold the cache
+            createSnapshots.run();
+        } else {
+            cacheAccess.useCache("Create file snapshot", createSnapshots);
+        }
 
         return new FileCollectionSnapshotImpl(snapshots);
     }
 
-    protected void visitFiles(FileCollection input, final List<FileVisitDetails> allFileVisitDetails, final List<File> missingFiles) {
+    protected void visitFiles(FileCollection input, FileVisitor visitor, List<File> missingFiles) {
         DefaultFileCollectionResolveContext context = new DefaultFileCollectionResolveContext(fileResolver);
         context.add(input);
         List<FileTreeInternal> fileTrees = context.resolveAsFileTrees();
 
         for (FileTreeInternal fileTree : fileTrees) {
-            fileTree.visitTreeOrBackingFile(new FileVisitor() {
-                @Override
-                public void visitDir(FileVisitDetails dirDetails) {
-                    allFileVisitDetails.add(dirDetails);
-                }
-
-                @Override
-                public void visitFile(FileVisitDetails fileDetails) {
-                    allFileVisitDetails.add(fileDetails);
-                }
-            });
+            if (directoryTreeCache != null) {
+                directoryTreeCache.visit(fileTree, visitor);
+            } else {
+                fileTree.visitTreeOrBackingFile(visitor);
+            }
         }
     }
 
@@ -168,11 +207,15 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         }
     }
 
-    static class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
-        final Map<String, IncrementalFileSnapshot> snapshots;
+    static class FileCollectionSnapshotImpl implements FileCollectionSnapshot, EstimatedSize {
+        final CompactFileSnapshotMap snapshots;
 
         public FileCollectionSnapshotImpl(Map<String, IncrementalFileSnapshot> snapshots) {
-            this.snapshots = snapshots;
+            this.snapshots = CompactFileSnapshotMap.of(snapshots);
+        }
+
+        public long getEstimatedSize() {
+            return 16 + snapshots.getEstimatedSize();
         }
 
         public List<File> getFiles() {
@@ -199,34 +242,31 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
 
         public ChangeIterator<String> iterateChangesSince(FileCollectionSnapshot oldSnapshot) {
             FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
-            final Map<String, IncrementalFileSnapshot> otherSnapshots = new HashMap<String, IncrementalFileSnapshot>(other.snapshots);
-            final Iterator<String> currentFiles = snapshots.keySet().iterator();
+            final CompactFileSnapshotMap otherSnapshots = other.snapshots;
+            final Iterator<Map.Entry<String, IncrementalFileSnapshot>> currentFiles = snapshots.entrySet().iterator();
+            final Iterator<String> otherFiles = otherSnapshots.keySet().iterator();
 
             return new ChangeIterator<String>() {
-                private Iterator<String> removedFiles;
-
                 public boolean next(ChangeListener<String> listener) {
                     while (currentFiles.hasNext()) {
-                        String currentFile = currentFiles.next();
-                        IncrementalFileSnapshot otherFile = otherSnapshots.remove(currentFile);
+                        Map.Entry<String, IncrementalFileSnapshot> currentFile = currentFiles.next();
+                        IncrementalFileSnapshot otherFile = otherSnapshots.get(currentFile.getKey());
 
                         if (otherFile == null) {
-                            listener.added(currentFile);
+                            listener.added(currentFile.getKey());
                             return true;
-                        } else if (!snapshots.get(currentFile).isUpToDate(otherFile)) {
-                            listener.changed(currentFile);
+                        } else if (!currentFile.getValue().isUpToDate(otherFile)) {
+                            listener.changed(currentFile.getKey());
                             return true;
                         }
                     }
 
-                    // Create a single iterator to use for all of the removed files
-                    if (removedFiles == null) {
-                        removedFiles = otherSnapshots.keySet().iterator();
-                    }
-
-                    if (removedFiles.hasNext()) {
-                        listener.removed(removedFiles.next());
-                        return true;
+                    while (otherFiles.hasNext()) {
+                        String otherFile = otherFiles.next();
+                        if (!snapshots.containsKey(otherFile)) {
+                            listener.removed(otherFile);
+                            return true;
+                        }
                     }
 
                     return false;
@@ -16,59 +16,84 @@
 
 package org.gradle.api.internal.changedetection.state;
 
-import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.Serializer;
 
-import java.util.HashMap;
-import java.util.Map;
-
+/**
+ * Writes the {@link CompactFileSnapshotMap} of a snapshot as it is laid out in memory, so that reading a snapshot does not create an object per file.
+ *
+ * <p>The path characters are written as UTF-16 code units rather than encoded, as a shared prefix can end between the two halves of a surrogate pair.</p>
+ */
 class DefaultFileSnapshotterSerializer implements Serializer<DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl> {
-    private final StringInterner stringInterner;
-
-    public DefaultFileSnapshotterSerializer(StringInterner stringInterner) {
-        this.stringInterner = stringInterner;
-    }
 
     public DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl read(Decoder decoder) throws Exception {
-        Map<String, DefaultFileCollectionSnapshotter.IncrementalFileSnapshot> snapshots = new HashMap<String, DefaultFileCollectionSnapshotter.IncrementalFileSnapshot>();
-        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl snapshot = new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(snapshots);
-        int snapshotsCount = decoder.readSmallInt();
-        for (int i = 0; i < snapshotsCount; i++) {
-            String key = stringInterner.intern(decoder.readString());
+        int size = decoder.readSmallInt();
+        if (size == 0) {
+            return new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(CompactFileSnapshotMap.EMPTY);
+        }
+        char[] pathChars = readChars(decoder.readBinary());
+        int[] suffixOffsets = new int[size + 1];
+        int[] prefixLengths = new int[size];
+        byte[] kinds = new byte[size];
+        int[] hashOffsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            prefixLengths[i] = decoder.readSmallInt();
+            suffixOffsets[i + 1] = suffixOffsets[i] + decoder.readSmallInt();
             byte fileSnapshotKind = decoder.readByte();
-            if (fileSnapshotKind == 1) {
-                snapshots.put(key, DefaultFileCollectionSnapshotter.DirSnapshot.getInstance());
-            } else if (fileSnapshotKind == 2) {
-                snapshots.put(key, DefaultFileCollectionSnapshotter.MissingFileSnapshot.getInstance());
-            } else if (fileSnapshotKind == 3) {
-                byte hashSize = decoder.readByte();
-                byte[] hash = new byte[hashSize];
-                decoder.readBytes(hash);
-                snapshots.put(key, new DefaultFileCollectionSnapshotter.FileHashSnapshot(hash));
+            if (fileSnapshotKind == CompactFileSnapshotMap.DIR || fileSnapshotKind == CompactFileSnapshotMap.MISSING) {
+                hashOffsets[i + 1] = hashOffsets[i];
+            } else if (fileSnapshotKind == CompactFileSnapshotMap.FILE) {
+                hashOffsets[i + 1] = hashOffsets[i] + (decoder.readByte() & 0xff);
             } else {
                 throw new RuntimeException("Unable to read serialized file collection snapshot. Unrecognized value found in the data stream.");
             }
+            kinds[i] = fileSnapshotKind;
         }
-        return snapshot;
+        if (suffixOffsets[size] != pathChars.length) {
+            throw new RuntimeException("Unable to read serialized file collection snapshot. Path data has unexpected length.");
+        }
+        byte[] hashes = new byte[hashOffsets[size]];
+        decoder.readBytes(hashes);
+        return new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(new CompactFileSnapshotMap(size, pathChars, suffixOffsets, prefixLengths, kinds, hashes, hashOffsets));
     }
 
     public void write(Encoder encoder, DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl value) throws Exception {
-        encoder.writeSmallInt(value.snapshots.size());
-        for (String key : value.snapshots.keySet()) {
-            encoder.writeString(key);
-            DefaultFileCollectionSnapshotter.IncrementalFileSnapshot incrementalFileSnapshot = value.snapshots.get(key);
-            if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.DirSnapshot) {
-                encoder.writeByte((byte) 1);
-            } else if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot) {
-                encoder.writeByte((byte) 2);
-            } else if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.FileHashSnapshot) {
-                encoder.writeByte((byte) 3);
-                byte[] hash = ((DefaultFileCollectionSnapshotter.FileHashSnapshot) incrementalFileSnapshot).hash;
-                encoder.writeByte((byte) hash.length);
-                encoder.writeBytes(hash);
+        CompactFileSnapshotMap snapshots = value.snapshots;
+        int size = snapshots.size();
+        encoder.writeSmallInt(size);
+        if (size == 0) {
+            return;
+        }
+        encoder.writeBinary(toBytes(snapshots.pathChars));
+        for (int i = 0; i < size; i++) {
+            encoder.writeSmallInt(snapshots.prefixLengths[i]);
+            encoder.writeSmallInt(snapshots.suffixOffsets[i + 1] - snapshots.suffixOffsets[i]);
+            encoder.writeByte(snapshots.kinds[i]);
+            if (snapshots.kinds[i] == CompactFileSnapshotMap.FILE) {
+                encoder.writeByte((byte) (snapshots.hashOffsets[i + 1] - snapshots.hashOffsets[i]));
             }
         }
+        encoder.writeBytes(snapshots.hashes);
+    }
+
+    private static byte[] toBytes(char[] chars) {
+        byte[] bytes = new byte[chars.length * 2];
+        for (int i = 0; i < chars.length; i++) {
+            bytes[2 * i] = (byte) (chars[i] >> 8);
+            bytes[2 * i + 1] = (byte) chars[i];
+        }
+        return bytes;
+    }
+
+    private static char[] readChars(byte[] bytes) {
+        if (bytes.length % 2 != 0) {
+            throw new RuntimeException("Unable to read serialized file collection snapshot. Path data has unexpected length.");
+        }
+        char[] chars = new char[bytes.length / 2];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (((bytes[2 * i] & 0xff) << 8) | (bytes[2 * i + 1] & 0xff));
+        }
+        return chars;
     }
 }
@@ -15,6 +15,8 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.collect.ImmutableMap;
+import org.gradle.api.internal.hash.FileHashAlgorithm;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.PersistentCache;
@@ -30,13 +32,23 @@ import java.io.Closeable;
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
 public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCacheAccess, Closeable {
+    /**
+     * When set to true, the task history caches append updates to a log that is compacted in the background, rather than updating a B-tree in place.
+     */
+    public static final String LOG_STRUCTURED_TOGGLE = "org.gradle.taskhistory.logstructured";
+    // Increment when the serialized form of the task history changes within a Gradle version
+    private static final int CACHE_FORMAT_VERSION = 2;
+    private final boolean logStructured = Boolean.getBoolean(LOG_STRUCTURED_TOGGLE);
     private final CacheDecorator inMemoryDecorator;
     private final PersistentCache cache;
 
-    public DefaultTaskArtifactStateCacheAccess(Gradle gradle, CacheRepository cacheRepository, CacheDecorator decorator) {
+    public DefaultTaskArtifactStateCacheAccess(Gradle gradle, CacheRepository cacheRepository, CacheDecorator decorator, FileHashAlgorithm fileHashAlgorithm) {
         this.inMemoryDecorator = decorator;
         cache = cacheRepository
                 .cache(gradle, "taskArtifacts")
+                .withProperties(ImmutableMap.of(
+                    "fileHashFormat", fileHashAlgorithm.getFormatVersion(), // Discard file hashes and task history created using a different hash algorithm
+                    "formatVersion", CACHE_FORMAT_VERSION))
                 .withDisplayName("task history cache")
                 .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
                 .open();
@@ -49,6 +61,9 @@ public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCac
     public <K, V> PersistentIndexedCache<K, V> createCache(final String cacheName, final Class<K> keyType, final Serializer<V> valueSerializer) {
         PersistentIndexedCacheParameters<K, V> parameters = new PersistentIndexedCacheParameters<K, V>(cacheName, keyType, valueSerializer)
                 .cacheDecorator(inMemoryDecorator);
+        if (logStructured) {
+            parameters.logStructured();
+        }
         return cache.createCache(parameters);
     }
 
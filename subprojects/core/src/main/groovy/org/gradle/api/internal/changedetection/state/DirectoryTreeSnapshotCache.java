@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.Task;
+import org.gradle.api.execution.TaskActionListener;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.file.FileTreeInternal;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.internal.file.collections.FileTreeAdapter;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches the contents of the directory trees visited while snapshotting task inputs and outputs, so that each directory tree is walked once per build
+ * rather than once for each task that uses it.
+ *
+ * <p>Entries are keyed by root directory and patterns, and each walk applies the tree's patterns, so excluded directories are neither walked nor held in
+ * memory.</p>
+ *
+ * <p>An entry is discarded when a task that declares an output in, above or below its root performs its actions. A task that declares no outputs
+ * might change any file, so all entries are discarded when such a task performs its actions.</p>
+ */
+public class DirectoryTreeSnapshotCache implements TaskActionListener {
+    private final Map<WalkKey, List<FileVisitDetails>> walks = new HashMap<WalkKey, List<FileVisitDetails>>();
+    private long generation;
+
+    /**
+     * Visits the given file tree, using the cached contents of the tree when it is a plain directory tree.
+     */
+    public void visit(FileTreeInternal fileTree, FileVisitor visitor) {
+        DirectoryFileTree directoryTree = toDirectoryTree(fileTree);
+        if (directoryTree == null || !directoryTree.getDir().isDirectory()) {
+            fileTree.visitTreeOrBackingFile(visitor);
+            return;
+        }
+        for (FileVisitDetails details : getContents(directoryTree)) {
+            if (details.isDirectory()) {
+                visitor.visitDir(details);
+            } else {
+                visitor.visitFile(details);
+            }
+        }
+    }
+
+    public void beforeActions(Task task) {
+        invalidate(task);
+    }
+
+    public void afterActions(Task task) {
+        invalidate(task);
+    }
+
+    private void invalidate(Task task) {
+        if (!task.getOutputs().getHasOutput()) {
+            synchronized (this) {
+                generation++;
+                walks.clear();
+            }
+            return;
+        }
+        List<String> outputPaths = new ArrayList<String>();
+        for (File outputFile : task.getOutputs().getFiles()) {
+            outputPaths.add(GFileUtils.canonicalise(outputFile).getPath());
+        }
+        synchronized (this) {
+            generation++;
+            for (Iterator<WalkKey> iterator = walks.keySet().iterator(); iterator.hasNext();) {
+                String rootPath = iterator.next().root.getPath();
+                for (String outputPath : outputPaths) {
+                    if (isSameOrAncestor(rootPath, outputPath) || isSameOrAncestor(outputPath, rootPath)) {
+                        iterator.remove();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isSameOrAncestor(String ancestor, String path) {
+        return path.startsWith(ancestor) && (path.length() == ancestor.length() || path.charAt(ancestor.length()) == File.separatorChar || ancestor.endsWith(File.separator));
+    }
+
+    private static DirectoryFileTree toDirectoryTree(FileTreeInternal fileTree) {
+        if (!(fileTree instanceof FileTreeAdapter)) {
+            return null;
+        }
+        Object tree = ((FileTreeAdapter) fileTree).getTree();
+        // Subclasses may visit something other than the contents of the directory
+        if (tree.getClass() != DirectoryFileTree.class) {
+            return null;
+        }
+        DirectoryFileTree directoryTree = (DirectoryFileTree) tree;
+        // A copy of an intersection of patterns never equals another copy, so such trees would never share a walk
+        if (directoryTree.getPatterns().getClass() != PatternSet.class) {
+            return null;
+        }
+        return directoryTree;
+    }
+
+    /**
+     * Returns the contents of the given tree, walking it when it is not cached.
+     */
+    private List<FileVisitDetails> getContents(DirectoryFileTree directoryTree) {
+        // Copy the patterns, as they may be changed after the tree has been walked
+        WalkKey key = new WalkKey(directoryTree.getDir(), new PatternSet().copyFrom(directoryTree.getPatterns()));
+        long walkGeneration;
+        synchronized (this) {
+            List<FileVisitDetails> contents = walks.get(key);
+            if (contents != null) {
+                return contents;
+            }
+            walkGeneration = generation;
+        }
+
+        final List<FileVisitDetails> contents = new ArrayList<FileVisitDetails>();
+        new DirectoryFileTree(key.root, key.patterns).visit(new FileVisitor() {
+            public void visitDir(FileVisitDetails dirDetails) {
+                contents.add(dirDetails);
+            }
+
+            public void visitFile(FileVisitDetails fileDetails) {
+                contents.add(fileDetails);
+            }
+        });
+
+        synchronized (this) {
+            // Don't cache the walk if a task may have changed the directory while it was being walked
+            if (walkGeneration == generation) {
+                walks.put(key, contents);
+            }
+        }
+        return contents;
+    }
+
+    private static class WalkKey {
+        private final File root;
+        private final PatternSet patterns;
+
+        WalkKey(File root, PatternSet patterns) {
+            this.root = root;
+            this.patterns = patterns;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            WalkKey other = (WalkKey) o;
+            return root.equals(other.root) && patterns.equals(other.patterns);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * root.hashCode() + patterns.hashCode();
+        }
+    }
+}
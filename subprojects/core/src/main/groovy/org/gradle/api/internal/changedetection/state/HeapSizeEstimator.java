@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Estimates the heap retained by the keys and values of the task history caches.
+ *
+ * <p>The estimates assume a 64-bit JVM with compressed object pointers. Values that implement {@link EstimatedSize} estimate their own size.
+ * Values of other types are counted as a small object.</p>
+ */
+public class HeapSizeEstimator {
+    private static final int OBJECT_SIZE = 32;
+    private static final int MAP_ENTRY_SIZE = 32;
+    private static final int COLLECTION_ELEMENT_SIZE = 8;
+
+    private HeapSizeEstimator() {
+    }
+
+    public static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof EstimatedSize) {
+            return ((EstimatedSize) value).getEstimatedSize();
+        }
+        if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        }
+        if (value instanceof File) {
+            return 56 + 2L * ((File) value).getPath().length();
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return 16;
+        }
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        if (value instanceof CachingFileSnapshotter.FileInfo) {
+            return 32 + estimateSize(((CachingFileSnapshotter.FileInfo) value).getHash());
+        }
+        if (value instanceof Map) {
+            long size = 64;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += MAP_ENTRY_SIZE + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            long size = 40;
+            for (Object element : (Collection<?>) value) {
+                size += COLLECTION_ELEMENT_SIZE + estimateSize(element);
+            }
+            return size;
+        }
+        return OBJECT_SIZE;
+    }
+}
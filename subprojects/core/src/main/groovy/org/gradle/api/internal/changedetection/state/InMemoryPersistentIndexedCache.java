@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.Nullable;
+import org.gradle.cache.PersistentIndexedCache;
+
+/**
+ * A {@link PersistentIndexedCache} that keeps entries in memory, and can serve entries from memory without holding the cache.
+ */
+public interface InMemoryPersistentIndexedCache<K, V> extends PersistentIndexedCache<K, V> {
+    /**
+     * Returns the value of the given key when it is held in memory and known to be up-to-date, or null otherwise. Can be called from any thread, without
+     * holding the cache. When this method returns null, the value should be fetched using {@link #get(Object)} while holding the cache.
+     */
+    @Nullable
+    V getIfInMemory(K key);
+}
@@ -25,17 +25,36 @@ import org.gradle.cache.internal.CacheDecorator;
 import org.gradle.cache.internal.FileLock;
 import org.gradle.cache.internal.MultiProcessSafePersistentIndexedCache;
 
+import org.gradle.internal.util.NumberUtil;
+
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Keeps the entries of the task history caches in memory, for use by later builds in the same process.
+ *
+ * <p>The caches share a memory budget, which is proportional to the maximum heap size. Each cache is given a maximum size in estimated bytes, rather than
+ * a maximum number of entries. The maximum sizes are rebalanced when a cache is reused by a later build: a cache that has evicted entries and missed
+ * since the last rebalance grows in proportion to its miss rate, and a cache that has not filled up shrinks to what it uses. When the caches need more
+ * than the budget, they are all scaled down. A new maximum size is applied to a cache the next time it is opened.</p>
+ */
 public class InMemoryTaskArtifactCache implements CacheDecorator {
     private final static Logger LOG = Logging.getLogger(InMemoryTaskArtifactCache.class);
     private final static Object NULL = new Object();
     private static final Map<String, Integer> CACHE_CAPS = new CacheCapSizer().calculateCaps();
+    private static final Map<String, Long> CACHE_WEIGHTS = new CacheCapSizer().calculateWeightCaps();
+    // Don't rebuild a cache for a small change to its maximum size
+    private static final double RESIZE_THRESHOLD = 0.1;
+    private static final int MIN_SHARE_DIVISOR = 4;
 
     static class CacheCapSizer {
         private static final Map<String, Integer> DEFAULT_CAP_SIZES = new HashMap<String, Integer>();
+        // Typical size of an entry in bytes, used to turn the default number of entries of a cache into its default maximum size in bytes
+        private static final Map<String, Integer> TYPICAL_ENTRY_SIZES = new HashMap<String, Integer>();
 
         static {
             DEFAULT_CAP_SIZES.put("fileSnapshots", 10000);
@@ -43,6 +62,14 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
             DEFAULT_CAP_SIZES.put("outputFileStates", 3000);
             DEFAULT_CAP_SIZES.put("fileHashes", 400000);
             DEFAULT_CAP_SIZES.put("compilationState", 1000);
+            DEFAULT_CAP_SIZES.put("taskExecutionTimes", 2000);
+
+            TYPICAL_ENTRY_SIZES.put("fileSnapshots", 4096);
+            TYPICAL_ENTRY_SIZES.put("taskArtifacts", 2048);
+            TYPICAL_ENTRY_SIZES.put("outputFileStates", 512);
+            TYPICAL_ENTRY_SIZES.put("fileHashes", 384);
+            TYPICAL_ENTRY_SIZES.put("compilationState", 8192);
+            TYPICAL_ENTRY_SIZES.put("taskExecutionTimes", 128);
         }
 
         final HeapProportionalCacheSizer sizer;
@@ -62,88 +89,351 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
             }
             return capSizes;
         }
+
+        /**
+         * Calculates the maximum size of each cache in estimated bytes.
+         */
+        public Map<String, Long> calculateWeightCaps() {
+            Map<String, Long> weightCaps = new HashMap<String, Long>();
+            for (Map.Entry<String, Integer> entry : calculateCaps().entrySet()) {
+                weightCaps.put(entry.getKey(), (long) entry.getValue() * TYPICAL_ENTRY_SIZES.get(entry.getKey()));
+            }
+            return weightCaps;
+        }
+
+        static int typicalEntrySize(String cacheName) {
+            return TYPICAL_ENTRY_SIZES.get(cacheName);
+        }
     }
 
 
     private final Object lock = new Object();
-    private final Cache<String, Cache<Object, Object>> cache = CacheBuilder.newBuilder()
+    private final Cache<String, CacheData> cache = CacheBuilder.newBuilder()
             .maximumSize(CACHE_CAPS.size() * 2) //X2 to factor in a child build (for example buildSrc)
             .build();
 
     private final Map<String, FileLock.State> states = new HashMap<String, FileLock.State>();
+    private final Map<String, Long> weightCaps;
+    private final long budget;
+
+    public InMemoryTaskArtifactCache() {
+        this(CACHE_WEIGHTS);
+    }
+
+    InMemoryTaskArtifactCache(Map<String, Long> weightCaps) {
+        this.weightCaps = weightCaps;
+        long budget = 0;
+        for (Long weightCap : weightCaps.values()) {
+            budget += weightCap;
+        }
+        this.budget = budget;
+    }
 
     public <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(final String cacheId, String cacheName, final MultiProcessSafePersistentIndexedCache<K, V> original) {
-        final Cache<Object, Object> data = loadData(cacheId, cacheName);
+        final CacheData data = loadData(cacheId, cacheName);
+        return new InMemoryCache<K, V>(cacheId, data, original);
+    }
 
-        return new MultiProcessSafePersistentIndexedCache<K, V>() {
-            public void close() {
-                original.close();
+    /**
+     * Returns the statistics of each in-memory cache.
+     */
+    public List<CacheStatistics> getStatistics() {
+        List<CacheStatistics> statistics = new ArrayList<CacheStatistics>();
+        synchronized (lock) {
+            for (CacheData data : cache.asMap().values()) {
+                statistics.add(new CacheStatistics(data.cacheId, data.stats(), data.entries.size(), data.getWeight(), data.maxWeight));
             }
+        }
+        return statistics;
+    }
 
-            public V get(K key) {
-                assert key instanceof String || key instanceof Long || key instanceof File : "Unsupported key type: " + key;
-                Object value = data.getIfPresent(key);
-                if (value == NULL) {
-                    return null;
-                }
-                if (value != null) {
-                    return (V) value;
-                }
-                V out = original.get(key);
-                data.put(key, out == null ? NULL : out);
-                return out;
-            }
+    /**
+     * Serves entries from memory, and writes updates through to the backing cache.
+     *
+     * <p>While this process holds the lock on the backing cache, no other process can update it, so entries held in memory can be read without holding
+     * the cache. The entries are checked against the state of the backing cache when the lock is next acquired, which happens on the first miss after the
+     * lock has been released.</p>
+     */
+    private class InMemoryCache<K, V> implements MultiProcessSafePersistentIndexedCache<K, V>, InMemoryPersistentIndexedCache<K, V> {
+        private final String cacheId;
+        private final CacheData data;
+        private final MultiProcessSafePersistentIndexedCache<K, V> original;
+        private volatile boolean lockHeld;
+
+        InMemoryCache(String cacheId, CacheData data, MultiProcessSafePersistentIndexedCache<K, V> original) {
+            this.cacheId = cacheId;
+            this.data = data;
+            this.original = original;
+        }
 
-            public void put(K key, V value) {
-                original.put(key, value);
-                data.put(key, value);
+        public void close() {
+            lockHeld = false;
+            original.close();
+        }
+
+        public V getIfInMemory(K key) {
+            if (!lockHeld) {
+                return null;
             }
+            Object value = data.getIfPresent(key);
+            return value == NULL ? null : (V) value;
+        }
 
-            public void remove(K key) {
-                data.put(key, NULL);
-                original.remove(key);
+        public V get(K key) {
+            assert key instanceof String || key instanceof Long || key instanceof File : "Unsupported key type: " + key;
+            Object value = data.getIfPresent(key);
+            if (value == NULL) {
+                return null;
             }
+            if (value != null) {
+                return (V) value;
+            }
+            V out = original.get(key);
+            data.put(key, out == null ? NULL : out);
+            return out;
+        }
 
-            public void onStartWork(String operationDisplayName, FileLock.State currentCacheState) {
-                boolean outOfDate;
-                synchronized (lock) {
-                    FileLock.State previousState = states.get(cacheId);
-                    outOfDate = previousState == null || currentCacheState.hasBeenUpdatedSince(previousState);
-                }
+        public void put(K key, V value) {
+            original.put(key, value);
+            data.put(key, value);
+        }
 
-                if (outOfDate) {
-                    LOG.info("Invalidating in-memory cache of {}", cacheId);
-                    data.invalidateAll();
-                }
+        public void remove(K key) {
+            data.put(key, NULL);
+            original.remove(key);
+        }
+
+        public void onStartWork(String operationDisplayName, FileLock.State currentCacheState) {
+            boolean outOfDate;
+            synchronized (lock) {
+                FileLock.State previousState = states.get(cacheId);
+                outOfDate = previousState == null || currentCacheState.hasBeenUpdatedSince(previousState);
             }
 
-            public void onEndWork(FileLock.State currentCacheState) {
-                synchronized (lock) {
-                    states.put(cacheId, currentCacheState);
-                }
+            if (outOfDate) {
+                LOG.info("Invalidating in-memory cache of {}", cacheId);
+                data.invalidateAll();
+            }
+            lockHeld = true;
+        }
+
+        public void onEndWork(FileLock.State currentCacheState) {
+            lockHeld = false;
+            synchronized (lock) {
+                states.put(cacheId, currentCacheState);
             }
-        };
+        }
     }
 
-    private Cache<Object, Object> loadData(String cacheId, String cacheName) {
-        Cache<Object, Object> theData;
+    private CacheData loadData(String cacheId, String cacheName) {
+        CacheData theData;
         synchronized (lock) {
             theData = this.cache.getIfPresent(cacheId);
             if (theData != null) {
-                LOG.info("In-memory cache of {}: Size{{}}, {}", cacheId, theData.size() , theData.stats());
+                rebalance();
+                if (Math.abs(theData.targetWeight - theData.maxWeight) > theData.maxWeight * RESIZE_THRESHOLD) {
+                    LOG.info("Resizing In-memory cache of {}: MaxSize{{}} -> MaxSize{{}}", cacheId, NumberUtil.formatBytes(theData.maxWeight), NumberUtil.formatBytes(theData.targetWeight));
+                    theData = theData.resize(theData.targetWeight);
+                    this.cache.put(cacheId, theData);
+                }
+                LOG.info("In-memory cache of {}: Size{{}}, {}", cacheId, theData.entries.size(), theData.stats());
             } else {
-                Integer maxSize = CACHE_CAPS.get(cacheName);
-                assert maxSize != null : "Unknown cache.";
-                LOG.info("Creating In-memory cache of {}: MaxSize{{}}", cacheId, maxSize);
-                LoggingEvictionListener evictionListener = new LoggingEvictionListener(cacheId, maxSize);
-                theData = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().removalListener(evictionListener).build();
-                evictionListener.setCache(theData);
+                Long maxWeight = weightCaps.get(cacheName);
+                assert maxWeight != null : "Unknown cache.";
+                LOG.info("Creating In-memory cache of {}: MaxSize{{}}", cacheId, NumberUtil.formatBytes(maxWeight));
+                theData = new CacheData(cacheId, cacheName, maxWeight, new CacheStats(0, 0, 0, 0, 0, 0));
                 this.cache.put(cacheId, theData);
             }
         }
         return theData;
     }
 
+    /**
+     * Calculates a new maximum size for each cache. Must be called while holding the lock.
+     */
+    private void rebalance() {
+        Map<CacheData, Long> demands = new HashMap<CacheData, Long>();
+        long totalDemand = 0;
+        for (CacheData data : cache.asMap().values()) {
+            long demand = data.demand();
+            demands.put(data, demand);
+            totalDemand += demand;
+        }
+        for (Map.Entry<CacheData, Long> entry : demands.entrySet()) {
+            CacheData data = entry.getKey();
+            long demand = entry.getValue();
+            if (totalDemand > budget) {
+                demand = Math.max(data.minWeight(), (long) ((double) demand * budget / totalDemand));
+            }
+            data.targetWeight = demand;
+        }
+    }
+
+    /**
+     * The entries of a cache, with a fixed maximum size. The cache is replaced with a new instance when its maximum size changes.
+     */
+    private class CacheData implements RemovalListener<Object, Object> {
+        private final String cacheId;
+        private final String cacheName;
+        private final long maxWeight;
+        private final Cache<Object, Object> entries;
+        private final EntryWeigher weigher;
+        private final LoggingEvictionListener evictionListener;
+        private final AtomicLong weight = new AtomicLong();
+        // Statistics of the instances that this cache has replaced
+        private final CacheStats previousStats;
+        private CacheStats statsAtLastRebalance;
+        private long targetWeight;
+
+        CacheData(String cacheId, String cacheName, long maxWeight, CacheStats previousStats) {
+            this.cacheId = cacheId;
+            this.cacheName = cacheName;
+            this.maxWeight = maxWeight;
+            this.previousStats = previousStats;
+            this.statsAtLastRebalance = previousStats;
+            this.targetWeight = maxWeight;
+            this.weigher = new EntryWeigher();
+            this.evictionListener = new LoggingEvictionListener(cacheId, (int) Math.max(10, Math.min(Integer.MAX_VALUE, maxWeight / CacheCapSizer.typicalEntrySize(cacheName))));
+            this.entries = CacheBuilder.newBuilder().maximumWeight(maxWeight).weigher(weigher).recordStats().removalListener(this).build();
+            evictionListener.setCache(entries);
+        }
+
+        Object getIfPresent(Object key) {
+            return entries.getIfPresent(key);
+        }
+
+        void put(Object key, Object value) {
+            entries.put(key, value);
+            weight.addAndGet(weigher.weigh(key, value));
+        }
+
+        void invalidateAll() {
+            entries.invalidateAll();
+        }
+
+        public void onRemoval(RemovalNotification<Object, Object> notification) {
+            weight.addAndGet(-weigher.weigh(notification.getKey(), notification.getValue()));
+            evictionListener.onRemoval(notification);
+        }
+
+        /**
+         * The estimated size of the entries, in bytes.
+         */
+        long getWeight() {
+            return Math.max(0, weight.get());
+        }
+
+        CacheStats stats() {
+            return previousStats.plus(entries.stats());
+        }
+
+        long minWeight() {
+            return weightCaps.get(cacheName) / MIN_SHARE_DIVISOR;
+        }
+
+        /**
+         * Calculates the maximum size that this cache needs, based on its use since the last rebalance.
+         */
+        long demand() {
+            CacheStats stats = stats();
+            CacheStats recentStats = stats.minus(statsAtLastRebalance);
+            statsAtLastRebalance = stats;
+            if (recentStats.requestCount() == 0) {
+                // Not used since the last rebalance
+                return targetWeight;
+            }
+            if (recentStats.evictionCount() > 0 && recentStats.missCount() > 0) {
+                return Math.min(budget, (long) (maxWeight * (1 + recentStats.missRate())));
+            }
+            long weight = getWeight();
+            return Math.max(minWeight(), weight + weight / 4);
+        }
+
+        CacheData resize(long newMaxWeight) {
+            CacheData resized = new CacheData(cacheId, cacheName, newMaxWeight, stats());
+            for (Map.Entry<Object, Object> entry : entries.asMap().entrySet()) {
+                resized.put(entry.getKey(), entry.getValue());
+            }
+            // Don't count the entries dropped while copying as pressure on the new cache
+            resized.statsAtLastRebalance = resized.stats();
+            return resized;
+        }
+    }
+
+    /**
+     * Weighs an entry by the estimated heap retained by its key and value.
+     *
+     * @see HeapSizeEstimator
+     */
+    static class EntryWeigher implements Weigher<Object, Object> {
+        private static final int ENTRY_OVERHEAD = 64;
+
+        public int weigh(Object key, Object value) {
+            long size = ENTRY_OVERHEAD + HeapSizeEstimator.estimateSize(key) + (value == NULL ? 0 : HeapSizeEstimator.estimateSize(value));
+            return (int) Math.min(Integer.MAX_VALUE, size);
+        }
+    }
+
+    /**
+     * Hit, miss and eviction statistics of an in-memory cache.
+     */
+    public static class CacheStatistics {
+        private final String cacheId;
+        private final CacheStats stats;
+        private final long entryCount;
+        private final long estimatedSize;
+        private final long maxSize;
+
+        CacheStatistics(String cacheId, CacheStats stats, long entryCount, long estimatedSize, long maxSize) {
+            this.cacheId = cacheId;
+            this.stats = stats;
+            this.entryCount = entryCount;
+            this.estimatedSize = estimatedSize;
+            this.maxSize = maxSize;
+        }
+
+        public String getCacheId() {
+            return cacheId;
+        }
+
+        public long getHitCount() {
+            return stats.hitCount();
+        }
+
+        public long getMissCount() {
+            return stats.missCount();
+        }
+
+        public long getEvictionCount() {
+            return stats.evictionCount();
+        }
+
+        public long getEntryCount() {
+            return entryCount;
+        }
+
+        /**
+         * The estimated size of the entries, in bytes.
+         */
+        public long getEstimatedSize() {
+            return estimatedSize;
+        }
+
+        /**
+         * The maximum size of the entries, in bytes.
+         */
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("In-memory cache of %s: entries: %d, size: %s of %s, hit rate: %d%%, misses: %d, evictions: %d", cacheId, entryCount,
+                    NumberUtil.formatBytes(estimatedSize), NumberUtil.formatBytes(maxSize), NumberUtil.percentOf(stats.hitCount(), stats.requestCount()),
+                    stats.missCount(), stats.evictionCount());
+        }
+    }
+
     private static class LoggingEvictionListener implements RemovalListener<Object, Object> {
         private static Logger logger = Logging.getLogger(LoggingEvictionListener.class);
         private static final String EVICTION_MITIGATION_MESSAGE = "\nPerformance may suffer from in-memory cache misses. Increase max heap size of Gradle build process to reduce cache misses.";
@@ -93,7 +93,7 @@ public class OutputFilesCollectionSnapshotter implements FileCollectionSnapshott
         return new OutputFilesSnapshot(snapshotDirIds, snapshotter.snapshot(files));
     }
 
-    static class OutputFilesSnapshot implements FileCollectionSnapshot {
+    static class OutputFilesSnapshot implements FileCollectionSnapshot, EstimatedSize {
         final Map<String, Long> rootFileIds;
         final FileCollectionSnapshot filesSnapshot;
 
@@ -102,6 +102,10 @@ public class OutputFilesCollectionSnapshotter implements FileCollectionSnapshott
             this.filesSnapshot = filesSnapshot;
         }
 
+        public long getEstimatedSize() {
+            return 24 + HeapSizeEstimator.estimateSize(rootFileIds) + HeapSizeEstimator.estimateSize(filesSnapshot);
+        }
+
         public Collection<File> getFiles() {
             return filesSnapshot.getFiles();
         }
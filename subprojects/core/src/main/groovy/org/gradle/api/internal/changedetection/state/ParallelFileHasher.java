@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Hashes the files of a file collection using a bounded pool of threads.
+ *
+ * <p>Files are added to a {@link Batch} while the file collection is being walked. Hashes that are held in memory are used without holding the cache.
+ * The cached hashes of the remaining files are looked up a batch at a time, and the files whose cached hash is missing or out-of-date are handed to the pool straight away, so that hashing overlaps with the rest of the walk.
+ * All new hashes are written back to the cache in a single operation once the walk has finished.</p>
+ */
+public class ParallelFileHasher implements Stoppable {
+    static final int LOOKUP_BATCH_SIZE = 1000;
+
+    private final CachingFileSnapshotter snapshotter;
+    private final TaskArtifactStateCacheAccess cacheAccess;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
+    private StoppableExecutor executor;
+
+    public ParallelFileHasher(CachingFileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, ExecutorFactory executorFactory, int maxThreads) {
+        this.snapshotter = snapshotter;
+        this.cacheAccess = cacheAccess;
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Starts a new batch. The batch is not thread-safe and should be used by the thread that walks the file collection.
+     */
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    private synchronized StoppableExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("file hasher", maxThreads);
+        }
+        return executor;
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+    }
+
+    public class Batch {
+        private final Map<String, PendingFileSnapshot> files = new HashMap<String, PendingFileSnapshot>();
+        private final List<PendingFileSnapshot> unresolved = new ArrayList<PendingFileSnapshot>();
+        private final List<PendingFileSnapshot> hashed = new ArrayList<PendingFileSnapshot>();
+
+        private Batch() {
+        }
+
+        /**
+         * Adds a file to this batch. The hash of the returned snapshot is available once {@link #finish()} has been called.
+         */
+        public FileSnapshot add(FileTreeElement file) {
+            String absolutePath = file.getFile().getAbsolutePath();
+            PendingFileSnapshot snapshot = files.get(absolutePath);
+            if (snapshot == null) {
+                snapshot = new PendingFileSnapshot(file);
+                files.put(absolutePath, snapshot);
+                snapshot.info = snapshotter.lookupInMemory(file);
+                if (snapshot.info == null) {
+                    unresolved.add(snapshot);
+                    if (unresolved.size() >= LOOKUP_BATCH_SIZE) {
+                        flush();
+                    }
+                }
+            }
+            return snapshot;
+        }
+
+        /**
+         * Waits for all files of this batch to be hashed, and updates the cache with the new hashes.
+         */
+        public void finish() {
+            flush();
+            for (PendingFileSnapshot snapshot : hashed) {
+                snapshot.await();
+            }
+            if (hashed.isEmpty()) {
+                return;
+            }
+            cacheAccess.useCache("Store file hashes", new Runnable() {
+                public void run() {
+                    for (PendingFileSnapshot snapshot : hashed) {
+                        snapshotter.store(snapshot.file, snapshot.info);
+                    }
+                }
+            });
+        }
+
+        private void flush() {
+            if (unresolved.isEmpty()) {
+                return;
+            }
+            cacheAccess.useCache("Look up file hashes", new Runnable() {
+                public void run() {
+                    for (PendingFileSnapshot snapshot : unresolved) {
+                        snapshot.info = snapshotter.lookup(snapshot.file);
+                    }
+                }
+            });
+            for (final PendingFileSnapshot snapshot : unresolved) {
+                if (snapshot.info == null) {
+                    snapshot.hashing = getExecutor().submit(new Callable<CachingFileSnapshotter.FileInfo>() {
+                        public CachingFileSnapshotter.FileInfo call() {
+                            return snapshotter.hash(snapshot.file);
+                        }
+                    });
+                    hashed.add(snapshot);
+                }
+            }
+            unresolved.clear();
+        }
+    }
+
+    private static class PendingFileSnapshot implements FileSnapshot {
+        private final FileTreeElement file;
+        private CachingFileSnapshotter.FileInfo info;
+        private Future<CachingFileSnapshotter.FileInfo> hashing;
+
+        PendingFileSnapshot(FileTreeElement file) {
+            this.file = file;
+        }
+
+        void await() {
+            try {
+                info = hashing.get();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            }
+            hashing = null;
+        }
+
+        public byte[] getHash() {
+            if (info == null) {
+                throw new IllegalStateException(String.format("File %s has not been hashed yet.", file.getFile()));
+            }
+            return info.getHash();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection.state;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Records how long tasks took to execute, so that later builds can estimate the execution time of a task before it runs.
+ */
+public interface TaskExecutionTimeRepository {
+    /**
+     * Returns the most recently recorded execution time in milliseconds for each of the given task paths. Tasks that have no recorded execution time are
+     * not included in the result.
+     */
+    Map<String, Long> getExecutionTimes(Collection<String> taskPaths);
+
+    /**
+     * Records the execution time in milliseconds of the given task paths.
+     */
+    void recordExecutionTimes(Map<String, Long> executionTimes);
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.hash;
+
+/**
+ * The algorithms that can be used to hash the content of task input and output files.
+ *
+ * <p>Hashes created by different algorithms are not comparable, so anything that persists file hashes should be invalidated when the {@link #getFormatVersion() format version} changes.</p>
+ */
+public enum FileHashAlgorithm {
+    MD5(1) {
+        public Hasher createHasher() {
+            return new DefaultHasher();
+        }
+    },
+    MURMUR3(2) {
+        public Hasher createHasher() {
+            return new Murmur3Hasher();
+        }
+    };
+
+    public static final String SYSTEM_PROPERTY = "org.gradle.filehashing.algorithm";
+    public static final FileHashAlgorithm DEFAULT = MURMUR3;
+
+    private final int formatVersion;
+
+    FileHashAlgorithm(int formatVersion) {
+        this.formatVersion = formatVersion;
+    }
+
+    public abstract Hasher createHasher();
+
+    /**
+     * Returns a version number that identifies the format of the hashes created by this algorithm.
+     */
+    public int getFormatVersion() {
+        return formatVersion;
+    }
+
+    /**
+     * Returns the algorithm selected by the {@value #SYSTEM_PROPERTY} system property, or the default algorithm when the property is not set.
+     */
+    public static FileHashAlgorithm current() {
+        String name = System.getProperty(SYSTEM_PROPERTY);
+        if (name == null) {
+            return DEFAULT;
+        }
+        for (FileHashAlgorithm algorithm : values()) {
+            if (algorithm.name().equalsIgnoreCase(name)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown file hash algorithm '%s' specified by system property '%s'.", name, SYSTEM_PROPERTY));
+    }
+}
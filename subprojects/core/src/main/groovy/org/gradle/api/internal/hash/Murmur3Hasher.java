@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.hash;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.os.OperatingSystem;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Hashes file content using the 128-bit variant of the non-cryptographic Murmur3 hash function.
+ *
+ * <p>Files larger than {@link #DEFAULT_MAPPED_READ_THRESHOLD} are read through a memory-mapped buffer rather than a stream. Memory-mapping is not used on Windows,
+ * as a mapped file cannot be deleted until the buffer has been garbage collected.</p>
+ */
+public class Murmur3Hasher implements Hasher {
+    public static final long DEFAULT_MAPPED_READ_THRESHOLD = 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final long mappedReadThreshold;
+
+    public Murmur3Hasher() {
+        this(OperatingSystem.current().isWindows() ? Long.MAX_VALUE : DEFAULT_MAPPED_READ_THRESHOLD);
+    }
+
+    Murmur3Hasher(long mappedReadThreshold) {
+        this.mappedReadThreshold = mappedReadThreshold;
+    }
+
+    public byte[] hash(File file) {
+        com.google.common.hash.Hasher hasher = HASH_FUNCTION.newHasher();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            if (file.length() > mappedReadThreshold) {
+                hashMapped(file, hasher, buffer);
+            } else {
+                hashStreamed(file, hasher, buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create MURMUR3 hash for file %s.", file.getAbsolutePath()), e);
+        }
+        return hasher.hash().asBytes();
+    }
+
+    private void hashStreamed(File file, com.google.common.hash.Hasher hasher, byte[] buffer) throws IOException {
+        FileInputStream instr = new FileInputStream(file);
+        try {
+            while (true) {
+                int nread = instr.read(buffer);
+                if (nread < 0) {
+                    break;
+                }
+                hasher.putBytes(buffer, 0, nread);
+            }
+        } finally {
+            instr.close();
+        }
+    }
+
+    private void hashMapped(File file, com.google.common.hash.Hasher hasher, byte[] buffer) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_REGION_SIZE, size - position));
+                while (region.hasRemaining()) {
+                    int count = Math.min(buffer.length, region.remaining());
+                    region.get(buffer, 0, count);
+                    hasher.putBytes(buffer, 0, count);
+                }
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+}
@@ -24,6 +24,8 @@ import org.gradle.api.logging.Logging;
 import org.gradle.api.tasks.StopActionException;
 import org.gradle.api.tasks.StopExecutionException;
 import org.gradle.api.tasks.TaskExecutionException;
+import org.gradle.internal.progress.trace.BuildOperationTracer;
+import org.gradle.internal.progress.trace.TraceSpan;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -76,9 +78,11 @@ public class ExecuteActionsTaskExecuter implements TaskExecuter {
 
     private void executeAction(TaskInternal task, ContextAwareTaskAction action, TaskExecutionContext context) {
         action.contextualise(context);
+        TraceSpan span = BuildOperationTracer.begin("Execute task action", task.getPath());
         try {
             action.execute(task);
         } finally {
+            span.end();
             action.contextualise(null);
         }
     }
@@ -22,6 +22,8 @@ import org.gradle.api.internal.changedetection.TaskArtifactStateRepository;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.TaskExecutionContext;
 import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.internal.progress.trace.BuildOperationTracer;
+import org.gradle.internal.progress.trace.TraceSpan;
 import org.gradle.util.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,7 +51,14 @@ public class SkipUpToDateTaskExecuter implements TaskExecuter {
         TaskArtifactState taskArtifactState = repository.getStateFor(task);
         try {
             List<String> messages = new ArrayList<String>();
-            if (taskArtifactState.isUpToDate(messages)) {
+            TraceSpan span = BuildOperationTracer.begin("Snapshot task inputs", task.getPath());
+            boolean upToDate;
+            try {
+                upToDate = taskArtifactState.isUpToDate(messages);
+            } finally {
+                span.end();
+            }
+            if (upToDate) {
                 LOGGER.info("Skipping {} as it is up-to-date (took {}).", task, clock.getTime());
                 state.upToDate();
                 return;
@@ -63,7 +72,12 @@ public class SkipUpToDateTaskExecuter implements TaskExecuter {
             try {
                 executer.execute(task, state, context);
                 if (state.getFailure() == null) {
-                    taskArtifactState.afterTask();
+                    span = BuildOperationTracer.begin("Snapshot task outputs", task.getPath());
+                    try {
+                        taskArtifactState.afterTask();
+                    } finally {
+                        span.end();
+                    }
                 }
             } finally {
                 task.getOutputs().setHistory(null);
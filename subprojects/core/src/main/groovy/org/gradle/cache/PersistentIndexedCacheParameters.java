@@ -26,6 +26,7 @@ public class PersistentIndexedCacheParameters<K, V> {
     private final Serializer<K> keySerializer;
     private final Serializer<V> valueSerializer;
     private CacheDecorator cacheDecorator;
+    private boolean logStructured;
 
     public PersistentIndexedCacheParameters(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         this.cacheName = cacheName;
@@ -67,4 +68,17 @@ public class PersistentIndexedCacheParameters<K, V> {
         this.cacheDecorator = cacheDecorator;
         return this;
     }
-}
\ No newline at end of file
+
+    public boolean isLogStructured() {
+        return logStructured;
+    }
+
+    /**
+     * Specifies that the cache should append updates to a log that is compacted in the background, rather than update a file in place. This suits
+     * caches whose entries are frequently replaced.
+     */
+    public PersistentIndexedCacheParameters<K, V> logStructured() {
+        this.logStructured = true;
+        return this;
+    }
+}
@@ -23,11 +23,17 @@ import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.cache.internal.cacheops.CacheAccessOperationsStack;
 import org.gradle.cache.internal.filelock.LockOptions;
+import org.gradle.cache.internal.logstore.LogStructuredPersistentIndexedCache;
 import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.progress.trace.BuildOperationTracer;
+import org.gradle.internal.progress.trace.TraceSpan;
 import org.gradle.internal.serialize.Serializer;
+import org.gradle.util.GFileUtils;
 
 import java.io.File;
 import java.util.HashSet;
@@ -48,6 +54,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private final File lockTarget;
     private final File baseDir;
     private final FileLockManager lockManager;
+    private final ExecutorFactory executorFactory;
     private final CacheInitializationAction initializationAction;
     private final FileAccess fileAccess = new UnitOfWorkFileAccess();
     private final Set<MultiProcessSafePersistentIndexedCache> caches = new HashSet<MultiProcessSafePersistentIndexedCache>();
@@ -60,12 +67,14 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private boolean contended;
     private final CacheAccessOperationsStack operations;
     private int cacheClosedCount;
+    private StoppableExecutor compactionExecutor;
 
-    public DefaultCacheAccess(String cacheDisplayName, File lockTarget, File baseDir, FileLockManager lockManager, CacheInitializationAction initializationAction) {
+    public DefaultCacheAccess(String cacheDisplayName, File lockTarget, File baseDir, FileLockManager lockManager, ExecutorFactory executorFactory, CacheInitializationAction initializationAction) {
         this.cacheDisplayName = cacheDisplayName;
         this.lockTarget = lockTarget;
         this.baseDir = baseDir;
         this.lockManager = lockManager;
+        this.executorFactory = executorFactory;
         this.initializationAction = initializationAction;
         this.operations = new CacheAccessOperationsStack();
     }
@@ -158,8 +167,16 @@ public class DefaultCacheAccess implements CacheCoordinator {
                 // TODO:ADAM - The check for shared mode is a work around. Owner should release the lock
                 throw new IllegalStateException(String.format("Cannot close %s as it is currently being used by another thread.", cacheDisplayName));
             }
-            if (fileLock != null) {
-                closeFileLock();
+            try {
+                if (fileLock != null) {
+                    closeFileLock();
+                }
+            } finally {
+                // Wait for any compaction that is still running, as the caches are no longer used
+                if (compactionExecutor != null) {
+                    compactionExecutor.stop();
+                    compactionExecutor = null;
+                }
             }
             if (cacheClosedCount != 1) {
                 LOG.debug("Cache {} was closed {} times.", cacheDisplayName, cacheClosedCount);
@@ -209,11 +226,19 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private void takeOwnership(String operationDisplayName) {
         lock.lock();
         try {
-            while (owner != null && owner != Thread.currentThread()) {
+            if (owner != null && owner != Thread.currentThread()) {
+                // Only trace contended access, as the cache is accessed very frequently
+                TraceSpan span = BuildOperationTracer.begin("Wait for cache", cacheDisplayName);
                 try {
-                    condition.await();
-                } catch (InterruptedException e) {
-                    throw UncheckedException.throwAsUncheckedException(e);
+                    while (owner != null && owner != Thread.currentThread()) {
+                        try {
+                            condition.await();
+                        } catch (InterruptedException e) {
+                            throw UncheckedException.throwAsUncheckedException(e);
+                        }
+                    }
+                } finally {
+                    span.end();
                 }
             }
             owner = Thread.currentThread();
@@ -314,10 +339,26 @@ public class DefaultCacheAccess implements CacheCoordinator {
     }
 
     public <K, V> MultiProcessSafePersistentIndexedCache<K, V> newCache(final PersistentIndexedCacheParameters<K, V> parameters) {
-        final File cacheFile = new File(baseDir, parameters.getCacheName() + ".bin");
-        Factory<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = new Factory<BTreePersistentIndexedCache<K, V>>() {
-            public BTreePersistentIndexedCache<K, V> create() {
-                return doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+        final File btreeFile = new File(baseDir, parameters.getCacheName() + ".bin");
+        final File logDir = new File(baseDir, parameters.getCacheName() + ".segments");
+        final File cacheFile = parameters.isLogStructured() ? logDir : btreeFile;
+        Factory<CloseablePersistentIndexedCache<K, V>> indexedCacheFactory = new Factory<CloseablePersistentIndexedCache<K, V>>() {
+            private LogStructuredPersistentIndexedCache<K, V> logStructuredCache;
+
+            public CloseablePersistentIndexedCache<K, V> create() {
+                // Discard entries written using the other format, as they may be stale
+                if (parameters.isLogStructured()) {
+                    GFileUtils.deleteQuietly(btreeFile);
+                    // Reuse the closed cache, so that it only needs to read the changes made since it was closed when it is opened again
+                    if (logStructuredCache == null) {
+                        logStructuredCache = doCreateLogStructuredCache(logDir, parameters.getKeySerializer(), parameters.getValueSerializer());
+                    }
+                    return logStructuredCache;
+                }
+                if (logDir.exists()) {
+                    GFileUtils.deleteDirectory(logDir);
+                }
+                return doCreateCache(btreeFile, parameters.getKeySerializer(), parameters.getValueSerializer());
             }
         };
 
@@ -342,6 +383,25 @@ public class DefaultCacheAccess implements CacheCoordinator {
         return new BTreePersistentIndexedCache<K, V>(cacheFile, keySerializer, valueSerializer);
     }
 
+    <K, V> LogStructuredPersistentIndexedCache<K, V> doCreateLogStructuredCache(File cacheDir, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        return new LogStructuredPersistentIndexedCache<K, V>(cacheDir, keySerializer, valueSerializer, getCompactionExecutor());
+    }
+
+    /**
+     * Returns the executor that all log-structured caches of this cache access share to compact their segments.
+     */
+    private StoppableExecutor getCompactionExecutor() {
+        lock.lock();
+        try {
+            if (compactionExecutor == null) {
+                compactionExecutor = executorFactory.create(String.format("Compact %s", cacheDisplayName));
+            }
+            return compactionExecutor;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     private boolean onStartWork() {
         if (fileLock != null) {
             return false;
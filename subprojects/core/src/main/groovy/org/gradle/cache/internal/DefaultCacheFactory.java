@@ -20,6 +20,7 @@ import org.gradle.cache.*;
 import org.gradle.cache.internal.filelock.LockOptions;
 import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.util.GFileUtils;
 
@@ -32,10 +33,12 @@ import java.util.concurrent.locks.ReentrantLock;
 public class DefaultCacheFactory implements CacheFactory, Closeable {
     private final Map<File, DirCacheReference> dirCaches = new HashMap<File, DirCacheReference>();
     private final FileLockManager lockManager;
+    private final ExecutorFactory executorFactory;
     private final Lock lock = new ReentrantLock();
 
-    public DefaultCacheFactory(FileLockManager fileLockManager) {
+    public DefaultCacheFactory(FileLockManager fileLockManager, ExecutorFactory executorFactory) {
         this.lockManager = fileLockManager;
+        this.executorFactory = executorFactory;
     }
 
     void onOpen(Object cache) {
@@ -76,7 +79,7 @@ public class DefaultCacheFactory implements CacheFactory, Closeable {
         File canonicalDir = GFileUtils.canonicalise(cacheDir);
         DirCacheReference dirCacheReference = dirCaches.get(canonicalDir);
         if (dirCacheReference == null) {
-            ReferencablePersistentCache cache = new DefaultPersistentDirectoryCache(canonicalDir, displayName, validator, properties, lockOptions, action, lockManager);
+            ReferencablePersistentCache cache = new DefaultPersistentDirectoryCache(canonicalDir, displayName, validator, properties, lockOptions, action, lockManager, executorFactory);
             cache.open();
             dirCacheReference = new DirCacheReference(cache, properties, lockOptions);
             dirCaches.put(canonicalDir, dirCacheReference);
@@ -98,7 +101,7 @@ public class DefaultCacheFactory implements CacheFactory, Closeable {
         File canonicalDir = GFileUtils.canonicalise(storeDir);
         DirCacheReference dirCacheReference = dirCaches.get(canonicalDir);
         if (dirCacheReference == null) {
-            ReferencablePersistentCache cache = new DefaultPersistentDirectoryStore(canonicalDir, displayName, lockOptions, lockManager);
+            ReferencablePersistentCache cache = new DefaultPersistentDirectoryStore(canonicalDir, displayName, lockOptions, lockManager, executorFactory);
             cache.open();
             dirCacheReference = new DirCacheReference(cache, Collections.<String, Object>emptyMap(), lockOptions);
             dirCaches.put(canonicalDir, dirCacheReference);
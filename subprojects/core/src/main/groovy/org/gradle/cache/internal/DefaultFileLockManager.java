@@ -24,6 +24,8 @@ import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.id.RandomLongIdGenerator;
+import org.gradle.internal.progress.trace.BuildOperationTracer;
+import org.gradle.internal.progress.trace.TraceSpan;
 import org.gradle.util.GFileUtils;
 
 import java.io.File;
@@ -75,12 +77,15 @@ public class DefaultFileLockManager implements FileLockManager {
         if (!lockedFiles.add(canonicalTarget)) {
             throw new IllegalStateException(String.format("Cannot lock %s as it has already been locked by this process.", targetDisplayName));
         }
+        TraceSpan span = BuildOperationTracer.begin("Acquire file lock", targetDisplayName);
         try {
             int port = fileLockContentionHandler.reservePort();
             return new DefaultFileLock(canonicalTarget, options, targetDisplayName, operationDisplayName, port);
         } catch (Throwable t) {
             lockedFiles.remove(canonicalTarget);
             throw throwAsUncheckedException(t);
+        } finally {
+            span.end();
         }
     }
 
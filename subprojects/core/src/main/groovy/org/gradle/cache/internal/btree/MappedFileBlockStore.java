@@ -0,0 +1,351 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import com.google.common.io.CountingInputStream;
+import org.gradle.api.UncheckedIOException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link BlockStore} that reads and updates blocks through memory-mapped regions of the cache file, rather than seeking and reading the file for each
+ * block. Uses the same file format as {@link FileBackedBlockStore}, so either store can open a file written by the other.
+ *
+ * <p>The file is mapped lazily in fixed size regions. The file is never extended by mapping it, so it always has the same length as it would have when
+ * written by {@link FileBackedBlockStore}. Blocks that extend the file are written through the file channel, and the last region is remapped when it is
+ * next read.</p>
+ *
+ * <p>A mapped file cannot be truncated on Windows while the mapping is reachable, so this store should not be used on Windows.</p>
+ */
+public class MappedFileBlockStore implements BlockStore {
+    public static final int DEFAULT_REGION_SIZE = 16 * 1024 * 1024;
+    private final File cacheFile;
+    private final int regionSize;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private long nextBlock;
+    private Factory factory;
+    private long currentFileSize;
+
+    public MappedFileBlockStore(File cacheFile) {
+        this(cacheFile, DEFAULT_REGION_SIZE);
+    }
+
+    MappedFileBlockStore(File cacheFile, int regionSize) {
+        this.cacheFile = cacheFile;
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache '%s'", cacheFile);
+    }
+
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            file = new RandomAccessFile(cacheFile, "rw");
+            channel = file.getChannel();
+            currentFileSize = file.length();
+            nextBlock = currentFileSize;
+            if (currentFileSize == 0) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() {
+        regions.clear();
+        try {
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void clear() {
+        regions.clear();
+        try {
+            file.setLength(0);
+            currentFileSize = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nextBlock = 0;
+    }
+
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    public void flush() {
+    }
+
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(new BlockPointer(0), payloadType);
+    }
+
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    /**
+     * Returns the region that contains the given position, which must be less than the current file size. Maps the region if it is not mapped, or if
+     * the file has grown since the region was mapped.
+     */
+    private ByteBuffer region(long pos) throws IOException {
+        int index = (int) (pos / regionSize);
+        while (regions.size() <= index) {
+            regions.add(null);
+        }
+        long regionStart = (long) index * regionSize;
+        MappedByteBuffer region = regions.get(index);
+        if (region == null || regionStart + region.capacity() <= pos) {
+            long length = Math.min(regionSize, currentFileSize - regionStart);
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, length);
+            regions.set(index, region);
+        }
+        ByteBuffer buffer = region.duplicate();
+        buffer.position((int) (pos - regionStart));
+        return buffer;
+    }
+
+    private void writeBytes(long pos, byte[] bytes, int length) throws IOException {
+        if (pos + length > currentFileSize) {
+            // Don't extend the file by mapping it
+            channel.write(ByteBuffer.wrap(bytes, 0, length), pos);
+            return;
+        }
+        int offset = 0;
+        while (offset < length) {
+            ByteBuffer region = region(pos + offset);
+            int count = Math.min(region.remaining(), length - offset);
+            region.put(bytes, offset, count);
+            offset += count;
+        }
+    }
+
+    private class RegionInputStream extends InputStream {
+        private long pos;
+
+        RegionInputStream(long pos) {
+            this.pos = pos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos >= currentFileSize) {
+                return -1;
+            }
+            int value = region(pos).get() & 0xff;
+            pos++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (pos >= currentFileSize) {
+                return -1;
+            }
+            ByteBuffer region = region(pos);
+            int count = (int) Math.min(Math.min(region.remaining(), length), currentFileSize - pos);
+            region.get(bytes, offset, count);
+            pos += count;
+            return count;
+        }
+    }
+
+    private static class BlockOutputStream extends ByteArrayOutputStream {
+        BlockOutputStream(int size) {
+            super(size);
+        }
+
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 2 + INT_SIZE;
+        private static final int TAIL_SIZE = LONG_SIZE;
+        static final int BLOCK_MARKER = 0xCC;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = new BlockPointer(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+
+            BlockOutputStream bytes = new BlockOutputStream(getSize());
+            DataOutputStream outputStream = new DataOutputStream(bytes);
+
+            BlockPayload payload = getPayload();
+
+            // Write header
+            outputStream.writeByte(BLOCK_MARKER);
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+
+            // Write body
+            payload.write(outputStream);
+
+            // Write count
+            outputStream.writeLong(bytes.size());
+            outputStream.close();
+            writeBytes(pos, bytes.getBuffer(), bytes.size());
+
+            // Pad
+            if (currentFileSize < finalSize) {
+                file.setLength(finalSize);
+                currentFileSize = finalSize;
+            }
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            if (pos + HEADER_SIZE >= currentFileSize) {
+                throw blockCorruptedException();
+            }
+
+            CountingInputStream countingInputStream = new CountingInputStream(new RegionInputStream(pos));
+            DataInputStream inputStream = new DataInputStream(countingInputStream);
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte type = inputStream.readByte();
+            if (type != (byte) BLOCK_MARKER) {
+                throw blockCorruptedException();
+            }
+            type = inputStream.readByte();
+            if (type != (byte) payload.getType()) {
+                throw blockCorruptedException();
+            }
+
+            // Read body
+            payloadSize = inputStream.readInt();
+            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > currentFileSize) {
+                throw blockCorruptedException();
+            }
+            payload.read(inputStream);
+
+            // Read and verify count
+            long actualCount = countingInputStream.getCount();
+            long count = inputStream.readLong();
+            if (actualCount != count) {
+                throw blockCorruptedException();
+            }
+            inputStream.close();
+        }
+
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MappedFileBlockStore.this));
+        }
+    }
+}
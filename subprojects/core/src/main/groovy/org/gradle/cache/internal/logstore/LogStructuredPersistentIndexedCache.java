@@ -0,0 +1,819 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.logstore;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.internal.CloseablePersistentIndexedCache;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link org.gradle.cache.PersistentIndexedCache} that appends each update to a log, rather than updating the cache file in place.
+ *
+ * <p>The log is split into segment files in the cache directory. Updates are appended to the newest segment, and a new segment is started when it
+ * reaches the maximum segment size. An in-memory index holds the location of the most recent record for each key. The index is built by scanning the
+ * segments when the cache is first opened, and is kept when the cache is closed. When the cache is opened again, only the records that other processes
+ * have appended since then are read, unless the segments have been replaced in the meantime.</p>
+ *
+ * <p>When the cache is closed and at least half of the older segments is taken up by records that have since been replaced or removed, the live records
+ * of those segments are copied to a new segment in the background. Older segments are never modified, so the copy does not need the cache lock. The new
+ * segment is marked as a base segment, which replaces all older segments, and is moved in place of the newest segment it was copied from the next time
+ * the cache is opened.</p>
+ *
+ * <p>A record that is only partly written to the newest segment, for example because the process crashed, is discarded when the cache is opened.</p>
+ */
+public class LogStructuredPersistentIndexedCache<K, V> implements CloseablePersistentIndexedCache<K, V> {
+    public static final long DEFAULT_MAX_SEGMENT_SIZE = 4 * 1024 * 1024;
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStructuredPersistentIndexedCache.class);
+    private static final double COMPACTION_THRESHOLD = 0.5;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String COMPACTING_SUFFIX = ".compacting";
+    private static final String COMPACTED_SUFFIX = ".compacted";
+    private static final String REPLACED_SUFFIX = ".replaced";
+    private static final int MAGIC = 0x47434c53;
+    private static final byte VERSION = 1;
+    private static final byte BASE_SEGMENT = 1;
+    private static final int SEGMENT_HEADER_SIZE = 6;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int RECORD_TAIL_SIZE = 4;
+    private static final int TOMBSTONE = -1;
+
+    private final File dir;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final Executor compactionExecutor;
+    private final long maxSegmentSize;
+    private final ConcurrentMap<Key, Location> index = new ConcurrentHashMap<Key, Location>();
+    private final SortedMap<Long, Segment> segments = new TreeMap<Long, Segment>();
+    private Segment activeSegment;
+    private long totalSize;
+    private long liveSize;
+    private boolean open;
+    private Compaction compaction;
+
+    /**
+     * @param compactionExecutor The executor to compact the segments of this cache with. It is owned by the caller, which stops it once the cache is no longer used.
+     */
+    public LogStructuredPersistentIndexedCache(File dir, Serializer<K> keySerializer, Serializer<V> valueSerializer, Executor compactionExecutor) {
+        this(dir, keySerializer, valueSerializer, compactionExecutor, DEFAULT_MAX_SEGMENT_SIZE);
+    }
+
+    LogStructuredPersistentIndexedCache(File dir, Serializer<K> keySerializer, Serializer<V> valueSerializer, Executor compactionExecutor, long maxSegmentSize) {
+        this.dir = dir;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.compactionExecutor = compactionExecutor;
+        this.maxSegmentSize = maxSegmentSize;
+        try {
+            open();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not open %s.", this), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache %s (%s)", dir.getName(), dir);
+    }
+
+    /**
+     * Returns the number of entries in this cache.
+     */
+    public int getEntryCount() {
+        return index.size();
+    }
+
+    /**
+     * Returns the total size of the segment files of this cache, in bytes.
+     */
+    public long getFileSize() {
+        return totalSize;
+    }
+
+    /**
+     * Returns the number of bytes of the segment files that hold the current entries of this cache.
+     */
+    public long getLiveSize() {
+        return liveSize;
+    }
+
+    /**
+     * Returns the proportion of the segment files that is taken up by replaced or removed entries, between 0 and 1.
+     */
+    public double getFragmentation() {
+        return totalSize == 0 ? 0 : (double) (totalSize - liveSize) / totalSize;
+    }
+
+    public V get(K key) {
+        try {
+            ensureOpen();
+            Location location = index.get(new Key(serialize(keySerializer, key)));
+            if (location == null) {
+                return null;
+            }
+            byte[] record = segments.get(location.segmentId).read(location);
+            int keyLength = readInt(record, 0);
+            int valueLength = readInt(record, 4);
+            return valueSerializer.read(new KryoBackedDecoder(new ByteArrayInputStream(record, RECORD_HEADER_SIZE + keyLength, valueLength)));
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    public void put(K key, V value) {
+        try {
+            ensureOpen();
+            byte[] keyBytes = serialize(keySerializer, key);
+            Location location = append(keyBytes, serialize(valueSerializer, value));
+            activeSegment.liveSize += location.length;
+            liveSize += location.length;
+            discard(index.put(new Key(keyBytes), location));
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+        }
+    }
+
+    public void remove(K key) {
+        try {
+            ensureOpen();
+            byte[] keyBytes = serialize(keySerializer, key);
+            Location previous = index.remove(new Key(keyBytes));
+            if (previous == null) {
+                return;
+            }
+            // The tombstone is needed only until the segments holding the key have been compacted, so don't count it as live
+            append(keyBytes, null);
+            discard(previous);
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    /**
+     * Closes the segment files and starts compacting the older segments in the background, if required. The index is kept, and the cache is opened
+     * again by the next operation on it.
+     */
+    public void close() {
+        if (!open) {
+            return;
+        }
+        LOGGER.debug("Closing {}: {} entries, {} bytes, {}% fragmented", this, index.size(), totalSize, Math.round(getFragmentation() * 100));
+        open = false;
+        try {
+            maybeStartCompaction();
+        } finally {
+            CompositeStoppable.stoppable(segments.values()).stop();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (!open) {
+            open();
+        }
+    }
+
+    private void open() throws IOException {
+        LOGGER.debug("Opening {}", this);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException(String.format("Could not create directory %s.", dir));
+        }
+        try {
+            try {
+                restoreReplacedSegments();
+                boolean installed = installCompactedSegment();
+                if (installed || segments.isEmpty() || !readChanges()) {
+                    rescan();
+                }
+            } catch (CorruptedSegmentException e) {
+                LOGGER.warn(String.format("%s is corrupt. Discarding.", this));
+                reset();
+                for (String suffix : Arrays.asList(SEGMENT_SUFFIX, COMPACTED_SUFFIX, REPLACED_SUFFIX)) {
+                    for (File file : listFiles(suffix)) {
+                        delete(file);
+                    }
+                }
+                rescan();
+            }
+        } catch (IOException e) {
+            // Rebuild the index the next time the cache is opened
+            reset();
+            throw e;
+        }
+
+        if (segments.isEmpty() || segments.get(segments.lastKey()).size >= maxSegmentSize) {
+            startSegment();
+        } else {
+            activeSegment = segments.get(segments.lastKey());
+        }
+        open = true;
+    }
+
+    /**
+     * Discards the index, after waiting for any compaction that is still reading it.
+     */
+    private void reset() {
+        cancelCompaction();
+        CompositeStoppable.stoppable(segments.values()).stop();
+        segments.clear();
+        index.clear();
+        activeSegment = null;
+        totalSize = 0;
+        liveSize = 0;
+    }
+
+    /**
+     * Restores the segments that were moved aside to replace them with a compacted segment, in case the process stopped before the compacted segment
+     * was in place.
+     */
+    private void restoreReplacedSegments() throws IOException {
+        for (File backup : listFiles(REPLACED_SUFFIX)) {
+            File segmentFile = segmentFile(segmentId(backup, REPLACED_SUFFIX));
+            if (segmentFile.isFile()) {
+                delete(backup);
+            } else {
+                rename(backup, segmentFile);
+            }
+        }
+    }
+
+    /**
+     * Moves the output of the most recent finished compaction in place of the newest segment it was copied from. Returns true if the segments have
+     * changed.
+     */
+    private boolean installCompactedSegment() throws IOException {
+        List<Long> ids = new ArrayList<Long>();
+        for (File file : listFiles(COMPACTED_SUFFIX)) {
+            ids.add(segmentId(file, COMPACTED_SUFFIX));
+        }
+        if (ids.isEmpty()) {
+            return false;
+        }
+        Collections.sort(ids);
+        for (Long id : ids.subList(0, ids.size() - 1)) {
+            delete(compactedFile(id));
+        }
+
+        long id = ids.get(ids.size() - 1);
+        File output = compactedFile(id);
+        if (!segmentFile(id).isFile()) {
+            // The segments have since been replaced by a later compaction
+            delete(output);
+            return false;
+        }
+        replace(output, id);
+        LOGGER.debug("Installed compacted segment {} of {}.", id, this);
+        return true;
+    }
+
+    /**
+     * Replaces the given segment with the given file. When the segment cannot be replaced atomically, it is moved aside first, and is only deleted once
+     * the new file is in place.
+     */
+    private void replace(File file, long id) throws IOException {
+        File target = segmentFile(id);
+        if (file.renameTo(target)) {
+            return;
+        }
+        File backup = new File(dir, id + REPLACED_SUFFIX);
+        rename(target, backup);
+        if (!file.renameTo(target)) {
+            rename(backup, target);
+            throw new IOException(String.format("Could not rename %s to %s.", file, target));
+        }
+        delete(backup);
+    }
+
+    /**
+     * Adds the records that have been written since the cache was closed to the index. Returns false when the segments that were read before have
+     * changed in some other way, for example because another process has compacted them, in which case the index needs to be rebuilt.
+     */
+    private boolean readChanges() throws IOException {
+        Segment newest = segments.get(segments.lastKey());
+        for (Segment segment : segments.values()) {
+            long length = segment.file.length();
+            if (!segment.file.isFile() || length < segment.size || segment != newest && length != segment.size) {
+                return false;
+            }
+        }
+        List<Long> added = new ArrayList<Long>();
+        for (Long id : listSegmentIds()) {
+            if (!segments.containsKey(id)) {
+                if (id < newest.id || isBaseSegment(segmentFile(id))) {
+                    return false;
+                }
+                added.add(id);
+            }
+        }
+
+        scan(newest, newest.size, added.isEmpty());
+        for (int i = 0; i < added.size(); i++) {
+            Segment segment = new Segment(added.get(i), segmentFile(added.get(i)));
+            segments.put(segment.id, segment);
+            scan(segment, 0, i == added.size() - 1);
+        }
+        return true;
+    }
+
+    /**
+     * Rebuilds the index from all segments.
+     */
+    private void rescan() throws IOException {
+        reset();
+        for (File file : listFiles(COMPACTING_SUFFIX)) {
+            // May still be written by a compaction in another process, which will then fail to finish
+            file.delete();
+        }
+
+        List<Long> ids = listSegmentIds();
+        // Discard the segments replaced by the most recent base segment, in case the process stopped before they could be deleted
+        for (int i = ids.size() - 1; i > 0; i--) {
+            if (isBaseSegment(segmentFile(ids.get(i)))) {
+                for (Long id : ids.subList(0, i)) {
+                    delete(segmentFile(id));
+                }
+                ids = new ArrayList<Long>(ids.subList(i, ids.size()));
+                break;
+            }
+        }
+
+        for (int i = 0; i < ids.size(); i++) {
+            Segment segment = new Segment(ids.get(i), segmentFile(ids.get(i)));
+            segments.put(segment.id, segment);
+            scan(segment, 0, i == ids.size() - 1);
+        }
+    }
+
+    private List<Long> listSegmentIds() throws IOException {
+        List<Long> ids = new ArrayList<Long>();
+        for (File file : listFiles(SEGMENT_SUFFIX)) {
+            ids.add(segmentId(file, SEGMENT_SUFFIX));
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private long segmentId(File file, String suffix) throws IOException {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            throw new CorruptedSegmentException(String.format("Unexpected file %s found in %s.", name, this));
+        }
+    }
+
+    private boolean isBaseSegment(File file) throws IOException {
+        DataInputStream inputStream = new DataInputStream(new FileInputStream(file));
+        try {
+            return inputStream.readInt() == MAGIC && inputStream.readByte() == VERSION && inputStream.readByte() == BASE_SEGMENT;
+        } catch (EOFException e) {
+            return false;
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Adds the records of the given segment from the given offset to the index. The records of the newest segment are verified, and any partly written
+     * records at the end of the segment are discarded. The records of older segments were verified when the segment was the newest segment, so only
+     * their keys are read.
+     */
+    private void scan(Segment segment, long fromOffset, boolean newest) throws IOException {
+        long length = segment.file.length();
+        DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.file)));
+        try {
+            long offset = fromOffset;
+            if (offset == 0) {
+                if (length < SEGMENT_HEADER_SIZE || inputStream.readInt() != MAGIC || inputStream.readByte() != VERSION) {
+                    throw new CorruptedSegmentException(String.format("Corrupted segment %s found in %s.", segment.file.getName(), this));
+                }
+                inputStream.readByte();
+                offset = SEGMENT_HEADER_SIZE;
+                segment.liveSize += SEGMENT_HEADER_SIZE;
+                liveSize += SEGMENT_HEADER_SIZE;
+            } else {
+                skipFully(inputStream, offset);
+            }
+            while (offset < length) {
+                long remaining = length - offset;
+                int keyLength = remaining < RECORD_HEADER_SIZE ? -1 : inputStream.readInt();
+                int valueLength = remaining < RECORD_HEADER_SIZE ? -1 : inputStream.readInt();
+                long recordLength = (long) RECORD_HEADER_SIZE + keyLength + Math.max(valueLength, 0) + RECORD_TAIL_SIZE;
+                if (keyLength < 0 || valueLength < TOMBSTONE || recordLength > remaining) {
+                    truncate(segment, offset, newest);
+                    break;
+                }
+                byte[] keyBytes = new byte[keyLength];
+                inputStream.readFully(keyBytes);
+                if (newest) {
+                    byte[] valueBytes = new byte[Math.max(valueLength, 0)];
+                    inputStream.readFully(valueBytes);
+                    int checksum = inputStream.readInt();
+                    if (checksum != checksum(keyLength, valueLength, keyBytes, valueBytes)) {
+                        truncate(segment, offset, true);
+                        break;
+                    }
+                } else {
+                    skipFully(inputStream, Math.max(valueLength, 0) + RECORD_TAIL_SIZE);
+                }
+
+                Key key = new Key(keyBytes);
+                if (valueLength == TOMBSTONE) {
+                    discard(index.remove(key));
+                } else {
+                    discard(index.put(key, new Location(segment.id, offset, (int) recordLength)));
+                    segment.liveSize += recordLength;
+                    liveSize += recordLength;
+                }
+                offset += recordLength;
+            }
+            totalSize += offset - segment.size;
+            segment.size = offset;
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private void truncate(Segment segment, long offset, boolean newest) throws IOException {
+        if (!newest) {
+            throw new CorruptedSegmentException(String.format("Corrupted record at offset %s of segment %s found in %s.", offset, segment.file.getName(), this));
+        }
+        LOGGER.debug("Discarding incomplete record at offset {} of segment {} in {}.", offset, segment.file.getName(), this);
+        RandomAccessFile file = new RandomAccessFile(segment.file, "rw");
+        try {
+            file.setLength(offset);
+        } finally {
+            file.close();
+        }
+    }
+
+    private static void skipFully(InputStream inputStream, long count) throws IOException {
+        while (count > 0) {
+            long skipped = inputStream.skip(count);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            count -= skipped;
+        }
+    }
+
+    private void startSegment() throws IOException {
+        long id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Segment segment = new Segment(id, segmentFile(id));
+        writeSegmentHeader(segment.open(), (byte) 0);
+        segment.size = SEGMENT_HEADER_SIZE;
+        segment.liveSize = SEGMENT_HEADER_SIZE;
+        segments.put(id, segment);
+        totalSize += SEGMENT_HEADER_SIZE;
+        liveSize += SEGMENT_HEADER_SIZE;
+        activeSegment = segment;
+    }
+
+    private static void writeSegmentHeader(DataOutput output, byte flags) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeByte(flags);
+    }
+
+    /**
+     * Appends a record to the newest segment. A null value is written as a tombstone.
+     */
+    private Location append(byte[] keyBytes, byte[] valueBytes) throws IOException {
+        int valueLength = valueBytes == null ? TOMBSTONE : valueBytes.length;
+        int recordLength = RECORD_HEADER_SIZE + keyBytes.length + (valueBytes == null ? 0 : valueBytes.length) + RECORD_TAIL_SIZE;
+        if (activeSegment.size > SEGMENT_HEADER_SIZE && activeSegment.size + recordLength > maxSegmentSize) {
+            startSegment();
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(recordLength);
+        DataOutputStream outputStream = new DataOutputStream(bytes);
+        outputStream.writeInt(keyBytes.length);
+        outputStream.writeInt(valueLength);
+        outputStream.write(keyBytes);
+        if (valueBytes != null) {
+            outputStream.write(valueBytes);
+        }
+        outputStream.writeInt(checksum(keyBytes.length, valueLength, keyBytes, valueBytes == null ? new byte[0] : valueBytes));
+        outputStream.close();
+
+        Location location = new Location(activeSegment.id, activeSegment.size, recordLength);
+        RandomAccessFile file = activeSegment.open();
+        file.seek(activeSegment.size);
+        file.write(bytes.toByteArray());
+        activeSegment.size += recordLength;
+        totalSize += recordLength;
+        return location;
+    }
+
+    private void discard(Location location) {
+        if (location != null) {
+            segments.get(location.segmentId).liveSize -= location.length;
+            liveSize -= location.length;
+        }
+    }
+
+    private void maybeStartCompaction() {
+        if (compaction != null && !compaction.isFinished()) {
+            return;
+        }
+        compaction = null;
+        long sealedSize = totalSize - activeSegment.size;
+        long sealedLiveSize = liveSize - activeSegment.liveSize;
+        if (sealedSize < maxSegmentSize || sealedSize - sealedLiveSize < sealedSize * COMPACTION_THRESHOLD) {
+            return;
+        }
+        List<Segment> sources = new ArrayList<Segment>(segments.headMap(activeSegment.id).values());
+        LOGGER.debug("Compacting {} segments of {}: {} of {} bytes are live.", sources.size(), this, sealedLiveSize, sealedSize);
+        compaction = new Compaction(sources);
+        compactionExecutor.execute(compaction);
+    }
+
+    /**
+     * Stops the current compaction, if any, and waits for it to finish.
+     */
+    private void cancelCompaction() {
+        if (compaction != null) {
+            compaction.cancel();
+            compaction.await();
+            compaction = null;
+        }
+    }
+
+    private File segmentFile(long id) {
+        return new File(dir, id + SEGMENT_SUFFIX);
+    }
+
+    private File compactedFile(long id) {
+        return new File(dir, id + COMPACTED_SUFFIX);
+    }
+
+    private List<File> listFiles(final String suffix) {
+        File[] files = dir.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.endsWith(suffix);
+            }
+        });
+        return files == null ? Collections.<File>emptyList() : Arrays.asList(files);
+    }
+
+    private static void rename(File from, File to) throws IOException {
+        if (!from.renameTo(to)) {
+            throw new IOException(String.format("Could not rename %s to %s.", from, to));
+        }
+    }
+
+    private static void delete(File file) throws IOException {
+        if (!file.delete() && file.exists()) {
+            throw new IOException(String.format("Could not delete %s.", file));
+        }
+    }
+
+    private static <T> byte[] serialize(Serializer<T> serializer, T value) throws Exception {
+        ByteArrayOutputStream outStr = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outStr);
+        serializer.write(encoder, value);
+        encoder.flush();
+        return outStr.toByteArray();
+    }
+
+    private static int checksum(int keyLength, int valueLength, byte[] keyBytes, byte[] valueBytes) {
+        byte[] header = new byte[RECORD_HEADER_SIZE];
+        writeInt(header, 0, keyLength);
+        writeInt(header, 4, valueLength);
+        CRC32 crc = new CRC32();
+        crc.update(header);
+        crc.update(keyBytes);
+        crc.update(valueBytes);
+        return (int) crc.getValue();
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) << 24 | (bytes[offset + 1] & 0xff) << 16 | (bytes[offset + 2] & 0xff) << 8 | bytes[offset + 3] & 0xff;
+    }
+
+    private static class Key {
+        private final byte[] bytes;
+        private final int hashCode;
+
+        Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hashCode = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && Arrays.equals(bytes, ((Key) obj).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class Location {
+        final long segmentId;
+        final long offset;
+        final int length;
+
+        Location(long segmentId, long offset, int length) {
+            this.segmentId = segmentId;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Location)) {
+                return false;
+            }
+            Location other = (Location) obj;
+            return segmentId == other.segmentId && offset == other.offset && length == other.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (segmentId * 31 + offset);
+        }
+    }
+
+    private static class Segment implements Closeable {
+        final long id;
+        final File file;
+        long size;
+        long liveSize;
+        private RandomAccessFile randomAccessFile;
+
+        Segment(long id, File file) {
+            this.id = id;
+            this.file = file;
+        }
+
+        RandomAccessFile open() throws IOException {
+            if (randomAccessFile == null) {
+                randomAccessFile = new RandomAccessFile(file, "rw");
+            }
+            return randomAccessFile;
+        }
+
+        byte[] read(Location location) throws IOException {
+            RandomAccessFile file = open();
+            byte[] record = new byte[location.length];
+            file.seek(location.offset);
+            file.readFully(record);
+            return record;
+        }
+
+        public void close() throws IOException {
+            if (randomAccessFile != null) {
+                randomAccessFile.close();
+                randomAccessFile = null;
+            }
+        }
+    }
+
+    /**
+     * Copies the live records of a set of segments to a new base segment. Runs while the cache is closed or in use, so it reads the compacted segments
+     * through its own streams and only reads the index. The index may be updated with records from newer segments while the copy runs, which only makes
+     * more of the compacted records dead, so the copy is always complete.
+     */
+    private class Compaction implements Runnable {
+        final List<Segment> sources;
+        final long targetId;
+        final File outputFile;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean cancelled;
+
+        Compaction(List<Segment> sources) {
+            this.sources = sources;
+            this.targetId = sources.get(sources.size() - 1).id;
+            this.outputFile = new File(dir, targetId + COMPACTING_SUFFIX);
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isFinished() {
+            return finished.getCount() == 0;
+        }
+
+        void await() {
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        public void run() {
+            try {
+                if (copyLiveRecords()) {
+                    File compactedFile = compactedFile(targetId);
+                    if (!outputFile.renameTo(compactedFile)) {
+                        // Replace the unused output of an earlier compaction
+                        delete(compactedFile);
+                        rename(outputFile, compactedFile);
+                    }
+                    LOGGER.debug("Compacted {} segments of {}.", sources.size(), LogStructuredPersistentIndexedCache.this);
+                } else {
+                    delete(outputFile);
+                }
+            } catch (Throwable t) {
+                outputFile.delete();
+                LOGGER.info(String.format("Could not compact %s.", LogStructuredPersistentIndexedCache.this), t);
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        private boolean copyLiveRecords() throws IOException {
+            FileOutputStream fileOutputStream = new FileOutputStream(outputFile);
+            try {
+                DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+                writeSegmentHeader(outputStream, BASE_SEGMENT);
+                for (Segment source : sources) {
+                    if (!copyLiveRecords(source, outputStream)) {
+                        return false;
+                    }
+                }
+                outputStream.flush();
+                fileOutputStream.getFD().sync();
+                return true;
+            } finally {
+                fileOutputStream.close();
+            }
+        }
+
+        private boolean copyLiveRecords(Segment source, DataOutputStream outputStream) throws IOException {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(source.file)));
+            try {
+                skipFully(inputStream, SEGMENT_HEADER_SIZE);
+                long offset = SEGMENT_HEADER_SIZE;
+                while (offset < source.size) {
+                    if (cancelled) {
+                        return false;
+                    }
+                    int keyLength = inputStream.readInt();
+                    int valueLength = inputStream.readInt();
+                    int recordLength = RECORD_HEADER_SIZE + keyLength + Math.max(valueLength, 0) + RECORD_TAIL_SIZE;
+                    byte[] keyBytes = new byte[keyLength];
+                    inputStream.readFully(keyBytes);
+                    Location location = new Location(source.id, offset, recordLength);
+                    if (valueLength != TOMBSTONE && location.equals(index.get(new Key(keyBytes)))) {
+                        byte[] remainder = new byte[valueLength + RECORD_TAIL_SIZE];
+                        inputStream.readFully(remainder);
+                        outputStream.writeInt(keyLength);
+                        outputStream.writeInt(valueLength);
+                        outputStream.write(keyBytes);
+                        outputStream.write(remainder);
+                    } else {
+                        skipFully(inputStream, Math.max(valueLength, 0) + RECORD_TAIL_SIZE);
+                    }
+                    offset += recordLength;
+                }
+                return true;
+            } finally {
+                inputStream.close();
+            }
+        }
+    }
+
+    private static class CorruptedSegmentException extends IOException {
+        CorruptedSegmentException(String message) {
+            super(message);
+        }
+    }
+}
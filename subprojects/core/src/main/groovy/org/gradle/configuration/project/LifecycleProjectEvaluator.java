@@ -19,6 +19,8 @@ import org.gradle.api.ProjectConfigurationException;
 import org.gradle.api.ProjectEvaluationListener;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.ProjectStateInternal;
+import org.gradle.internal.progress.trace.BuildOperationTracer;
+import org.gradle.internal.progress.trace.TraceSpan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,11 +53,13 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
         }
 
         state.setExecuting(true);
+        TraceSpan span = BuildOperationTracer.begin("Configure project", project.getPath());
         try {
             delegate.evaluate(project, state);
         } catch (Exception e) {
             addConfigurationFailure(project, state, e);
         } finally {
+            span.end();
             state.setExecuting(false);
             state.executed();
             notifyAfterEvaluate(listener, project, state);
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.execution.taskgraph;
+
+import com.google.common.collect.Iterables;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.changedetection.state.TaskExecutionTimeRepository;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.util.*;
+
+import static org.gradle.util.Clock.prettyTime;
+
+/**
+ * Orders the tasks of an execution plan so that, of the tasks that are ready to run, the one with the longest remaining path through the task graph
+ * is started first. The length of a path is estimated using the execution times recorded for each task in previous builds.
+ *
+ * <p>Once execution has finished, the actual execution times are recorded for later builds, and the predicted critical path is reported together with
+ * the path that actually determined the duration of the build.</p>
+ */
+public class CriticalPathTaskPrioritizer {
+    private static final Logger LOGGER = Logging.getLogger(CriticalPathTaskPrioritizer.class);
+    private static final long DEFAULT_EXECUTION_TIME = 1;
+
+    private final TaskExecutionTimeRepository executionTimeRepository;
+
+    public CriticalPathTaskPrioritizer(TaskExecutionTimeRepository executionTimeRepository) {
+        this.executionTimeRepository = executionTimeRepository;
+    }
+
+    /**
+     * Sorts the given tasks, which must be in execution order, by decreasing remaining path length. Tasks with the same remaining path length keep their
+     * relative order. As each task is estimated to take some time, a task is always sorted before the tasks that have to run after it.
+     */
+    public void prioritize(List<TaskInfo> tasks) {
+        prioritize(tasks, Collections.<TaskInfo>emptySet());
+    }
+
+    /**
+     * Sorts the given tasks, which must be in execution order, by decreasing remaining path length, without changing the order of the entry tasks.
+     *
+     * <p>The tasks are split into consecutive groups, each of which ends with an entry task, and the tasks are only sorted within their group. So all tasks
+     * required by an entry task are still started before any task that is only required by a later entry task.</p>
+     */
+    public void prioritize(List<TaskInfo> tasks, Collection<TaskInfo> entryTasks) {
+        estimateExecutionTimes(tasks);
+
+        Map<TaskInfo, Long> longestPathAfter = new HashMap<TaskInfo, Long>();
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            TaskInfo task = tasks.get(i);
+            Long pathAfter = longestPathAfter.get(task);
+            task.setRemainingPathLength(task.getEstimatedExecutionTime() + (pathAfter == null ? 0 : pathAfter));
+            for (TaskInfo successor : Iterables.concat(task.getDependencySuccessors(), task.getMustSuccessors(), task.getShouldSuccessors())) {
+                Long successorPathAfter = longestPathAfter.get(successor);
+                if (successorPathAfter == null || successorPathAfter < task.getRemainingPathLength()) {
+                    longestPathAfter.put(successor, task.getRemainingPathLength());
+                }
+            }
+        }
+
+        Comparator<TaskInfo> byRemainingPathLength = new Comparator<TaskInfo>() {
+            public int compare(TaskInfo left, TaskInfo right) {
+                long difference = right.getRemainingPathLength() - left.getRemainingPathLength();
+                return difference > 0 ? 1 : difference < 0 ? -1 : 0;
+            }
+        };
+        int groupStart = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (entryTasks.contains(tasks.get(i))) {
+                Collections.sort(tasks.subList(groupStart, i + 1), byRemainingPathLength);
+                groupStart = i + 1;
+            }
+        }
+        Collections.sort(tasks.subList(groupStart, tasks.size()), byRemainingPathLength);
+
+        int priority = 0;
+        for (TaskInfo task : tasks) {
+            task.setPriority(priority++);
+        }
+    }
+
+    private void estimateExecutionTimes(List<TaskInfo> tasks) {
+        List<String> taskPaths = new ArrayList<String>(tasks.size());
+        for (TaskInfo task : tasks) {
+            taskPaths.add(task.getTask().getPath());
+        }
+        Map<String, Long> executionTimes = executionTimeRepository.getExecutionTimes(taskPaths);
+
+        // Tasks that have not run before are assumed to take as long as an average task
+        long defaultExecutionTime = DEFAULT_EXECUTION_TIME;
+        if (!executionTimes.isEmpty()) {
+            long total = 0;
+            for (Long executionTime : executionTimes.values()) {
+                total += executionTime;
+            }
+            defaultExecutionTime = Math.max(DEFAULT_EXECUTION_TIME, total / executionTimes.size());
+        }
+        for (TaskInfo task : tasks) {
+            Long executionTime = executionTimes.get(task.getTask().getPath());
+            task.setEstimatedExecutionTime(executionTime == null ? defaultExecutionTime : Math.max(DEFAULT_EXECUTION_TIME, executionTime));
+        }
+    }
+
+    /**
+     * Records the execution times of the tasks that were executed, and reports the predicted and actual critical paths.
+     */
+    public void executionComplete(Collection<TaskInfo> tasks) {
+        Map<String, Long> executionTimes = new HashMap<String, Long>();
+        for (TaskInfo task : tasks) {
+            if (wasExecuted(task) && !task.getTask().getState().getSkipped()) {
+                executionTimes.put(task.getTask().getPath(), task.getExecutionEndTime() - task.getExecutionStartTime());
+            }
+        }
+        executionTimeRepository.recordExecutionTimes(executionTimes);
+
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info(renderReport(tasks));
+        }
+    }
+
+    String renderReport(Collection<TaskInfo> tasks) {
+        List<TaskInfo> predicted = predictedCriticalPath(tasks);
+        List<TaskInfo> actual = actualCriticalPath(tasks);
+        long actualDuration = actual.isEmpty() ? 0 : actual.get(actual.size() - 1).getExecutionEndTime() - actual.get(0).getExecutionStartTime();
+
+        Formatter formatter = new Formatter();
+        formatter.format("Critical path: predicted %s, actual %s.", prettyTime(predicted.isEmpty() ? 0 : predicted.get(0).getRemainingPathLength()), prettyTime(actualDuration));
+        formatter.format("%nPredicted critical path:");
+        for (TaskInfo task : predicted) {
+            formatter.format("%n  %s (predicted %s, %s)", task, prettyTime(task.getEstimatedExecutionTime()), describeActualTime(task));
+        }
+        formatter.format("%nActual critical path:");
+        for (TaskInfo task : actual) {
+            formatter.format("%n  %s (predicted %s, %s)", task, prettyTime(task.getEstimatedExecutionTime()), describeActualTime(task));
+        }
+        return formatter.toString();
+    }
+
+    private String describeActualTime(TaskInfo task) {
+        if (!wasExecuted(task)) {
+            return "did not run";
+        }
+        return "took " + prettyTime(task.getExecutionEndTime() - task.getExecutionStartTime());
+    }
+
+    /**
+     * Follows the longest estimated path from the task with the longest remaining path.
+     */
+    private List<TaskInfo> predictedCriticalPath(Collection<TaskInfo> tasks) {
+        List<TaskInfo> path = new ArrayList<TaskInfo>();
+        TaskInfo current = longest(tasks);
+        while (current != null) {
+            path.add(current);
+            current = longest(Iterables.concat(current.getDependencyPredecessors(), current.getMustPredecessors()));
+        }
+        return path;
+    }
+
+    @Nullable
+    private TaskInfo longest(Iterable<TaskInfo> tasks) {
+        TaskInfo longest = null;
+        for (TaskInfo task : tasks) {
+            if (task.getEstimatedExecutionTime() > 0 && (longest == null || task.getRemainingPathLength() > longest.getRemainingPathLength())) {
+                longest = task;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Walks back from the last task to finish, each time to the dependency that finished last.
+     */
+    private List<TaskInfo> actualCriticalPath(Collection<TaskInfo> tasks) {
+        LinkedList<TaskInfo> path = new LinkedList<TaskInfo>();
+        TaskInfo current = lastToFinish(tasks);
+        while (current != null) {
+            path.addFirst(current);
+            current = lastToFinish(Iterables.concat(current.getDependencySuccessors(), current.getMustSuccessors()));
+        }
+        return path;
+    }
+
+    @Nullable
+    private TaskInfo lastToFinish(Iterable<TaskInfo> tasks) {
+        TaskInfo last = null;
+        for (TaskInfo task : tasks) {
+            if (wasExecuted(task) && (last == null || task.getExecutionEndTime() > last.getExecutionEndTime())) {
+                last = task;
+            }
+        }
+        return last;
+    }
+
+    private boolean wasExecuted(TaskInfo task) {
+        return task.getExecutionEndTime() > 0;
+    }
+}
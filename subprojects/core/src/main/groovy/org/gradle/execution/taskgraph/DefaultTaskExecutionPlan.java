@@ -46,6 +46,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.*;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -53,15 +55,20 @@ import java.util.concurrent.locks.ReentrantLock;
 /**
  * A reusable implementation of TaskExecutionPlan. The {@link #addToTaskGraph(java.util.Collection)} and {@link #clear()} methods are NOT threadsafe, and callers must synchronize access to these
  * methods.
+ *
+ * <p>Tasks can either be handed out by scanning the execution queue for the first ready task ({@link #getTaskToExecute()}), or through per-worker ready queues
+ * ({@link #getTaskToExecute(int)}). In the latter case each task tracks its number of incomplete dependencies, and becomes ready when that count drops to zero.</p>
  */
-public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
+public class DefaultTaskExecutionPlan implements WorkStealingTaskExecutionPlan {
 
     public static final String INTRA_PROJECT_TOGGLE = "org.gradle.parallel.intra";
+    public static final String CRITICAL_PATH_TOGGLE = "org.gradle.parallel.criticalpath";
 
     private final static Logger LOGGER = Logging.getLogger(DefaultTaskExecutionPlan.class);
 
     private final Lock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
+    private final Condition workAvailable = lock.newCondition();
     private final Set<TaskInfo> tasksInUnknownState = new LinkedHashSet<TaskInfo>();
     private final Set<TaskInfo> entryTasks = new LinkedHashSet<TaskInfo>();
     private final TaskDependencyGraph graph = new TaskDependencyGraph();
@@ -79,15 +86,33 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Map<Task, Boolean> isParallelSafeCache = Maps.newIdentityHashMap();
     private boolean tasksCancelled;
 
+    private final List<BlockingDeque<TaskInfo>> readyQueues = new ArrayList<BlockingDeque<TaskInfo>>();
+    private final List<TaskInfo> blockedTasks = new ArrayList<TaskInfo>();
+    private final Map<TaskInfo, Integer> workerForRunningTask = Maps.newIdentityHashMap();
+    private int outstandingTasks;
+
     private final boolean intraProjectParallelization;
+    private final CriticalPathTaskPrioritizer prioritizer;
 
-    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization, @Nullable CriticalPathTaskPrioritizer prioritizer) {
         this.cancellationToken = cancellationToken;
         this.intraProjectParallelization = intraProjectParallelization;
+        this.prioritizer = prioritizer;
 
         if (intraProjectParallelization) {
             LOGGER.info("intra project task parallelization is enabled");
         }
+        if (prioritizer != null) {
+            LOGGER.info("critical path task prioritization is enabled");
+        }
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+        this(cancellationToken, intraProjectParallelization, null);
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, @Nullable CriticalPathTaskPrioritizer prioritizer) {
+        this(cancellationToken, Boolean.getBoolean(INTRA_PROJECT_TOGGLE), prioritizer);
     }
 
     public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken) {
@@ -307,6 +332,9 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
         executionQueue.clear();
         executionQueue.addAll(executionPlan.values());
+        if (prioritizer != null) {
+            prioritizer.prioritize(executionQueue, entryTasks);
+        }
     }
 
     private void maybeRemoveProcessedShouldRunAfterEdge(Stack<GraphEdge> walkedShouldRunAfterEdges, TaskInfo taskNode) {
@@ -434,6 +462,10 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             canonicalizedOutputCache.clear();
             isParallelSafeCache.clear();
             runningTasks.clear();
+            readyQueues.clear();
+            blockedTasks.clear();
+            workerForRunningTask.clear();
+            outstandingTasks = 0;
         } finally {
             lock.unlock();
         }
@@ -497,6 +529,174 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
+    public void startWorkers(int workerCount) {
+        lock.lock();
+        try {
+            readyQueues.clear();
+            for (int i = 0; i < workerCount; i++) {
+                readyQueues.add(new LinkedBlockingDeque<TaskInfo>());
+            }
+            int worker = 0;
+            for (TaskInfo taskInfo : executionQueue) {
+                taskInfo.resetIncompleteDependencyCount();
+                if (taskInfo.isReady() && !taskInfo.hasIncompleteDependencies()) {
+                    enqueueReadyTask(taskInfo, worker);
+                    worker = (worker + 1) % workerCount;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public TaskInfo getTaskToExecute(int worker) {
+        boolean checkCancellation = true;
+        while (true) {
+            if (checkCancellation) {
+                checkCancellation = false;
+                if (cancellationToken.isCancellationRequested()) {
+                    lock.lock();
+                    try {
+                        if (abortExecution()) {
+                            tasksCancelled = true;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+            TaskInfo candidate = pollReadyTask(worker);
+            lock.lock();
+            try {
+                if (candidate == null) {
+                    if (outstandingTasks == 0) {
+                        return null;
+                    }
+                    // Ready tasks are only ever queued while holding the lock, so nothing can be added between this check and waiting
+                    if (allReadyQueuesEmpty()) {
+                        try {
+                            workAvailable.await();
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                        checkCancellation = true;
+                    }
+                    continue;
+                }
+                if (!candidate.isReady() || !candidate.allDependenciesComplete()) {
+                    // Skipped, already started from a duplicate queue entry, or one of its dependencies was enforced after it was queued
+                    removeOutstandingTask();
+                    continue;
+                }
+                if (!canRunWithWithCurrentlyExecutedTasks(candidate)) {
+                    // Retried when the next running task completes
+                    blockedTasks.add(candidate);
+                    continue;
+                }
+                if (candidate.allDependenciesSuccessful()) {
+                    candidate.startExecution();
+                    recordTaskStarted(candidate);
+                    workerForRunningTask.put(candidate, worker);
+                    return candidate;
+                }
+                candidate.skipExecution();
+                dependenciesCompleted(candidate, worker);
+                removeOutstandingTask();
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private TaskInfo pollReadyTask(int worker) {
+        if (prioritizer != null) {
+            return pollHighestPriorityReadyTask(worker);
+        }
+        // Take the oldest task from our own queue, otherwise steal the newest task from another worker
+        TaskInfo taskInfo = readyQueues.get(worker).pollFirst();
+        if (taskInfo != null) {
+            return taskInfo;
+        }
+        int workerCount = readyQueues.size();
+        for (int i = 1; i < workerCount; i++) {
+            taskInfo = readyQueues.get((worker + i) % workerCount).pollLast();
+            if (taskInfo != null) {
+                return taskInfo;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes the ready task with the highest priority from any of the queues, preferring our own queue when priorities are equal.
+     */
+    private TaskInfo pollHighestPriorityReadyTask(int worker) {
+        int workerCount = readyQueues.size();
+        while (true) {
+            TaskInfo best = null;
+            BlockingDeque<TaskInfo> bestQueue = null;
+            for (int i = 0; i < workerCount; i++) {
+                BlockingDeque<TaskInfo> readyQueue = readyQueues.get((worker + i) % workerCount);
+                for (TaskInfo taskInfo : readyQueue) {
+                    if (best == null || taskInfo.getPriority() < best.getPriority()) {
+                        best = taskInfo;
+                        bestQueue = readyQueue;
+                    }
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            // Another worker may have taken the task in the meantime
+            if (bestQueue.removeFirstOccurrence(best)) {
+                return best;
+            }
+        }
+    }
+
+    private boolean allReadyQueuesEmpty() {
+        for (BlockingDeque<TaskInfo> readyQueue : readyQueues) {
+            if (!readyQueue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void enqueueReadyTask(TaskInfo taskInfo, int worker) {
+        readyQueues.get(worker).addLast(taskInfo);
+        outstandingTasks++;
+        workAvailable.signal();
+    }
+
+    private void removeOutstandingTask() {
+        outstandingTasks--;
+        if (outstandingTasks == 0) {
+            workAvailable.signalAll();
+        }
+    }
+
+    private void dependenciesCompleted(TaskInfo taskInfo, int worker) {
+        for (TaskInfo predecessor : Iterables.concat(taskInfo.getDependencyPredecessors(), taskInfo.getMustPredecessors())) {
+            if (executionPlan.containsKey(predecessor.getTask()) && predecessor.dependencyCompleted() && predecessor.isReady()) {
+                enqueueReadyTask(predecessor, worker);
+            }
+        }
+    }
+
+    private void dependencyRequired(TaskInfo taskInfo) {
+        for (TaskInfo predecessor : Iterables.concat(taskInfo.getDependencyPredecessors(), taskInfo.getMustPredecessors())) {
+            if (executionPlan.containsKey(predecessor.getTask())) {
+                predecessor.dependencyRequired();
+            }
+        }
+    }
+
+    private boolean isWorkStealing() {
+        return !readyQueues.isEmpty();
+    }
+
     private boolean canRunWithWithCurrentlyExecutedTasks(TaskInfo taskInfo) {
         TaskInternal task = taskInfo.getTask();
         String projectPath = task.getProject().getPath();
@@ -613,6 +813,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
         projectsWithRunningTasks.add(projectPath);
         runningTasks.add(task);
+        taskInfo.setExecutionStartTime(System.currentTimeMillis());
     }
 
     private void recordTaskCompleted(TaskInfo taskInfo) {
@@ -625,33 +826,44 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         canonicalizedOutputCache.remove(task);
         isParallelSafeCache.remove(task);
         runningTasks.remove(task);
+        taskInfo.setExecutionEndTime(System.currentTimeMillis());
     }
 
     public void taskComplete(TaskInfo taskInfo) {
         lock.lock();
         try {
-            enforceFinalizerTasks(taskInfo);
+            Integer worker = workerForRunningTask.remove(taskInfo);
+            enforceFinalizerTasks(taskInfo, worker);
             if (taskInfo.isFailed()) {
                 handleFailure(taskInfo);
             }
 
             taskInfo.finishExecution();
             recordTaskCompleted(taskInfo);
+            if (worker != null) {
+                dependenciesCompleted(taskInfo, worker);
+                for (TaskInfo blockedTask : blockedTasks) {
+                    readyQueues.get(worker).addLast(blockedTask);
+                    workAvailable.signal();
+                }
+                blockedTasks.clear();
+                removeOutstandingTask();
+            }
             condition.signalAll();
         } finally {
             lock.unlock();
         }
     }
 
-    private void enforceFinalizerTasks(TaskInfo taskInfo) {
+    private void enforceFinalizerTasks(TaskInfo taskInfo, @Nullable Integer worker) {
         for (TaskInfo finalizerNode : taskInfo.getFinalizers()) {
             if (finalizerNode.isRequired() || finalizerNode.isMustNotRun()) {
-                enforceWithDependencies(finalizerNode, Sets.<TaskInfo>newHashSet());
+                enforceWithDependencies(finalizerNode, Sets.<TaskInfo>newHashSet(), worker);
             }
         }
     }
 
-    private void enforceWithDependencies(TaskInfo node, Set<TaskInfo> enforcedTasks) {
+    private void enforceWithDependencies(TaskInfo node, Set<TaskInfo> enforcedTasks, @Nullable Integer worker) {
         if (enforcedTasks.contains(node)) {
             return;
         }
@@ -659,10 +871,17 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         enforcedTasks.add(node);
 
         for (TaskInfo dependencyNode : node.getDependencySuccessors()) {
-            enforceWithDependencies(dependencyNode, enforcedTasks);
+            enforceWithDependencies(dependencyNode, enforcedTasks, worker);
         }
         if (node.isMustNotRun() || node.isRequired()) {
+            boolean wasComplete = node.isComplete();
             node.enforceRun();
+            if (wasComplete && worker != null) {
+                dependencyRequired(node);
+                if (!node.hasIncompleteDependencies()) {
+                    enqueueReadyTask(node, worker);
+                }
+            }
         }
     }
 
@@ -692,6 +911,9 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         for (TaskInfo taskInfo : executionPlan.values()) {
             if (taskInfo.isRequired()) {
                 taskInfo.skipExecution();
+                if (isWorkStealing()) {
+                    dependenciesCompleted(taskInfo, 0);
+                }
                 aborted = true;
             }
         }
@@ -699,18 +921,34 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     }
 
     public void awaitCompletion() {
-        lock.lock();
         try {
-            while (!allTasksComplete()) {
-                try {
-                    condition.await();
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
+            lock.lock();
+            try {
+                while (!allTasksComplete()) {
+                    try {
+                        condition.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
                 }
+                rethrowFailures();
+            } finally {
+                lock.unlock();
             }
-            rethrowFailures();
         } finally {
-            lock.unlock();
+            recordExecutionTimes();
+        }
+    }
+
+    private void recordExecutionTimes() {
+        if (prioritizer == null) {
+            return;
+        }
+        // Do not let a failure to write the execution times hide the failure of the build
+        try {
+            prioritizer.executionComplete(executionPlan.values());
+        } catch (Exception e) {
+            LOGGER.warn("Could not record task execution times.", e);
         }
     }
 
@@ -18,9 +18,11 @@ package org.gradle.execution.taskgraph;
 
 import groovy.lang.Closure;
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.Task;
 import org.gradle.api.execution.TaskExecutionGraphListener;
 import org.gradle.api.execution.TaskExecutionListener;
+import org.gradle.api.execution.internal.InternalTaskExecutionGraphListener;
 import org.gradle.api.execution.internal.InternalTaskExecutionListener;
 import org.gradle.api.execution.internal.TaskOperationInternal;
 import org.gradle.api.internal.TaskInternal;
@@ -62,11 +64,17 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
     private final ListenerBroadcast<TaskExecutionGraphListener> graphListeners;
     private final ListenerBroadcast<TaskExecutionListener> taskListeners;
     private final ListenerBroadcast<InternalTaskExecutionListener> internalTaskListeners;
+    private final ListenerBroadcast<InternalTaskExecutionGraphListener> internalGraphListeners;
     private final DefaultTaskExecutionPlan taskExecutionPlan;
     private final BuildOperationExecutor buildOperationExecutor;
     private TaskGraphState taskGraphState = TaskGraphState.EMPTY;
 
     public DefaultTaskGraphExecuter(ListenerManager listenerManager, TaskPlanExecutor taskPlanExecutor, Factory<? extends TaskExecuter> taskExecuter, BuildCancellationToken cancellationToken, TimeProvider timeProvider, BuildOperationExecutor buildOperationExecutor) {
+        this(listenerManager, taskPlanExecutor, taskExecuter, cancellationToken, timeProvider, buildOperationExecutor, null);
+    }
+
+    public DefaultTaskGraphExecuter(ListenerManager listenerManager, TaskPlanExecutor taskPlanExecutor, Factory<? extends TaskExecuter> taskExecuter, BuildCancellationToken cancellationToken, TimeProvider timeProvider, BuildOperationExecutor buildOperationExecutor,
+                                    @Nullable CriticalPathTaskPrioritizer prioritizer) {
         this.taskPlanExecutor = taskPlanExecutor;
         this.taskExecuter = taskExecuter;
         this.timeProvider = timeProvider;
@@ -74,7 +82,8 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         graphListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionGraphListener.class);
         taskListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionListener.class);
         internalTaskListeners = listenerManager.createAnonymousBroadcaster(InternalTaskExecutionListener.class);
-        taskExecutionPlan = new DefaultTaskExecutionPlan(cancellationToken);
+        internalGraphListeners = listenerManager.createAnonymousBroadcaster(InternalTaskExecutionGraphListener.class);
+        taskExecutionPlan = new DefaultTaskExecutionPlan(cancellationToken, prioritizer);
     }
 
     public void useFailureHandler(TaskFailureHandler handler) {
@@ -106,6 +115,7 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         ensurePopulated();
 
         graphListeners.getSource().graphPopulated(this);
+        internalGraphListeners.getSource().graphReady(this);
         try {
             taskPlanExecutor.process(taskExecutionPlan, new EventFiringTaskWorker(taskExecuter.create(), buildOperationExecutor.getCurrentOperationId()));
             logger.debug("Timing: Executing the DAG took " + clock.getTime());
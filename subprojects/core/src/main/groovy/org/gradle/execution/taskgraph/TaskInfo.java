@@ -34,8 +34,15 @@ public class TaskInfo implements Comparable<TaskInfo> {
     private final TreeSet<TaskInfo> dependencyPredecessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> dependencySuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> mustSuccessors = new TreeSet<TaskInfo>();
+    private final TreeSet<TaskInfo> mustPredecessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> shouldSuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> finalizers = new TreeSet<TaskInfo>();
+    private int incompleteDependencyCount;
+    private long estimatedExecutionTime;
+    private long remainingPathLength;
+    private long executionStartTime;
+    private long executionEndTime;
+    private int priority;
 
     public TaskInfo(TaskInternal task) {
         this.task = task;
@@ -138,6 +145,40 @@ public class TaskInfo implements Comparable<TaskInfo> {
         return true;
     }
 
+    /**
+     * Recalculates the number of dependencies and must-run-after successors of this task that have not yet completed.
+     */
+    public void resetIncompleteDependencyCount() {
+        int count = 0;
+        for (TaskInfo dependency : Iterables.concat(mustSuccessors, dependencySuccessors)) {
+            if (!dependency.isComplete()) {
+                count++;
+            }
+        }
+        incompleteDependencyCount = count;
+    }
+
+    /**
+     * Records that one of the dependencies of this task has completed.
+     *
+     * @return true if this was the last incomplete dependency.
+     */
+    public boolean dependencyCompleted() {
+        assert incompleteDependencyCount > 0;
+        return --incompleteDependencyCount == 0;
+    }
+
+    /**
+     * Records that one of the dependencies of this task, that was previously considered complete, now needs to run.
+     */
+    public void dependencyRequired() {
+        incompleteDependencyCount++;
+    }
+
+    public boolean hasIncompleteDependencies() {
+        return incompleteDependencyCount > 0;
+    }
+
     public boolean allDependenciesSuccessful() {
         for (TaskInfo dependency : dependencySuccessors) {
             if (!dependency.isSuccessful()) {
@@ -147,6 +188,55 @@ public class TaskInfo implements Comparable<TaskInfo> {
         return true;
     }
 
+    /**
+     * Returns the expected execution time of this task, in milliseconds.
+     */
+    public long getEstimatedExecutionTime() {
+        return estimatedExecutionTime;
+    }
+
+    public void setEstimatedExecutionTime(long estimatedExecutionTime) {
+        this.estimatedExecutionTime = estimatedExecutionTime;
+    }
+
+    /**
+     * Returns the expected time, in milliseconds, from the start of this task until all tasks that have to run after it have completed.
+     */
+    public long getRemainingPathLength() {
+        return remainingPathLength;
+    }
+
+    public void setRemainingPathLength(long remainingPathLength) {
+        this.remainingPathLength = remainingPathLength;
+    }
+
+    /**
+     * Returns the position of this task in the prioritized execution order. When several tasks are ready, the task with the lowest value is started first.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public long getExecutionStartTime() {
+        return executionStartTime;
+    }
+
+    public void setExecutionStartTime(long executionStartTime) {
+        this.executionStartTime = executionStartTime;
+    }
+
+    public long getExecutionEndTime() {
+        return executionEndTime;
+    }
+
+    public void setExecutionEndTime(long executionEndTime) {
+        this.executionEndTime = executionEndTime;
+    }
+
     public TreeSet<TaskInfo> getDependencyPredecessors() {
         return dependencyPredecessors;
     }
@@ -159,6 +249,10 @@ public class TaskInfo implements Comparable<TaskInfo> {
         return mustSuccessors;
     }
 
+    public TreeSet<TaskInfo> getMustPredecessors() {
+        return mustPredecessors;
+    }
+
     public TreeSet<TaskInfo> getFinalizers() {
         return finalizers;
     }
@@ -182,6 +276,7 @@ public class TaskInfo implements Comparable<TaskInfo> {
 
     public void addMustSuccessor(TaskInfo toNode) {
         mustSuccessors.add(toNode);
+        toNode.mustPredecessors.add(this);
     }
 
     public void addFinalizer(TaskInfo finalizerNode) {
@@ -20,16 +20,28 @@ import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.ExecutorFactory;
 
 public class TaskPlanExecutorFactory implements Factory<TaskPlanExecutor> {
+
+    public static final String WORK_STEALING_TOGGLE = "org.gradle.parallel.workstealing";
+
     private final int parallelThreads;
     private final ExecutorFactory executorFactory;
+    private final boolean workStealing;
 
-    public TaskPlanExecutorFactory(int parallelThreads, ExecutorFactory executorFactory) {
+    public TaskPlanExecutorFactory(int parallelThreads, ExecutorFactory executorFactory, boolean workStealing) {
         this.parallelThreads = parallelThreads;
         this.executorFactory = executorFactory;
+        this.workStealing = workStealing;
+    }
+
+    public TaskPlanExecutorFactory(int parallelThreads, ExecutorFactory executorFactory) {
+        this(parallelThreads, executorFactory, Boolean.getBoolean(WORK_STEALING_TOGGLE));
     }
 
     public TaskPlanExecutor create() {
         if (executeProjectsInParallel()) {
+            if (workStealing) {
+                return new WorkStealingTaskPlanExecutor(numberOfParallelThreads(), executorFactory);
+            }
             return new ParallelTaskPlanExecutor(numberOfParallelThreads(), executorFactory);
         }
         return new DefaultTaskPlanExecutor();
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+/**
+ * A {@link TaskExecutionPlan} that hands out tasks to a fixed set of workers from per-worker queues of ready tasks, rather than searching the whole plan
+ * for a ready task each time a worker asks for one. A worker that runs out of ready tasks steals work from the queues of the other workers.
+ */
+public interface WorkStealingTaskExecutionPlan extends TaskExecutionPlan {
+    /**
+     * Prepares the plan to hand out tasks to the given number of workers. Must be called before any worker requests a task.
+     */
+    void startWorkers(int workerCount);
+
+    /**
+     * Provides a ready-to-execute task for the given worker. This method blocks until at least one task is ready-to-execute.
+     * If no tasks remain, null will be returned.
+     *
+     * @param worker The index of the requesting worker, between 0 and the worker count passed to {@link #startWorkers(int)}.
+     * @return The task, or null if no matching tasks remain.
+     */
+    TaskInfo getTaskToExecute(int worker);
+}
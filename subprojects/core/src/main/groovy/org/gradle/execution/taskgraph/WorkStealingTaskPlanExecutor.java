@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Action;
+import org.gradle.api.Task;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.List;
+
+/**
+ * Executes tasks using a fixed number of workers, each of which takes tasks from its own queue of ready tasks and steals from other workers when its
+ * queue is empty. Falls back to {@link ParallelTaskPlanExecutor} for plans that do not support per-worker scheduling.
+ */
+class WorkStealingTaskPlanExecutor extends AbstractTaskPlanExecutor {
+    private static final Logger LOGGER = Logging.getLogger(WorkStealingTaskPlanExecutor.class);
+    private final int executorCount;
+    private final ExecutorFactory executorFactory;
+
+    public WorkStealingTaskPlanExecutor(int numberOfParallelExecutors, ExecutorFactory executorFactory) {
+        this.executorFactory = executorFactory;
+        if (numberOfParallelExecutors < 1) {
+            throw new IllegalArgumentException("Not a valid number of parallel executors: " + numberOfParallelExecutors);
+        }
+
+        this.executorCount = numberOfParallelExecutors;
+    }
+
+    @Override
+    public void process(TaskExecutionPlan taskExecutionPlan, Action<? super TaskInternal> taskWorker) {
+        if (!(taskExecutionPlan instanceof WorkStealingTaskExecutionPlan)) {
+            new ParallelTaskPlanExecutor(executorCount, executorFactory).process(taskExecutionPlan, taskWorker);
+            return;
+        }
+
+        WorkStealingTaskExecutionPlan plan = (WorkStealingTaskExecutionPlan) taskExecutionPlan;
+        StoppableExecutor executor = executorFactory.create("Task worker");
+        try {
+            LOGGER.info("Using {} work stealing executor threads", executorCount);
+            plan.startWorkers(executorCount);
+            for (int i = 1; i < executorCount; i++) {
+                executor.execute(taskWorker(new WorkerTaskExecutionPlan(plan, i), taskWorker));
+            }
+            taskWorker(new WorkerTaskExecutionPlan(plan, 0), taskWorker).run();
+            plan.awaitCompletion();
+        } finally {
+            executor.stop();
+        }
+    }
+
+    /**
+     * Presents the tasks queued for a single worker as a {@link TaskExecutionPlan}.
+     */
+    private static class WorkerTaskExecutionPlan implements TaskExecutionPlan {
+        private final WorkStealingTaskExecutionPlan plan;
+        private final int worker;
+
+        private WorkerTaskExecutionPlan(WorkStealingTaskExecutionPlan plan, int worker) {
+            this.plan = plan;
+            this.worker = worker;
+        }
+
+        public void taskComplete(TaskInfo task) {
+            plan.taskComplete(task);
+        }
+
+        public void awaitCompletion() {
+            plan.awaitCompletion();
+        }
+
+        public List<Task> getTasks() {
+            return plan.getTasks();
+        }
+
+        public TaskInfo getTaskToExecute() {
+            return plan.getTaskToExecute(worker);
+        }
+    }
+}
@@ -38,6 +38,8 @@ import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.groovy.scripts.Transformer;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.progress.trace.BuildOperationTracer;
+import org.gradle.internal.progress.trace.TraceSpan;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
@@ -79,12 +81,15 @@ public class DefaultScriptCompilationHandler implements ScriptCompilationHandler
         GFileUtils.mkdirs(classesDir);
         CompilerConfiguration configuration = createBaseCompilerConfiguration(scriptBaseClass);
         configuration.setTargetDirectory(classesDir);
+        TraceSpan span = BuildOperationTracer.begin("Compile script", source.getDisplayName());
         try {
             compileScript(source, classLoader, configuration, classesDir, metadataDir, extractingTransformer, verifier);
         } catch (GradleException e) {
             GFileUtils.deleteDirectory(classesDir);
             GFileUtils.deleteDirectory(metadataDir);
             throw e;
+        } finally {
+            span.end();
         }
 
         logger.debug("Timing: Writing script to cache at {} took: {}", classesDir.getAbsolutePath(),
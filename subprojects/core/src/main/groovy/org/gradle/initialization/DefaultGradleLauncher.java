@@ -25,7 +25,10 @@ import org.gradle.execution.BuildConfigurationActionExecuter;
 import org.gradle.execution.BuildExecuter;
 import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.progress.BuildOperationExecutor;
+import org.gradle.internal.progress.trace.BuildOperationTracer;
 import org.gradle.internal.service.scopes.BuildScopeServices;
 import org.gradle.logging.LoggingManagerInternal;
 
@@ -45,6 +48,7 @@ public class DefaultGradleLauncher extends GradleLauncher {
     private final ModelConfigurationListener modelConfigurationListener;
     private final BuildCompletionListener buildCompletionListener;
     private final BuildOperationExecutor buildOperationExecutor;
+    private final ExecutorFactory executorFactory;
     private final BuildConfigurationActionExecuter buildConfigurationActionExecuter;
     private final BuildExecuter buildExecuter;
     private final BuildScopeServices buildServices;
@@ -56,7 +60,7 @@ public class DefaultGradleLauncher extends GradleLauncher {
                                  BuildConfigurer buildConfigurer, ExceptionAnalyser exceptionAnalyser,
                                  LoggingManagerInternal loggingManager, BuildListener buildListener,
                                  ModelConfigurationListener modelConfigurationListener,
-                                 BuildCompletionListener buildCompletionListener, BuildOperationExecutor operationExecutor,
+                                 BuildCompletionListener buildCompletionListener, BuildOperationExecutor operationExecutor, ExecutorFactory executorFactory,
                                  BuildConfigurationActionExecuter buildConfigurationActionExecuter, BuildExecuter buildExecuter, BuildScopeServices buildServices) {
         this.gradle = gradle;
         this.initScriptHandler = initScriptHandler;
@@ -67,6 +71,7 @@ public class DefaultGradleLauncher extends GradleLauncher {
         this.loggingManager = loggingManager;
         this.modelConfigurationListener = modelConfigurationListener;
         this.buildOperationExecutor = operationExecutor;
+        this.executorFactory = executorFactory;
         this.buildConfigurationActionExecuter = buildConfigurationActionExecuter;
         this.buildExecuter = buildExecuter;
         this.buildCompletionListener = buildCompletionListener;
@@ -90,6 +95,15 @@ public class DefaultGradleLauncher extends GradleLauncher {
     private BuildResult doBuild(final Stage upTo) {
         loggingManager.start();
 
+        Stoppable trace = BuildOperationTracer.startIfRequested(gradle.getStartParameter().getCurrentDir(), executorFactory);
+        try {
+            return runBuild(upTo);
+        } finally {
+            trace.stop();
+        }
+    }
+
+    private BuildResult runBuild(final Stage upTo) {
         return buildOperationExecutor.run("Run build", new Factory<BuildResult>() {
             @Override
             public BuildResult create() {
@@ -20,6 +20,8 @@ import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
 import org.gradle.internal.TimeProvider;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.progress.trace.BuildOperationTracer;
+import org.gradle.internal.progress.trace.TraceSpan;
 import org.gradle.logging.ProgressLogger;
 import org.gradle.logging.ProgressLoggerFactory;
 
@@ -86,9 +88,11 @@ public class DefaultBuildOperationExecutor implements BuildOperationExecutor {
                     progressLogger = null;
                 }
 
+                TraceSpan span = BuildOperationTracer.begin(operationDetails.getDisplayName());
                 try {
                     result = factory.create();
                 } finally {
+                    span.end();
                     if (progressLogger != null) {
                         progressLogger.completed();
                     }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.progress.trace;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Records the build operations of a build to a binary trace file, along with their start time and duration in nanoseconds, their thread
+ * and their parent operation. Recording is enabled by setting the {@value #TRACE_PROPERTY} system property to the path of the trace file.
+ * The trace file can be converted to the Chrome trace event format using {@link ChromeTraceConverter}, or automatically at the end of the build
+ * by also setting the {@value #CHROME_PROPERTY} system property to {@code true}.
+ *
+ * <p>An operation is traced as follows:</p>
+ *
+ * <pre>
+ * TraceSpan span = BuildOperationTracer.begin("Execute task action", task);
+ * try {
+ *     ...
+ * } finally {
+ *     span.end();
+ * }
+ * </pre>
+ *
+ * <p>When no trace is being recorded, {@link #begin(String)} returns a shared span that does nothing, so operations can be traced at a fine grain.</p>
+ *
+ * <p>The parent of an operation is the innermost operation in progress on the same thread. The current operation is not passed to other threads, so an
+ * operation that runs on a worker thread, for example a task executed in parallel, has no parent, even when it was started on behalf of an operation
+ * on another thread.</p>
+ */
+public final class BuildOperationTracer {
+    public static final String TRACE_PROPERTY = "org.gradle.internal.operations.trace";
+    public static final String CHROME_PROPERTY = "org.gradle.internal.operations.trace.chrome";
+    static final int BUFFER_CAPACITY = 64 * 1024;
+    private static final Logger LOGGER = Logging.getLogger(BuildOperationTracer.class);
+    private static final AtomicReference<TraceRecorder> RECORDER = new AtomicReference<TraceRecorder>();
+    private static final Stoppable NOT_RECORDING = new Stoppable() {
+        public void stop() {
+        }
+    };
+
+    private BuildOperationTracer() {
+    }
+
+    /**
+     * Begins an operation with the given name.
+     */
+    public static TraceSpan begin(String operation) {
+        TraceRecorder recorder = RECORDER.get();
+        return recorder == null ? TraceSpan.NONE : recorder.begin(operation, operation);
+    }
+
+    /**
+     * Begins an operation with the given name, which is applied to the given subject. The display name of the operation is only calculated when a trace is being recorded.
+     */
+    public static TraceSpan begin(String operation, Object subject) {
+        TraceRecorder recorder = RECORDER.get();
+        return recorder == null ? TraceSpan.NONE : recorder.begin(operation, operation + " " + subject);
+    }
+
+    /**
+     * Starts recording a trace when requested using the {@value #TRACE_PROPERTY} system property. Does not start a trace when one is already being recorded,
+     * for example for a nested build, whose operations are then recorded in the trace of the enclosing build.
+     *
+     * @param baseDir The directory to resolve a relative trace file path against.
+     * @param executorFactory Creates the thread that writes the trace file.
+     * @return Stops recording the trace, once the build has finished. Logs rather than throws a failure to write the trace, so that the result of the
+     * build is kept.
+     */
+    public static Stoppable startIfRequested(File baseDir, ExecutorFactory executorFactory) {
+        String path = System.getProperty(TRACE_PROPERTY);
+        if (path == null || path.length() == 0) {
+            return NOT_RECORDING;
+        }
+        File traceFile = new File(path);
+        if (!traceFile.isAbsolute()) {
+            traceFile = new File(baseDir, path);
+        }
+        File chromeFile = "true".equalsIgnoreCase(System.getProperty(CHROME_PROPERTY)) ? new File(traceFile.getPath() + ".json") : null;
+        return start(traceFile, chromeFile, executorFactory);
+    }
+
+    static Stoppable start(final File traceFile, @Nullable final File chromeFile, ExecutorFactory executorFactory) {
+        final TraceRecorder recorder = new TraceRecorder(traceFile, BUFFER_CAPACITY, executorFactory);
+        if (!RECORDER.compareAndSet(null, recorder)) {
+            return NOT_RECORDING;
+        }
+        try {
+            recorder.start();
+        } catch (RuntimeException e) {
+            RECORDER.compareAndSet(recorder, null);
+            throw e;
+        }
+        LOGGER.info("Recording build operation trace to {}.", traceFile);
+        return new Stoppable() {
+            public void stop() {
+                RECORDER.compareAndSet(recorder, null);
+                try {
+                    recorder.stop();
+                    if (chromeFile != null) {
+                        ChromeTraceConverter.convert(traceFile, chromeFile);
+                        LOGGER.info("Wrote build operation trace in Chrome trace event format to {}.", chromeFile);
+                    }
+                } catch (RuntimeException e) {
+                    LOGGER.warn(String.format("Could not write build operation trace %s.", traceFile), e);
+                }
+            }
+        };
+    }
+}
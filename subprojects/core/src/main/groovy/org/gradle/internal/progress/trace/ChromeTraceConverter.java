@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.progress.trace;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts a build operation trace file written by {@link BuildOperationTracer} to the JSON based Chrome trace event format,
+ * which can be viewed using {@code chrome://tracing}. Each operation becomes a complete event, and each thread is named using a metadata event.
+ */
+public class ChromeTraceConverter {
+
+    public static void convert(File traceFile, File jsonFile) {
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(traceFile));
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(jsonFile), "UTF-8"));
+                try {
+                    convert(traceFile, decoder, writer);
+                } finally {
+                    writer.close();
+                }
+            } finally {
+                decoder.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not convert build operation trace %s to %s.", traceFile, jsonFile), e);
+        }
+    }
+
+    private static void convert(File traceFile, KryoBackedDecoder decoder, Writer writer) throws IOException {
+        if (!TraceFileFormat.MAGIC.equals(decoder.readString()) || decoder.readSmallInt() != TraceFileFormat.VERSION) {
+            throw new IllegalArgumentException(String.format("%s is not a build operation trace file.", traceFile));
+        }
+        long startTime = decoder.readLong();
+        Map<Integer, String> names = new HashMap<Integer, String>();
+        long dropped = 0;
+        boolean complete = false;
+
+        writer.write("{\"traceEvents\":[");
+        boolean first = true;
+        try {
+            while (!complete) {
+                byte tag = decoder.readByte();
+                switch (tag) {
+                    case TraceFileFormat.NAME:
+                        int index = decoder.readSmallInt();
+                        names.put(index, decoder.readString());
+                        break;
+                    case TraceFileFormat.THREAD:
+                        long threadId = decoder.readSmallLong();
+                        String threadName = decoder.readString();
+                        first = separate(writer, first);
+                        writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":0,\"tid\":");
+                        writer.write(String.valueOf(threadId));
+                        writer.write(",\"args\":{\"name\":");
+                        writeString(writer, threadName);
+                        writer.write("}}");
+                        break;
+                    case TraceFileFormat.OPERATION:
+                        long id = decoder.readSmallLong();
+                        long parentId = decoder.readSmallLong();
+                        long thread = decoder.readSmallLong();
+                        long start = decoder.readSmallLong();
+                        long duration = decoder.readSmallLong();
+                        String operation = names.get(decoder.readSmallInt());
+                        String displayName = names.get(decoder.readSmallInt());
+                        first = separate(writer, first);
+                        writer.write("{\"name\":");
+                        writeString(writer, displayName);
+                        writer.write(",\"cat\":");
+                        writeString(writer, operation);
+                        writer.write(",\"ph\":\"X\",\"pid\":0,\"tid\":");
+                        writer.write(String.valueOf(thread));
+                        writer.write(",\"ts\":");
+                        writeMicros(writer, start);
+                        writer.write(",\"dur\":");
+                        writeMicros(writer, duration);
+                        writer.write(",\"args\":{\"id\":");
+                        writer.write(String.valueOf(id));
+                        writer.write(",\"parentId\":");
+                        writer.write(String.valueOf(parentId));
+                        writer.write("}}");
+                        break;
+                    case TraceFileFormat.DROPPED:
+                        dropped = decoder.readSmallLong();
+                        break;
+                    case TraceFileFormat.END:
+                        complete = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException(String.format("Unexpected record %s in build operation trace file %s.", tag, traceFile));
+                }
+            }
+        } catch (EOFException e) {
+            // The build did not finish writing the trace, convert what has been recorded
+        }
+        writer.write("],\"displayTimeUnit\":\"ms\",\"otherData\":{\"startTime\":");
+        writer.write(String.valueOf(startTime));
+        writer.write(",\"droppedOperations\":");
+        writer.write(String.valueOf(dropped));
+        writer.write(",\"complete\":");
+        writer.write(String.valueOf(complete));
+        writer.write("}}");
+    }
+
+    private static boolean separate(Writer writer, boolean first) throws IOException {
+        if (!first) {
+            writer.write(",\n");
+        } else {
+            writer.write("\n");
+        }
+        return false;
+    }
+
+    private static void writeMicros(Writer writer, long nanos) throws IOException {
+        writer.write(String.valueOf(nanos / 1000));
+        long fraction = nanos % 1000;
+        if (fraction != 0) {
+            writer.write('.');
+            if (fraction < 100) {
+                writer.write('0');
+            }
+            if (fraction < 10) {
+                writer.write('0');
+            }
+            writer.write(String.valueOf(fraction));
+        }
+    }
+
+    private static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (ch < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) ch));
+                    } else {
+                        writer.write(ch);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+}
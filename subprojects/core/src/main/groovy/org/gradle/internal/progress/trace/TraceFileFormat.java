@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.progress.trace;
+
+/**
+ * The layout of a build operation trace file.
+ *
+ * <p>The file starts with a header, made up of {@link #MAGIC}, {@link #VERSION} and the wall clock time in milliseconds when the trace was started.
+ * It is followed by a sequence of records, each starting with one of the tags below. Operation, name and thread identifiers, times and durations
+ * are written as variable length integers. Times are nanoseconds since the start of the trace.</p>
+ */
+final class TraceFileFormat {
+    static final String MAGIC = "gradle-build-operation-trace";
+    static final int VERSION = 1;
+
+    /**
+     * Marks the end of the trace.
+     */
+    static final byte END = 0;
+
+    /**
+     * A name used by later operation records: index, name.
+     */
+    static final byte NAME = 1;
+
+    /**
+     * A thread that executed later operation records: thread id, thread name.
+     */
+    static final byte THREAD = 2;
+
+    /**
+     * A finished operation: id, parent id (0 for none), thread id, start time, duration, operation name index, display name index.
+     */
+    static final byte OPERATION = 3;
+
+    /**
+     * The number of operations that were not recorded because the trace could not be written quickly enough.
+     */
+    static final byte DROPPED = 4;
+
+    private TraceFileFormat() {
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.progress.trace;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the operations of a single trace. Operations are added to a {@link TraceRingBuffer} when they end,
+ * and a background thread writes the buffer to the trace file.
+ */
+class TraceRecorder implements TraceRingBuffer.RecordVisitor {
+    private static final Logger LOGGER = Logging.getLogger(TraceRecorder.class);
+    private static final long WRITE_INTERVAL_MILLIS = 50;
+
+    private final File traceFile;
+    private final TraceRingBuffer buffer;
+    private final ExecutorFactory executorFactory;
+    private final long startTime = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final ThreadLocal<Span> currentSpan = new ThreadLocal<Span>();
+    private final ConcurrentMap<String, Integer> nameIndexes = new ConcurrentHashMap<String, Integer>();
+    private final List<String> names = new ArrayList<String>();
+    private final ConcurrentMap<Long, String> threadNames = new ConcurrentHashMap<Long, String>();
+    private final BitSet writtenNames = new BitSet();
+    private final Set<Long> writtenThreads = new HashSet<Long>();
+    private StoppableExecutor writerThread;
+    private KryoBackedEncoder encoder;
+    private volatile boolean stopped;
+
+    TraceRecorder(File traceFile, int bufferCapacity, ExecutorFactory executorFactory) {
+        this.traceFile = traceFile;
+        this.buffer = new TraceRingBuffer(bufferCapacity);
+        this.executorFactory = executorFactory;
+    }
+
+    void start() {
+        traceFile.getParentFile().mkdirs();
+        try {
+            encoder = new KryoBackedEncoder(new FileOutputStream(traceFile));
+        } catch (FileNotFoundException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        encoder.writeString(TraceFileFormat.MAGIC);
+        encoder.writeSmallInt(TraceFileFormat.VERSION);
+        encoder.writeLong(startTime);
+
+        writerThread = executorFactory.create("Build operation trace writer");
+        writerThread.execute(new Runnable() {
+            public void run() {
+                writeUntilStopped();
+            }
+        });
+    }
+
+    /**
+     * Stops recording, and blocks until all recorded operations have been written to the trace file.
+     */
+    void stop() {
+        stopped = true;
+        writerThread.stop();
+    }
+
+    TraceSpan begin(String operation, String displayName) {
+        if (stopped) {
+            return TraceSpan.NONE;
+        }
+        Span parent = currentSpan.get();
+        Span span = new Span(nextId.getAndIncrement(), parent, intern(operation), intern(displayName), System.nanoTime());
+        currentSpan.set(span);
+        return span;
+    }
+
+    private int intern(String name) {
+        Integer index = nameIndexes.get(name);
+        if (index != null) {
+            return index;
+        }
+        synchronized (names) {
+            index = nameIndexes.get(name);
+            if (index == null) {
+                index = names.size();
+                names.add(name);
+                nameIndexes.put(name, index);
+            }
+            return index;
+        }
+    }
+
+    private String getName(int index) {
+        synchronized (names) {
+            return names.get(index);
+        }
+    }
+
+    private void writeUntilStopped() {
+        try {
+            while (!stopped) {
+                if (buffer.drain(this) == 0) {
+                    Thread.sleep(WRITE_INTERVAL_MILLIS);
+                }
+            }
+            buffer.drain(this);
+            encoder.writeByte(TraceFileFormat.DROPPED);
+            encoder.writeSmallLong(buffer.getDropped());
+            encoder.writeByte(TraceFileFormat.END);
+            if (buffer.getDropped() > 0) {
+                LOGGER.warn("{} build operations were not written to the trace file {}.", buffer.getDropped(), traceFile);
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (RuntimeException e) {
+            stopped = true;
+            LOGGER.warn(String.format("Could not write the build operation trace file %s.", traceFile), e);
+        } finally {
+            encoder.close();
+        }
+    }
+
+    public void visit(long id, long parentId, long threadId, long start, long duration, int operation, int name) {
+        writeName(operation);
+        writeName(name);
+        if (writtenThreads.add(threadId)) {
+            encoder.writeByte(TraceFileFormat.THREAD);
+            encoder.writeSmallLong(threadId);
+            encoder.writeString(threadNames.get(threadId));
+        }
+        encoder.writeByte(TraceFileFormat.OPERATION);
+        encoder.writeSmallLong(id);
+        encoder.writeSmallLong(parentId);
+        encoder.writeSmallLong(threadId);
+        encoder.writeSmallLong(start);
+        encoder.writeSmallLong(duration);
+        encoder.writeSmallInt(operation);
+        encoder.writeSmallInt(name);
+    }
+
+    private void writeName(int index) {
+        if (!writtenNames.get(index)) {
+            writtenNames.set(index);
+            encoder.writeByte(TraceFileFormat.NAME);
+            encoder.writeSmallInt(index);
+            encoder.writeString(getName(index));
+        }
+    }
+
+    private class Span implements TraceSpan {
+        private final long id;
+        private final Span parent;
+        private final int operation;
+        private final int name;
+        private final long start;
+
+        Span(long id, Span parent, int operation, int name, long start) {
+            this.id = id;
+            this.parent = parent;
+            this.operation = operation;
+            this.name = name;
+            this.start = start;
+        }
+
+        public void end() {
+            long end = System.nanoTime();
+            currentSpan.set(parent);
+            if (stopped) {
+                return;
+            }
+            Thread thread = Thread.currentThread();
+            Long threadId = thread.getId();
+            if (!threadNames.containsKey(threadId)) {
+                threadNames.putIfAbsent(threadId, thread.getName());
+            }
+            buffer.offer(id, parent == null ? 0 : parent.id, threadId, Math.max(start - startNanos, 0), end - start, operation, name);
+        }
+    }
+}
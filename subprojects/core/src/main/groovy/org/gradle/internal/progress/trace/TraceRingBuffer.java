@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.progress.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free buffer of finished operations, written by any number of threads and read by a single thread.
+ *
+ * <p>A writer claims a sequence number, writes the record into the slot for that sequence and then publishes the slot.
+ * When the reader has fallen behind by the capacity of the buffer, the record is dropped rather than blocking the writer.</p>
+ */
+class TraceRingBuffer {
+    private static final int RECORD_SIZE = 6;
+
+    private final int capacity;
+    private final int mask;
+    private final long[] records;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long consumed;
+
+    TraceRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two.");
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.records = new long[capacity * RECORD_SIZE];
+        this.published = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Adds a record to this buffer. Returns false when the buffer is full and the record has been dropped.
+     */
+    boolean offer(long id, long parentId, long threadId, long start, long duration, int operation, int name) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= capacity) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & mask);
+        int offset = slot * RECORD_SIZE;
+        records[offset] = id;
+        records[offset + 1] = parentId;
+        records[offset + 2] = threadId;
+        records[offset + 3] = start;
+        records[offset + 4] = duration;
+        records[offset + 5] = ((long) operation << 32) | (name & 0xFFFFFFFFL);
+        // Publishing the slot makes the record visible to the reader
+        published.lazySet(slot, sequence + 1);
+        return true;
+    }
+
+    /**
+     * Passes the published records to the given visitor, in the order they were claimed. Must only be called by a single thread.
+     *
+     * @return the number of records visited.
+     */
+    int drain(RecordVisitor visitor) {
+        long next = consumed;
+        int count = 0;
+        while (true) {
+            int slot = (int) (next & mask);
+            if (published.get(slot) != next + 1) {
+                return count;
+            }
+            int offset = slot * RECORD_SIZE;
+            long names = records[offset + 5];
+            visitor.visit(records[offset], records[offset + 1], records[offset + 2], records[offset + 3], records[offset + 4], (int) (names >>> 32), (int) names);
+            next++;
+            count++;
+            // Frees the slot for writers
+            consumed = next;
+        }
+    }
+
+    /**
+     * The number of records dropped because the buffer was full.
+     */
+    long getDropped() {
+        return dropped.get();
+    }
+
+    interface RecordVisitor {
+        void visit(long id, long parentId, long threadId, long start, long duration, int operation, int name);
+    }
+}
@@ -142,8 +142,8 @@ public class GlobalScopeServices {
         return new DefaultPluginModuleRegistry(moduleRegistry);
     }
 
-    protected CacheFactory createCacheFactory(FileLockManager fileLockManager) {
-        return new DefaultCacheFactory(fileLockManager);
+    protected CacheFactory createCacheFactory(FileLockManager fileLockManager, ExecutorFactory executorFactory) {
+        return new DefaultCacheFactory(fileLockManager, executorFactory);
     }
 
     DefaultClassLoaderRegistry createClassLoaderRegistry(ClassPathRegistry classPathRegistry, ClassLoaderFactory classLoaderFactory) {
@@ -17,6 +17,7 @@ package org.gradle.internal.service.scopes;
 
 import org.gradle.api.Action;
 import org.gradle.api.internal.DependencyInjectingInstantiator;
+import org.gradle.api.internal.changedetection.state.TaskExecutionTimeRepository;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
 import org.gradle.api.internal.plugins.*;
@@ -27,6 +28,8 @@ import org.gradle.api.invocation.Gradle;
 import org.gradle.execution.*;
 import org.gradle.execution.commandline.CommandLineTaskConfigurer;
 import org.gradle.execution.commandline.CommandLineTaskParser;
+import org.gradle.execution.taskgraph.CriticalPathTaskPrioritizer;
+import org.gradle.execution.taskgraph.DefaultTaskExecutionPlan;
 import org.gradle.execution.taskgraph.DefaultTaskGraphExecuter;
 import org.gradle.execution.taskgraph.TaskPlanExecutor;
 import org.gradle.initialization.BuildCancellationToken;
@@ -106,7 +109,11 @@ public class GradleScopeServices extends DefaultServiceRegistry {
                 return get(TaskExecuter.class);
             }
         };
-        return new DefaultTaskGraphExecuter(listenerManager, taskPlanExecutor, taskExecuterFactory, cancellationToken, timeProvider, buildOperationExecutor);
+        CriticalPathTaskPrioritizer prioritizer = null;
+        if (Boolean.getBoolean(DefaultTaskExecutionPlan.CRITICAL_PATH_TOGGLE)) {
+            prioritizer = new CriticalPathTaskPrioritizer(get(TaskExecutionTimeRepository.class));
+        }
+        return new DefaultTaskGraphExecuter(listenerManager, taskPlanExecutor, taskExecuterFactory, cancellationToken, timeProvider, buildOperationExecutor, prioritizer);
     }
 
     ServiceRegistryFactory createServiceRegistryFactory(final ServiceRegistry services) {
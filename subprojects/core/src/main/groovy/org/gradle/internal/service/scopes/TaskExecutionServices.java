@@ -25,7 +25,7 @@ import org.gradle.api.internal.changedetection.changes.ShortCircuitTaskArtifactS
 import org.gradle.api.internal.changedetection.state.*;
 import org.gradle.api.internal.file.FileCollectionFactory;
 import org.gradle.api.internal.file.FileResolver;
-import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.api.internal.hash.FileHashAlgorithm;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.execution.*;
 import org.gradle.api.invocation.Gradle;
@@ -74,23 +74,40 @@ public class TaskExecutionServices {
         );
     }
 
-    TaskArtifactStateCacheAccess createCacheAccess(Gradle gradle, CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache, GradleBuildEnvironment environment) {
+    FileHashAlgorithm createFileHashAlgorithm() {
+        return FileHashAlgorithm.current();
+    }
+
+    TaskArtifactStateCacheAccess createCacheAccess(Gradle gradle, CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache, GradleBuildEnvironment environment,
+                                                   FileHashAlgorithm fileHashAlgorithm) {
         CacheDecorator decorator;
         if (environment.isLongLivingProcess()) {
             decorator = inMemoryTaskArtifactCache;
         } else {
             decorator = new NoOpDecorator();
         }
-        return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator);
+        return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator, fileHashAlgorithm);
+    }
+
+    CachingFileSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, FileHashAlgorithm fileHashAlgorithm) {
+        return new CachingFileSnapshotter(fileHashAlgorithm.createHasher(), cacheAccess, stringInterner);
     }
 
-    FileSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner) {
-        return new CachingFileSnapshotter(new DefaultHasher(), cacheAccess, stringInterner);
+    ParallelFileHasher createParallelFileHasher(CachingFileSnapshotter fileSnapshotter, TaskArtifactStateCacheAccess cacheAccess, ExecutorFactory executorFactory, StartParameter startParameter) {
+        return new ParallelFileHasher(fileSnapshotter, cacheAccess, executorFactory, startParameter.getMaxWorkerCount());
+    }
+
+    DirectoryTreeSnapshotCache createDirectoryTreeSnapshotCache(ListenerManager listenerManager) {
+        DirectoryTreeSnapshotCache directoryTreeSnapshotCache = new DirectoryTreeSnapshotCache();
+        listenerManager.addListener(directoryTreeSnapshotCache);
+        return directoryTreeSnapshotCache;
     }
 
     TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileSnapshotter fileSnapshotter,
-                                                                  StringInterner stringInterner, FileResolver fileResolver, FileSystem fileSystem, FileCollectionFactory fileCollectionFactory) {
-        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver);
+                                                                  StringInterner stringInterner, FileResolver fileResolver, FileSystem fileSystem, FileCollectionFactory fileCollectionFactory,
+                                                                  ParallelFileHasher parallelFileHasher, DirectoryTreeSnapshotCache directoryTreeSnapshotCache) {
+        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver,
+            startParameter.getMaxWorkerCount() > 1 ? parallelFileHasher : null, directoryTreeSnapshotCache);
         FileCollectionSnapshotter discoveredFileCollectionSnapshotter = new MinimalFileSetSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver, fileSystem);
 
         FileCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(fileCollectionSnapshotter, new RandomLongIdGenerator(), cacheAccess, stringInterner);
@@ -120,6 +137,10 @@ public class TaskExecutionServices {
         );
     }
 
+    TaskExecutionTimeRepository createTaskExecutionTimeRepository(TaskArtifactStateCacheAccess cacheAccess) {
+        return new CacheBackedTaskExecutionTimeRepository(cacheAccess);
+    }
+
     TaskPlanExecutor createTaskExecutorFactory(StartParameter startParameter, ExecutorFactory executorFactory) {
         return new TaskPlanExecutorFactory(startParameter.getParallelThreadCount(), executorFactory).create();
     }
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.logging.internal;
+
+import org.gradle.api.Action;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Queues output events from any number of threads, and passes them to a listener on a single dispatch thread.
+ *
+ * <ul>
+ * <li>Events are passed to the listener in the order they were queued. Consecutive text events with the same category and log level are coalesced into a single event.</li>
+ * <li>The queue is bounded. When it is full, a thread that queues an event blocks until the dispatch thread has caught up, so that output is never dropped.</li>
+ * <li>Events queued by the dispatch thread itself, for example by the listener, or after the queue has been stopped are passed to the listener directly.</li>
+ * <li>A failure of the listener on the dispatch thread is passed to the given failure handler. It is not propagated to the threads that queue events or flush the queue.</li>
+ * </ul>
+ */
+public class OutputEventQueue implements OutputEventListener, Stoppable {
+    static final int DEFAULT_CAPACITY = 10000;
+    private static final int MAX_COALESCED_EVENTS = 500;
+
+    private final OutputEventListener listener;
+    private final Action<? super Throwable> failureHandler;
+    private final Queue<OutputEvent> queue = new ConcurrentLinkedQueue<OutputEvent>();
+    private final Semaphore capacity;
+    private final StoppableExecutor executor;
+    private volatile Thread dispatchThread;
+    private volatile boolean waiting;
+    private volatile boolean stopped;
+
+    public OutputEventQueue(OutputEventListener listener, Action<? super Throwable> failureHandler, ExecutorFactory executorFactory) {
+        this(listener, failureHandler, executorFactory, DEFAULT_CAPACITY);
+    }
+
+    OutputEventQueue(OutputEventListener listener, Action<? super Throwable> failureHandler, ExecutorFactory executorFactory, int capacity) {
+        this.listener = listener;
+        this.failureHandler = failureHandler;
+        this.capacity = new Semaphore(capacity);
+        executor = executorFactory.create("Output event dispatch");
+        executor.execute(new Runnable() {
+            public void run() {
+                dispatchThread = Thread.currentThread();
+                dispatch();
+            }
+        });
+    }
+
+    public void onOutput(OutputEvent event) {
+        if (stopped || Thread.currentThread() == dispatchThread) {
+            listener.onOutput(event);
+            return;
+        }
+        capacity.acquireUninterruptibly();
+        add(event);
+    }
+
+    /**
+     * Blocks until all events queued before this method was called have been passed to the listener.
+     */
+    public void flush() {
+        if (Thread.currentThread() != dispatchThread && !stopped) {
+            Flush flush = new Flush();
+            add(flush);
+            flush.await();
+        }
+    }
+
+    /**
+     * Passes all queued events to the listener, and stops the dispatch thread.
+     */
+    public void stop() {
+        try {
+            flush();
+        } finally {
+            stopped = true;
+            Thread dispatchThread = this.dispatchThread;
+            if (dispatchThread != null) {
+                LockSupport.unpark(dispatchThread);
+            }
+            executor.stop();
+        }
+    }
+
+    private void add(OutputEvent event) {
+        queue.add(event);
+        Thread dispatchThread = this.dispatchThread;
+        if (waiting && dispatchThread != null) {
+            LockSupport.unpark(dispatchThread);
+        }
+    }
+
+    private void dispatch() {
+        while (true) {
+            OutputEvent event = queue.poll();
+            if (event == null) {
+                if (stopped) {
+                    return;
+                }
+                waiting = true;
+                if (queue.isEmpty() && !stopped) {
+                    LockSupport.park(this);
+                }
+                waiting = false;
+                continue;
+            }
+            if (event instanceof Flush) {
+                ((Flush) event).done();
+                continue;
+            }
+            int count = 1;
+            if (event instanceof StyledTextOutputEvent) {
+                List<StyledTextOutputEvent.Span> spans = null;
+                StyledTextOutputEvent first = (StyledTextOutputEvent) event;
+                OutputEvent next = queue.peek();
+                while (count < MAX_COALESCED_EVENTS && canCoalesce(first, next)) {
+                    if (spans == null) {
+                        spans = new ArrayList<StyledTextOutputEvent.Span>(first.getSpans());
+                    }
+                    spans.addAll(((StyledTextOutputEvent) queue.poll()).getSpans());
+                    count++;
+                    next = queue.peek();
+                }
+                if (spans != null) {
+                    event = new StyledTextOutputEvent(first.getTimestamp(), first.getCategory(), first.getLogLevel(), spans);
+                }
+            }
+            try {
+                listener.onOutput(event);
+            } catch (Throwable t) {
+                failureHandler.execute(t);
+            } finally {
+                capacity.release(count);
+            }
+        }
+    }
+
+    private static boolean canCoalesce(StyledTextOutputEvent first, OutputEvent next) {
+        if (!(next instanceof StyledTextOutputEvent)) {
+            return false;
+        }
+        StyledTextOutputEvent event = (StyledTextOutputEvent) next;
+        LogLevel logLevel = first.getLogLevel();
+        return first.getCategory().equals(event.getCategory()) && (logLevel == null ? event.getLogLevel() == null : logLevel == event.getLogLevel());
+    }
+
+    private static class Flush extends OutputEvent {
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        @Override
+        public LogLevel getLogLevel() {
+            return null;
+        }
+
+        void done() {
+            latch.countDown();
+        }
+
+        void await() {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ import net.jcip.annotations.ThreadSafe;
 import org.gradle.api.Action;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.StandardOutputListener;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.nativeintegration.console.ConsoleMetaData;
 import org.gradle.internal.nativeintegration.console.FallbackConsoleMetaData;
 import org.gradle.internal.event.ListenerBroadcast;
@@ -26,6 +27,7 @@ import org.gradle.logging.ConsoleOutput;
 
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.PrintStream;
 
 /**
  * A {@link org.gradle.logging.internal.OutputEventListener} implementation which renders output events to various
@@ -39,13 +41,14 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
     private final ListenerBroadcast<StandardOutputListener> stderrListeners = new ListenerBroadcast<StandardOutputListener>(StandardOutputListener.class);
     private final Object lock = new Object();
     private final DefaultColorMap colourMap = new DefaultColorMap();
-    private LogLevel logLevel = LogLevel.LIFECYCLE;
+    private volatile LogLevel logLevel = LogLevel.LIFECYCLE;
     private final Action<? super OutputEventRenderer> consoleConfigureAction;
     private OutputStream originalStdOut;
     private OutputStream originalStdErr;
     private StreamBackedStandardOutputListener stdOutListener;
     private StreamBackedStandardOutputListener stdErrListener;
     private ConsoleOutput consoleOutput;
+    private volatile OutputEventQueue queue;
 
     public OutputEventRenderer(Action<? super OutputEventRenderer> consoleConfigureAction) {
         OutputEventListener stdOutChain = onNonError(new ProgressLogEventGenerator(new StyledTextOutputBackedRenderer(new StreamingStyledTextOutput(stdoutListeners.getSource())), false));
@@ -71,7 +74,59 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
         return originalStdErr;
     }
 
+    /**
+     * Renders events on a separate thread from now on, so that the threads that generate output do not wait for the output to be rendered.
+     * Events are rendered in the order they were generated. Events that have been generated are always rendered before the
+     * destinations of this renderer change.
+     *
+     * <p>Listeners are then notified on the dispatch thread rather than on the thread that generated the event, and a failure of a listener
+     * is not propagated to that thread. Instead, it is written to the original standard error stream, if any.</p>
+     *
+     * @see OutputEventQueue
+     */
+    public void startAsyncRendering(ExecutorFactory executorFactory) {
+        synchronized (lock) {
+            if (queue == null) {
+                queue = new OutputEventQueue(new OutputEventListener() {
+                    public void onOutput(OutputEvent event) {
+                        render(event);
+                    }
+                }, new Action<Throwable>() {
+                    public void execute(Throwable failure) {
+                        renderFailed(failure);
+                    }
+                }, executorFactory);
+            }
+        }
+    }
+
+    /**
+     * Renders all pending events, and renders events on the thread that generates them from now on.
+     */
+    public void stopAsyncRendering() {
+        OutputEventQueue queue;
+        synchronized (lock) {
+            queue = this.queue;
+            this.queue = null;
+        }
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    /**
+     * Blocks until all events generated so far have been rendered.
+     */
+    public void flush() {
+        OutputEventQueue queue = this.queue;
+        // Rendering requires the lock, so do not wait for pending events while holding it
+        if (queue != null && !Thread.holdsLock(lock)) {
+            queue.flush();
+        }
+    }
+
     public void attachProcessConsole(ConsoleOutput consoleOutput) {
+        flush();
         synchronized (lock) {
             this.consoleOutput = consoleOutput;
             consoleConfigureAction.execute(this);
@@ -79,6 +134,7 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
     }
 
     public void attachAnsiConsole(OutputStream outputStream) {
+        flush();
         synchronized (lock) {
             OutputStreamWriter writer = new OutputStreamWriter(outputStream);
             Console console = new AnsiConsole(writer, writer, colourMap, true);
@@ -87,6 +143,7 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
     }
 
     public void attachSystemOutAndErr() {
+        flush();
         addStandardOutputListener();
         addStandardErrorListener();
     }
@@ -114,6 +171,7 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
     }
 
     public void removeStandardOutputAndError() {
+        flush();
         removeStandardOutputListener();
         removeStandardErrorListener();
     }
@@ -137,18 +195,21 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
     }
 
     public void addOutputEventListener(OutputEventListener listener) {
+        flush();
         synchronized (lock) {
             formatters.add(listener);
         }
     }
 
     public void removeOutputEventListener(OutputEventListener listener) {
+        flush();
         synchronized (lock) {
             formatters.remove(listener);
         }
     }
 
     public void removeAllOutputEventListeners() {
+        flush();
         synchronized (lock) {
             formatters.removeAll();
         }
@@ -160,6 +221,7 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
                         new StyledTextOutputBackedRenderer(console.getMainArea()), true),
                 console,
                 new DefaultStatusBarFormatter(consoleMetaData));
+        flush();
         synchronized (lock) {
             if (stdout && stderr) {
                 formatters.add(consoleChain);
@@ -197,12 +259,14 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
     }
 
     public void addStandardErrorListener(StandardOutputListener listener) {
+        flush();
         synchronized (lock) {
             stderrListeners.add(listener);
         }
     }
 
     public void addStandardOutputListener(StandardOutputListener listener) {
+        flush();
         synchronized (lock) {
             stdoutListeners.add(listener);
         }
@@ -218,12 +282,14 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
 
 
     public void removeStandardOutputListener(StandardOutputListener listener) {
+        flush();
         synchronized (lock) {
             stdoutListeners.remove(listener);
         }
     }
 
     public void removeStandardErrorListener(StandardOutputListener listener) {
+        flush();
         synchronized (lock) {
             stderrListeners.remove(listener);
         }
@@ -234,6 +300,31 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
     }
 
     public void onOutput(OutputEvent event) {
+        OutputEventQueue queue = this.queue;
+        if (queue == null) {
+            render(event);
+        } else if (event instanceof LogLevelChangeEvent) {
+            // Later events are filtered using the new log level, so render the change straight away
+            flush();
+            render(event);
+        } else if (event.getLogLevel() == null || event.getLogLevel().compareTo(logLevel) >= 0) {
+            queue.onOutput(event);
+        }
+    }
+
+    private void renderFailed(Throwable failure) {
+        OutputStream originalStdErr;
+        synchronized (lock) {
+            originalStdErr = this.originalStdErr;
+        }
+        if (originalStdErr != null) {
+            PrintStream stream = new PrintStream(originalStdErr, true);
+            stream.println("Could not render output event.");
+            failure.printStackTrace(stream);
+        }
+    }
+
+    private void render(OutputEvent event) {
         synchronized (lock) {
             if (event.getLogLevel() != null && event.getLogLevel().compareTo(logLevel) < 0) {
                 return;
@@ -23,11 +23,12 @@ import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.changedetection.TaskArtifactState
 import org.gradle.api.internal.changedetection.state.*
 import org.gradle.api.internal.file.TestFiles
-import org.gradle.api.internal.hash.DefaultHasher
+import org.gradle.api.internal.hash.FileHashAlgorithm
 import org.gradle.api.tasks.incremental.InputFileDetails
 import org.gradle.cache.CacheRepository
 import org.gradle.cache.internal.CacheScopeMapping
 import org.gradle.cache.internal.DefaultCacheRepository
+import org.gradle.internal.id.IdGenerator
 import org.gradle.internal.id.RandomLongIdGenerator
 import org.gradle.internal.reflect.DirectInstantiator
 import org.gradle.internal.serialize.DefaultSerializerRegistry
@@ -68,12 +69,15 @@ public class DefaultTaskArtifactStateRepositoryTest extends Specification {
         }
     }
     DefaultTaskArtifactStateRepository repository
+    TaskArtifactStateCacheAccess cacheAccess
+    FileSnapshotRepository snapshotRepository
+    final snapshotIds = []
 
     def setup() {
         CacheRepository cacheRepository = new DefaultCacheRepository(mapping, new InMemoryCacheFactory())
-        TaskArtifactStateCacheAccess cacheAccess = new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, new NoOpDecorator())
+        cacheAccess = new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, new NoOpDecorator(), FileHashAlgorithm.DEFAULT)
         def stringInterner = new StringInterner()
-        def snapshotter = new CachingFileSnapshotter(new DefaultHasher(), cacheAccess, stringInterner)
+        def snapshotter = new CachingFileSnapshotter(FileHashAlgorithm.DEFAULT.createHasher(), cacheAccess, stringInterner)
         FileCollectionSnapshotter inputFilesSnapshotter = new DefaultFileCollectionSnapshotter(snapshotter, cacheAccess, stringInterner, TestFiles.resolver())
         FileCollectionSnapshotter discoveredFilesSnapshotter = new MinimalFileSetSnapshotter(snapshotter, cacheAccess, stringInterner, TestFiles.resolver(), TestFiles.fileSystem())
         FileCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(inputFilesSnapshotter, new RandomLongIdGenerator(), cacheAccess, stringInterner)
@@ -81,7 +85,9 @@ public class DefaultTaskArtifactStateRepositoryTest extends Specification {
         inputFilesSnapshotter.registerSerializers(serializerRegistry);
         outputFilesSnapshotter.registerSerializers(serializerRegistry);
         discoveredFilesSnapshotter.registerSerializers(serializerRegistry);
-        TaskHistoryRepository taskHistoryRepository = new CacheBackedTaskHistoryRepository(cacheAccess, new CacheBackedFileSnapshotRepository(cacheAccess, serializerRegistry.build(), new RandomLongIdGenerator()), stringInterner)
+        def idGenerator = new RandomLongIdGenerator()
+        snapshotRepository = new CacheBackedFileSnapshotRepository(cacheAccess, serializerRegistry.build(), { snapshotIds << idGenerator.generateId(); snapshotIds.last() } as IdGenerator<Long>)
+        TaskHistoryRepository taskHistoryRepository = new CacheBackedTaskHistoryRepository(cacheAccess, snapshotRepository, stringInterner)
         repository = new DefaultTaskArtifactStateRepository(taskHistoryRepository, DirectInstantiator.INSTANCE, outputFilesSnapshotter, inputFilesSnapshotter, discoveredFilesSnapshotter, TestFiles.fileCollectionFactory())
     }
 
@@ -90,6 +96,23 @@ public class DefaultTaskArtifactStateRepositoryTest extends Specification {
         outOfDate(task)
     }
 
+    def artifactsAreNotUpToDateWhenAFileSnapshotOfThePreviousExecutionIsMissing() {
+        given:
+        execute(task)
+
+        when:
+        cacheAccess.useCache("remove snapshot", { snapshotRepository.remove(snapshotIds.first()) } as Runnable)
+
+        then:
+        outOfDate task
+
+        when:
+        execute(task)
+
+        then:
+        upToDate task
+    }
+
     def artifactsAreNotUpToDateWhenAnyOutputFileNoLongerExists() {
         given:
         execute(task)
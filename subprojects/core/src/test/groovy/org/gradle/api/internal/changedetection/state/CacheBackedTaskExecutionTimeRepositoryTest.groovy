@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factory
+import spock.lang.Specification
+
+class CacheBackedTaskExecutionTimeRepositoryTest extends Specification {
+    final TaskArtifactStateCacheAccess cacheAccess = Mock()
+    final PersistentIndexedCache<Object, Object> indexedCache = Mock()
+    TaskExecutionTimeRepository repository
+
+    def setup() {
+        1 * cacheAccess.createCache("taskExecutionTimes", String, _) >> indexedCache
+        repository = new CacheBackedTaskExecutionTimeRepository(cacheAccess)
+    }
+
+    def "loads execution times of known tasks"() {
+        when:
+        def result = repository.getExecutionTimes([":a", ":b"])
+
+        then:
+        result == [":a": 12L]
+        1 * cacheAccess.useCache(_, _ as Factory) >> { String operation, Factory factory -> factory.create() }
+        1 * indexedCache.get(":a") >> 12L
+        1 * indexedCache.get(":b") >> null
+        0 * _._
+    }
+
+    def "stores execution times"() {
+        when:
+        repository.recordExecutionTimes([":a": 12L, ":b": 3L])
+
+        then:
+        1 * cacheAccess.useCache(_, _ as Runnable) >> { String operation, Runnable action -> action.run() }
+        1 * indexedCache.put(":a", 12L)
+        1 * indexedCache.put(":b", 3L)
+        0 * _._
+    }
+
+    def "does not lock the cache when there is nothing to store"() {
+        when:
+        repository.recordExecutionTimes([:])
+
+        then:
+        0 * _._
+    }
+}
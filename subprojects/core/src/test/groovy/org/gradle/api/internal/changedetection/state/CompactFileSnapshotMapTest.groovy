@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import spock.lang.Specification
+
+import static org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter.*
+
+class CompactFileSnapshotMapTest extends Specification {
+    def "contains the same entries as the source map, in path order"() {
+        def source = snapshots(200)
+
+        when:
+        def map = CompactFileSnapshotMap.of(source)
+
+        then:
+        map.size() == source.size()
+        map.keySet() as List == source.keySet().sort()
+        map.entrySet().every { source[it.key].isUpToDate(it.value) && it.value.isUpToDate(source[it.key]) }
+    }
+
+    def "finds every entry by path"() {
+        def source = snapshots(200)
+        def map = CompactFileSnapshotMap.of(source)
+
+        expect:
+        source.every { path, snapshot -> map.containsKey(path) && map.get(path).isUpToDate(snapshot) }
+    }
+
+    def "does not find paths that are not in the map"() {
+        def map = CompactFileSnapshotMap.of(snapshots(200))
+
+        expect:
+        !map.containsKey(path)
+        map.get(path) == null
+
+        where:
+        path << ["", "/", "/a", "/z", "/project", "/project/dir1", "/project/dir1/", "/project/dir1/file1.tx", "/project/dir1/file1.txt2", "/project/dir10/file1.txt",
+                 "/project/dir3/file9999.txt", "/project/dir4/sub/file", "/project/dir9/z"]
+    }
+
+    def "can find paths around restart points"() {
+        def source = [:]
+        (0..(CompactFileSnapshotMap.RESTART_INTERVAL * 3)).each { source[String.format("/p/%03d", it)] = DirSnapshot.instance }
+        source["/p/000/a/much/longer/path/than/the/others"] = MissingFileSnapshot.instance
+        def map = CompactFileSnapshotMap.of(source)
+
+        expect:
+        source.keySet().every { map.containsKey(it) }
+        map.get("/p/000/a/much/longer/path/than/the/others") instanceof MissingFileSnapshot
+        !map.containsKey("/p/000/a")
+        !map.containsKey("/p/0000")
+        !map.containsKey("/p/049")
+    }
+
+    def "returns empty map for empty source"() {
+        expect:
+        CompactFileSnapshotMap.of([:]).isEmpty()
+        CompactFileSnapshotMap.of([:]).get("/a") == null
+    }
+
+    def "builder rejects paths added out of order"() {
+        def builder = new CompactFileSnapshotMap.Builder(2)
+        builder.add("/b", DirSnapshot.instance)
+
+        when:
+        builder.add("/a", DirSnapshot.instance)
+
+        then:
+        IllegalArgumentException e = thrown()
+        e.message == "Path '/a' added out of order."
+    }
+
+    def "map is immutable"() {
+        def map = CompactFileSnapshotMap.of(["/a": DirSnapshot.instance])
+
+        when:
+        map.put("/b", DirSnapshot.instance)
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    private static Map<String, IncrementalFileSnapshot> snapshots(int count) {
+        def result = [:]
+        (1..count).each {
+            result["/project/dir${it % 9}/file${it}.txt".toString()] = new FileHashSnapshot([it % 128] * 16 as byte[])
+            result["/project/dir${it % 9}".toString()] = DirSnapshot.instance
+        }
+        result["/project/missing"] = MissingFileSnapshot.instance
+        return result
+    }
+}
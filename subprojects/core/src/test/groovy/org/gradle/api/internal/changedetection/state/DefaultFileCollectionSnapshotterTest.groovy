@@ -20,6 +20,9 @@ import org.gradle.api.file.FileTreeElement
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.internal.hash.DefaultHasher
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.hash.HashUtil
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -370,6 +373,42 @@ public class DefaultFileCollectionSnapshotterTest extends Specification {
         0 * _
     }
 
+    def parallelHashingCreatesSameSnapshotAsSequentialHashing() {
+        given:
+        def fileHashes = [:]
+        def fileHashCache = Stub(PersistentIndexedCache) {
+            get(_) >> { String key -> fileHashes[key] }
+            put(_, _) >> { String key, value -> fileHashes[key] = value }
+        }
+        def hashCacheAccess = Stub(TaskArtifactStateCacheAccess) {
+            createCache("fileHashes", _, _) >> fileHashCache
+            useCache(_, _) >> { String name, Runnable action -> action.run() }
+        }
+        def cachingSnapshotter = new CachingFileSnapshotter(new DefaultHasher(), hashCacheAccess, new StringInterner())
+        def executorFactory = new DefaultExecutorFactory()
+        def parallelFileHasher = new ParallelFileHasher(cachingSnapshotter, hashCacheAccess, executorFactory, 4)
+        def sequentialSnapshotter = new DefaultFileCollectionSnapshotter(cachingSnapshotter, hashCacheAccess, new StringInterner(), TestFiles.resolver())
+        def parallelSnapshotter = new DefaultFileCollectionSnapshotter(cachingSnapshotter, hashCacheAccess, new StringInterner(), TestFiles.resolver(), parallelFileHasher, null)
+        def root = tmpDir.createDir('root')
+        (1..2500).each { root.file("dir${it % 10}/file${it}").text = "content ${it}" }
+        def missing = tmpDir.file('missing')
+
+        when:
+        def expected = sequentialSnapshotter.snapshot(files(root, missing))
+        fileHashes.clear()
+        def parallel = parallelSnapshotter.snapshot(files(root, root.file('dir1'), missing))
+
+        then:
+        parallel.files.sort() == expected.files.sort()
+        !parallel.iterateChangesSince(expected).next(listener)
+        !expected.iterateChangesSince(parallel).next(listener)
+        0 * listener._
+
+        cleanup:
+        parallelFileHasher.stop()
+        executorFactory.stop()
+    }
+
     private FileCollection files(File... files) {
         new SimpleFileCollection(files)
     }
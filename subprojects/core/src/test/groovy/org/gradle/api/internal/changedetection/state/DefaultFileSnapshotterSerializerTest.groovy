@@ -16,12 +16,11 @@
 
 package org.gradle.api.internal.changedetection.state
 
-import org.gradle.api.internal.cache.StringInterner
 import org.gradle.internal.serialize.SerializerSpec
 
 class DefaultFileSnapshotterSerializerTest extends SerializerSpec {
 
-    def serializer = new DefaultFileSnapshotterSerializer(new StringInterner())
+    def serializer = new DefaultFileSnapshotterSerializer()
 
     def "reads and writes the snapshot"() {
         when:
@@ -36,4 +35,42 @@ class DefaultFileSnapshotterSerializerTest extends SerializerSpec {
         out.snapshots['2'] instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot
         ((DefaultFileCollectionSnapshotter.FileHashSnapshot) out.snapshots['3']).hash == "foo".bytes
     }
+
+    def "reads and writes prefix-compressed paths"() {
+        def snapshots = [:]
+        (1..100).each {
+            snapshots["/some/project/src/main/java/org/gradle/dir${it % 7}/File${it}.java".toString()] = new DefaultFileCollectionSnapshotter.FileHashSnapshot([it] * 16 as byte[])
+        }
+        snapshots["/some/project/src/main/java/org/gradle/d\u00e9j\u00e0"] = DefaultFileCollectionSnapshotter.DirSnapshot.getInstance()
+
+        when:
+        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl out = serialize(new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(snapshots), serializer)
+
+        then:
+        out.snapshots.size() == 101
+        out.snapshots.keySet() == snapshots.keySet()
+        snapshots.every { path, snapshot -> out.snapshots[path].isUpToDate(snapshot) }
+    }
+
+    def "reads and writes paths whose shared prefix ends within a surrogate pair"() {
+        def snapshots = [
+                "/some/dir/\ud83d\ude00": DefaultFileCollectionSnapshotter.DirSnapshot.getInstance(),
+                "/some/dir/\ud83d\ude01": DefaultFileCollectionSnapshotter.MissingFileSnapshot.getInstance(),
+                "/some/dir/\ud83d\ude01/\u00e9": new DefaultFileCollectionSnapshotter.FileHashSnapshot("foo".bytes)]
+
+        when:
+        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl out = serialize(new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(snapshots), serializer)
+
+        then:
+        out.snapshots.keySet() == snapshots.keySet()
+        snapshots.every { path, snapshot -> out.snapshots[path].isUpToDate(snapshot) }
+    }
+
+    def "reads and writes empty snapshot"() {
+        when:
+        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl out = serialize(new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl([:]), serializer)
+
+        then:
+        out.snapshots.isEmpty()
+    }
 }
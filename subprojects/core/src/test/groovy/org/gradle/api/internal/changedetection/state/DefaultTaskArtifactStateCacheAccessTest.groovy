@@ -16,6 +16,7 @@
 package org.gradle.api.internal.changedetection.state
 
 import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.hash.FileHashAlgorithm
 import org.gradle.cache.CacheBuilder
 import org.gradle.cache.CacheRepository
 import org.gradle.cache.PersistentCache
@@ -32,10 +33,11 @@ class DefaultTaskArtifactStateCacheAccessTest extends Specification {
         PersistentCache backingCache = Mock()
 
         when:
-        new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, new NoOpDecorator())
+        new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, new NoOpDecorator(), FileHashAlgorithm.MURMUR3)
 
         then:
         1 * cacheRepository.cache(gradle, "taskArtifacts") >> cacheBuilder
+        1 * cacheBuilder.withProperties([fileHashFormat: FileHashAlgorithm.MURMUR3.formatVersion, formatVersion: 2]) >> cacheBuilder
         1 * cacheBuilder.withDisplayName(_) >> cacheBuilder
         1 * cacheBuilder.withLockOptions(LockOptionsBuilder.mode(FileLockManager.LockMode.None)) >> cacheBuilder
         1 * cacheBuilder.open() >> backingCache
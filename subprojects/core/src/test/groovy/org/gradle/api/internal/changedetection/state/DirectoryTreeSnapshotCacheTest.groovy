@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.Task
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.file.FileTreeInternal
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.internal.file.collections.FileTreeAdapter
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.internal.file.collections.SingletonFileTree
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class DirectoryTreeSnapshotCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cache = new DirectoryTreeSnapshotCache()
+    def root = tmpDir.createDir("root")
+
+    def setup() {
+        root.createFile("a.txt")
+        root.createFile("b.java")
+        root.createFile("sub/c.txt")
+        root.createFile("sub/d.java")
+        root.createFile("sub/nested/e.txt")
+        root.createFile("other/f.txt")
+    }
+
+    def "visits the same files as the directory tree"() {
+        def tree = new DirectoryFileTree(root, patterns)
+
+        expect:
+        visit(tree) == visitDirectly(tree)
+        visit(tree) == visitDirectly(tree)
+
+        where:
+        patterns << [
+            new PatternSet(),
+            new PatternSet().include("**/*.txt"),
+            new PatternSet().exclude("sub"),
+            new PatternSet().exclude("sub/nested/**"),
+            new PatternSet().include("sub/**").exclude("**/*.java"),
+            new PatternSet().include("**/*.java").intersect().exclude("sub/**")
+        ]
+    }
+
+    def "walks each root directory once for each set of patterns"() {
+        visit(new DirectoryFileTree(root, new PatternSet().include("**/*.txt")))
+
+        when:
+        root.createFile("g.txt")
+
+        then:
+        !visit(new DirectoryFileTree(root, new PatternSet().include("**/*.txt"))).contains("g.txt")
+        visit(new DirectoryFileTree(root)).contains("g.txt")
+    }
+
+    def "patterns changed after a walk do not affect the cached contents"() {
+        def patterns = new PatternSet().include("**/*.txt")
+        def tree = new DirectoryFileTree(root, patterns)
+        visit(tree)
+
+        when:
+        patterns.include("**/*.java")
+
+        then:
+        visit(tree) == visitDirectly(tree)
+        visit(new DirectoryFileTree(root, new PatternSet().include("**/*.txt"))) == visitDirectly(new DirectoryFileTree(root, new PatternSet().include("**/*.txt")))
+    }
+
+    def "discards contents of a directory when a task with an output in, above or below the directory performs its actions"() {
+        visit(new DirectoryFileTree(root))
+        root.createFile("g.txt")
+
+        when:
+        cache.afterActions(taskWithOutputs(output(root)))
+
+        then:
+        visit(new DirectoryFileTree(root)).contains("g.txt")
+
+        where:
+        output << [{ it }, { it.file("sub/output.txt") }, { it.parentFile }]
+    }
+
+    def "keeps contents of a directory when a task with unrelated outputs performs its actions"() {
+        visit(new DirectoryFileTree(root))
+        root.createFile("g.txt")
+
+        when:
+        cache.beforeActions(taskWithOutputs(tmpDir.file("root2")))
+        cache.afterActions(taskWithOutputs(tmpDir.file("ro")))
+
+        then:
+        !visit(new DirectoryFileTree(root)).contains("g.txt")
+    }
+
+    def "discards all contents when a task without outputs performs its actions"() {
+        visit(new DirectoryFileTree(root))
+        root.createFile("g.txt")
+        def outputs = Stub(TaskOutputsInternal) {
+            getHasOutput() >> false
+        }
+        def task = Stub(Task) {
+            getOutputs() >> outputs
+        }
+
+        when:
+        cache.beforeActions(task)
+
+        then:
+        visit(new DirectoryFileTree(root)).contains("g.txt")
+    }
+
+    def "visits other file trees directly"() {
+        def file = root.file("a.txt")
+
+        expect:
+        visit(new FileTreeAdapter(new SingletonFileTree(file))) == ["a.txt"]
+        visit(new DirectoryFileTree(tmpDir.file("missing"))) == []
+    }
+
+    private Task taskWithOutputs(File... files) {
+        def outputs = Stub(TaskOutputsInternal) {
+            getHasOutput() >> true
+            getFiles() >> new SimpleFileCollection(files)
+        }
+        return Stub(Task) {
+            getOutputs() >> outputs
+        }
+    }
+
+    private List<String> visit(DirectoryFileTree tree) {
+        visit(new FileTreeAdapter(tree))
+    }
+
+    private List<String> visit(FileTreeInternal fileTree) {
+        def visitor = new RecordingVisitor()
+        cache.visit(fileTree, visitor)
+        return visitor.paths.sort()
+    }
+
+    private static List<String> visitDirectly(DirectoryFileTree tree) {
+        def visitor = new RecordingVisitor()
+        tree.visit(visitor)
+        return visitor.paths.sort()
+    }
+
+    private static class RecordingVisitor implements FileVisitor {
+        final List<String> paths = []
+
+        void visitDir(FileVisitDetails dirDetails) {
+            paths << dirDetails.relativePath.pathString + "/"
+        }
+
+        void visitFile(FileVisitDetails fileDetails) {
+            paths << fileDetails.relativePath.pathString
+        }
+    }
+}
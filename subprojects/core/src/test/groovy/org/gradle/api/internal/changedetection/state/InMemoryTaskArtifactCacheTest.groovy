@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.changedetection.state
 
+import org.gradle.cache.internal.FileLock
 import org.gradle.cache.internal.MultiProcessSafePersistentIndexedCache
 import spock.lang.Specification
 
@@ -133,4 +134,135 @@ class InMemoryTaskArtifactCacheTest extends Specification {
         0 * target._
     }
 
+    def "serves entries from memory without holding the cache while lock is held"() {
+        given:
+        def state = Mock(FileLock.State)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+
+        when:
+        cache.onStartWork("operation", state)
+        cache.put("key", "value")
+
+        then:
+        cache.getIfInMemory("key") == "value"
+        cache.getIfInMemory("unknown") == null
+
+        when:
+        cache.onEndWork(state)
+
+        then:
+        cache.getIfInMemory("key") == null
+    }
+
+    def "discards entries when backing cache has been updated by another process"() {
+        given:
+        def state1 = Mock(FileLock.State)
+        def state2 = Mock(FileLock.State)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        cache.onStartWork("operation", state1)
+        cache.put("key", "value")
+        cache.close()
+        cache.onEndWork(state1)
+
+        when:
+        cache.onStartWork("operation", state2)
+
+        then:
+        1 * state2.hasBeenUpdatedSince(state1) >> true
+
+        and:
+        cache.getIfInMemory("key") == null
+
+        when:
+        def result = cache.get("key")
+
+        then:
+        1 * target.get("key") >> "other value"
+        result == "other value"
+        cache.getIfInMemory("key") == "other value"
+    }
+
+    def "reports statistics of each cache"() {
+        given:
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        target.get("key") >> "result"
+
+        when:
+        cache.get("key")
+        cache.get("key")
+        cache.get("other")
+
+        then:
+        def statistics = cacheFactory.statistics
+        statistics.size() == 1
+        with(statistics[0]) {
+            cacheId == "path/fileSnapshots.bin"
+            hitCount == 1
+            missCount == 2
+            evictionCount == 0
+            entryCount == 2
+            estimatedSize > 0
+            maxSize > estimatedSize
+        }
+    }
+
+    def "weighs entries by their estimated heap size"() {
+        given:
+        def cacheFactory = new InMemoryTaskArtifactCache([fileSnapshots: 100000L])
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+
+        when:
+        cache.put("small", "value")
+
+        then:
+        cacheFactory.statistics[0].estimatedSize < 1000
+
+        when:
+        cache.put("large", new byte[50000])
+
+        then:
+        cacheFactory.statistics[0].estimatedSize > 50000
+    }
+
+    def "grows cache that evicts entries and shrinks cache that does not fill up when caches are reused"() {
+        given:
+        def cacheFactory = new InMemoryTaskArtifactCache([fileHashes: 100000L, fileSnapshots: 100000L])
+        def hashes = cacheFactory.decorate("path/fileHashes.bin", "fileHashes", target)
+        def snapshots = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        (1..2000).each { hashes.get("key" + it) }
+        snapshots.get("key")
+
+        when:
+        cacheFactory.decorate("path/fileHashes.bin", "fileHashes", target)
+        cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+
+        then:
+        def statistics = cacheFactory.statistics.collectEntries { [it.cacheId, it] }
+        statistics["path/fileHashes.bin"].evictionCount > 0
+        statistics["path/fileHashes.bin"].maxSize > 100000L
+        statistics["path/fileSnapshots.bin"].maxSize < 100000L
+        statistics["path/fileHashes.bin"].maxSize + statistics["path/fileSnapshots.bin"].maxSize <= 205000L
+    }
+
+    def "keeps entries when cache is resized"() {
+        given:
+        def cacheFactory = new InMemoryTaskArtifactCache([fileHashes: 100000L, fileSnapshots: 100000L])
+        def snapshots = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        target.get("key") >> "result"
+        snapshots.get("key")
+
+        when:
+        snapshots = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        def result = snapshots.get("key")
+
+        then:
+        result == "result"
+        0 * target._
+
+        and:
+        def statistics = cacheFactory.statistics[0]
+        statistics.maxSize < 100000L
+        statistics.hitCount == 1
+        statistics.missCount == 1
+    }
 }
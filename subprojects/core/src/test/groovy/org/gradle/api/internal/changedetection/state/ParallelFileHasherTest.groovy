@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.hash.Hasher
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ParallelFileHasherTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def hasher = Mock(Hasher)
+    def cache = Mock(PersistentIndexedCache)
+    def cacheAccess = Mock(TaskArtifactStateCacheAccess)
+    def fileSystem = TestFiles.fileSystem()
+    def executorFactory = new DefaultExecutorFactory()
+    ParallelFileHasher parallelFileHasher
+
+    def setup() {
+        1 * cacheAccess.createCache("fileHashes", _, _) >> cache
+        def snapshotter = new CachingFileSnapshotter(hasher, cacheAccess, new StringInterner())
+        parallelFileHasher = new ParallelFileHasher(snapshotter, cacheAccess, executorFactory, 2)
+    }
+
+    def cleanup() {
+        parallelFileHasher.stop()
+        executorFactory.stop()
+    }
+
+    def "hashes only files whose cached hash is out-of-date and stores the new hashes in a single cache operation"() {
+        def upToDate = tmpDir.createFile("up-to-date")
+        def changed = tmpDir.createFile("changed")
+        def added = tmpDir.createFile("added")
+
+        when:
+        def batch = parallelFileHasher.newBatch()
+        def upToDateSnapshot = batch.add(details(upToDate))
+        def changedSnapshot = batch.add(details(changed))
+        def addedSnapshot = batch.add(details(added))
+        batch.finish()
+
+        then:
+        1 * cacheAccess.useCache("Look up file hashes", _) >> { String name, Runnable action -> action.run() }
+        1 * cache.get(upToDate.absolutePath) >> new CachingFileSnapshotter.FileInfo("cached".bytes, upToDate.length(), upToDate.lastModified())
+        1 * cache.get(changed.absolutePath) >> new CachingFileSnapshotter.FileInfo("cached".bytes, 1024, changed.lastModified())
+        1 * cache.get(added.absolutePath) >> null
+
+        then:
+        1 * hasher.hash(changed) >> "changed".bytes
+        1 * hasher.hash(added) >> "added".bytes
+
+        then:
+        1 * cacheAccess.useCache("Store file hashes", _) >> { String name, Runnable action -> action.run() }
+        1 * cache.put(changed.absolutePath, { it.hash == "changed".bytes })
+        1 * cache.put(added.absolutePath, { it.hash == "added".bytes })
+        0 * _._
+
+        and:
+        upToDateSnapshot.hash == "cached".bytes
+        changedSnapshot.hash == "changed".bytes
+        addedSnapshot.hash == "added".bytes
+    }
+
+    def "does not update the cache when all hashes are up-to-date"() {
+        def file = tmpDir.createFile("file")
+
+        when:
+        def batch = parallelFileHasher.newBatch()
+        def snapshot = batch.add(details(file))
+        batch.finish()
+
+        then:
+        1 * cacheAccess.useCache("Look up file hashes", _) >> { String name, Runnable action -> action.run() }
+        1 * cache.get(file.absolutePath) >> new CachingFileSnapshotter.FileInfo("cached".bytes, file.length(), file.lastModified())
+        0 * _._
+
+        and:
+        snapshot.hash == "cached".bytes
+    }
+
+    def "looks up cached hashes in batches while files are being added"() {
+        def files = (1..ParallelFileHasher.LOOKUP_BATCH_SIZE + 1).collect { tmpDir.createFile("file${it}") }
+        def batch = parallelFileHasher.newBatch()
+
+        when:
+        files.take(ParallelFileHasher.LOOKUP_BATCH_SIZE).each { batch.add(details(it)) }
+
+        then:
+        1 * cacheAccess.useCache("Look up file hashes", _) >> { String name, Runnable action -> action.run() }
+        ParallelFileHasher.LOOKUP_BATCH_SIZE * cache.get(_) >> { String path -> new CachingFileSnapshotter.FileInfo("cached".bytes, 0, new File(path).lastModified()) }
+        0 * _._
+
+        when:
+        batch.add(details(files.last()))
+        batch.finish()
+
+        then:
+        1 * cacheAccess.useCache("Look up file hashes", _) >> { String name, Runnable action -> action.run() }
+        1 * cache.get(files.last().absolutePath) >> null
+        1 * hasher.hash(files.last()) >> "hash".bytes
+        1 * cacheAccess.useCache("Store file hashes", _) >> { String name, Runnable action -> action.run() }
+        1 * cache.put(files.last().absolutePath, _)
+        0 * _._
+    }
+
+    def "hashes a file that is added more than once only once"() {
+        def file = tmpDir.createFile("file")
+
+        when:
+        def batch = parallelFileHasher.newBatch()
+        def snapshot1 = batch.add(details(file))
+        def snapshot2 = batch.add(details(file))
+        batch.finish()
+
+        then:
+        1 * cacheAccess.useCache("Look up file hashes", _) >> { String name, Runnable action -> action.run() }
+        1 * cache.get(file.absolutePath) >> null
+        1 * hasher.hash(file) >> "hash".bytes
+        1 * cacheAccess.useCache("Store file hashes", _) >> { String name, Runnable action -> action.run() }
+        1 * cache.put(file.absolutePath, _)
+        0 * _._
+
+        and:
+        snapshot1.is(snapshot2)
+        snapshot1.hash == "hash".bytes
+    }
+
+    def "propagates failure to hash a file"() {
+        def file = tmpDir.createFile("file")
+        def failure = new RuntimeException("broken")
+
+        when:
+        def batch = parallelFileHasher.newBatch()
+        batch.add(details(file))
+        batch.finish()
+
+        then:
+        1 * cacheAccess.useCache("Look up file hashes", _) >> { String name, Runnable action -> action.run() }
+        1 * cache.get(file.absolutePath) >> null
+        1 * hasher.hash(file) >> { throw failure }
+        0 * _._
+
+        and:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
+
+    def "uses hashes held in memory without holding the cache"() {
+        def inMemoryCache = Mock(InMemoryPersistentIndexedCache)
+        def inMemoryCacheAccess = Mock(TaskArtifactStateCacheAccess)
+        1 * inMemoryCacheAccess.createCache("fileHashes", _, _) >> inMemoryCache
+        def snapshotter = new CachingFileSnapshotter(hasher, inMemoryCacheAccess, new StringInterner())
+        def fileHasher = new ParallelFileHasher(snapshotter, inMemoryCacheAccess, executorFactory, 2)
+        def upToDate = tmpDir.createFile("up-to-date")
+        def changed = tmpDir.createFile("changed")
+
+        when:
+        def batch = fileHasher.newBatch()
+        def upToDateSnapshot = batch.add(details(upToDate))
+        def changedSnapshot = batch.add(details(changed))
+        batch.finish()
+
+        then:
+        1 * inMemoryCache.getIfInMemory(upToDate.absolutePath) >> new CachingFileSnapshotter.FileInfo("cached".bytes, upToDate.length(), upToDate.lastModified())
+        1 * inMemoryCache.getIfInMemory(changed.absolutePath) >> new CachingFileSnapshotter.FileInfo("cached".bytes, 1024, changed.lastModified())
+
+        then:
+        1 * inMemoryCacheAccess.useCache("Look up file hashes", _) >> { String name, Runnable action -> action.run() }
+        1 * inMemoryCache.get(changed.absolutePath) >> null
+        1 * hasher.hash(changed) >> "changed".bytes
+        1 * inMemoryCacheAccess.useCache("Store file hashes", _) >> { String name, Runnable action -> action.run() }
+        1 * inMemoryCache.put(changed.absolutePath, _)
+        0 * _._
+
+        and:
+        upToDateSnapshot.hash == "cached".bytes
+        changedSnapshot.hash == "changed".bytes
+
+        cleanup:
+        fileHasher.stop()
+    }
+
+    private DefaultFileVisitDetails details(File file) {
+        new DefaultFileVisitDetails(file, fileSystem, fileSystem)
+    }
+}
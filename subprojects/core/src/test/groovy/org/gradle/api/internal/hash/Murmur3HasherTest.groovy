@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash
+
+import com.google.common.hash.Hashing
+import org.gradle.api.UncheckedIOException
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class Murmur3HasherTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def "creates 128-bit murmur3 hash of file content"() {
+        def file = tmpDir.file("file")
+        file.bytes = content
+
+        expect:
+        new Murmur3Hasher().hash(file) == Hashing.murmur3_128().hashBytes(content).asBytes()
+        new Murmur3Hasher().hash(file).length == 16
+
+        where:
+        content << [new byte[0], "some content".bytes, bytes(200000)]
+    }
+
+    def "creates same hash when file is read through a memory-mapped buffer"() {
+        def file = tmpDir.file("file")
+        file.bytes = bytes(200000)
+
+        expect:
+        new Murmur3Hasher(1024).hash(file) == new Murmur3Hasher(Long.MAX_VALUE).hash(file)
+    }
+
+    def "creates different hashes for different content"() {
+        def file1 = tmpDir.file("file1")
+        file1.text = "content 1"
+        def file2 = tmpDir.file("file2")
+        file2.text = "content 2"
+
+        expect:
+        new Murmur3Hasher().hash(file1) != new Murmur3Hasher().hash(file2)
+    }
+
+    def "reports failure to hash missing file"() {
+        def file = tmpDir.file("missing")
+
+        when:
+        new Murmur3Hasher().hash(file)
+
+        then:
+        UncheckedIOException e = thrown()
+        e.message == "Failed to create MURMUR3 hash for file ${file.absolutePath}."
+    }
+
+    private static byte[] bytes(int count) {
+        def bytes = new byte[count]
+        new Random(12).nextBytes(bytes)
+        return bytes
+    }
+}
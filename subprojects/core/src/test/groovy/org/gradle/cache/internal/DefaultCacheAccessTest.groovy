@@ -17,7 +17,10 @@ package org.gradle.cache.internal
 
 import org.gradle.cache.PersistentIndexedCacheParameters
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache
+import org.gradle.cache.internal.logstore.LogStructuredPersistentIndexedCache
 import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.StoppableExecutor
 import org.gradle.internal.serialize.Serializer
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -35,14 +38,20 @@ class DefaultCacheAccessTest extends ConcurrentSpec {
     final File cacheDir = tmpDir.file('caches')
     final FileLock lock = Mock()
     final BTreePersistentIndexedCache<String, Integer> backingCache = Mock()
+    final LogStructuredPersistentIndexedCache<String, Integer> logStructuredCache = Mock()
     DefaultCacheAccess access = newAccess()
 
     private DefaultCacheAccess newAccess() {
-        new DefaultCacheAccess("<display-name>", lockFile, cacheDir, lockManager, initializationAction) {
+        new DefaultCacheAccess("<display-name>", lockFile, cacheDir, lockManager, executorFactory, initializationAction) {
             @Override
             def <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
                 return backingCache
             }
+
+            @Override
+            def <K, V> LogStructuredPersistentIndexedCache<K, V> doCreateLogStructuredCache(File cacheDir, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+                return logStructuredCache
+            }
         }
     }
 
@@ -453,6 +462,48 @@ class DefaultCacheAccessTest extends ConcurrentSpec {
         0 * _._
     }
 
+    def "can create new log-structured cache"() {
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "use cache") >> lock
+        lock.writeFile(_) >> { Runnable r -> r.run() }
+        lock.readFile(_) >> { Factory f -> f.create() }
+        access.open(mode(None))
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class).logStructured())
+
+        when:
+        def value = access.useCache("use cache", { cache.get("key") } as Factory)
+
+        then:
+        value == 12
+        1 * logStructuredCache.get("key") >> 12
+        0 * backingCache._
+    }
+
+    def "log-structured caches share a compaction executor that is stopped on close"() {
+        given:
+        def compactionExecutor = Mock(StoppableExecutor)
+        def compactionExecutorFactory = Mock(ExecutorFactory)
+        def compactingAccess = new DefaultCacheAccess("<display-name>", lockFile, cacheDir, lockManager, compactionExecutorFactory, initializationAction)
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "use cache") >> lock
+        lock.writeFile(_) >> { Runnable r -> r.run() }
+        lock.readFile(_) >> { Factory f -> f.create() }
+        compactingAccess.open(mode(None))
+        def cache1 = compactingAccess.newCache(new PersistentIndexedCacheParameters('cache1', String.class, Integer.class).logStructured())
+        def cache2 = compactingAccess.newCache(new PersistentIndexedCacheParameters('cache2', String.class, Integer.class).logStructured())
+
+        when:
+        compactingAccess.useCache("use cache", { cache1.get("key"); cache2.get("key") } as Runnable)
+
+        then:
+        1 * compactionExecutorFactory.create("Compact <display-name>") >> compactionExecutor
+
+        when:
+        compactingAccess.close()
+
+        then:
+        1 * compactionExecutor.stop()
+    }
+
     def "contended action does nothing when no lock"() {
         when:
         access.whenContended().run()
@@ -17,6 +17,7 @@
 package org.gradle.cache.internal
 
 import org.gradle.cache.internal.locklistener.NoOpFileLockContentionHandler
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.nativeintegration.ProcessEnvironment
 import org.gradle.internal.serialize.NullSafeStringSerializer
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
@@ -39,7 +40,7 @@ class DefaultPersistentDirectoryStoreConcurrencyTest extends ConcurrentSpec {
 
     @Issue("GRADLE-3206")
     def "can create new caches and access them in parallel"() {
-        def store = new DefaultPersistentDirectoryStore(cacheDir, "<display>", mode(None), lockManager)
+        def store = new DefaultPersistentDirectoryStore(cacheDir, "<display>", mode(None), lockManager, new DefaultExecutorFactory())
         store.open()
 
         when:
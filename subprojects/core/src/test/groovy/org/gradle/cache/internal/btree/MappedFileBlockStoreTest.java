@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import org.gradle.internal.serialize.DefaultSerializer;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.test.fixtures.file.TestFile;
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+public class MappedFileBlockStoreTest {
+    private static final int REGION_SIZE = 256;
+    @Rule
+    public TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider();
+    private final Serializer<String> stringSerializer = new DefaultSerializer<String>();
+    private final Serializer<Integer> integerSerializer = new DefaultSerializer<Integer>();
+    private TestFile cacheFile;
+
+    @Before
+    public void setup() {
+        cacheFile = tmpDir.file("cache.bin");
+    }
+
+    private BTreePersistentIndexedCache<String, Integer> createMappedCache() {
+        return new BTreePersistentIndexedCache<String, Integer>(cacheFile, new MappedFileBlockStore(cacheFile, REGION_SIZE), stringSerializer, integerSerializer, (short) 4, 100);
+    }
+
+    private BTreePersistentIndexedCache<String, Integer> createFileBackedCache() {
+        return new BTreePersistentIndexedCache<String, Integer>(cacheFile, new FileBackedBlockStore(cacheFile), stringSerializer, integerSerializer, (short) 4, 100);
+    }
+
+    @Test
+    public void persistsEntriesThatSpanMultipleRegions() {
+        BTreePersistentIndexedCache<String, Integer> cache = createMappedCache();
+        for (int i = 0; i < 500; i++) {
+            cache.put("key_" + i, i);
+        }
+        assertThat(cacheFile.length() > 10 * REGION_SIZE, equalTo(true));
+
+        for (int i = 0; i < 500; i += 2) {
+            cache.put("key_" + i, i * 2);
+        }
+        for (int i = 0; i < 500; i++) {
+            assertThat(cache.get("key_" + i), equalTo(i % 2 == 0 ? i * 2 : i));
+        }
+
+        cache.reset();
+
+        for (int i = 0; i < 500; i++) {
+            assertThat(cache.get("key_" + i), equalTo(i % 2 == 0 ? i * 2 : i));
+        }
+        cache.verify();
+        cache.close();
+    }
+
+    @Test
+    public void writesFilesWithSameFormatAsFileBackedStore() {
+        BTreePersistentIndexedCache<String, Integer> cache = createMappedCache();
+        for (int i = 0; i < 100; i++) {
+            cache.put("key_" + i, i);
+        }
+        long length = cacheFile.length();
+        cache.close();
+
+        cache = createFileBackedCache();
+        assertThat(cacheFile.length(), equalTo(length));
+        for (int i = 0; i < 100; i++) {
+            assertThat(cache.get("key_" + i), equalTo(i));
+        }
+        for (int i = 100; i < 200; i++) {
+            cache.put("key_" + i, i);
+        }
+        cache.close();
+
+        cache = createMappedCache();
+        for (int i = 0; i < 200; i++) {
+            assertThat(cache.get("key_" + i), equalTo(i));
+        }
+        cache.verify();
+        cache.close();
+    }
+
+    @Test
+    public void handlesBadlyFormedCacheFile() throws IOException {
+        cacheFile.createNewFile();
+        cacheFile.write("some junk");
+
+        BTreePersistentIndexedCache<String, Integer> cache = createMappedCache();
+
+        assertNull(cache.get("key_1"));
+        cache.put("key_1", 99);
+
+        RandomAccessFile file = new RandomAccessFile(cacheFile, "rw");
+        file.setLength(file.length() - 10);
+        file.close();
+
+        cache.reset();
+
+        assertNull(cache.get("key_1"));
+        cache.verify();
+
+        cache.close();
+    }
+}
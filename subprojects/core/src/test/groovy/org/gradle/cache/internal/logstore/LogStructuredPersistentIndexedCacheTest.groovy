@@ -0,0 +1,335 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.logstore
+
+import org.gradle.internal.serialize.DefaultSerializer
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.Executor
+
+class LogStructuredPersistentIndexedCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheDir = tmpDir.file("cache.segments")
+    def deferredCompactions = []
+    def deferCompactions = false
+    def executor = Stub(Executor) {
+        execute(_) >> { Runnable action -> deferCompactions ? deferredCompactions << action : action.run() }
+    }
+    LogStructuredPersistentIndexedCache<String, Integer> cache
+
+    def cleanup() {
+        cache?.close()
+    }
+
+    def "persists added entries"() {
+        given:
+        createCache()
+
+        when:
+        cache.put("a", 1)
+        cache.put("b", 2)
+
+        then:
+        cache.get("a") == 1
+        cache.get("b") == 2
+        cache.get("c") == null
+
+        when:
+        reopen()
+
+        then:
+        cache.get("a") == 1
+        cache.get("b") == 2
+        cache.get("c") == null
+        cache.entryCount == 2
+    }
+
+    def "persists replaced and removed entries"() {
+        given:
+        createCache()
+        cache.put("a", 1)
+        cache.put("b", 2)
+
+        when:
+        cache.put("a", 3)
+        cache.remove("b")
+        cache.remove("unknown")
+
+        then:
+        cache.get("a") == 3
+        cache.get("b") == null
+
+        when:
+        reopen()
+
+        then:
+        cache.get("a") == 3
+        cache.get("b") == null
+        cache.entryCount == 1
+    }
+
+    def "reports size and fragmentation"() {
+        given:
+        createCache()
+
+        when:
+        cache.put("a", 1)
+
+        then:
+        cache.fileSize > 0
+        cache.liveSize == cache.fileSize
+        cache.fragmentation == 0
+
+        when:
+        cache.put("a", 2)
+
+        then:
+        cache.liveSize < cache.fileSize
+        cache.fragmentation > 0
+    }
+
+    def "starts a new segment when the current segment is full"() {
+        given:
+        createCache(256)
+
+        when:
+        100.times { cache.put("key$it", it) }
+
+        then:
+        segmentFiles().size() > 1
+
+        when:
+        reopen(256)
+
+        then:
+        100.times { assert cache.get("key$it") == it }
+    }
+
+    def "compacts replaced and removed entries"() {
+        given:
+        createCache(256)
+        20.times { cache.put("key$it", it) }
+
+        when:
+        10.times { round -> 20.times { cache.put("key$it", it + round) } }
+        10.times { cache.remove("key$it") }
+        cache.close()
+        cache.get("key0")
+        def size = cache.fileSize
+
+        then:
+        cache.fragmentation < 0.5
+        segmentFiles().sum { it.length() } == size
+        cacheDir.list().every { it.endsWith(".seg") }
+
+        when:
+        reopen(256)
+
+        then:
+        10.times { assert cache.get("key$it") == null }
+        (10..19).each { assert cache.get("key$it") == it + 9 }
+        cache.entryCount == 10
+    }
+
+    def "compaction started when cache is closed runs while cache is in use"() {
+        given:
+        deferCompactions = true
+        createCache(256)
+        20.times { cache.put("key$it", it) }
+        10.times { round -> 20.times { cache.put("key$it", it + round) } }
+        cache.close()
+
+        when:
+        cache.put("key0", 100)
+        cache.remove("key1")
+        deferredCompactions*.run()
+        deferCompactions = false
+        cache.close()
+
+        then:
+        cache.get("key0") == 100
+        cache.get("key1") == null
+        (2..19).each { assert cache.get("key$it") == it + 9 }
+        cache.fragmentation < 0.5
+
+        when:
+        reopen(256)
+
+        then:
+        cache.get("key0") == 100
+        cache.get("key1") == null
+        (2..19).each { assert cache.get("key$it") == it + 9 }
+    }
+
+    def "reads changes made by another process since cache was closed"() {
+        given:
+        createCache(256)
+        cache.put("a", 1)
+        cache.put("b", 2)
+        cache.close()
+
+        when:
+        def other = newCache(256)
+        other.put("b", 3)
+        other.remove("a")
+        20.times { other.put("key$it", it) }
+        other.close()
+
+        then:
+        cache.get("a") == null
+        cache.get("b") == 3
+        20.times { assert cache.get("key$it") == it }
+        cache.entryCount == 21
+    }
+
+    def "rebuilds index when segments have been compacted by another process since cache was closed"() {
+        given:
+        createCache(256)
+        20.times { cache.put("key$it", it) }
+        cache.close()
+
+        when:
+        def other = newCache(256)
+        10.times { round -> 20.times { other.put("key$it", it + round) } }
+        other.remove("key0")
+        other.close()
+        other.get("key1")
+        other.close()
+
+        then:
+        cache.get("key0") == null
+        (1..19).each { assert cache.get("key$it") == it + 9 }
+        cache.entryCount == 19
+        cache.fileSize == other.fileSize
+    }
+
+    def "restores segment moved aside while compacted segment was being moved in place"() {
+        given:
+        createCache()
+        cache.put("a", 1)
+        cache.close()
+        def segment = segmentFiles().first()
+        def backup = new File(cacheDir, segment.name.replace(".seg", ".replaced"))
+        segment.renameTo(backup)
+
+        when:
+        createCache()
+
+        then:
+        cache.get("a") == 1
+        segment.exists()
+        !backup.exists()
+    }
+
+    def "discards partly written record at end of cache"() {
+        given:
+        createCache()
+        cache.put("a", 1)
+        cache.put("b", 2)
+        cache.close()
+
+        def segment = segmentFiles().first()
+        def file = new RandomAccessFile(segment, "rw")
+        file.setLength(segment.length() - 3)
+        file.close()
+
+        when:
+        createCache()
+
+        then:
+        cache.get("a") == 1
+        cache.get("b") == null
+
+        when:
+        cache.put("c", 3)
+        reopen()
+
+        then:
+        cache.get("a") == 1
+        cache.get("c") == 3
+    }
+
+    def "discards contents of corrupt cache"() {
+        given:
+        cacheDir.createDir()
+        cacheDir.file("1.seg").text = "some junk"
+
+        when:
+        createCache()
+
+        then:
+        cache.get("a") == null
+
+        when:
+        cache.put("a", 1)
+        reopen()
+
+        then:
+        cache.get("a") == 1
+    }
+
+    def "discards segments replaced by a compacted segment and partly written compacted segments"() {
+        given:
+        def otherDir = tmpDir.file("other.segments")
+        def otherCache = new LogStructuredPersistentIndexedCache<String, Integer>(otherDir, new DefaultSerializer<String>(), new DefaultSerializer<Integer>(), executor)
+        otherCache.put("key0", -1)
+        otherCache.close()
+
+        and:
+        createCache(256)
+        20.times { cache.put("key$it", it) }
+        cache.remove("key0")
+        10.times { round -> 20.times { if (it > 0) { cache.put("key$it", it + round) } } }
+        cache.get("key1")
+        cache.close()
+
+        and:
+        def stale = new File(cacheDir, "0.seg")
+        stale.bytes = new File(otherDir, "1.seg").bytes
+        def partial = new File(cacheDir, "1.compacting")
+        partial.text = "partial"
+
+        when:
+        createCache(256)
+
+        then:
+        cache.get("key0") == null
+        (1..19).each { assert cache.get("key$it") == it + 9 }
+        !stale.exists()
+        !partial.exists()
+    }
+
+    private List<File> segmentFiles() {
+        cacheDir.listFiles().findAll { it.name.endsWith(".seg") }.sort { it.name.replace(".seg", "") as long }
+    }
+
+    private void createCache(long maxSegmentSize = LogStructuredPersistentIndexedCache.DEFAULT_MAX_SEGMENT_SIZE) {
+        cache = newCache(maxSegmentSize)
+    }
+
+    private LogStructuredPersistentIndexedCache<String, Integer> newCache(long maxSegmentSize) {
+        return new LogStructuredPersistentIndexedCache<String, Integer>(cacheDir, new DefaultSerializer<String>(), new DefaultSerializer<Integer>(), executor, maxSegmentSize)
+    }
+
+    private void reopen(long maxSegmentSize = LogStructuredPersistentIndexedCache.DEFAULT_MAX_SEGMENT_SIZE) {
+        cache.close()
+        createCache(maxSegmentSize)
+    }
+}
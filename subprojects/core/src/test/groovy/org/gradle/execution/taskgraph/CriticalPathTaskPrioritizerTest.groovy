@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.execution.taskgraph
+
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.changedetection.state.TaskExecutionTimeRepository
+import org.gradle.api.internal.tasks.TaskStateInternal
+import spock.lang.Specification
+
+class CriticalPathTaskPrioritizerTest extends Specification {
+    def repository = Mock(TaskExecutionTimeRepository)
+    def prioritizer = new CriticalPathTaskPrioritizer(repository)
+
+    def "starts the longest chain first"() {
+        given:
+        def shortTask = task(":short")
+        def compile = task(":compile")
+        def test = task(":test")
+        test.addDependencySuccessor(compile)
+        repository.getExecutionTimes(_) >> [":short": 100L, ":compile": 50L, ":test": 80L]
+
+        when:
+        def tasks = [shortTask, compile, test]
+        prioritizer.prioritize(tasks)
+
+        then:
+        tasks == [compile, shortTask, test]
+        compile.remainingPathLength == 130
+        shortTask.remainingPathLength == 100
+        test.remainingPathLength == 80
+    }
+
+    def "keeps execution order for tasks with the same remaining path"() {
+        given:
+        def a = task(":a")
+        def b = task(":b")
+        def c = task(":c")
+        repository.getExecutionTimes(_) >> [:]
+
+        when:
+        def tasks = [b, c, a]
+        prioritizer.prioritize(tasks)
+
+        then:
+        tasks == [b, c, a]
+    }
+
+    def "sorts tasks only within the group of each entry task"() {
+        given:
+        def clean = task(":clean")
+        def compile = task(":compile")
+        def build = task(":build")
+        build.addDependencySuccessor(compile)
+        repository.getExecutionTimes(_) >> [":clean": 10L, ":compile": 5000L, ":build": 10L]
+
+        when:
+        def tasks = [clean, compile, build]
+        prioritizer.prioritize(tasks, [clean, build])
+
+        then:
+        tasks == [clean, compile, build]
+        tasks*.priority == [0, 1, 2]
+    }
+
+    def "estimates tasks without history using the average execution time"() {
+        given:
+        def a = task(":a")
+        def b = task(":b")
+        def c = task(":c")
+        repository.getExecutionTimes(_) >> [":a": 10L, ":b": 30L]
+
+        when:
+        prioritizer.prioritize([a, b, c])
+
+        then:
+        c.estimatedExecutionTime == 20
+    }
+
+    def "tasks that should run after another task are sorted after it"() {
+        given:
+        def first = task(":first")
+        def second = task(":second")
+        second.addShouldSuccessor(first)
+        repository.getExecutionTimes(_) >> [":first": 1L, ":second": 100L]
+
+        when:
+        def tasks = [first, second]
+        prioritizer.prioritize(tasks)
+
+        then:
+        tasks == [first, second]
+    }
+
+    def "records execution time of executed tasks"() {
+        given:
+        def executed = task(":executed")
+        executed.executionStartTime = 100
+        executed.executionEndTime = 150
+        def upToDate = task(":upToDate", true)
+        upToDate.executionStartTime = 100
+        upToDate.executionEndTime = 101
+        def notRun = task(":notRun")
+
+        when:
+        prioritizer.executionComplete([executed, upToDate, notRun])
+
+        then:
+        1 * repository.recordExecutionTimes([":executed": 50L])
+    }
+
+    def "reports predicted and actual critical paths"() {
+        given:
+        def compile = task(":compile")
+        def test = task(":test")
+        def other = task(":other")
+        test.addDependencySuccessor(compile)
+        repository.getExecutionTimes(_) >> [":compile": 1000L, ":test": 1000L, ":other": 1500L]
+        prioritizer.prioritize([compile, test, other])
+        compile.executionStartTime = 0
+        compile.executionEndTime = 1000
+        other.executionStartTime = 0
+        other.executionEndTime = 4000
+        test.executionStartTime = 1000
+        test.executionEndTime = 2000
+
+        when:
+        def report = prioritizer.renderReport([compile, test, other]).readLines()
+
+        then:
+        report[0] == "Critical path: predicted 2.0 secs, actual 4.0 secs."
+        report[1] == "Predicted critical path:"
+        report[2] == "  :compile (predicted 1.0 secs, took 1.0 secs)"
+        report[3] == "  :test (predicted 1.0 secs, took 1.0 secs)"
+        report[4] == "Actual critical path:"
+        report[5] == "  :other (predicted 1.5 secs, took 4.0 secs)"
+    }
+
+    private TaskInfo task(String path, boolean skipped = false) {
+        def state = Stub(TaskStateInternal) {
+            getSkipped() >> skipped
+        }
+        def task = Stub(TaskInternal) {
+            getPath() >> path
+            getState() >> state
+            toString() >> path
+            compareTo(_) >> { TaskInternal other -> path.compareTo(other.path) }
+        }
+        return new TaskInfo(task)
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import org.gradle.api.Task
+import org.gradle.initialization.BuildCancellationToken
+import spock.lang.Specification
+
+import static org.gradle.util.TestUtil.createChildProject
+import static org.gradle.util.TestUtil.createRootProject
+
+class DefaultTaskExecutionPlanMultipleWorkersTest extends Specification {
+    def root = createRootProject()
+    def executionPlan = new DefaultTaskExecutionPlan(Stub(BuildCancellationToken))
+
+    def "dependent task is queued for the worker that completed its last dependency"() {
+        given:
+        def projectA = createChildProject(root, "a")
+        def projectB = createChildProject(root, "b")
+        Task a = projectA.task("a")
+        Task b = projectB.task("b")
+        Task c = projectA.task("c").dependsOn(a, b)
+
+        when:
+        executionPlan.addToTaskGraph([c])
+        executionPlan.determineExecutionPlan()
+        executionPlan.startWorkers(2)
+        def first = executionPlan.getTaskToExecute(0)
+        def second = executionPlan.getTaskToExecute(1)
+
+        then:
+        [first.task, second.task] as Set == [a, b] as Set
+
+        when:
+        executionPlan.taskComplete(first)
+        executionPlan.taskComplete(second)
+        def third = executionPlan.getTaskToExecute(1)
+
+        then:
+        third.task == c
+
+        when:
+        executionPlan.taskComplete(third)
+
+        then:
+        executionPlan.getTaskToExecute(0) == null
+        executionPlan.getTaskToExecute(1) == null
+    }
+
+    def "idle worker steals ready tasks from other workers"() {
+        given:
+        def projectA = createChildProject(root, "a")
+        def projectB = createChildProject(root, "b")
+        Task a = projectA.task("a")
+        Task b = projectB.task("b")
+
+        when:
+        executionPlan.addToTaskGraph([a, b])
+        executionPlan.determineExecutionPlan()
+        executionPlan.startWorkers(4)
+        def tasks = [executionPlan.getTaskToExecute(3), executionPlan.getTaskToExecute(3)]
+
+        then:
+        tasks*.task as Set == [a, b] as Set
+
+        cleanup:
+        tasks.each { executionPlan.taskComplete(it) }
+    }
+
+    def "task blocked by a running task in the same project is retried when that task completes"() {
+        given:
+        def project = createChildProject(root, "a")
+        Task a = project.task("a")
+        Task b = project.task("b")
+
+        when:
+        executionPlan.addToTaskGraph([a, b])
+        executionPlan.determineExecutionPlan()
+        executionPlan.startWorkers(2)
+        def first = executionPlan.getTaskToExecute(0)
+
+        then:
+        first.task == a
+
+        when:
+        def waiting = new Thread({ executionPlan.taskComplete(executionPlan.getTaskToExecute(1)) })
+        waiting.start()
+        executionPlan.taskComplete(first)
+        waiting.join()
+
+        then:
+        executionPlan.getTaskToExecute(0) == null
+        executionPlan.tasks == [a, b]
+    }
+}
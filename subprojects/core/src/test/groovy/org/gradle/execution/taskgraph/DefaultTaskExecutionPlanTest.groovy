@@ -21,6 +21,7 @@ import org.gradle.api.CircularReferenceException
 import org.gradle.api.Task
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.changedetection.state.TaskExecutionTimeRepository
 import org.gradle.api.internal.project.DefaultProject
 import org.gradle.api.internal.tasks.TaskStateInternal
 import org.gradle.api.specs.Spec
@@ -116,6 +117,57 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         executes(b, c, a, d)
     }
 
+    def "keeps the order of separately added tasks when prioritizing the critical path"() {
+        given:
+        usePrioritizer([":compile": 5000L, ":build": 10L, ":clean": 10L])
+        Task clean = task("clean");
+        Task compile = task("compile");
+        Task build = task("build", dependsOn: [compile]);
+
+        when:
+        executionPlan.addToTaskGraph(toList(clean))
+        executionPlan.addToTaskGraph(toList(build))
+        executionPlan.determineExecutionPlan()
+
+        then:
+        executedTasks == [clean, compile, build]
+    }
+
+    def "starts the ready task with the longest remaining path first when prioritizing the critical path"() {
+        given:
+        usePrioritizer([":a": 10L, ":b": 10L, ":c": 5000L, ":d": 10L])
+        Task a = task("a");
+        Task b = task("b");
+        Task c = task("c");
+        Task d = task("d", dependsOn: [a, b, c]);
+
+        when:
+        addToGraphAndPopulate([d])
+
+        then:
+        executedTasks == [c, a, b, d]
+    }
+
+    def "failure to record execution times does not hide task failure"() {
+        given:
+        def repository = Stub(TaskExecutionTimeRepository) {
+            getExecutionTimes(_) >> [:]
+            recordExecutionTimes(_) >> { throw new RuntimeException("broken cache") }
+        }
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, new CriticalPathTaskPrioritizer(repository))
+        RuntimeException failure = new RuntimeException("failure");
+        Task a = task("a", failure: failure);
+        addToGraphAndPopulate([a])
+
+        when:
+        executedTasks
+        executionPlan.awaitCompletion()
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+    }
+
     @Unroll
     def "schedules #orderingRule task dependencies in name order"() {
         given:
@@ -865,6 +917,13 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         t3.task.project != t4.task.project
     }
 
+    private void usePrioritizer(Map<String, Long> executionTimes) {
+        def repository = Stub(TaskExecutionTimeRepository) {
+            getExecutionTimes(_) >> executionTimes
+        }
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, new CriticalPathTaskPrioritizer(repository))
+    }
+
     void executes(Task... expectedTasks) {
         assert executionPlan.tasks == expectedTasks as List
         assert expectedTasks == expectedTasks as List
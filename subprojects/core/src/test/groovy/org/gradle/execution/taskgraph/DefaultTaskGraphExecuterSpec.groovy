@@ -19,6 +19,7 @@ package org.gradle.execution.taskgraph
 import org.gradle.api.BuildCancelledException
 import org.gradle.api.Task
 import org.gradle.api.execution.TaskExecutionListener
+import org.gradle.api.execution.internal.InternalTaskExecutionGraphListener
 import org.gradle.api.execution.internal.InternalTaskExecutionListener
 import org.gradle.api.execution.internal.TaskOperationInternal
 import org.gradle.api.internal.TaskInternal
@@ -85,6 +86,29 @@ class DefaultTaskGraphExecuterSpec extends Specification {
         0 * listener._
     }
 
+    def "notifies internal graph listener after graph listeners and before tasks are executed"() {
+        def graphListener = Mock(InternalTaskExecutionGraphListener)
+        def taskListener = Mock(TaskExecutionListener)
+        def events = []
+        def a = task("a")
+
+        given:
+        listenerManager.addListener(graphListener)
+        taskExecuter.whenReady { events << "whenReady" }
+        taskExecuter.addTaskExecutionListener(taskListener)
+        taskExecuter.addTasks([a])
+
+        when:
+        taskExecuter.execute()
+
+        then:
+        1 * graphListener.graphReady(taskExecuter) >> { events << "graphReady" }
+
+        then:
+        1 * taskListener.beforeExecute(a)
+        events == ["whenReady", "graphReady"]
+    }
+
     def "notifies internal task listener as tasks are executed"() {
         def listener = Mock(InternalTaskExecutionListener)
         def a = task("a")
@@ -42,4 +42,23 @@ public class TaskPlanExecutorFactoryTest extends Specification {
         where:
         parallelExecuterCount << [-1, 1, 3]
     }
+
+    def "creates a work stealing executor"() {
+        when:
+        def factory = new TaskPlanExecutorFactory(parallelExecuterCount, executorFactory, true)
+
+        then:
+        factory.create().class == WorkStealingTaskPlanExecutor
+
+        where:
+        parallelExecuterCount << [-1, 1, 3]
+    }
+
+    def "creates a default executor when work stealing is enabled without parallel threads"() {
+        when:
+        def factory = new TaskPlanExecutorFactory(0, executorFactory, true)
+
+        then:
+        factory.create().class == DefaultTaskPlanExecutor
+    }
 }
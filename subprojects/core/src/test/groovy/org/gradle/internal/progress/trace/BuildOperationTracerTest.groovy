@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.progress.trace
+
+import groovy.json.JsonSlurper
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class BuildOperationTracerTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Rule
+    final SetSystemProperties systemProperties = new SetSystemProperties()
+    final executorFactory = new DefaultExecutorFactory()
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "does not record operations when not tracing"() {
+        expect:
+        BuildOperationTracer.begin("operation") == TraceSpan.NONE
+        BuildOperationTracer.startIfRequested(tmpDir.testDirectory, executorFactory).stop()
+    }
+
+    def "records nested operations and converts them to chrome trace events"() {
+        def traceFile = tmpDir.file("build.trace")
+        def jsonFile = tmpDir.file("build.json")
+
+        when:
+        def trace = BuildOperationTracer.start(traceFile, null, executorFactory)
+        def outer = BuildOperationTracer.begin("Configure project", ":a")
+        def inner = BuildOperationTracer.begin("Compile script")
+        inner.end()
+        outer.end()
+        Thread.start("worker") {
+            BuildOperationTracer.begin("Execute task action", ":a:compile").end()
+        }.join()
+        trace.stop()
+        ChromeTraceConverter.convert(traceFile, jsonFile)
+        def json = new JsonSlurper().parse(jsonFile)
+        def operations = json.traceEvents.findAll { it.ph == "X" }.collectEntries { [it.name, it] }
+        def threads = json.traceEvents.findAll { it.ph == "M" }.collectEntries { [it.tid, it.args.name] }
+
+        then:
+        BuildOperationTracer.begin("operation") == TraceSpan.NONE
+        json.otherData.complete
+        json.otherData.droppedOperations == 0
+        operations.keySet() == ["Compile script", "Configure project :a", "Execute task action :a:compile"] as Set
+        operations["Configure project :a"].cat == "Configure project"
+        operations["Compile script"].args.parentId == operations["Configure project :a"].args.id
+        operations["Configure project :a"].args.parentId == 0
+        operations["Execute task action :a:compile"].args.parentId == 0
+        operations["Compile script"].ts >= operations["Configure project :a"].ts
+        threads[operations["Configure project :a"].tid] == Thread.currentThread().name
+        threads[operations["Execute task action :a:compile"].tid] == "worker"
+    }
+
+    def "starts tracing when requested and converts trace when the build finishes"() {
+        System.setProperty(BuildOperationTracer.TRACE_PROPERTY, "traces/build.trace")
+        System.setProperty(BuildOperationTracer.CHROME_PROPERTY, "true")
+
+        when:
+        def trace = BuildOperationTracer.startIfRequested(tmpDir.testDirectory, executorFactory)
+        BuildOperationTracer.begin("Run build").end()
+        trace.stop()
+
+        then:
+        tmpDir.file("traces/build.trace").file
+        new JsonSlurper().parse(tmpDir.file("traces/build.trace.json")).traceEvents*.name.contains("Run build")
+    }
+
+    def "does not fail when trace cannot be converted"() {
+        def jsonFile = tmpDir.createDir("build.json")
+        def trace = BuildOperationTracer.start(tmpDir.file("build.trace"), jsonFile, executorFactory)
+        BuildOperationTracer.begin("Run build").end()
+
+        when:
+        trace.stop()
+
+        then:
+        noExceptionThrown()
+        tmpDir.file("build.trace").file
+        BuildOperationTracer.begin("operation") == TraceSpan.NONE
+    }
+
+    def "does not start a nested trace"() {
+        def trace = BuildOperationTracer.start(tmpDir.file("build.trace"), null, executorFactory)
+
+        when:
+        def nested = BuildOperationTracer.start(tmpDir.file("nested.trace"), null, executorFactory)
+        nested.stop()
+
+        then:
+        !tmpDir.file("nested.trace").exists()
+        BuildOperationTracer.begin("operation") != TraceSpan.NONE
+
+        cleanup:
+        trace.stop()
+    }
+
+    def "converts partially written trace"() {
+        def traceFile = tmpDir.file("build.trace")
+        def jsonFile = tmpDir.file("build.json")
+        def trace = BuildOperationTracer.start(traceFile, null, executorFactory)
+        BuildOperationTracer.begin("Run build").end()
+        trace.stop()
+        def bytes = traceFile.bytes
+        traceFile.bytes = bytes[0..<(bytes.length - 1)] as byte[]
+
+        when:
+        ChromeTraceConverter.convert(traceFile, jsonFile)
+        def json = new JsonSlurper().parse(jsonFile)
+
+        then:
+        !json.otherData.complete
+        json.traceEvents*.name.contains("Run build")
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.progress.trace
+
+import spock.lang.Specification
+
+class TraceRingBufferTest extends Specification {
+    def buffer = new TraceRingBuffer(4)
+    def records = []
+    def visitor = { long id, long parentId, long threadId, long start, long duration, int operation, int name ->
+        records << [id, parentId, threadId, start, duration, operation, name]
+    } as TraceRingBuffer.RecordVisitor
+
+    def "visits records in the order they were added"() {
+        when:
+        buffer.offer(1, 0, 10, 100, 5, 0, 1)
+        buffer.offer(2, 1, 11, 200, 6, 2, 3)
+
+        then:
+        buffer.drain(visitor) == 2
+        records == [[1, 0, 10, 100, 5, 0, 1], [2, 1, 11, 200, 6, 2, 3]]
+        buffer.drain(visitor) == 0
+    }
+
+    def "drops records when the buffer is full"() {
+        when:
+        5.times { buffer.offer(it, 0, 1, 0, 0, 0, 0) }
+
+        then:
+        buffer.dropped == 1
+        buffer.drain(visitor) == 4
+        records*.get(0) == [0, 1, 2, 3]
+    }
+
+    def "reuses slots once they have been visited"() {
+        when:
+        4.times { buffer.offer(it, 0, 1, 0, 0, 0, 0) }
+        buffer.drain(visitor)
+        4.times { buffer.offer(it + 4, 0, 1, 0, 0, 0, 0) }
+        buffer.drain(visitor)
+
+        then:
+        buffer.dropped == 0
+        records*.get(0) == (0..7).toList()
+    }
+
+    def "can add records from many threads"() {
+        def buffer = new TraceRingBuffer(1024)
+
+        when:
+        def threads = (0..<8).collect { thread ->
+            Thread.start {
+                100.times { buffer.offer(thread * 100 + it, 0, thread, 0, 0, 0, 0) }
+            }
+        }
+        threads*.join()
+        buffer.drain(visitor)
+
+        then:
+        records*.get(0).sort() == (0..<800).toList()
+    }
+
+    def "requires capacity to be a power of two"() {
+        when:
+        new TraceRingBuffer(3)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.logging.internal
+
+import org.gradle.api.Action
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class OutputEventQueueTest extends OutputSpecification {
+    final List<OutputEvent> received = new CopyOnWriteArrayList<OutputEvent>()
+    final OutputEventListener listener = { OutputEvent e -> received << e } as OutputEventListener
+    final List<Throwable> failures = new CopyOnWriteArrayList<Throwable>()
+    final Action<Throwable> failureHandler = { Throwable t -> failures << t } as Action
+    final executorFactory = new DefaultExecutorFactory()
+    OutputEventQueue queue
+
+    def cleanup() {
+        queue?.stop()
+        executorFactory.stop()
+    }
+
+    def "passes events to listener in the order they were queued"() {
+        def event1 = event('one')
+        def event2 = start('two')
+        def event3 = event('three')
+        queue = new OutputEventQueue(listener, failureHandler, executorFactory)
+
+        when:
+        queue.onOutput(event1)
+        queue.onOutput(event2)
+        queue.onOutput(event3)
+        queue.flush()
+
+        then:
+        received == [event1, event2, event3]
+    }
+
+    def "coalesces consecutive text events with the same category and log level"() {
+        def blocked = blockListener()
+        queue = new OutputEventQueue(blocked.listener, failureHandler, executorFactory)
+
+        when:
+        queue.onOutput(event('first'))
+        blocked.started.await(10, TimeUnit.SECONDS)
+        queue.onOutput(text('a', LogLevel.INFO))
+        queue.onOutput(text('b', LogLevel.INFO))
+        queue.onOutput(text('c', LogLevel.ERROR))
+        blocked.release.countDown()
+        queue.flush()
+
+        then:
+        received.size() == 3
+        received[1] instanceof StyledTextOutputEvent
+        received[1].spans*.text == ['a', 'b']
+        received[1].logLevel == LogLevel.INFO
+        received[2].spans*.text == ['c']
+    }
+
+    def "blocks producer when queue is full"() {
+        def blocked = blockListener()
+        queue = new OutputEventQueue(blocked.listener, failureHandler, executorFactory, 2)
+        def produced = new CountDownLatch(1)
+
+        when:
+        queue.onOutput(event('one'))
+        blocked.started.await(10, TimeUnit.SECONDS)
+        queue.onOutput(event('two'))
+        def producer = Thread.start {
+            queue.onOutput(event('three'))
+            produced.countDown()
+        }
+
+        then:
+        !produced.await(200, TimeUnit.MILLISECONDS)
+
+        when:
+        blocked.release.countDown()
+        producer.join(10000)
+        queue.flush()
+
+        then:
+        produced.count == 0
+        received*.message == ['one', 'two', 'three']
+    }
+
+    def "passes events generated by listener directly to listener"() {
+        queue = new OutputEventQueue({ OutputEvent e ->
+            received << e
+            if (e instanceof LogEvent && e.message == 'outer') {
+                queue.onOutput(event('inner'))
+            }
+        } as OutputEventListener, failureHandler, executorFactory)
+
+        when:
+        queue.onOutput(event('outer'))
+        queue.flush()
+
+        then:
+        received*.message == ['outer', 'inner']
+    }
+
+    def "passes failure of listener to failure handler and continues with later events"() {
+        def failure = new RuntimeException("broken")
+        queue = new OutputEventQueue({ OutputEvent e ->
+            if (e instanceof LogEvent && e.message == 'broken') {
+                throw failure
+            }
+            received << e
+        } as OutputEventListener, failureHandler, executorFactory)
+
+        when:
+        queue.onOutput(event('broken'))
+        queue.onOutput(event('message'))
+        queue.flush()
+
+        then:
+        noExceptionThrown()
+        failures == [failure]
+        received*.message == ['message']
+    }
+
+    def "stop passes queued events to listener and subsequent events are passed directly"() {
+        def event1 = event('one')
+        def event2 = event('two')
+        queue = new OutputEventQueue(listener, failureHandler, executorFactory)
+
+        when:
+        queue.onOutput(event1)
+        queue.stop()
+
+        then:
+        received == [event1]
+
+        when:
+        queue.onOutput(event2)
+
+        then:
+        received == [event1, event2]
+    }
+
+    private StyledTextOutputEvent text(String text, LogLevel logLevel) {
+        return new StyledTextOutputEvent(tenAm, 'category', logLevel, text)
+    }
+
+    private Map blockListener() {
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def blocking = { OutputEvent e ->
+            if (started.count > 0) {
+                started.countDown()
+                release.await(10, TimeUnit.SECONDS)
+            }
+            received << e
+        } as OutputEventListener
+        return [started: started, release: release, listener: blocking]
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.logging.internal
 import org.gradle.api.Action
 import org.gradle.api.logging.LogLevel
 import org.gradle.api.logging.StandardOutputListener
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.util.RedirectStdOutAndErr
 import org.junit.Rule
 import org.gradle.internal.nativeintegration.console.ConsoleMetaData
@@ -294,6 +295,28 @@ class OutputEventRendererTest extends OutputSpecification {
         outputs.stdOut.readLines() == ['info']
         outputs.stdErr == ''
     }
+
+    def rendersLogEventsAsynchronouslyWhenEnabled() {
+        def listener = new TestListener()
+
+        when:
+        renderer.addStandardOutputListener(listener)
+        renderer.startAsyncRendering(new DefaultExecutorFactory())
+        renderer.onOutput(event('one', LogLevel.INFO))
+        renderer.onOutput(event('ignored', LogLevel.DEBUG))
+        renderer.onOutput(event('two', LogLevel.INFO))
+        renderer.flush()
+
+        then:
+        listener.value.readLines() == ['one', 'two']
+
+        when:
+        renderer.onOutput(event('three', LogLevel.INFO))
+        renderer.stopAsyncRendering()
+
+        then:
+        listener.value.readLines() == ['one', 'two', 'three']
+    }
 }
 
 class TestListener implements StandardOutputListener {
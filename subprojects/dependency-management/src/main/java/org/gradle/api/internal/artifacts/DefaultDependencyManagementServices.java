@@ -147,6 +147,7 @@ public class DefaultDependencyManagementServices implements DependencyManagement
                                                        GlobalDependencyResolutionRules metadataHandler,
                                                        ComponentIdentifierFactory componentIdentifierFactory,
                                                        CacheLockingManager cacheLockingManager,
+                                                       ParallelArtifactDownloader artifactDownloader,
                                                        ResolutionResultsStoreFactory resolutionResultsStoreFactory,
                                                        StartParameter startParameter) {
             return new ErrorHandlingConfigurationResolver(
@@ -157,6 +158,7 @@ public class DefaultDependencyManagementServices implements DependencyManagement
                                             repositories,
                                             metadataHandler,
                                             cacheLockingManager,
+                                            artifactDownloader,
                                             resolutionResultsStoreFactory,
                                             startParameter.isBuildProjectDependencies())),
                             componentIdentifierFactory)
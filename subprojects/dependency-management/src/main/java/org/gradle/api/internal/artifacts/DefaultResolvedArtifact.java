@@ -27,8 +27,8 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
     private final ResolvedModuleVersion owner;
     private final IvyArtifactName artifact;
     private final ComponentArtifactIdentifier artifactId;
-    private Factory<File> artifactSource;
-    private File file;
+    private volatile Factory<File> artifactSource;
+    private volatile File file;
 
     public DefaultResolvedArtifact(ResolvedModuleVersion owner, IvyArtifactName artifact, ComponentArtifactIdentifier artifactId, Factory<File> artifactSource) {
         this.owner = owner;
@@ -85,10 +85,24 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
         return artifact.getClassifier();
     }
 
+    /**
+     * Returns true if the file for this artifact has been resolved.
+     */
+    public boolean isResolved() {
+        return file != null;
+    }
+
     public File getFile() {
+        // The file may be resolved by another thread at the same time, see ParallelArtifactDownloader
+        File file = this.file;
         if (file == null) {
+            Factory<File> artifactSource = this.artifactSource;
+            if (artifactSource == null) {
+                return this.file;
+            }
             file = artifactSource.create();
-            artifactSource = null;
+            this.file = file;
+            this.artifactSource = null;
         }
         return file;
     }
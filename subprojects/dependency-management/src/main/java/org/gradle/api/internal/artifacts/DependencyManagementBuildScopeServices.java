@@ -27,8 +27,10 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache.InMemory
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.*;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultModuleArtifactsCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultModuleMetaDataCache;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultRepositoryMissIndex;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleArtifactsCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.RepositoryMissIndex;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.ConfigurationComponentMetaDataBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.DependencyDescriptorFactory;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.DefaultProjectComponentRegistry;
@@ -36,6 +38,7 @@ import org.gradle.api.internal.artifacts.ivyservice.projectmodule.DefaultProject
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectDependencyResolver;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectPublicationRegistry;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultArtifactDependencyResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.cache.ResolvedGraphCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.mvnsettings.*;
 import org.gradle.api.internal.artifacts.repositories.transport.RepositoryTransportFactory;
@@ -51,6 +54,8 @@ import org.gradle.api.internal.project.ProjectRegistry;
 import org.gradle.cache.CacheRepository;
 import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetaData;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.resource.cached.ByUrlCachedExternalResourceIndex;
 import org.gradle.internal.resource.cached.ivy.ArtifactAtRepositoryCachedArtifactIndex;
@@ -58,6 +63,7 @@ import org.gradle.internal.resource.connector.ResourceConnectorFactory;
 import org.gradle.internal.resource.local.LocallyAvailableResourceFinder;
 import org.gradle.internal.resource.local.UniquePathKeyFileStore;
 import org.gradle.internal.resource.local.ivy.LocallyAvailableResourceFinderFactory;
+import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.logging.ProgressLoggerFactory;
 import org.gradle.util.BuildCommencedTimeProvider;
@@ -66,6 +72,12 @@ import org.gradle.util.BuildCommencedTimeProvider;
  * The set of dependency management services that are created per build.
  */
 class DependencyManagementBuildScopeServices {
+    void configure(ServiceRegistration registration, ListenerManager listenerManager, StartParameter startParameter, ExecutorFactory executorFactory) {
+        if (AheadOfTimeConfigurationResolver.isEnabled(startParameter)) {
+            listenerManager.addListener(new AheadOfTimeConfigurationResolver(executorFactory, startParameter.getMaxWorkerCount()));
+        }
+    }
+
     InMemoryCachedRepositoryFactory createInMemoryDependencyMetadataCache() {
         return new InMemoryCachedRepositoryFactory();
     }
@@ -98,10 +110,11 @@ class DependencyManagementBuildScopeServices {
         return new BuildCommencedTimeProvider();
     }
 
-    ModuleVersionsCache createModuleVersionsCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
+    ModuleVersionsCache createModuleVersionsCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, VersionComparator versionComparator) {
         return new SingleFileBackedModuleVersionsCache(
             timeProvider,
-            cacheLockingManager
+            cacheLockingManager,
+            versionComparator
         );
     }
 
@@ -120,6 +133,27 @@ class DependencyManagementBuildScopeServices {
         );
     }
 
+    RepositoryMissIndex createRepositoryMissIndex(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
+        if (!DefaultRepositoryMissIndex.isEnabled()) {
+            return RepositoryMissIndex.NONE;
+        }
+        return new DefaultRepositoryMissIndex(
+            timeProvider,
+            cacheLockingManager
+        );
+    }
+
+    ResolvedGraphCache createResolvedGraphCache(CacheLockingManager cacheLockingManager, BuildCommencedTimeProvider timeProvider, ModuleMetaDataCache moduleMetaDataCache,
+                                                ModuleVersionsCache moduleVersionsCache, VersionSelectorScheme versionSelectorScheme) {
+        return new ResolvedGraphCache(
+            cacheLockingManager,
+            timeProvider,
+            moduleMetaDataCache,
+            moduleVersionsCache,
+            versionSelectorScheme
+        );
+    }
+
     ArtifactAtRepositoryCachedArtifactIndex createArtifactAtRepositoryCachedResolutionIndex(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
         return new ArtifactAtRepositoryCachedArtifactIndex(
             "artifact-at-repository",
@@ -185,7 +219,7 @@ class DependencyManagementBuildScopeServices {
     }
 
     ResolveIvyFactory createResolveIvyFactory(StartParameter startParameter, ModuleVersionsCache moduleVersionsCache, ModuleMetaDataCache moduleMetaDataCache, ModuleArtifactsCache moduleArtifactsCache,
-                                              ArtifactAtRepositoryCachedArtifactIndex artifactAtRepositoryCachedArtifactIndex, CacheLockingManager cacheLockingManager,
+                                              ArtifactAtRepositoryCachedArtifactIndex artifactAtRepositoryCachedArtifactIndex, RepositoryMissIndex repositoryMissIndex, CacheLockingManager cacheLockingManager,
                                               BuildCommencedTimeProvider buildCommencedTimeProvider, InMemoryCachedRepositoryFactory inMemoryCachedRepositoryFactory,
                                               VersionSelectorScheme versionSelectorScheme, VersionComparator versionComparator) {
         StartParameterResolutionOverride startParameterResolutionOverride = new StartParameterResolutionOverride(startParameter);
@@ -194,6 +228,7 @@ class DependencyManagementBuildScopeServices {
             moduleMetaDataCache,
             moduleArtifactsCache,
             artifactAtRepositoryCachedArtifactIndex,
+            repositoryMissIndex,
             cacheLockingManager,
             startParameterResolutionOverride,
             buildCommencedTimeProvider,
@@ -207,6 +242,10 @@ class DependencyManagementBuildScopeServices {
                                                                 CacheLockingManager cacheLockingManager,
                                                                 IvyContextManager ivyContextManager,
                                                                 VersionComparator versionComparator,
+                                                                VersionSelectorScheme versionSelectorScheme,
+                                                                ExecutorFactory executorFactory,
+                                                                ResolvedGraphCache resolvedGraphCache,
+                                                                StartParameter startParameter,
                                                                 ServiceRegistry serviceRegistry) {
         DefaultArtifactDependencyResolver resolver = new DefaultArtifactDependencyResolver(
             serviceRegistry,
@@ -214,9 +253,16 @@ class DependencyManagementBuildScopeServices {
             dependencyDescriptorFactory,
             cacheLockingManager,
             ivyContextManager,
-            versionComparator
+            versionComparator,
+            versionSelectorScheme,
+            executorFactory,
+            resolvedGraphCache
         );
-        return new CacheLockingArtifactDependencyResolver(cacheLockingManager, resolver);
+        return new CacheLockingArtifactDependencyResolver(cacheLockingManager, resolver, AheadOfTimeConfigurationResolver.isEnabled(startParameter));
+    }
+
+    ParallelArtifactDownloader createParallelArtifactDownloader(CacheLockingManager cacheLockingManager, ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory) {
+        return new ParallelArtifactDownloader(cacheLockingManager, executorFactory, progressLoggerFactory, ParallelArtifactDownloader.getMaxParallelism());
     }
 
     ResolutionResultsStoreFactory createResolutionResultsStoreFactory(TemporaryFileProvider temporaryFileProvider) {
@@ -45,6 +45,8 @@ import org.gradle.internal.component.local.model.DefaultLocalComponentMetaData;
 import org.gradle.internal.component.model.ComponentResolveMetaData;
 import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.progress.trace.BuildOperationTracer;
+import org.gradle.internal.progress.trace.TraceSpan;
 import org.gradle.listener.ClosureBackedMethodInvocationDispatch;
 import org.gradle.util.CollectionUtils;
 import org.gradle.util.ConfigureUtil;
@@ -368,7 +370,12 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
         ResolvableDependencies incoming = getIncoming();
         performPreResolveActions(incoming);
 
-        resolver.resolve(this, cachedResolverResults);
+        TraceSpan span = BuildOperationTracer.begin("Resolve dependencies", getDisplayName());
+        try {
+            resolver.resolve(this, cachedResolverResults);
+        } finally {
+            span.end();
+        }
         dependenciesModified = false;
         if (resolvedState != InternalState.RESULTS_RESOLVED) {
             resolvedState = InternalState.TASK_DEPENDENCIES_RESOLVED;
@@ -404,7 +411,12 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
         if (resolvedState == InternalState.RESULTS_RESOLVED) {
             return;
         }
-        resolver.resolveArtifacts(this, cachedResolverResults);
+        TraceSpan span = BuildOperationTracer.begin("Resolve artifacts", getDisplayName());
+        try {
+            resolver.resolveArtifacts(this, cachedResolverResults);
+        } finally {
+            span.end();
+        }
         resolvedState = InternalState.RESULTS_RESOLVED;
     }
 
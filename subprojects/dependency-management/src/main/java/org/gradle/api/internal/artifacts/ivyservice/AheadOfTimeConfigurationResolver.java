@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.StartParameter;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.execution.TaskExecutionGraph;
+import org.gradle.api.execution.internal.InternalTaskExecutionGraphListener;
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.tasks.TaskDependencyContainer;
+import org.gradle.api.internal.tasks.TaskDependencyResolveContext;
+import org.gradle.api.specs.Specs;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+/**
+ * Resolves the configurations used as inputs by the tasks of the task graph once the graph is ready, that is, after all {@code whenReady} listeners
+ * have been notified, rather than when each task requests the files of a configuration. The configurations are resolved concurrently, ahead of the tasks that use them. A task that requests the
+ * files of a configuration that is still being resolved waits for that resolution to complete.
+ *
+ * <p>A failure to resolve a configuration is ignored here, and is reported in the usual way when the task requests the files of the configuration.</p>
+ *
+ * <p>This is an opt-in feature, as {@code beforeResolve} hooks and any project configuration triggered by resolving a configuration run on a worker thread
+ * rather than on the thread executing the task.</p>
+ */
+public class AheadOfTimeConfigurationResolver extends BuildAdapter implements InternalTaskExecutionGraphListener {
+    /**
+     * Set to true to enable resolving configurations ahead of time. Configurations are resolved ahead of time only when parallel project execution is also enabled.
+     */
+    public final static String TOGGLE_PROPERTY = "org.gradle.resolution.aheadoftime";
+    private static final Logger LOGGER = LoggerFactory.getLogger(AheadOfTimeConfigurationResolver.class);
+
+    private final ExecutorFactory executorFactory;
+    private final int maxParallelism;
+    private final List<Future<?>> pending = new ArrayList<Future<?>>();
+    private StoppableExecutor executor;
+
+    public AheadOfTimeConfigurationResolver(ExecutorFactory executorFactory, int maxParallelism) {
+        this.executorFactory = executorFactory;
+        this.maxParallelism = maxParallelism;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(TOGGLE_PROPERTY);
+    }
+
+    /**
+     * Returns whether configurations are resolved ahead of time for the given build.
+     */
+    public static boolean isEnabled(StartParameter startParameter) {
+        return isEnabled() && startParameter.isParallelProjectExecutionEnabled() && !startParameter.isDryRun();
+    }
+
+    public void graphReady(TaskExecutionGraph graph) {
+        Set<ConfigurationInternal> configurations = new LinkedHashSet<ConfigurationInternal>();
+        for (Task task : graph.getAllTasks()) {
+            new InputConfigurationsCollector(task, configurations).add(task.getInputs().getFiles());
+        }
+        for (final ConfigurationInternal configuration : configurations) {
+            if (configuration.getState() != Configuration.State.UNRESOLVED) {
+                continue;
+            }
+            synchronized (pending) {
+                pending.add(getExecutor().submit(new Runnable() {
+                    public void run() {
+                        resolve(configuration);
+                    }
+                }));
+            }
+        }
+    }
+
+    private void resolve(ConfigurationInternal configuration) {
+        try {
+            configuration.getResolvedConfiguration().getLenientConfiguration().getFiles(Specs.satisfyAll());
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not resolve %s ahead of time.", configuration), e);
+        }
+    }
+
+    private StoppableExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("Resolve configurations", maxParallelism);
+        }
+        return executor;
+    }
+
+    @Override
+    public void buildFinished(BuildResult result) {
+        synchronized (pending) {
+            for (Future<?> future : pending) {
+                future.cancel(false);
+            }
+            pending.clear();
+        }
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+    }
+
+    /**
+     * Collects the configurations that are referenced by the input files of a task, using the same traversal that determines the task dependencies of the input files.
+     */
+    private static class InputConfigurationsCollector implements TaskDependencyResolveContext {
+        private final Task task;
+        private final Set<ConfigurationInternal> configurations;
+        private final Set<Object> seen = new HashSet<Object>();
+
+        InputConfigurationsCollector(Task task, Set<ConfigurationInternal> configurations) {
+            this.task = task;
+            this.configurations = configurations;
+        }
+
+        public void add(Object dependency) {
+            if (!seen.add(dependency)) {
+                return;
+            }
+            if (dependency instanceof ConfigurationInternal) {
+                configurations.add((ConfigurationInternal) dependency);
+            } else if (dependency instanceof TaskDependencyContainer) {
+                ((TaskDependencyContainer) dependency).visitDependencies(this);
+            }
+        }
+
+        public Task getTask() {
+            return task;
+        }
+    }
+}
@@ -24,18 +24,29 @@ import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
 
 import java.util.List;
 
+/**
+ * Holds the artifact cache for the whole of a resolution, when fine-grained locking is disabled. Otherwise, the cache is locked only for each
+ * access to the cache made during the resolution, so that configurations resolved on different threads can be resolved concurrently.
+ * Fine-grained locking is used only when configurations are resolved ahead of time, see {@link AheadOfTimeConfigurationResolver}.
+ */
 public class CacheLockingArtifactDependencyResolver implements ArtifactDependencyResolver {
     private final CacheLockingManager lockingManager;
     private final ArtifactDependencyResolver resolver;
+    private final boolean fineGrainedLocking;
 
-    public CacheLockingArtifactDependencyResolver(CacheLockingManager lockingManager, ArtifactDependencyResolver resolver) {
+    public CacheLockingArtifactDependencyResolver(CacheLockingManager lockingManager, ArtifactDependencyResolver resolver, boolean fineGrainedLocking) {
         this.lockingManager = lockingManager;
         this.resolver = resolver;
+        this.fineGrainedLocking = fineGrainedLocking;
     }
 
     @Override
     public void resolve(final ResolveContext resolveContext, final List<? extends ResolutionAwareRepository> repositories, final GlobalDependencyResolutionRules metadataHandler,
                         final DependencyGraphVisitor graphVisitor, final DependencyArtifactsVisitor artifactsVisitor) {
+        if (fineGrainedLocking) {
+            resolver.resolve(resolveContext, repositories, metadataHandler, graphVisitor, artifactsVisitor);
+            return;
+        }
         lockingManager.useCache(String.format("resolve %s", resolveContext), new Runnable() {
             public void run() {
                 resolver.resolve(resolveContext, repositories, metadataHandler, graphVisitor, artifactsVisitor);
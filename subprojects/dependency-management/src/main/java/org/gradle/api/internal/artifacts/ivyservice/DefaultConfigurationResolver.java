@@ -51,16 +51,18 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
     private final RepositoryHandler repositories;
     private final GlobalDependencyResolutionRules metadataHandler;
     private final CacheLockingManager cacheLockingManager;
+    private final ParallelArtifactDownloader artifactDownloader;
     private final ResolutionResultsStoreFactory storeFactory;
     private final boolean buildProjectDependencies;
 
     public DefaultConfigurationResolver(ArtifactDependencyResolver resolver, RepositoryHandler repositories,
-                                        GlobalDependencyResolutionRules metadataHandler, CacheLockingManager cacheLockingManager,
+                                        GlobalDependencyResolutionRules metadataHandler, CacheLockingManager cacheLockingManager, ParallelArtifactDownloader artifactDownloader,
                                         ResolutionResultsStoreFactory storeFactory, boolean buildProjectDependencies) {
         this.resolver = resolver;
         this.repositories = repositories;
         this.metadataHandler = metadataHandler;
         this.cacheLockingManager = cacheLockingManager;
+        this.artifactDownloader = artifactDownloader;
         this.storeFactory = storeFactory;
         this.buildProjectDependencies = buildProjectDependencies;
     }
@@ -107,7 +109,7 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
                 new TransientConfigurationResultsLoader(transientConfigurationResultsBuilder, graphResults, artifactResults);
 
         DefaultLenientConfiguration result = new DefaultLenientConfiguration(
-            configuration, cacheLockingManager, graphResults.getUnresolvedDependencies(), artifactResults, transientConfigurationResultsFactory);
+            configuration, cacheLockingManager, artifactDownloader, graphResults.getUnresolvedDependencies(), artifactResults, transientConfigurationResultsFactory);
         results.withResolvedConfiguration(new DefaultResolvedConfiguration(result));
     }
 }
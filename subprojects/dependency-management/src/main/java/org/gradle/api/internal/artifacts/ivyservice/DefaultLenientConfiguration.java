@@ -31,15 +31,18 @@ import java.util.*;
 
 public class DefaultLenientConfiguration implements LenientConfiguration {
     private CacheLockingManager cacheLockingManager;
+    private final ParallelArtifactDownloader artifactDownloader;
     private final Configuration configuration;
     private final Set<UnresolvedDependency> unresolvedDependencies;
     private final ResolvedArtifacts artifactResults;
     private final Factory<TransientConfigurationResults> transientConfigurationResultsFactory;
 
-    public DefaultLenientConfiguration(Configuration configuration, CacheLockingManager cacheLockingManager, Set<UnresolvedDependency> unresolvedDependencies,
-                                       ResolvedArtifacts artifactResults, Factory<TransientConfigurationResults> transientConfigurationResultsLoader) {
+    public DefaultLenientConfiguration(Configuration configuration, CacheLockingManager cacheLockingManager, ParallelArtifactDownloader artifactDownloader,
+                                       Set<UnresolvedDependency> unresolvedDependencies, ResolvedArtifacts artifactResults,
+                                       Factory<TransientConfigurationResults> transientConfigurationResultsLoader) {
         this.configuration = configuration;
         this.cacheLockingManager = cacheLockingManager;
+        this.artifactDownloader = artifactDownloader;
         this.unresolvedDependencies = unresolvedDependencies;
         this.artifactResults = artifactResults;
         this.transientConfigurationResultsFactory = transientConfigurationResultsLoader;
@@ -98,6 +101,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
      */
     public Set<ResolvedArtifact> getArtifacts(Spec<? super Dependency> dependencySpec) {
         final Set<ResolvedArtifact> allArtifacts = getAllArtifacts(dependencySpec);
+        artifactDownloader.download(configuration.toString(), allArtifacts);
         return cacheLockingManager.useCache("retrieve artifacts from " + configuration, new Factory<Set<ResolvedArtifact>>() {
             public Set<ResolvedArtifact> create() {
                 return CollectionUtils.filter(allArtifacts, new Spec<ResolvedArtifact>() {
@@ -116,6 +120,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
 
     private Set<File> getFiles(final Set<ResolvedArtifact> artifacts) {
         final Set<File> files = new LinkedHashSet<File>();
+        artifactDownloader.download(configuration.toString(), artifacts);
         cacheLockingManager.useCache("resolve files from " + configuration, new Runnable() {
             public void run() {
                 for (ResolvedArtifact artifact : artifacts) {
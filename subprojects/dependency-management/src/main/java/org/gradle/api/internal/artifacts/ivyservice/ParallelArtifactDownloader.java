@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.logging.ProgressLogger;
+import org.gradle.logging.ProgressLoggerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+
+/**
+ * Resolves the files for a set of artifacts concurrently, so that the artifacts of a configuration can be downloaded from remote repositories at the
+ * same time rather than one after another as the files are requested.
+ *
+ * <p>Each artifact is resolved using its own resolver, which resolves the file while holding the artifact cache and releases the cache while
+ * downloading. The calling thread releases the cache while it waits for the downloads to complete. A failure to resolve an artifact is ignored here,
+ * and is reported in the usual way when the file for the artifact is requested.</p>
+ */
+public class ParallelArtifactDownloader {
+    /**
+     * The maximum number of artifacts to resolve concurrently. Artifacts are resolved only as their files are requested when this is not greater than 1.
+     */
+    public static final String MAX_PARALLELISM_PROPERTY = "org.gradle.resolution.artifacts.parallelism";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelArtifactDownloader.class);
+
+    private final CacheLockingManager cacheLockingManager;
+    private final ExecutorFactory executorFactory;
+    private final ProgressLoggerFactory progressLoggerFactory;
+    private final int maxParallelism;
+
+    public ParallelArtifactDownloader(CacheLockingManager cacheLockingManager, ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory, int maxParallelism) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.executorFactory = executorFactory;
+        this.progressLoggerFactory = progressLoggerFactory;
+        this.maxParallelism = maxParallelism;
+    }
+
+    /**
+     * Returns the maximum number of artifacts to resolve concurrently, as specified by the {@value #MAX_PARALLELISM_PROPERTY} system property.
+     */
+    public static int getMaxParallelism() {
+        return Integer.getInteger(MAX_PARALLELISM_PROPERTY, 0);
+    }
+
+    /**
+     * Resolves the files for those of the given artifacts whose files have not been resolved already. Does nothing when fewer than two files need to
+     * be resolved, or when parallel resolution is disabled.
+     */
+    public void download(final String displayName, Collection<? extends ResolvedArtifact> artifacts) {
+        if (maxParallelism <= 1) {
+            return;
+        }
+        final List<DefaultResolvedArtifact> pending = new ArrayList<DefaultResolvedArtifact>();
+        for (ResolvedArtifact artifact : artifacts) {
+            if (artifact instanceof DefaultResolvedArtifact && !((DefaultResolvedArtifact) artifact).isResolved()) {
+                pending.add((DefaultResolvedArtifact) artifact);
+            }
+        }
+        if (pending.size() < 2) {
+            return;
+        }
+
+        final ProgressLogger progressLogger = progressLoggerFactory.newOperation(ParallelArtifactDownloader.class)
+            .start("Resolve files of " + displayName, "Resolving files of " + displayName);
+        try {
+            cacheLockingManager.longRunningOperation("Resolve files of " + displayName, new Runnable() {
+                public void run() {
+                    StoppableExecutor executor = executorFactory.create("Resolve files of " + displayName, Math.min(maxParallelism, pending.size()));
+                    try {
+                        resolveAll(executor, pending, progressLogger);
+                    } finally {
+                        executor.stop();
+                    }
+                }
+            });
+        } finally {
+            progressLogger.completed();
+        }
+    }
+
+    private void resolveAll(StoppableExecutor executor, List<DefaultResolvedArtifact> pending, ProgressLogger progressLogger) {
+        CompletionService<DefaultResolvedArtifact> completionService = new ExecutorCompletionService<DefaultResolvedArtifact>(executor);
+        for (final DefaultResolvedArtifact artifact : pending) {
+            completionService.submit(new Runnable() {
+                public void run() {
+                    artifact.getFile();
+                }
+            }, artifact);
+        }
+        for (int completed = 1; completed <= pending.size(); completed++) {
+            try {
+                completionService.take().get();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (ExecutionException e) {
+                LOGGER.debug("Could not resolve artifact file.", e.getCause());
+            }
+            progressLogger.progress(String.format("%d of %d files resolved", completed, pending.size()));
+        }
+    }
+}
@@ -25,6 +25,11 @@ import org.gradle.api.internal.artifacts.configurations.MutationValidator;
 public interface DependencySubstitutionsInternal extends DependencySubstitutions {
     boolean hasDependencySubstitutionRules();
 
+    /**
+     * Returns true when any rule has been added, including the rules added using {@link #allWithDependencyResolveDetails(Action)}.
+     */
+    boolean hasRules();
+
     Action<DependencySubstitution> getDependencySubstitutionRule();
 
     DependencySubstitutions allWithDependencyResolveDetails(Action<? super DependencyResolveDetails> rule);
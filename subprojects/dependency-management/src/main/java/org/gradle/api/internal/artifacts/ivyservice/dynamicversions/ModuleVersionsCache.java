@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.dynamicversions;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
 
@@ -26,6 +27,12 @@ public interface ModuleVersionsCache {
 
     CachedModuleVersionList getCachedModuleResolution(ModuleComponentRepository repository, ModuleIdentifier moduleId);
 
+    /**
+     * Returns the time at which the version list of the given module was cached. Returns null when the version list is not cached.
+     */
+    @Nullable
+    Long getCacheTimestamp(String repositoryId, ModuleIdentifier moduleId);
+
     interface CachedModuleVersionList {
         Set<String> getModuleVersions();
 
@@ -19,6 +19,10 @@ import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.VersionInfo;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionComparator;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionIndex;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
@@ -27,19 +31,27 @@ import org.gradle.util.BuildCommencedTimeProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
+/**
+ * Holds the version listing of each module. The versions of each listing are stored latest first, so that a listing read back from the cache does not need to be sorted again.
+ */
 public class SingleFileBackedModuleVersionsCache implements ModuleVersionsCache {
     private static final Logger LOGGER = LoggerFactory.getLogger(SingleFileBackedModuleVersionsCache.class);
 
     private final BuildCommencedTimeProvider timeProvider;
     private final CacheLockingManager cacheLockingManager;
+    private final VersionComparator versionComparator;
+    private final VersionParser versionParser = new VersionParser();
     private PersistentIndexedCache<ModuleKey, ModuleVersionsCacheEntry> cache;
 
-    public SingleFileBackedModuleVersionsCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
+    public SingleFileBackedModuleVersionsCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, VersionComparator versionComparator) {
         this.timeProvider = timeProvider;
         this.cacheLockingManager = cacheLockingManager;
+        this.versionComparator = versionComparator;
     }
 
     private PersistentIndexedCache<ModuleKey, ModuleVersionsCacheEntry> getCache() {
@@ -66,12 +78,30 @@ public class SingleFileBackedModuleVersionsCache implements ModuleVersionsCache
         return new DefaultCachedModuleVersionList(moduleVersionsCacheEntry, timeProvider);
     }
 
+    public Long getCacheTimestamp(String repositoryId, ModuleIdentifier moduleId) {
+        ModuleVersionsCacheEntry moduleVersionsCacheEntry = getCache().get(new ModuleKey(repositoryId, moduleId));
+        return moduleVersionsCacheEntry == null ? null : moduleVersionsCacheEntry.createTimestamp;
+    }
+
     private ModuleKey createKey(ModuleComponentRepository repository, ModuleIdentifier moduleId) {
         return new ModuleKey(repository.getId(), moduleId);
     }
 
     private ModuleVersionsCacheEntry createEntry(Set<String> listedVersions) {
-        return new ModuleVersionsCacheEntry(listedVersions, timeProvider.getCurrentTime());
+        return new ModuleVersionsCacheEntry(sortLatestFirst(listedVersions), timeProvider.getCurrentTime());
+    }
+
+    private Set<String> sortLatestFirst(Set<String> listedVersions) {
+        List<VersionInfo> versions = new ArrayList<VersionInfo>(listedVersions.size());
+        for (String version : listedVersions) {
+            versions.add(new VersionInfo(version));
+        }
+        VersionIndex<VersionInfo> index = new VersionIndex<VersionInfo>(versions, versionParser, versionComparator.asVersionComparator());
+        Set<String> sortedVersions = new LinkedHashSet<String>(listedVersions.size());
+        for (VersionInfo version : index.getElements()) {
+            sortedVersions.add(version.getVersion());
+        }
+        return sortedVersions;
     }
 
     private static class ModuleKey {
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.component.ArtifactType;
+import org.gradle.internal.component.model.*;
+import org.gradle.internal.resolve.result.BuildableArtifactResolveResult;
+import org.gradle.internal.resolve.result.BuildableArtifactSetResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
+
+/**
+ * A wrapper around a {@link ModuleComponentRepository} that acquires the cache lock for each operation, so that the lock is held only while
+ * a single module is being resolved rather than for the whole resolution. Resolutions on different threads can then use the cache in turn.
+ */
+public class CacheLockAcquiringModuleComponentRepository extends BaseModuleComponentRepository {
+    public CacheLockAcquiringModuleComponentRepository(ModuleComponentRepository repository, CacheLockingManager cacheLockingManager) {
+        super(repository,
+            new LockAcquiringRepositoryAccess(repository.getLocalAccess(), cacheLockingManager),
+            new LockAcquiringRepositoryAccess(repository.getRemoteAccess(), cacheLockingManager));
+    }
+
+    private static class LockAcquiringRepositoryAccess implements ModuleComponentRepositoryAccess {
+        private final ModuleComponentRepositoryAccess delegate;
+        private final CacheLockingManager cacheLockingManager;
+
+        @Override
+        public String toString() {
+            return "locking > " + delegate.toString();
+        }
+
+        private LockAcquiringRepositoryAccess(ModuleComponentRepositoryAccess delegate, CacheLockingManager cacheLockingManager) {
+            this.delegate = delegate;
+            this.cacheLockingManager = cacheLockingManager;
+        }
+
+        public void listModuleVersions(final DependencyMetaData dependency, final BuildableModuleVersionListingResolveResult result) {
+            cacheLockingManager.useCache(String.format("List %s", dependency), new Runnable() {
+                public void run() {
+                    delegate.listModuleVersions(dependency, result);
+                }
+            });
+        }
+
+        public void resolveComponentMetaData(final ModuleComponentIdentifier moduleComponentIdentifier,
+                                             final ComponentOverrideMetadata requestMetaData, final BuildableModuleComponentMetaDataResolveResult result) {
+            cacheLockingManager.useCache(String.format("Resolve %s", moduleComponentIdentifier), new Runnable() {
+                public void run() {
+                    delegate.resolveComponentMetaData(moduleComponentIdentifier, requestMetaData, result);
+                }
+            });
+        }
+
+        public void resolveModuleArtifacts(final ComponentResolveMetaData component, final ArtifactType artifactType, final BuildableArtifactSetResolveResult result) {
+            cacheLockingManager.useCache(String.format("Resolve %s for %s", artifactType, component), new Runnable() {
+                public void run() {
+                    delegate.resolveModuleArtifacts(component, artifactType, result);
+                }
+            });
+        }
+
+        public void resolveModuleArtifacts(final ComponentResolveMetaData component, final ComponentUsage componentUsage, final BuildableArtifactSetResolveResult result) {
+            cacheLockingManager.useCache(String.format("Resolve %s for %s", componentUsage, component), new Runnable() {
+                public void run() {
+                    delegate.resolveModuleArtifacts(component, componentUsage, result);
+                }
+            });
+        }
+
+        public void resolveArtifact(final ComponentArtifactMetaData artifact, final ModuleSource moduleSource, final BuildableArtifactResolveResult result) {
+            cacheLockingManager.useCache(String.format("Resolve %s", artifact), new Runnable() {
+                public void run() {
+                    delegate.resolveArtifact(artifact, moduleSource, result);
+                }
+            });
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePoli
 import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.ModuleVersionsCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleArtifactsCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.RepositoryMissIndex;
 import org.gradle.api.internal.component.ArtifactType;
 import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactMetaData;
 import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
@@ -59,6 +60,7 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
     private final ModuleMetaDataCache moduleMetaDataCache;
     private final ModuleArtifactsCache moduleArtifactsCache;
     private final CachedArtifactIndex artifactAtRepositoryCachedResolutionIndex;
+    private final RepositoryMissIndex repositoryMissIndex;
 
     private final CachePolicy cachePolicy;
 
@@ -72,7 +74,16 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
                                             ModuleArtifactsCache moduleArtifactsCache, CachedArtifactIndex artifactAtRepositoryCachedResolutionIndex,
                                             CachePolicy cachePolicy, BuildCommencedTimeProvider timeProvider,
                                             ComponentMetadataProcessor metadataProcessor) {
+        this(delegate, moduleVersionsCache, moduleMetaDataCache, moduleArtifactsCache, artifactAtRepositoryCachedResolutionIndex, RepositoryMissIndex.NONE,
+            cachePolicy, timeProvider, metadataProcessor);
+    }
+
+    public CachingModuleComponentRepository(ModuleComponentRepository delegate, ModuleVersionsCache moduleVersionsCache, ModuleMetaDataCache moduleMetaDataCache,
+                                            ModuleArtifactsCache moduleArtifactsCache, CachedArtifactIndex artifactAtRepositoryCachedResolutionIndex,
+                                            RepositoryMissIndex repositoryMissIndex, CachePolicy cachePolicy, BuildCommencedTimeProvider timeProvider,
+                                            ComponentMetadataProcessor metadataProcessor) {
         this.delegate = delegate;
+        this.repositoryMissIndex = repositoryMissIndex;
         this.moduleMetaDataCache = moduleMetaDataCache;
         this.moduleVersionsCache = moduleVersionsCache;
         this.moduleArtifactsCache = moduleArtifactsCache;
@@ -292,14 +303,22 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
         }
 
         public void resolveComponentMetaData(ModuleComponentIdentifier moduleComponentIdentifier, ComponentOverrideMetadata requestMetaData, BuildableModuleComponentMetaDataResolveResult result) {
+            if (repositoryMissIndex.isMissing(delegate, moduleComponentIdentifier)) {
+                LOGGER.debug("Detected non-existence of module '{}' in repository miss index for '{}'", moduleComponentIdentifier, delegate.getName());
+                result.missing();
+                return;
+            }
+
             ComponentOverrideMetadata forced = requestMetaData.withChanging();
 
             delegate.getRemoteAccess().resolveComponentMetaData(moduleComponentIdentifier, forced, result);
             switch (result.getState()) {
                 case Missing:
                     moduleMetaDataCache.cacheMissing(delegate, moduleComponentIdentifier);
+                    repositoryMissIndex.recordMissing(delegate, moduleComponentIdentifier);
                     break;
                 case Resolved:
+                    repositoryMissIndex.recordPresent(delegate, moduleComponentIdentifier);
                     MutableModuleComponentResolveMetaData metaData = result.getMetaData();
                     ModuleSource moduleSource = metaData.getSource();
                     ModuleMetaDataCache.CachedMetaData cachedMetaData = moduleMetaDataCache.cacheMetaData(delegate, metaData);
@@ -365,7 +384,7 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
         return new ArtifactAtRepositoryKey(delegate.getId(), moduleComponentArtifactMetaData.getId());
     }
 
-    static class CachingModuleSource implements ModuleSource {
+    public static class CachingModuleSource implements ModuleSource {
         private final BigInteger descriptorHash;
         private final boolean changingModule;
         private final ModuleSource delegate;
@@ -22,20 +22,22 @@ import org.gradle.api.internal.artifacts.ComponentSelectionInternal;
 import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal;
 import org.gradle.api.internal.artifacts.DefaultComponentSelection;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionComparator;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionIndex;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionRangeSelector;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelector;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
 import org.gradle.internal.component.model.ComponentResolveMetaData;
 import org.gradle.internal.resolve.result.BuildableComponentSelectionResult;
 import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
 import org.gradle.internal.rules.SpecRuleAction;
-import org.gradle.util.CollectionUtils;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 
 class DefaultVersionedComponentChooser implements VersionedComponentChooser {
     private final ComponentSelectionRulesProcessor rulesProcessor = new ComponentSelectionRulesProcessor();
+    private final VersionParser versionParser = new VersionParser();
     private final VersionSelectorScheme versionSelectorScheme;
     private final VersionComparator versionComparator;
     private final ComponentSelectionRulesInternal componentSelectionRules;
@@ -71,7 +73,27 @@ class DefaultVersionedComponentChooser implements VersionedComponentChooser {
         VersionSelector requestedVersion = versionSelectorScheme.parseSelector(requested.getVersion());
         Collection<SpecRuleAction<? super ComponentSelection>> rules = componentSelectionRules.getRules();
 
-        for (ModuleComponentResolveState candidate : sortLatestFirst(versions)) {
+        VersionIndex<ModuleComponentResolveState> index = new VersionIndex<ModuleComponentResolveState>(versions, versionParser, versionComparator.asVersionComparator());
+        List<ModuleComponentResolveState> candidates = index.getElements();
+        int first = 0;
+        int last = candidates.size();
+        if (requestedVersion instanceof VersionRangeSelector) {
+            VersionRangeSelector range = (VersionRangeSelector) requestedVersion;
+            if (range.getUpperBound() != null) {
+                first = index.indexOfLatestLowerThan(versionParser.transform(range.getUpperBound()), range.isUpperInclusive());
+            }
+            if (range.getLowerBound() != null) {
+                last = Math.max(first, index.indexOfLatestLowerThan(versionParser.transform(range.getLowerBound()), !range.isLowerInclusive()));
+            }
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+            ModuleComponentResolveState candidate = candidates.get(i);
+            if (i < first || i >= last) {
+                // Outside of the requested range
+                result.notMatched(candidate.getVersion());
+                continue;
+            }
             MetadataProvider metadataProvider = new MetadataProvider(candidate);
 
             boolean versionMatches = versionMatches(requestedVersion, candidate, metadataProvider);
@@ -144,8 +166,4 @@ class DefaultVersionedComponentChooser implements VersionedComponentChooser {
         rulesProcessor.apply(selection, rules, metadataProvider);
         return selection.isRejected();
     }
-
-    private List<ModuleComponentResolveState> sortLatestFirst(Collection<? extends ModuleComponentResolveState> listing) {
-        return CollectionUtils.sort(listing, Collections.reverseOrder(versionComparator));
-    }
 }
\ No newline at end of file
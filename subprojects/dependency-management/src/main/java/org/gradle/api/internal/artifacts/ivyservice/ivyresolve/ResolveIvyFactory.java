@@ -27,6 +27,7 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionC
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleArtifactsCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.RepositoryMissIndex;
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultComponentSelectionRules;
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
 import org.gradle.api.internal.artifacts.repositories.resolver.ExternalResourceResolver;
@@ -49,6 +50,7 @@ public class ResolveIvyFactory {
     private final ModuleMetaDataCache moduleMetaDataCache;
     private final ModuleArtifactsCache moduleArtifactsCache;
     private final CachedArtifactIndex artifactAtRepositoryCachedResolutionIndex;
+    private final RepositoryMissIndex repositoryMissIndex;
     private final CacheLockingManager cacheLockingManager;
     private final StartParameterResolutionOverride startParameterResolutionOverride;
     private final BuildCommencedTimeProvider timeProvider;
@@ -57,13 +59,14 @@ public class ResolveIvyFactory {
     private final VersionComparator versionComparator;
 
     public ResolveIvyFactory(ModuleVersionsCache moduleVersionsCache, ModuleMetaDataCache moduleMetaDataCache, ModuleArtifactsCache moduleArtifactsCache,
-                             CachedArtifactIndex artifactAtRepositoryCachedResolutionIndex,
+                             CachedArtifactIndex artifactAtRepositoryCachedResolutionIndex, RepositoryMissIndex repositoryMissIndex,
                              CacheLockingManager cacheLockingManager, StartParameterResolutionOverride startParameterResolutionOverride,
                              BuildCommencedTimeProvider timeProvider, InMemoryCachedRepositoryFactory inMemoryCache, VersionSelectorScheme versionSelectorScheme, VersionComparator versionComparator) {
         this.moduleVersionsCache = moduleVersionsCache;
         this.moduleMetaDataCache = moduleMetaDataCache;
         this.moduleArtifactsCache = moduleArtifactsCache;
         this.artifactAtRepositoryCachedResolutionIndex = artifactAtRepositoryCachedResolutionIndex;
+        this.repositoryMissIndex = repositoryMissIndex;
         this.cacheLockingManager = cacheLockingManager;
         this.startParameterResolutionOverride = startParameterResolutionOverride;
         this.timeProvider = timeProvider;
@@ -83,6 +86,7 @@ public class ResolveIvyFactory {
         CachePolicy cachePolicy = resolutionStrategy.getCachePolicy();
 
         startParameterResolutionOverride.addResolutionRules(resolutionRules);
+        RepositoryMissIndex missIndex = startParameterResolutionOverride.overrideRepositoryMissIndex(repositoryMissIndex);
 
         UserResolverChain moduleResolver = new UserResolverChain(versionSelectorScheme, versionComparator, resolutionStrategy.getComponentSelection());
         ParentModuleLookupResolver parentModuleResolver = new ParentModuleLookupResolver(versionSelectorScheme, versionComparator, cacheLockingManager);
@@ -101,7 +105,8 @@ public class ResolveIvyFactory {
                 moduleComponentRepository = new CacheLockReleasingModuleComponentsRepository(moduleComponentRepository, cacheLockingManager);
                 moduleComponentRepository = startParameterResolutionOverride.overrideModuleVersionRepository(moduleComponentRepository);
                 moduleComponentRepository = new CachingModuleComponentRepository(moduleComponentRepository, moduleVersionsCache, moduleMetaDataCache, moduleArtifactsCache, artifactAtRepositoryCachedResolutionIndex,
-                        cachePolicy, timeProvider, metadataProcessor);
+                        missIndex, cachePolicy, timeProvider, metadataProcessor);
+                moduleComponentRepository = new CacheLockAcquiringModuleComponentRepository(moduleComponentRepository, cacheLockingManager);
             }
 
             if (baseRepository.isDynamicResolveMode()) {
@@ -110,7 +115,7 @@ public class ResolveIvyFactory {
             moduleComponentRepository = inMemoryCache.cached(moduleComponentRepository);
             moduleComponentRepository = new ErrorHandlingModuleComponentRepository(moduleComponentRepository);
 
-            moduleResolver.add(moduleComponentRepository);
+            moduleResolver.add(moduleComponentRepository, baseRepository.isLocal());
             parentModuleResolver.add(moduleComponentRepository);
         }
 
@@ -22,6 +22,7 @@ import org.gradle.api.artifacts.cache.DependencyResolutionControl;
 import org.gradle.api.artifacts.cache.ModuleResolutionControl;
 import org.gradle.api.artifacts.cache.ResolutionRules;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.RepositoryMissIndex;
 import org.gradle.internal.component.model.*;
 import org.gradle.api.internal.component.ArtifactType;
 import org.gradle.internal.resolve.ArtifactResolveException;
@@ -76,6 +77,13 @@ public class StartParameterResolutionOverride {
         }
     }
 
+    public RepositoryMissIndex overrideRepositoryMissIndex(RepositoryMissIndex original) {
+        if (startParameter.isRefreshDependencies()) {
+            return RepositoryMissIndex.NONE;
+        }
+        return original;
+    }
+
     public ModuleComponentRepository overrideModuleVersionRepository(ModuleComponentRepository original) {
         if (startParameter.isOffline()) {
             return new OfflineModuleComponentRepository(original);
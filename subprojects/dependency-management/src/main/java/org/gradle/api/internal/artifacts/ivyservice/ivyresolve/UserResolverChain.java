@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
 import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionComparator;
@@ -25,11 +26,16 @@ import org.gradle.internal.resolve.resolver.ArtifactResolver;
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class UserResolverChain implements ComponentResolvers {
     private final RepositoryChainDependencyToComponentIdResolver componentIdResolver;
     private final RepositoryChainComponentMetaDataResolver componentResolver;
     private final RepositoryChainArtifactResolver artifactResolver;
     private final ComponentSelectionRulesInternal componentSelectionRules;
+    private final List<String> repositoryIds = new ArrayList<String>();
+    private boolean hasLocalRepositories;
 
     public UserResolverChain(VersionSelectorScheme versionSelectorScheme, VersionComparator versionComparator, ComponentSelectionRulesInternal componentSelectionRules) {
         this.componentSelectionRules = componentSelectionRules;
@@ -56,10 +62,24 @@ public class UserResolverChain implements ComponentResolvers {
         return componentSelectionRules;
     }
 
+    /**
+     * Returns the ids of the repositories in this chain, in search order. Returns null when some repository is local, as the content of a local repository is not cached.
+     */
+    @Nullable
+    public List<String> getCachedRepositoryIds() {
+        return hasLocalRepositories ? null : repositoryIds;
+    }
+
     public void add(ModuleComponentRepository repository) {
+        add(repository, false);
+    }
+
+    public void add(ModuleComponentRepository repository, boolean local) {
         componentIdResolver.add(repository);
         componentResolver.add(repository);
         artifactResolver.add(repository);
+        repositoryIds.add(repository.getId());
+        hasLocalRepositories |= local;
     }
 
     private static class ModuleTransformer implements Transformer<ModuleComponentResolveMetaData, RepositoryChainModuleResolution> {
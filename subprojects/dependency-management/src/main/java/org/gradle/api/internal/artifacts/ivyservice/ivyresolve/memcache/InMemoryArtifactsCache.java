@@ -20,11 +20,11 @@ import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
 import org.gradle.internal.resolve.result.BuildableArtifactResolveResult;
 
 import java.io.File;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 class InMemoryArtifactsCache {
-    private final Map<ComponentArtifactIdentifier, File> artifacts = new HashMap<ComponentArtifactIdentifier, File>();
+    private final Map<ComponentArtifactIdentifier, File> artifacts = new ConcurrentHashMap<ComponentArtifactIdentifier, File>();
     private InMemoryCacheStats stats;
 
     InMemoryArtifactsCache(InMemoryCacheStats stats) {
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy;
+
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.Versioned;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A collection of versioned elements, sorted latest first, along with the parsed version of each element.
+ * Each version is parsed once, and the elements within a range of versions can be located with a binary search.
+ *
+ * <p>Sorting is skipped when the elements are already given latest first, as for a version listing held in the module versions cache.</p>
+ */
+public class VersionIndex<T extends Versioned> {
+    private final List<T> elements;
+    private final List<Version> versions;
+    private final Comparator<Version> comparator;
+
+    public VersionIndex(Collection<? extends T> elements, VersionParser versionParser, Comparator<Version> comparator) {
+        this.comparator = comparator;
+        List<Entry<T>> entries = new ArrayList<Entry<T>>(elements.size());
+        boolean sorted = true;
+        for (T element : elements) {
+            Entry<T> entry = new Entry<T>(element, versionParser.transform(element.getVersion()));
+            if (sorted && !entries.isEmpty() && comparator.compare(entries.get(entries.size() - 1).version, entry.version) < 0) {
+                sorted = false;
+            }
+            entries.add(entry);
+        }
+        if (!sorted) {
+            Collections.sort(entries, new Comparator<Entry<T>>() {
+                public int compare(Entry<T> entry1, Entry<T> entry2) {
+                    return VersionIndex.this.comparator.compare(entry2.version, entry1.version);
+                }
+            });
+        }
+        this.elements = new ArrayList<T>(entries.size());
+        this.versions = new ArrayList<Version>(entries.size());
+        for (Entry<T> entry : entries) {
+            this.elements.add(entry.element);
+            this.versions.add(entry.version);
+        }
+    }
+
+    /**
+     * Returns the elements of this index, latest first.
+     */
+    public List<T> getElements() {
+        return elements;
+    }
+
+    /**
+     * Returns the position of the latest element whose version is lower than the given version, or the number of elements when there is no such element.
+     *
+     * @param version The version to compare with.
+     * @param inclusive When true, an element with a version equal to the given version also counts as lower.
+     */
+    public int indexOfLatestLowerThan(Version version, boolean inclusive) {
+        int low = 0;
+        int high = versions.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int comparison = comparator.compare(versions.get(mid), version);
+            if (comparison < 0 || (inclusive && comparison == 0)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static class Entry<T> {
+        final T element;
+        final Version version;
+
+        Entry(T element, Version version) {
+            this.element = element;
+            this.version = version;
+        }
+    }
+}
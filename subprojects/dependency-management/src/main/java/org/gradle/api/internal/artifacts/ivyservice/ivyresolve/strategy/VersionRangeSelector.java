@@ -151,6 +151,28 @@ public class VersionRangeSelector extends AbstractVersionSelector {
         return false;
     }
 
+    /**
+     * Returns the lower bound of this range, or null when the range has no lower bound.
+     */
+    public String getLowerBound() {
+        return lowerBound;
+    }
+
+    public boolean isLowerInclusive() {
+        return lowerInclusive;
+    }
+
+    /**
+     * Returns the upper bound of this range, or null when the range has no upper bound.
+     */
+    public String getUpperBound() {
+        return upperBound;
+    }
+
+    public boolean isUpperInclusive() {
+        return upperInclusive;
+    }
+
     public boolean accept(String candidate) {
         if (lowerBound != null && !isHigher(candidate, lowerBound, lowerInclusive)) {
             return false;
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentIdentifierSerializer;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.util.BuildCommencedTimeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A persistent {@link RepositoryMissIndex}, which holds one entry per module version. The entry records whether the module version has been found in any
+ * repository, and when it was last found to be absent from each repository that does not contain it.
+ *
+ * <p>A miss expires after a period that is independent of the cache policy of the resolution, and that defaults to {@link #DEFAULT_EXPIRY_HOURS}.
+ * This allows a repository to be skipped for a module version after the cache policy has expired the missing entry in the module meta-data cache.</p>
+ */
+public class DefaultRepositoryMissIndex implements RepositoryMissIndex {
+    /**
+     * Set to true to enable the repository miss index.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.resolution.repositoryMissIndex";
+    /**
+     * The number of hours for which a module version that is absent from a repository is assumed to remain absent.
+     */
+    public static final String EXPIRY_PROPERTY = "org.gradle.resolution.repositoryMissIndex.expiryHours";
+    static final int DEFAULT_EXPIRY_HOURS = 7 * 24;
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultRepositoryMissIndex.class);
+
+    private final BuildCommencedTimeProvider timeProvider;
+    private final CacheLockingManager cacheLockingManager;
+    private final long expiryMillis;
+    private PersistentIndexedCache<ModuleComponentIdentifier, ModuleMisses> cache;
+
+    public DefaultRepositoryMissIndex(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
+        this(timeProvider, cacheLockingManager, TimeUnit.HOURS.toMillis(Integer.getInteger(EXPIRY_PROPERTY, DEFAULT_EXPIRY_HOURS)));
+    }
+
+    DefaultRepositoryMissIndex(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, long expiryMillis) {
+        this.timeProvider = timeProvider;
+        this.cacheLockingManager = cacheLockingManager;
+        this.expiryMillis = expiryMillis;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    private PersistentIndexedCache<ModuleComponentIdentifier, ModuleMisses> getCache() {
+        if (cache == null) {
+            cache = initCache();
+        }
+        return cache;
+    }
+
+    private PersistentIndexedCache<ModuleComponentIdentifier, ModuleMisses> initCache() {
+        return cacheLockingManager.createCache("module-version-misses", new ModuleComponentIdentifierSerializer(), new ModuleMissesSerializer());
+    }
+
+    public boolean isMissing(ModuleComponentRepository repository, ModuleComponentIdentifier component) {
+        ModuleMisses misses = getCache().get(component);
+        if (misses == null || !misses.found) {
+            return false;
+        }
+        Long missedAt = misses.missedAt.get(repository.getId());
+        return missedAt != null && timeProvider.getCurrentTime() - missedAt <= expiryMillis;
+    }
+
+    public void recordMissing(ModuleComponentRepository repository, ModuleComponentIdentifier component) {
+        LOGGER.debug("Recording absence of module '{}' from '{}' in repository miss index", component, repository.getName());
+        ModuleMisses misses = getCache().get(component);
+        ModuleMisses updated = misses == null ? new ModuleMisses(false, new HashMap<String, Long>()) : misses.copy();
+        updated.missedAt.put(repository.getId(), timeProvider.getCurrentTime());
+        getCache().put(component, updated);
+    }
+
+    public void recordPresent(ModuleComponentRepository repository, ModuleComponentIdentifier component) {
+        ModuleMisses misses = getCache().get(component);
+        if (misses != null && misses.found && !misses.missedAt.containsKey(repository.getId())) {
+            return;
+        }
+        ModuleMisses updated = misses == null ? new ModuleMisses(true, new HashMap<String, Long>()) : misses.copy();
+        updated.found = true;
+        updated.missedAt.remove(repository.getId());
+        getCache().put(component, updated);
+    }
+
+    private static class ModuleMisses {
+        private boolean found;
+        private final Map<String, Long> missedAt;
+
+        private ModuleMisses(boolean found, Map<String, Long> missedAt) {
+            this.found = found;
+            this.missedAt = missedAt;
+        }
+
+        ModuleMisses copy() {
+            return new ModuleMisses(found, new HashMap<String, Long>(missedAt));
+        }
+    }
+
+    private static class ModuleComponentIdentifierSerializer implements Serializer<ModuleComponentIdentifier> {
+        private final ComponentIdentifierSerializer componentIdSerializer = new ComponentIdentifierSerializer();
+
+        public void write(Encoder encoder, ModuleComponentIdentifier value) throws Exception {
+            componentIdSerializer.write(encoder, value);
+        }
+
+        public ModuleComponentIdentifier read(Decoder decoder) throws Exception {
+            return (ModuleComponentIdentifier) componentIdSerializer.read(decoder);
+        }
+    }
+
+    private static class ModuleMissesSerializer implements Serializer<ModuleMisses> {
+        public void write(Encoder encoder, ModuleMisses value) throws Exception {
+            encoder.writeBoolean(value.found);
+            encoder.writeSmallInt(value.missedAt.size());
+            for (Map.Entry<String, Long> entry : value.missedAt.entrySet()) {
+                encoder.writeString(entry.getKey());
+                encoder.writeLong(entry.getValue());
+            }
+        }
+
+        public ModuleMisses read(Decoder decoder) throws Exception {
+            boolean found = decoder.readBoolean();
+            int size = decoder.readSmallInt();
+            Map<String, Long> missedAt = new HashMap<String, Long>(size);
+            for (int i = 0; i < size; i++) {
+                String repositoryId = decoder.readString();
+                missedAt.put(repositoryId, decoder.readLong());
+            }
+            return new ModuleMisses(found, missedAt);
+        }
+    }
+}
@@ -0,0 +1,417 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.apache.ivy.core.module.descriptor.*;
+import org.apache.ivy.core.module.id.ArtifactId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorParser;
+import org.gradle.api.internal.artifacts.ivyservice.IvyUtil;
+import org.gradle.api.internal.artifacts.ivyservice.NamespaceId;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.ResolverStrategy;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * Writes a resolved {@link ModuleDescriptor} in a compact binary form, so that a cached descriptor can be read back without parsing XML.
+ * Contains the same information that {@link org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter} writes to an ivy.xml file.
+ */
+public class ModuleDescriptorSerializer implements Serializer<ModuleDescriptor> {
+    private static final byte EXTRA_INFO_NAME = 0;
+    private static final byte EXTRA_INFO_NAMESPACE_ID = 1;
+
+    private final ResolverStrategy resolverStrategy;
+    private final Field dependencyConfigField;
+
+    public ModuleDescriptorSerializer(ResolverStrategy resolverStrategy) {
+        this.resolverStrategy = resolverStrategy;
+        try {
+            dependencyConfigField = DefaultDependencyDescriptor.class.getDeclaredField("confs");
+        } catch (NoSuchFieldException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        dependencyConfigField.setAccessible(true);
+    }
+
+    public void write(Encoder encoder, ModuleDescriptor md) throws Exception {
+        writeInfo(encoder, md);
+        writeConfigurations(encoder, md);
+        writeArtifacts(encoder, md);
+        writeDependencies(encoder, md);
+        writeExcludeRules(encoder, md.getAllExcludeRules());
+    }
+
+    public ModuleDescriptor read(Decoder decoder) throws Exception {
+        DefaultModuleDescriptor md = new DefaultModuleDescriptor(XmlModuleDescriptorParser.getInstance(), null);
+        readInfo(decoder, md);
+        readConfigurations(decoder, md);
+        readArtifacts(decoder, md);
+        readDependencies(decoder, md);
+        int excludeCount = decoder.readSmallInt();
+        for (int i = 0; i < excludeCount; i++) {
+            md.addExcludeRule(readExcludeRule(decoder));
+        }
+        return md;
+    }
+
+    private void writeInfo(Encoder encoder, ModuleDescriptor md) throws IOException {
+        ModuleRevisionId moduleRevisionId = md.getModuleRevisionId();
+        ModuleRevisionId resolvedModuleRevisionId = md.getResolvedModuleRevisionId();
+        encoder.writeString(moduleRevisionId.getOrganisation());
+        encoder.writeString(moduleRevisionId.getName());
+        encoder.writeNullableString(resolvedModuleRevisionId.getBranch());
+        encoder.writeNullableString(resolvedModuleRevisionId.getRevision());
+        writeAttributes(encoder, md.getQualifiedExtraAttributes());
+        encoder.writeString(md.getStatus());
+        Date publicationDate = md.getResolvedPublicationDate();
+        encoder.writeBoolean(publicationDate != null);
+        if (publicationDate != null) {
+            encoder.writeLong(publicationDate.getTime());
+        }
+        encoder.writeBoolean(md.isDefault());
+        writeAttributes(encoder, md.getExtraAttributesNamespaces());
+
+        License[] licenses = md.getLicenses();
+        encoder.writeSmallInt(licenses.length);
+        for (License license : licenses) {
+            encoder.writeNullableString(license.getName());
+            encoder.writeNullableString(license.getUrl());
+        }
+        encoder.writeNullableString(md.getHomePage());
+        encoder.writeNullableString(md.getDescription());
+
+        Map<?, ?> extraInfo = md.getExtraInfo();
+        encoder.writeSmallInt(extraInfo.size());
+        for (Map.Entry<?, ?> entry : extraInfo.entrySet()) {
+            if (entry.getKey() instanceof NamespaceId) {
+                NamespaceId id = (NamespaceId) entry.getKey();
+                encoder.writeByte(EXTRA_INFO_NAMESPACE_ID);
+                encoder.writeNullableString(id.getNamespace());
+                encoder.writeString(id.getName());
+            } else {
+                encoder.writeByte(EXTRA_INFO_NAME);
+                encoder.writeString(entry.getKey().toString());
+            }
+            encoder.writeNullableString(entry.getValue() == null ? null : entry.getValue().toString());
+        }
+    }
+
+    private void readInfo(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        String org = decoder.readString();
+        String module = decoder.readString();
+        String branch = decoder.readNullableString();
+        String revision = decoder.readNullableString();
+        Map<String, String> extraAttributes = readAttributes(decoder);
+        md.setModuleRevisionId(IvyUtil.createModuleRevisionId(org, module, branch, revision, extraAttributes));
+        md.setStatus(decoder.readString());
+        if (decoder.readBoolean()) {
+            md.setPublicationDate(new Date(decoder.readLong()));
+        }
+        md.setDefault(decoder.readBoolean());
+        for (Map.Entry<String, String> namespace : readAttributes(decoder).entrySet()) {
+            md.addExtraAttributeNamespace(namespace.getKey(), namespace.getValue());
+        }
+
+        int licenseCount = decoder.readSmallInt();
+        for (int i = 0; i < licenseCount; i++) {
+            md.addLicense(new License(decoder.readNullableString(), decoder.readNullableString()));
+        }
+        md.setHomePage(decoder.readNullableString());
+        md.setDescription(decoder.readNullableString());
+
+        int extraInfoCount = decoder.readSmallInt();
+        for (int i = 0; i < extraInfoCount; i++) {
+            Object key;
+            if (decoder.readByte() == EXTRA_INFO_NAMESPACE_ID) {
+                String namespace = decoder.readNullableString();
+                key = new NamespaceId(namespace, decoder.readString());
+            } else {
+                key = decoder.readString();
+            }
+            md.getExtraInfo().put(key, decoder.readNullableString());
+        }
+    }
+
+    private void writeConfigurations(Encoder encoder, ModuleDescriptor md) throws IOException {
+        Configuration[] configurations = md.getConfigurations();
+        encoder.writeSmallInt(configurations.length);
+        for (Configuration configuration : configurations) {
+            encoder.writeString(configuration.getName());
+            encoder.writeString(configuration.getVisibility().toString());
+            encoder.writeNullableString(configuration.getDescription());
+            writeStrings(encoder, configuration.getExtends());
+            encoder.writeBoolean(configuration.isTransitive());
+            encoder.writeNullableString(configuration.getDeprecated());
+            writeAttributes(encoder, configuration.getQualifiedExtraAttributes());
+        }
+    }
+
+    private void readConfigurations(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        int count = decoder.readSmallInt();
+        for (int i = 0; i < count; i++) {
+            String name = decoder.readString();
+            Configuration.Visibility visibility = Configuration.Visibility.getVisibility(decoder.readString());
+            String description = decoder.readNullableString();
+            String[] extendsFrom = readStrings(decoder);
+            boolean transitive = decoder.readBoolean();
+            String deprecated = decoder.readNullableString();
+            Configuration configuration = new Configuration(name, visibility, description, extendsFrom, transitive, deprecated);
+            for (Map.Entry<String, String> attribute : readAttributes(decoder).entrySet()) {
+                configuration.setExtraAttribute(attribute.getKey(), attribute.getValue());
+            }
+            md.addConfiguration(configuration);
+        }
+    }
+
+    private void writeArtifacts(Encoder encoder, ModuleDescriptor md) throws IOException {
+        Artifact[] artifacts = md.getAllArtifacts();
+        encoder.writeSmallInt(artifacts.length);
+        for (Artifact artifact : artifacts) {
+            encoder.writeString(artifact.getName());
+            encoder.writeString(artifact.getType());
+            encoder.writeString(artifact.getExt());
+            writeStrings(encoder, artifact.getConfigurations());
+            writeAttributes(encoder, artifact.getQualifiedExtraAttributes());
+        }
+    }
+
+    private void readArtifacts(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        int count = decoder.readSmallInt();
+        for (int i = 0; i < count; i++) {
+            String name = decoder.readString();
+            String type = decoder.readString();
+            String ext = decoder.readString();
+            String[] configurations = readStrings(decoder);
+            MDArtifact artifact = new MDArtifact(md, name, type, ext, null, readAttributes(decoder));
+            for (String configuration : configurations) {
+                artifact.addConfiguration(configuration);
+                md.addArtifact(configuration, artifact);
+            }
+        }
+    }
+
+    private void writeDependencies(Encoder encoder, ModuleDescriptor md) throws IOException {
+        DependencyDescriptor[] dependencies = md.getDependencies();
+        encoder.writeSmallInt(dependencies.length);
+        for (DependencyDescriptor dependency : dependencies) {
+            ModuleRevisionId revId = dependency.getDependencyRevisionId();
+            ModuleRevisionId dynamicId = dependency.getDynamicConstraintDependencyRevisionId();
+            encoder.writeString(revId.getOrganisation());
+            encoder.writeString(revId.getName());
+            encoder.writeNullableString(revId.getBranch());
+            encoder.writeNullableString(revId.getRevision());
+            encoder.writeNullableString(dynamicId.getBranch());
+            encoder.writeNullableString(dynamicId.getRevision());
+            writeAttributes(encoder, revId.getQualifiedExtraAttributes());
+            encoder.writeBoolean(dependency.isForce());
+            encoder.writeBoolean(dependency.isChanging());
+            encoder.writeBoolean(dependency.isTransitive());
+
+            Map<String, List<String>> configMappings = getConfigMappings(dependency);
+            encoder.writeSmallInt(configMappings.size());
+            for (Map.Entry<String, List<String>> entry : configMappings.entrySet()) {
+                encoder.writeString(entry.getKey());
+                writeStrings(encoder, entry.getValue().toArray(new String[0]));
+            }
+
+            DependencyArtifactDescriptor[] artifacts = dependency.getAllDependencyArtifacts();
+            encoder.writeSmallInt(artifacts.length);
+            for (DependencyArtifactDescriptor artifact : artifacts) {
+                encoder.writeString(artifact.getName());
+                encoder.writeString(artifact.getType());
+                encoder.writeString(artifact.getExt());
+                encoder.writeNullableString(artifact.getUrl() == null ? null : artifact.getUrl().toExternalForm());
+                writeStrings(encoder, artifact.getConfigurations());
+                writeAttributes(encoder, artifact.getQualifiedExtraAttributes());
+            }
+
+            IncludeRule[] includeRules = dependency.getAllIncludeRules();
+            encoder.writeSmallInt(includeRules.length);
+            for (IncludeRule includeRule : includeRules) {
+                writeRule(encoder, includeRule.getId(), includeRule.getMatcher(), includeRule.getConfigurations(), includeRule.getQualifiedExtraAttributes());
+            }
+            writeExcludeRules(encoder, dependency.getAllExcludeRules());
+        }
+    }
+
+    private void readDependencies(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        int count = decoder.readSmallInt();
+        for (int i = 0; i < count; i++) {
+            String org = decoder.readString();
+            String name = decoder.readString();
+            String branch = decoder.readNullableString();
+            String revision = decoder.readNullableString();
+            String branchConstraint = decoder.readNullableString();
+            String revConstraint = decoder.readNullableString();
+            Map<String, String> extraAttributes = readAttributes(decoder);
+            ModuleRevisionId revId = IvyUtil.createModuleRevisionId(org, name, branch, revision, extraAttributes);
+            ModuleRevisionId dynamicId = IvyUtil.createModuleRevisionId(org, name, branchConstraint, revConstraint, extraAttributes);
+            boolean force = decoder.readBoolean();
+            boolean changing = decoder.readBoolean();
+            boolean transitive = decoder.readBoolean();
+            DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(md, revId, dynamicId, force, changing, transitive);
+
+            int mappingCount = decoder.readSmallInt();
+            for (int j = 0; j < mappingCount; j++) {
+                String moduleConfiguration = decoder.readString();
+                for (String dependencyConfiguration : readStrings(decoder)) {
+                    dd.addDependencyConfiguration(moduleConfiguration, dependencyConfiguration);
+                }
+            }
+
+            int artifactCount = decoder.readSmallInt();
+            for (int j = 0; j < artifactCount; j++) {
+                String artifactName = decoder.readString();
+                String type = decoder.readString();
+                String ext = decoder.readString();
+                String url = decoder.readNullableString();
+                String[] configurations = readStrings(decoder);
+                DefaultDependencyArtifactDescriptor artifact = new DefaultDependencyArtifactDescriptor(dd, artifactName, type, ext, url == null ? null : new URL(url), readAttributes(decoder));
+                for (String configuration : configurations) {
+                    artifact.addConfiguration(configuration);
+                    dd.addDependencyArtifact(configuration, artifact);
+                }
+            }
+
+            int includeCount = decoder.readSmallInt();
+            for (int j = 0; j < includeCount; j++) {
+                ArtifactId artifactId = readArtifactId(decoder);
+                PatternMatcher matcher = readMatcher(decoder);
+                String[] configurations = readStrings(decoder);
+                DefaultIncludeRule includeRule = new DefaultIncludeRule(artifactId, matcher, readAttributes(decoder));
+                for (String configuration : configurations) {
+                    includeRule.addConfiguration(configuration);
+                    dd.addIncludeRule(configuration, includeRule);
+                }
+            }
+
+            int excludeCount = decoder.readSmallInt();
+            for (int j = 0; j < excludeCount; j++) {
+                DefaultExcludeRule excludeRule = readExcludeRule(decoder);
+                for (String configuration : excludeRule.getConfigurations()) {
+                    dd.addExcludeRule(configuration, excludeRule);
+                }
+            }
+            md.addDependency(dd);
+        }
+    }
+
+    private void writeExcludeRules(Encoder encoder, ExcludeRule[] excludeRules) throws IOException {
+        encoder.writeSmallInt(excludeRules.length);
+        for (ExcludeRule excludeRule : excludeRules) {
+            writeRule(encoder, excludeRule.getId(), excludeRule.getMatcher(), excludeRule.getConfigurations(), excludeRule.getQualifiedExtraAttributes());
+        }
+    }
+
+    private DefaultExcludeRule readExcludeRule(Decoder decoder) throws IOException {
+        ArtifactId artifactId = readArtifactId(decoder);
+        PatternMatcher matcher = readMatcher(decoder);
+        String[] configurations = readStrings(decoder);
+        DefaultExcludeRule excludeRule = new DefaultExcludeRule(artifactId, matcher, readAttributes(decoder));
+        for (String configuration : configurations) {
+            excludeRule.addConfiguration(configuration);
+        }
+        return excludeRule;
+    }
+
+    private void writeRule(Encoder encoder, ArtifactId artifactId, PatternMatcher matcher, String[] configurations, Map<?, ?> extraAttributes) throws IOException {
+        encoder.writeString(artifactId.getModuleId().getOrganisation());
+        encoder.writeString(artifactId.getModuleId().getName());
+        encoder.writeString(artifactId.getName());
+        encoder.writeString(artifactId.getType());
+        encoder.writeString(artifactId.getExt());
+        encoder.writeString(matcher.getName());
+        writeStrings(encoder, configurations);
+        writeAttributes(encoder, extraAttributes);
+    }
+
+    private ArtifactId readArtifactId(Decoder decoder) throws IOException {
+        String org = decoder.readString();
+        String module = decoder.readString();
+        return new ArtifactId(IvyUtil.createModuleId(org, module), decoder.readString(), decoder.readString(), decoder.readString());
+    }
+
+    private PatternMatcher readMatcher(Decoder decoder) throws IOException {
+        String matcherName = decoder.readString();
+        PatternMatcher matcher = resolverStrategy.getPatternMatcher(matcherName);
+        if (matcher == null) {
+            throw new IllegalArgumentException("unknown matcher " + matcherName);
+        }
+        return matcher;
+    }
+
+    private Map<String, List<String>> getConfigMappings(DependencyDescriptor dependency) {
+        if (dependency instanceof DefaultDependencyDescriptor) {
+            // See IvyXmlModuleDescriptorWriter: the raw mappings are used, as getDependencyConfigurations() interprets them
+            try {
+                return (Map<String, List<String>>) dependencyConfigField.get(dependency);
+            } catch (IllegalAccessException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        String[] moduleConfigurations = dependency.getModuleConfigurations();
+        Map<String, List<String>> configMappings = new LinkedHashMap<String, List<String>>();
+        for (String moduleConfiguration : moduleConfigurations) {
+            configMappings.put(moduleConfiguration, Arrays.asList(dependency.getDependencyConfigurations(moduleConfigurations)));
+        }
+        return configMappings;
+    }
+
+    private static void writeStrings(Encoder encoder, String[] values) throws IOException {
+        encoder.writeSmallInt(values.length);
+        for (String value : values) {
+            encoder.writeString(value);
+        }
+    }
+
+    private static String[] readStrings(Decoder decoder) throws IOException {
+        String[] values = new String[decoder.readSmallInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = decoder.readString();
+        }
+        return values;
+    }
+
+    private static void writeAttributes(Encoder encoder, Map<?, ?> attributes) throws IOException {
+        if (attributes == null) {
+            encoder.writeSmallInt(0);
+            return;
+        }
+        encoder.writeSmallInt(attributes.size());
+        for (Map.Entry<?, ?> entry : attributes.entrySet()) {
+            encoder.writeString(entry.getKey().toString());
+            encoder.writeString(entry.getValue().toString());
+        }
+    }
+
+    private static Map<String, String> readAttributes(Decoder decoder) throws IOException {
+        int count = decoder.readSmallInt();
+        Map<String, String> attributes = new LinkedHashMap<String, String>(count);
+        for (int i = 0; i < count; i++) {
+            attributes.put(decoder.readString(), decoder.readString());
+        }
+        return attributes;
+    }
+}
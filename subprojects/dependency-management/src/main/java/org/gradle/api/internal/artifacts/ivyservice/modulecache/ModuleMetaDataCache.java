@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ResolvedModuleVersion;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
@@ -31,6 +32,19 @@ public interface ModuleMetaDataCache {
 
     CachedMetaData getCachedModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier id);
 
+    /**
+     * Returns the hash of the cached descriptor for the given module version, without reading the descriptor.
+     * Returns null when the module version is not cached, or is cached as missing.
+     */
+    @Nullable
+    BigInteger getCachedDescriptorHash(String repositoryId, ModuleComponentIdentifier id);
+
+    /**
+     * Returns the time at which the given module version was cached, either as present or as missing. Returns null when the module version is not cached.
+     */
+    @Nullable
+    Long getCacheTimestamp(String repositoryId, ModuleComponentIdentifier id);
+
     interface CachedMetaData {
         ResolvedModuleVersion getModuleVersion();
 
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
+
+/**
+ * Records the module versions that are absent from a repository, so that a repository is not asked for a module version that it is known not to contain.
+ */
+public interface RepositoryMissIndex {
+    /**
+     * Returns true when the given module version has been found to be absent from the given repository within the expiry period of the index.
+     * A miss is only reported once the module version has been found in some other repository, so that a module version that no repository has yet
+     * is found as soon as it is published.
+     */
+    boolean isMissing(ModuleComponentRepository repository, ModuleComponentIdentifier component);
+
+    void recordMissing(ModuleComponentRepository repository, ModuleComponentIdentifier component);
+
+    void recordPresent(ModuleComponentRepository repository, ModuleComponentIdentifier component);
+
+    RepositoryMissIndex NONE = new RepositoryMissIndex() {
+        public boolean isMissing(ModuleComponentRepository repository, ModuleComponentIdentifier component) {
+            return false;
+        }
+
+        public void recordMissing(ModuleComponentRepository repository, ModuleComponentIdentifier component) {
+        }
+
+        public void recordPresent(ModuleComponentRepository repository, ModuleComponentIdentifier component) {
+        }
+    };
+}
@@ -32,17 +32,25 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ErrorHandlingArti
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolverProviderFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionComparator;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.DependencyDescriptorFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.StrictConflictResolution;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactsGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.cache.ResolvedGraphCache;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.cache.ResolvedGraphRecorder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyArtifactsVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.ConflictHandler;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.DefaultConflictHandler;
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.internal.component.model.ComponentResolveMetaData;
+import org.gradle.internal.component.model.ConfigurationMetaData;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.resolve.resolver.ArtifactResolver;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataPrefetcher;
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
 import org.gradle.internal.resolve.resolver.ResolveContextToComponentResolver;
@@ -61,15 +69,22 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
     private final CacheLockingManager cacheLockingManager;
     private final IvyContextManager ivyContextManager;
     private final VersionComparator versionComparator;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final ExecutorFactory executorFactory;
+    private final ResolvedGraphCache resolvedGraphCache;
 
     public DefaultArtifactDependencyResolver(ServiceRegistry serviceRegistry, ResolveIvyFactory ivyFactory, DependencyDescriptorFactory dependencyDescriptorFactory,
-                                             CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager, VersionComparator versionComparator) {
+                                             CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager, VersionComparator versionComparator,
+                                             VersionSelectorScheme versionSelectorScheme, ExecutorFactory executorFactory, ResolvedGraphCache resolvedGraphCache) {
         this.serviceRegistry = serviceRegistry;
         this.ivyFactory = ivyFactory;
         this.dependencyDescriptorFactory = dependencyDescriptorFactory;
         this.cacheLockingManager = cacheLockingManager;
         this.ivyContextManager = ivyContextManager;
         this.versionComparator = versionComparator;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.executorFactory = executorFactory;
+        this.resolvedGraphCache = resolvedGraphCache;
     }
 
     @Override
@@ -78,31 +93,69 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
        ivyContextManager.withIvy(new Action<Ivy>() {
             public void execute(Ivy ivy) {
                 LOGGER.debug("Resolving {}", resolveContext);
-                ComponentResolvers componentSource = createComponentSource(resolveContext, repositories, metadataHandler);
-                DependencyGraphBuilder builder = createDependencyGraphBuilder(componentSource, resolveContext.getResolutionStrategy(), metadataHandler);
-
+                ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
+                ComponentResolvers repositoryResolvers = ivyFactory.create(resolutionStrategy, repositories, metadataHandler.getComponentMetadataProcessor());
+                ComponentResolvers componentSource = createComponentSource(resolveContext, repositoryResolvers);
                 ArtifactResolver artifactResolver = new ErrorHandlingArtifactResolver(new ContextualArtifactResolver(cacheLockingManager, ivyContextManager, componentSource.getArtifactResolver()));
-                DependencyGraphVisitor artifactsGraphVisitor = new ResolvedArtifactsGraphVisitor(artifactsVisitor, artifactResolver);
+                ComponentResolveMetaData rootComponent = resolveContext.toRootComponentMetaData();
+
+                DependencyGraphVisitor resultGraphVisitor = graphVisitor;
+                DependencyArtifactsVisitor resultArtifactsVisitor = artifactsVisitor;
+                ResolvedGraphRecorder graphRecorder = null;
+                String graphKey = resolvedGraphCache.createKey(rootComponent, resolveContext.getName(), resolutionStrategy, repositoryResolvers, metadataHandler);
+                if (graphKey != null) {
+                    ConfigurationMetaData rootConfiguration = rootComponent.getConfiguration(resolveContext.getName());
+                    if (resolvedGraphCache.replay(graphKey, repositoryResolvers, rootConfiguration, resolutionStrategy, metadataHandler, graphVisitor, artifactsVisitor, artifactResolver)) {
+                        return;
+                    }
+                    graphRecorder = new ResolvedGraphRecorder(rootConfiguration.getDependencies());
+                    resultGraphVisitor = new CompositeDependencyGraphVisitor(graphVisitor, graphRecorder);
+                    resultArtifactsVisitor = new CompositeDependencyArtifactsVisitor(artifactsVisitor, graphRecorder);
+                }
+
+                ComponentMetaDataResolver componentMetaDataResolver = new ClientModuleResolver(componentSource.getComponentResolver(), dependencyDescriptorFactory);
+                ParallelComponentMetaDataResolver parallelMetaDataResolver = createParallelMetaDataResolver(componentMetaDataResolver);
+                DependencyGraphBuilder builder = createDependencyGraphBuilder(componentSource, parallelMetaDataResolver == null ? componentMetaDataResolver : parallelMetaDataResolver,
+                    parallelMetaDataResolver, rootComponent, resolutionStrategy, metadataHandler);
+
+                DependencyGraphVisitor artifactsGraphVisitor = new ResolvedArtifactsGraphVisitor(resultArtifactsVisitor, artifactResolver);
 
                 // Resolve the dependency graph
-                builder.resolve(resolveContext, new CompositeDependencyGraphVisitor(graphVisitor, artifactsGraphVisitor));
+                try {
+                    builder.resolve(resolveContext, new CompositeDependencyGraphVisitor(resultGraphVisitor, artifactsGraphVisitor));
+                } finally {
+                    if (parallelMetaDataResolver != null) {
+                        parallelMetaDataResolver.stop();
+                    }
+                }
+                if (graphRecorder != null) {
+                    resolvedGraphCache.store(graphKey, repositoryResolvers, graphRecorder);
+                }
             }
         });
     }
 
-    private DependencyGraphBuilder createDependencyGraphBuilder(ComponentResolvers componentSource, ResolutionStrategyInternal resolutionStrategy, GlobalDependencyResolutionRules metadataHandler) {
+    private ParallelComponentMetaDataResolver createParallelMetaDataResolver(ComponentMetaDataResolver componentMetaDataResolver) {
+        int maxParallelism = ParallelComponentMetaDataResolver.getMaxParallelism();
+        if (maxParallelism <= 1) {
+            return null;
+        }
+        return new ParallelComponentMetaDataResolver(componentMetaDataResolver, cacheLockingManager, ivyContextManager, versionSelectorScheme, executorFactory, maxParallelism);
+    }
+
+    private DependencyGraphBuilder createDependencyGraphBuilder(ComponentResolvers componentSource, ComponentMetaDataResolver componentMetaDataResolver, ComponentMetaDataPrefetcher componentMetaDataPrefetcher,
+                                                                ComponentResolveMetaData rootComponent, ResolutionStrategyInternal resolutionStrategy, GlobalDependencyResolutionRules metadataHandler) {
 
         DependencyToComponentIdResolver componentIdResolver = new DependencySubstitutionResolver(componentSource.getComponentIdResolver(), resolutionStrategy.getDependencySubstitutionRule());
-        ComponentMetaDataResolver componentMetaDataResolver = new ClientModuleResolver(componentSource.getComponentResolver(), dependencyDescriptorFactory);
 
         DependencyToConfigurationResolver dependencyToConfigurationResolver = new DefaultDependencyToConfigurationResolver();
-        ResolveContextToComponentResolver requestResolver = createResolveContextConverter();
+        ResolveContextToComponentResolver requestResolver = createResolveContextConverter(rootComponent);
         ConflictHandler conflictHandler = createConflictHandler(resolutionStrategy, metadataHandler);
 
-        return new DependencyGraphBuilder(componentIdResolver, componentMetaDataResolver, requestResolver, dependencyToConfigurationResolver, conflictHandler);
+        return new DependencyGraphBuilder(componentIdResolver, componentMetaDataResolver, componentMetaDataPrefetcher, requestResolver, dependencyToConfigurationResolver, conflictHandler);
     }
 
-    private ComponentResolversChain createComponentSource(ResolveContext resolveContext, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler) {
+    private ComponentResolversChain createComponentSource(ResolveContext resolveContext, ComponentResolvers repositoryResolvers) {
         List<ResolverProviderFactory> resolverFactories = allServices(ResolverProviderFactory.class);
         List<ComponentResolvers> resolvers = Lists.newArrayList();
         for (ResolverProviderFactory factory : resolverFactories) {
@@ -110,13 +163,12 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
                 resolvers.add(factory.create(resolveContext));
             }
         }
-        ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
-        resolvers.add(ivyFactory.create(resolutionStrategy, repositories, metadataHandler.getComponentMetadataProcessor()));
+        resolvers.add(repositoryResolvers);
         return new ComponentResolversChain(resolvers);
     }
 
-    private ResolveContextToComponentResolver createResolveContextConverter() {
-        return new DefaultResolveContextToComponentResolver();
+    private ResolveContextToComponentResolver createResolveContextConverter(ComponentResolveMetaData rootComponent) {
+        return new DefaultResolveContextToComponentResolver(rootComponent);
     }
 
     private ConflictHandler createConflictHandler(ResolutionStrategyInternal resolutionStrategy, GlobalDependencyResolutionRules metadataHandler) {
@@ -135,9 +187,15 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
     }
 
     private static class DefaultResolveContextToComponentResolver implements ResolveContextToComponentResolver {
+        private final ComponentResolveMetaData rootComponent;
+
+        private DefaultResolveContextToComponentResolver(ComponentResolveMetaData rootComponent) {
+            this.rootComponent = rootComponent;
+        }
+
         @Override
         public void resolve(ResolveContext resolveContext, BuildableComponentResolveResult result) {
-            result.resolved(resolveContext.toRootComponentMetaData());
+            result.resolved(rootComponent);
         }
     }
 
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.apache.ivy.Ivy;
+import org.gradle.api.Action;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataPrefetcher;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * A {@link ComponentMetaDataResolver} that resolves the meta-data for components ahead of time using a pool of threads, so that the meta-data for
+ * the dependencies of many components can be fetched from remote repositories concurrently.
+ *
+ * <p>Only the meta-data for a dependency on a fixed version of a module, with no overrides such as a client module or explicit artifacts, is resolved
+ * ahead of time. The meta-data for any other component is resolved on demand. Resolving meta-data ahead of time does not change the result: when the
+ * meta-data for a component is required, the result of the earlier resolve is used in its place, or the component is resolved again when the earlier
+ * resolve failed unexpectedly.</p>
+ *
+ * <p>Each component is resolved while holding the artifact cache and within an Ivy context, in the same way as on the resolving thread. The repositories
+ * release the cache while making remote requests, and the resolving thread releases the cache while it waits for a result, so the remote requests for
+ * several components are made at the same time.</p>
+ *
+ * <p>Instances are not thread-safe, and should be used for a single resolve only.</p>
+ */
+public class ParallelComponentMetaDataResolver implements ComponentMetaDataResolver, ComponentMetaDataPrefetcher, Stoppable {
+    /**
+     * The maximum number of components to resolve concurrently. Meta-data is resolved on the resolving thread only when this is not greater than 1.
+     */
+    public static final String MAX_PARALLELISM_PROPERTY = "org.gradle.resolution.metadata.parallelism";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelComponentMetaDataResolver.class);
+
+    private final ComponentMetaDataResolver delegate;
+    private final CacheLockingManager cacheLockingManager;
+    private final IvyContextManager ivyContextManager;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final ExecutorFactory executorFactory;
+    private final int maxParallelism;
+    private final Map<ComponentIdentifier, Future<BuildableComponentResolveResult>> prefetched = new HashMap<ComponentIdentifier, Future<BuildableComponentResolveResult>>();
+    private StoppableExecutor executor;
+
+    public ParallelComponentMetaDataResolver(ComponentMetaDataResolver delegate, CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager,
+                                             VersionSelectorScheme versionSelectorScheme, ExecutorFactory executorFactory, int maxParallelism) {
+        this.delegate = delegate;
+        this.cacheLockingManager = cacheLockingManager;
+        this.ivyContextManager = ivyContextManager;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.executorFactory = executorFactory;
+        this.maxParallelism = maxParallelism;
+    }
+
+    /**
+     * Returns the maximum number of components to resolve concurrently, as specified by the {@value #MAX_PARALLELISM_PROPERTY} system property.
+     */
+    public static int getMaxParallelism() {
+        return Integer.getInteger(MAX_PARALLELISM_PROPERTY, 0);
+    }
+
+    @Override
+    public void prefetch(DependencyMetaData dependency) {
+        ComponentSelector selector = dependency.getSelector();
+        if (!(selector instanceof ModuleComponentSelector)) {
+            return;
+        }
+        final ComponentOverrideMetadata overrideMetadata = DefaultComponentOverrideMetadata.forDependency(dependency);
+        if (!isDefault(overrideMetadata)) {
+            return;
+        }
+        ModuleComponentSelector moduleSelector = (ModuleComponentSelector) selector;
+        if (versionSelectorScheme.parseSelector(moduleSelector.getVersion()).isDynamic()) {
+            return;
+        }
+        final ComponentIdentifier id = DefaultModuleComponentIdentifier.newId(moduleSelector.getGroup(), moduleSelector.getModule(), moduleSelector.getVersion());
+        if (prefetched.containsKey(id)) {
+            return;
+        }
+        LOGGER.debug("Prefetching meta-data for {}.", id);
+        prefetched.put(id, getExecutor().submit(new Callable<BuildableComponentResolveResult>() {
+            public BuildableComponentResolveResult call() {
+                return resolveInContext(id, overrideMetadata);
+            }
+        }));
+    }
+
+    @Override
+    public void resolve(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, BuildableComponentResolveResult result) {
+        Future<BuildableComponentResolveResult> prefetchedResult = isDefault(componentOverrideMetadata) ? prefetched.get(identifier) : null;
+        if (prefetchedResult != null) {
+            DefaultBuildableComponentResolveResult completed = waitFor(identifier, prefetchedResult);
+            if (completed != null && completed.hasResult()) {
+                applyTo(completed, result);
+                return;
+            }
+        }
+        delegate.resolve(identifier, componentOverrideMetadata, result);
+    }
+
+    /**
+     * Discards any prefetches that have not started, and waits for the remainder to complete.
+     */
+    @Override
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        for (Future<BuildableComponentResolveResult> future : prefetched.values()) {
+            future.cancel(false);
+        }
+        prefetched.clear();
+        // Running prefetches may need the cache to complete
+        cacheLockingManager.longRunningOperation("Stop meta-data prefetch", new Runnable() {
+            public void run() {
+                executor.stop();
+            }
+        });
+        executor = null;
+    }
+
+    private StoppableExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("Resolve component meta-data", maxParallelism);
+        }
+        return executor;
+    }
+
+    private BuildableComponentResolveResult resolveInContext(final ComponentIdentifier id, final ComponentOverrideMetadata overrideMetadata) {
+        final DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+        cacheLockingManager.useCache("Resolve " + id, new Runnable() {
+            public void run() {
+                ivyContextManager.withIvy(new Action<Ivy>() {
+                    public void execute(Ivy ivy) {
+                        delegate.resolve(id, overrideMetadata, result);
+                    }
+                });
+            }
+        });
+        return result;
+    }
+
+    private DefaultBuildableComponentResolveResult waitFor(final ComponentIdentifier id, final Future<BuildableComponentResolveResult> future) {
+        return cacheLockingManager.longRunningOperation("Wait for meta-data of " + id, new Factory<DefaultBuildableComponentResolveResult>() {
+            public DefaultBuildableComponentResolveResult create() {
+                try {
+                    return (DefaultBuildableComponentResolveResult) future.get();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                } catch (ExecutionException e) {
+                    // Resolve again on this thread, so that the failure is reported in the usual way
+                    LOGGER.debug("Could not prefetch meta-data for {}.", id, e.getCause());
+                    return null;
+                }
+            }
+        });
+    }
+
+    private static void applyTo(DefaultBuildableComponentResolveResult source, BuildableComponentResolveResult target) {
+        source.applyTo(target);
+        if (source.getFailure() != null) {
+            target.failed(source.getFailure());
+        } else {
+            target.resolved(source.getMetaData());
+        }
+    }
+
+    private static boolean isDefault(ComponentOverrideMetadata overrideMetadata) {
+        return !overrideMetadata.isChanging() && overrideMetadata.getArtifacts().isEmpty() && overrideMetadata.getClientModule() == null;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.cache;
+
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultModuleResolutionFilter;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ModuleResolutionFilter;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection;
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactMetaData;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetaData;
+import org.gradle.internal.component.model.ComponentArtifactMetaData;
+import org.gradle.internal.component.model.ConfigurationMetaData;
+import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.resolve.resolver.ArtifactResolver;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A successfully resolved dependency graph, as recorded by {@link ResolvedGraphRecorder}. Holds the nodes and edges of the graph, in the order they were visited,
+ * along with the artifacts of each edge. The graph can be replayed into the same visitors that consume the result of {@link org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder}.
+ *
+ * <p>The inputs timestamp of the graph is the time at which the oldest cached meta-data or version listing that the graph was resolved from was cached.</p>
+ */
+class RecordedGraph {
+    final long inputsTimestamp;
+    final int rootIndex;
+    final List<Node> nodes;
+    final List<Edge> edges;
+    final Map<Long, List<ModuleComponentArtifactIdentifier>> artifactSets;
+
+    RecordedGraph(long inputsTimestamp, int rootIndex, List<Node> nodes, List<Edge> edges, Map<Long, List<ModuleComponentArtifactIdentifier>> artifactSets) {
+        this.inputsTimestamp = inputsTimestamp;
+        this.rootIndex = rootIndex;
+        this.nodes = nodes;
+        this.edges = edges;
+        this.artifactSets = artifactSets;
+    }
+
+    RecordedGraph withInputsTimestamp(long inputsTimestamp) {
+        return new RecordedGraph(inputsTimestamp, rootIndex, nodes, edges, artifactSets);
+    }
+
+    /**
+     * Visits the recorded graph in the same order as it was originally visited.
+     *
+     * @param firstLevelDependencies The dependencies of the root configuration, which the first level edges of the graph refer to by index.
+     */
+    void replay(List<DependencyMetaData> firstLevelDependencies, DependencyGraphVisitor graphVisitor, DependencyArtifactsVisitor artifactsVisitor, ArtifactResolver artifactResolver) {
+        List<ReplayedNode> replayedNodes = new ArrayList<ReplayedNode>(nodes.size());
+        for (Node node : nodes) {
+            replayedNodes.add(new ReplayedNode(node));
+        }
+        List<ReplayedEdge> replayedEdges = new ArrayList<ReplayedEdge>(edges.size());
+        for (Edge edge : edges) {
+            ModuleDependency moduleDependency = null;
+            if (edge.dependencyIndex >= 0) {
+                moduleDependency = ((DslOriginDependencyMetaData) firstLevelDependencies.get(edge.dependencyIndex)).getSource();
+            }
+            replayedEdges.add(new ReplayedEdge(replayedNodes.get(edge.from), edge, moduleDependency));
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            ReplayedNode replayedNode = replayedNodes.get(i);
+            for (Integer edge : node.outgoingEdges) {
+                replayedNode.outgoingEdges.add(replayedEdges.get(edge));
+            }
+            for (Integer edge : node.incomingEdges) {
+                replayedNode.incomingEdges.add(replayedEdges.get(edge));
+            }
+        }
+
+        ReplayedNode root = replayedNodes.get(rootIndex);
+        graphVisitor.start(root);
+        for (ReplayedNode node : replayedNodes) {
+            graphVisitor.visitNode(node);
+        }
+        Map<Long, ArtifactSet> replayedArtifactSets = Maps.newHashMap();
+        Map<ComponentArtifactIdentifier, ResolvedArtifact> allResolvedArtifacts = Maps.newHashMap();
+        for (ReplayedNode node : replayedNodes) {
+            graphVisitor.visitEdge(node);
+            for (ArtifactsVisit visit : node.node.artifacts) {
+                ArtifactSet artifactSet = replayedArtifactSets.get(visit.artifactSetId);
+                if (artifactSet == null) {
+                    Set<ComponentArtifactMetaData> artifacts = new LinkedHashSet<ComponentArtifactMetaData>();
+                    for (ModuleComponentArtifactIdentifier artifactId : artifactSets.get(visit.artifactSetId)) {
+                        artifacts.add(new DefaultModuleComponentArtifactMetaData(artifactId));
+                    }
+                    artifactSet = new DefaultArtifactSet(node.toId(), node.node.source, DefaultModuleResolutionFilter.all(), artifacts, artifactResolver, allResolvedArtifacts, visit.artifactSetId);
+                    replayedArtifactSets.put(visit.artifactSetId, artifactSet);
+                }
+                artifactsVisitor.visitArtifacts(replayedNodes.get(visit.parent).getNodeId(), node.getNodeId(), artifactSet);
+            }
+        }
+        graphVisitor.finish(root);
+        artifactsVisitor.finishArtifacts();
+    }
+
+    static class Node {
+        final ResolvedConfigurationIdentifier id;
+        final ModuleVersionSelection selection;
+        final ModuleSource source;
+        final List<Integer> outgoingEdges = new ArrayList<Integer>();
+        final List<Integer> incomingEdges = new ArrayList<Integer>();
+        final List<ArtifactsVisit> artifacts = new ArrayList<ArtifactsVisit>();
+
+        Node(ResolvedConfigurationIdentifier id, ModuleVersionSelection selection, ModuleSource source) {
+            this.id = id;
+            this.selection = selection;
+            this.source = source;
+        }
+    }
+
+    static class Edge {
+        final int from;
+        final ComponentSelector requested;
+        final ModuleVersionSelector requestedModuleVersion;
+        final ModuleVersionIdentifier selected;
+        final int dependencyIndex;
+
+        Edge(int from, ComponentSelector requested, ModuleVersionSelector requestedModuleVersion, ModuleVersionIdentifier selected, int dependencyIndex) {
+            this.from = from;
+            this.requested = requested;
+            this.requestedModuleVersion = requestedModuleVersion;
+            this.selected = selected;
+            this.dependencyIndex = dependencyIndex;
+        }
+    }
+
+    static class ArtifactsVisit {
+        final int parent;
+        final long artifactSetId;
+
+        ArtifactsVisit(int parent, long artifactSetId) {
+            this.parent = parent;
+            this.artifactSetId = artifactSetId;
+        }
+    }
+
+    private static class ReplayedNode implements DependencyGraphNode {
+        private final Node node;
+        private final Set<DependencyGraphEdge> incomingEdges = new LinkedHashSet<DependencyGraphEdge>();
+        private final Set<DependencyGraphEdge> outgoingEdges = new LinkedHashSet<DependencyGraphEdge>();
+
+        ReplayedNode(Node node) {
+            this.node = node;
+        }
+
+        public ResolvedConfigurationIdentifier getNodeId() {
+            return node.id;
+        }
+
+        public ModuleVersionIdentifier toId() {
+            return node.id.getId();
+        }
+
+        public ComponentIdentifier getComponentId() {
+            return node.selection.getComponentId();
+        }
+
+        public ModuleVersionSelection getSelection() {
+            return node.selection;
+        }
+
+        public Set<DependencyGraphEdge> getIncomingEdges() {
+            return incomingEdges;
+        }
+
+        public Set<DependencyGraphEdge> getOutgoingEdges() {
+            return outgoingEdges;
+        }
+
+        /**
+         * The meta-data of a node is not recorded. Only graphs without local components are recorded, so no visitor of a replayed graph requires it.
+         */
+        public ConfigurationMetaData getMetaData() {
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s(%s)", node.id.getId(), node.id.getConfiguration());
+        }
+    }
+
+    private static class ReplayedEdge implements DependencyGraphEdge {
+        private final ReplayedNode from;
+        private final Edge edge;
+        private final ModuleDependency moduleDependency;
+
+        ReplayedEdge(ReplayedNode from, Edge edge, ModuleDependency moduleDependency) {
+            this.from = from;
+            this.edge = edge;
+            this.moduleDependency = moduleDependency;
+        }
+
+        public DependencyGraphNode getFrom() {
+            return from;
+        }
+
+        public ModuleVersionSelector getRequestedModuleVersion() {
+            return edge.requestedModuleVersion;
+        }
+
+        public ModuleResolutionFilter getSelector() {
+            throw new UnsupportedOperationException();
+        }
+
+        public Set<ComponentArtifactMetaData> getArtifacts(ConfigurationMetaData metaData) {
+            throw new UnsupportedOperationException();
+        }
+
+        public ModuleDependency getModuleDependency() {
+            return moduleDependency;
+        }
+
+        public ComponentSelector getRequested() {
+            return edge.requested;
+        }
+
+        public ModuleVersionResolveException getFailure() {
+            return null;
+        }
+
+        public ModuleVersionIdentifier getSelected() {
+            return edge.selected;
+        }
+
+        public ComponentSelectionReason getReason() {
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s -> %s", from, edge.requested.getDisplayName());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.cache;
+
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.internal.artifacts.ModuleVersionIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ModuleVersionSelectorSerializer;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectorSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelectionSerializer;
+import org.gradle.api.internal.artifacts.metadata.ModuleVersionArtifactIdentifierSerializer;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.DefaultSerializer;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class RecordedGraphSerializer implements Serializer<RecordedGraph> {
+    private final ModuleVersionSelectionSerializer selectionSerializer = new ModuleVersionSelectionSerializer();
+    private final ComponentSelectorSerializer componentSelectorSerializer = new ComponentSelectorSerializer();
+    private final ModuleVersionSelectorSerializer moduleVersionSelectorSerializer = new ModuleVersionSelectorSerializer();
+    private final ModuleVersionIdentifierSerializer moduleVersionIdentifierSerializer = new ModuleVersionIdentifierSerializer();
+    private final ModuleVersionArtifactIdentifierSerializer artifactIdentifierSerializer = new ModuleVersionArtifactIdentifierSerializer();
+    private final Serializer<ModuleSource> moduleSourceSerializer = new DefaultSerializer<ModuleSource>(ModuleSource.class.getClassLoader());
+
+    public void write(Encoder encoder, RecordedGraph value) throws Exception {
+        encoder.writeLong(value.inputsTimestamp);
+        encoder.writeSmallInt(value.rootIndex);
+        encoder.writeSmallInt(value.nodes.size());
+        for (RecordedGraph.Node node : value.nodes) {
+            encoder.writeString(node.id.getConfiguration());
+            selectionSerializer.write(encoder, node.selection);
+            encoder.writeBoolean(node.source != null);
+            if (node.source != null) {
+                moduleSourceSerializer.write(encoder, node.source);
+            }
+            writeIndexes(encoder, node.outgoingEdges);
+            writeIndexes(encoder, node.incomingEdges);
+            encoder.writeSmallInt(node.artifacts.size());
+            for (RecordedGraph.ArtifactsVisit visit : node.artifacts) {
+                encoder.writeSmallInt(visit.parent);
+                encoder.writeSmallLong(visit.artifactSetId);
+            }
+        }
+        encoder.writeSmallInt(value.edges.size());
+        for (RecordedGraph.Edge edge : value.edges) {
+            encoder.writeSmallInt(edge.from);
+            componentSelectorSerializer.write(encoder, edge.requested);
+            moduleVersionSelectorSerializer.write(encoder, edge.requestedModuleVersion);
+            moduleVersionIdentifierSerializer.write(encoder, edge.selected);
+            encoder.writeSmallInt(edge.dependencyIndex + 1);
+        }
+        encoder.writeSmallInt(value.artifactSets.size());
+        for (Map.Entry<Long, List<ModuleComponentArtifactIdentifier>> entry : value.artifactSets.entrySet()) {
+            encoder.writeSmallLong(entry.getKey());
+            encoder.writeSmallInt(entry.getValue().size());
+            for (ModuleComponentArtifactIdentifier artifactId : entry.getValue()) {
+                artifactIdentifierSerializer.write(encoder, artifactId);
+            }
+        }
+    }
+
+    public RecordedGraph read(Decoder decoder) throws Exception {
+        long inputsTimestamp = decoder.readLong();
+        int rootIndex = decoder.readSmallInt();
+        int nodeCount = decoder.readSmallInt();
+        List<RecordedGraph.Node> nodes = new ArrayList<RecordedGraph.Node>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            String configuration = decoder.readString();
+            ModuleVersionSelection selection = selectionSerializer.read(decoder);
+            ModuleSource source = decoder.readBoolean() ? moduleSourceSerializer.read(decoder) : null;
+            RecordedGraph.Node node = new RecordedGraph.Node(new ResolvedConfigurationIdentifier(selection.getId(), configuration), selection, source);
+            readIndexes(decoder, node.outgoingEdges);
+            readIndexes(decoder, node.incomingEdges);
+            int visitCount = decoder.readSmallInt();
+            for (int j = 0; j < visitCount; j++) {
+                int parent = decoder.readSmallInt();
+                node.artifacts.add(new RecordedGraph.ArtifactsVisit(parent, decoder.readSmallLong()));
+            }
+            nodes.add(node);
+        }
+        int edgeCount = decoder.readSmallInt();
+        List<RecordedGraph.Edge> edges = new ArrayList<RecordedGraph.Edge>(edgeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            int from = decoder.readSmallInt();
+            ComponentSelector requested = componentSelectorSerializer.read(decoder);
+            ModuleVersionSelector requestedModuleVersion = moduleVersionSelectorSerializer.read(decoder);
+            ModuleVersionIdentifier selected = moduleVersionIdentifierSerializer.read(decoder);
+            int dependencyIndex = decoder.readSmallInt() - 1;
+            edges.add(new RecordedGraph.Edge(from, requested, requestedModuleVersion, selected, dependencyIndex));
+        }
+        int artifactSetCount = decoder.readSmallInt();
+        Map<Long, List<ModuleComponentArtifactIdentifier>> artifactSets = new LinkedHashMap<Long, List<ModuleComponentArtifactIdentifier>>(artifactSetCount);
+        for (int i = 0; i < artifactSetCount; i++) {
+            long id = decoder.readSmallLong();
+            int artifactCount = decoder.readSmallInt();
+            List<ModuleComponentArtifactIdentifier> artifactIds = new ArrayList<ModuleComponentArtifactIdentifier>(artifactCount);
+            for (int j = 0; j < artifactCount; j++) {
+                artifactIds.add(artifactIdentifierSerializer.read(decoder));
+            }
+            artifactSets.put(id, artifactIds);
+        }
+        return new RecordedGraph(inputsTimestamp, rootIndex, nodes, edges, artifactSets);
+    }
+
+    private void writeIndexes(Encoder encoder, List<Integer> indexes) throws Exception {
+        encoder.writeSmallInt(indexes.size());
+        for (Integer index : indexes) {
+            encoder.writeSmallInt(index);
+        }
+    }
+
+    private void readIndexes(Decoder decoder, List<Integer> indexes) throws Exception {
+        int count = decoder.readSmallInt();
+        for (int i = 0; i < count; i++) {
+            indexes.add(decoder.readSmallInt());
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.cache;
+
+import org.apache.ivy.core.module.descriptor.ExcludeRule;
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ClientModule;
+import org.gradle.api.artifacts.ExternalModuleDependency;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.DefaultResolvedModuleVersion;
+import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.ModuleVersionsCache;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.CachingModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ComponentResolvers;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.RepositoryChainModuleSource;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.UserResolverChain;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetaData;
+import org.gradle.internal.component.model.ComponentResolveMetaData;
+import org.gradle.internal.component.model.ConfigurationMetaData;
+import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.resolve.resolver.ArtifactResolver;
+import org.gradle.util.BuildCommencedTimeProvider;
+import org.gradle.util.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
+
+/**
+ * A persistent cache of resolved dependency graphs, so that a configuration whose declared dependencies and resolution inputs have not changed can skip conflict resolution.
+ *
+ * <p>A graph is keyed by a hash of the root component, the declared dependencies and excludes of the resolved configuration, the resolution strategy and the ids of the repositories.
+ * Resolutions that use dependency substitution or {@code eachDependency} rules, component selection or component meta-data rules, or that use a local repository, are not cached.</p>
+ *
+ * <p>A cached graph is only used while the module meta-data cache holds the same descriptor for every component of the graph, and while the cache policy would not
+ * refresh any of them: dynamic versions and changing modules stop the graph from being used once their cache timeouts have expired. The timeouts are checked against
+ * the age of the oldest cached meta-data or version listing that the graph was resolved from, rather than the age of the graph.</p>
+ *
+ * <p>The cache is only used when the {@value #TOGGLE_PROPERTY} system property is set to true.</p>
+ */
+public class ResolvedGraphCache {
+    public final static String TOGGLE_PROPERTY = "org.gradle.resolution.graphcache";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolvedGraphCache.class);
+
+    private final CacheLockingManager cacheLockingManager;
+    private final BuildCommencedTimeProvider timeProvider;
+    private final ModuleMetaDataCache moduleMetaDataCache;
+    private final ModuleVersionsCache moduleVersionsCache;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private PersistentIndexedCache<String, RecordedGraph> cache;
+
+    public ResolvedGraphCache(CacheLockingManager cacheLockingManager, BuildCommencedTimeProvider timeProvider, ModuleMetaDataCache moduleMetaDataCache,
+                              ModuleVersionsCache moduleVersionsCache, VersionSelectorScheme versionSelectorScheme) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.timeProvider = timeProvider;
+        this.moduleMetaDataCache = moduleMetaDataCache;
+        this.moduleVersionsCache = moduleVersionsCache;
+        this.versionSelectorScheme = versionSelectorScheme;
+    }
+
+    private PersistentIndexedCache<String, RecordedGraph> getCache() {
+        if (cache == null) {
+            cache = initCache();
+        }
+        return cache;
+    }
+
+    private PersistentIndexedCache<String, RecordedGraph> initCache() {
+        return cacheLockingManager.createCache("resolved-graphs", STRING_SERIALIZER, new RecordedGraphSerializer());
+    }
+
+    /**
+     * Calculates the key for the resolution of the given configuration of the root component. Returns null when the result of the resolution cannot be cached.
+     *
+     * @param repositoryResolvers The resolvers for the repositories of the resolution.
+     */
+    @Nullable
+    public String createKey(ComponentResolveMetaData rootComponent, String configurationName, ResolutionStrategyInternal resolutionStrategy,
+                            ComponentResolvers repositoryResolvers, GlobalDependencyResolutionRules resolutionRules) {
+        if (!Boolean.getBoolean(TOGGLE_PROPERTY)) {
+            return null;
+        }
+        ConfigurationMetaData configuration = rootComponent.getConfiguration(configurationName);
+        if (configuration == null || !(repositoryResolvers instanceof UserResolverChain)) {
+            return null;
+        }
+        List<String> repositoryIds = ((UserResolverChain) repositoryResolvers).getCachedRepositoryIds();
+        ComponentSelectionRulesInternal componentSelectionRules = resolutionStrategy.getComponentSelection();
+        if (repositoryIds == null
+            || resolutionStrategy.getDependencySubstitution().hasRules()
+            || !componentSelectionRules.getRules().isEmpty()
+            || resolutionRules.getComponentMetadataProcessor().hasRules()) {
+            return null;
+        }
+
+        List<String> parts = new ArrayList<String>();
+        parts.add(rootComponent.getId().toString());
+        parts.add(rootComponent.getComponentId().getDisplayName());
+        parts.add(configuration.getName());
+        parts.add(CollectionUtils.join(",", configuration.getHierarchy()));
+        parts.add(String.valueOf(configuration.isTransitive()));
+        for (ExcludeRule excludeRule : configuration.getExcludeRules()) {
+            parts.add(describe(excludeRule));
+        }
+        for (DependencyMetaData dependency : configuration.getDependencies()) {
+            if (!(dependency instanceof DslOriginDependencyMetaData) || !(dependency.getSelector() instanceof ModuleComponentSelector)) {
+                return null;
+            }
+            ModuleDependency source = ((DslOriginDependencyMetaData) dependency).getSource();
+            if (!(source instanceof ExternalModuleDependency) || source instanceof ClientModule) {
+                return null;
+            }
+            parts.add(describe(dependency, configuration));
+        }
+        parts.add(resolutionStrategy.getConflictResolution().getClass().getName());
+        List<String> forcedModules = new ArrayList<String>();
+        for (ModuleVersionSelector forcedModule : resolutionStrategy.getForcedModules()) {
+            forcedModules.add(forcedModule.getGroup() + ":" + forcedModule.getName() + ":" + forcedModule.getVersion());
+        }
+        Collections.sort(forcedModules);
+        parts.add(CollectionUtils.join(",", forcedModules));
+        parts.add(CollectionUtils.join(",", repositoryIds));
+        return HashUtil.createHash(CollectionUtils.join("::", parts), "SHA1").asHexString();
+    }
+
+    /**
+     * Replays the cached graph for the given key into the given visitors, when the cached graph is still up-to-date.
+     *
+     * @param repositoryResolvers The resolvers for the repositories of the resolution, as used to calculate the key.
+     * @return true when the cached graph was replayed, false when the graph must be resolved.
+     */
+    public boolean replay(final String key, ComponentResolvers repositoryResolvers, final ConfigurationMetaData rootConfiguration, final ResolutionStrategyInternal resolutionStrategy,
+                          final GlobalDependencyResolutionRules resolutionRules, DependencyGraphVisitor graphVisitor, DependencyArtifactsVisitor artifactsVisitor, ArtifactResolver artifactResolver) {
+        final List<String> repositoryIds = ((UserResolverChain) repositoryResolvers).getCachedRepositoryIds();
+        RecordedGraph graph = cacheLockingManager.useCache("Load cached dependency graph for " + rootConfiguration.getName(), new Factory<RecordedGraph>() {
+            public RecordedGraph create() {
+                RecordedGraph graph = getCache().get(key);
+                if (graph == null) {
+                    return null;
+                }
+                if (!isUpToDate(graph, repositoryIds, resolutionStrategy.getCachePolicy(), resolutionRules.getModuleMetadataProcessor().getModuleReplacements())) {
+                    LOGGER.debug("Cached dependency graph for {} is out-of-date.", rootConfiguration.getName());
+                    return null;
+                }
+                return graph;
+            }
+        });
+        if (graph == null) {
+            return false;
+        }
+        LOGGER.debug("Using cached dependency graph for {}.", rootConfiguration.getName());
+        graph.replay(rootConfiguration.getDependencies(), graphVisitor, artifactsVisitor, artifactResolver);
+        return true;
+    }
+
+    /**
+     * Stores the graph recorded by the given recorder, when the graph can be cached.
+     *
+     * @param repositoryResolvers The resolvers for the repositories of the resolution, as used to calculate the key.
+     */
+    public void store(final String key, ComponentResolvers repositoryResolvers, ResolvedGraphRecorder recorder) {
+        final RecordedGraph graph = recorder.getGraph(timeProvider.getCurrentTime());
+        if (graph != null) {
+            final List<String> repositoryIds = ((UserResolverChain) repositoryResolvers).getCachedRepositoryIds();
+            cacheLockingManager.useCache("Store dependency graph", new Runnable() {
+                public void run() {
+                    getCache().put(key, graph.withInputsTimestamp(getInputsTimestamp(graph, repositoryIds)));
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the time at which the oldest cache entry that the given graph was resolved from was cached. These are the meta-data of each component of the graph,
+     * the missing entries for the component in the repositories that are searched before the repository it was found in, and the version listings of each
+     * dynamic version.
+     */
+    private long getInputsTimestamp(RecordedGraph graph, List<String> repositoryIds) {
+        long timestamp = graph.inputsTimestamp;
+        Set<ModuleComponentIdentifier> components = new HashSet<ModuleComponentIdentifier>();
+        for (int i = 0; i < graph.nodes.size(); i++) {
+            RecordedGraph.Node node = graph.nodes.get(i);
+            if (i == graph.rootIndex) {
+                continue;
+            }
+            ModuleComponentIdentifier componentId = (ModuleComponentIdentifier) node.selection.getComponentId();
+            if (!components.add(componentId)) {
+                continue;
+            }
+            String sourceRepositoryId = ((RepositoryChainModuleSource) node.source).getRepositoryId();
+            for (String repositoryId : repositoryIds) {
+                timestamp = oldest(timestamp, moduleMetaDataCache.getCacheTimestamp(repositoryId, componentId));
+                if (repositoryId.equals(sourceRepositoryId)) {
+                    break;
+                }
+            }
+        }
+        Set<ModuleIdentifier> listedModules = new HashSet<ModuleIdentifier>();
+        for (RecordedGraph.Edge edge : graph.edges) {
+            ModuleVersionSelector requested = edge.requestedModuleVersion;
+            ModuleIdentifier moduleId = DefaultModuleIdentifier.newId(requested.getGroup(), requested.getName());
+            if (versionSelectorScheme.parseSelector(requested.getVersion()).isDynamic() && listedModules.add(moduleId)) {
+                for (String repositoryId : repositoryIds) {
+                    timestamp = oldest(timestamp, moduleVersionsCache.getCacheTimestamp(repositoryId, moduleId));
+                }
+            }
+        }
+        return timestamp;
+    }
+
+    private static long oldest(long timestamp, @Nullable Long candidate) {
+        return candidate == null ? timestamp : Math.min(timestamp, candidate);
+    }
+
+    private boolean isUpToDate(RecordedGraph graph, List<String> repositoryIds, CachePolicy cachePolicy, ModuleReplacementsData moduleReplacements) {
+        long ageMillis = timeProvider.getCurrentTime() - graph.inputsTimestamp;
+        Set<ModuleComponentIdentifier> checkedComponents = new HashSet<ModuleComponentIdentifier>();
+        Map<ModuleIdentifier, Set<ModuleVersionIdentifier>> selectedVersions = new HashMap<ModuleIdentifier, Set<ModuleVersionIdentifier>>();
+        for (int i = 0; i < graph.nodes.size(); i++) {
+            RecordedGraph.Node node = graph.nodes.get(i);
+            ModuleVersionIdentifier id = node.selection.getId();
+            ModuleIdentifier moduleId = DefaultModuleIdentifier.newId(id.getGroup(), id.getName());
+            Set<ModuleVersionIdentifier> versions = selectedVersions.get(moduleId);
+            if (versions == null) {
+                versions = new HashSet<ModuleVersionIdentifier>();
+                selectedVersions.put(moduleId, versions);
+            }
+            versions.add(id);
+            if (i == graph.rootIndex) {
+                continue;
+            }
+            ModuleComponentIdentifier componentId = (ModuleComponentIdentifier) node.selection.getComponentId();
+            if (!checkedComponents.add(componentId)) {
+                continue;
+            }
+            if (moduleReplacements.getReplacementFor(moduleId) != null) {
+                return false;
+            }
+            RepositoryChainModuleSource repositorySource = (RepositoryChainModuleSource) node.source;
+            CachingModuleComponentRepository.CachingModuleSource cachedSource = (CachingModuleComponentRepository.CachingModuleSource) repositorySource.getDelegate();
+            BigInteger descriptorHash = moduleMetaDataCache.getCachedDescriptorHash(repositorySource.getRepositoryId(), componentId);
+            if (!cachedSource.getDescriptorHash().equals(descriptorHash)) {
+                return false;
+            }
+            DefaultResolvedModuleVersion moduleVersion = new DefaultResolvedModuleVersion(id);
+            if (cachedSource.isChangingModule()) {
+                if (cachePolicy.mustRefreshChangingModule(componentId, moduleVersion, ageMillis)) {
+                    return false;
+                }
+            } else if (cachePolicy.mustRefreshModule(componentId, moduleVersion, ageMillis)) {
+                return false;
+            }
+            if (!repositorySource.getRepositoryId().equals(repositoryIds.get(0)) && cachePolicy.mustRefreshMissingModule(componentId, ageMillis)) {
+                // The module was missing from some repository that is searched earlier
+                return false;
+            }
+        }
+        for (RecordedGraph.Edge edge : graph.edges) {
+            ModuleVersionSelector requested = edge.requestedModuleVersion;
+            if (versionSelectorScheme.parseSelector(requested.getVersion()).isDynamic()) {
+                ModuleIdentifier moduleId = DefaultModuleIdentifier.newId(requested.getGroup(), requested.getName());
+                Set<ModuleVersionIdentifier> versions = selectedVersions.get(moduleId);
+                if (cachePolicy.mustRefreshVersionList(moduleId, versions == null ? Collections.<ModuleVersionIdentifier>emptySet() : versions, ageMillis)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String describe(DependencyMetaData dependency, ConfigurationMetaData configuration) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(dependency.getSelector().getDisplayName());
+        for (String moduleConfiguration : dependency.getModuleConfigurations()) {
+            builder.append(';').append(moduleConfiguration).append("->");
+            builder.append(CollectionUtils.join(",", dependency.getDependencyConfigurations(moduleConfiguration, moduleConfiguration)));
+        }
+        builder.append(';').append(dependency.isForce()).append(',').append(dependency.isChanging()).append(',').append(dependency.isTransitive());
+        for (IvyArtifactName artifact : dependency.getArtifacts()) {
+            builder.append(';').append(artifact.getName()).append(',').append(artifact.getType()).append(',').append(artifact.getExtension()).append(',').append(artifact.getAttributes());
+        }
+        for (ExcludeRule excludeRule : dependency.getExcludeRules(configuration.getHierarchy())) {
+            builder.append(';').append(describe(excludeRule));
+        }
+        return builder.toString();
+    }
+
+    private static String describe(ExcludeRule excludeRule) {
+        return excludeRule.getId() + "@" + excludeRule.getMatcher().getName();
+    }
+}
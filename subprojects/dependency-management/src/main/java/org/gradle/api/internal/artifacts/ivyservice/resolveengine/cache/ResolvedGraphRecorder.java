@@ -0,0 +1,194 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.cache;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.CachingModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.RepositoryChainModuleSource;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DefaultModuleVersionSelection;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection;
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetaData;
+import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.component.model.ModuleSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records a resolved dependency graph as it is visited, so that it can be stored in the {@link ResolvedGraphCache}.
+ *
+ * <p>Only a graph that resolved without failures, and whose components all come from a cached remote repository, is recorded.
+ * Recording stops as soon as the graph is found to contain anything else.</p>
+ */
+public class ResolvedGraphRecorder implements DependencyGraphVisitor, DependencyArtifactsVisitor {
+    private final List<DependencyMetaData> firstLevelDependencies;
+    private final Map<ResolvedConfigurationIdentifier, Integer> nodeIndexes = new HashMap<ResolvedConfigurationIdentifier, Integer>();
+    private final List<RecordedGraph.Node> nodes = new ArrayList<RecordedGraph.Node>();
+    private final Map<DependencyGraphEdge, Integer> edgeIndexes = new HashMap<DependencyGraphEdge, Integer>();
+    private final List<RecordedGraph.Edge> edges = new ArrayList<RecordedGraph.Edge>();
+    private final Map<Long, List<ModuleComponentArtifactIdentifier>> artifactSets = new LinkedHashMap<Long, List<ModuleComponentArtifactIdentifier>>();
+    private DependencyGraphNode root;
+    private int rootIndex = -1;
+    private boolean cacheable = true;
+
+    /**
+     * @param firstLevelDependencies The dependencies of the root configuration.
+     */
+    public ResolvedGraphRecorder(List<DependencyMetaData> firstLevelDependencies) {
+        this.firstLevelDependencies = firstLevelDependencies;
+    }
+
+    public void start(DependencyGraphNode root) {
+        this.root = root;
+    }
+
+    public void visitNode(DependencyGraphNode resolvedConfiguration) {
+        if (!cacheable) {
+            return;
+        }
+        ModuleSource source = null;
+        if (resolvedConfiguration == root) {
+            rootIndex = nodes.size();
+        } else {
+            source = resolvedConfiguration.getMetaData().getComponent().getSource();
+            if (!(resolvedConfiguration.getComponentId() instanceof ModuleComponentIdentifier) || !isCachedRemoteSource(source)) {
+                cacheable = false;
+                return;
+            }
+        }
+        for (DependencyGraphEdge dependency : resolvedConfiguration.getOutgoingEdges()) {
+            if (dependency.getFailure() != null) {
+                cacheable = false;
+                return;
+            }
+        }
+        ModuleVersionSelection selection = resolvedConfiguration.getSelection();
+        ModuleVersionSelection recordedSelection = new DefaultModuleVersionSelection(selection.getId(), selection.getSelectionReason(), selection.getComponentId());
+        nodeIndexes.put(resolvedConfiguration.getNodeId(), nodes.size());
+        nodes.add(new RecordedGraph.Node(resolvedConfiguration.getNodeId(), recordedSelection, source));
+    }
+
+    public void visitEdge(DependencyGraphNode resolvedConfiguration) {
+        if (!cacheable) {
+            return;
+        }
+        RecordedGraph.Node node = nodes.get(nodeIndexes.get(resolvedConfiguration.getNodeId()));
+        for (DependencyGraphEdge dependency : resolvedConfiguration.getOutgoingEdges()) {
+            node.outgoingEdges.add(edgeIndex(dependency));
+        }
+        for (DependencyGraphEdge dependency : resolvedConfiguration.getIncomingEdges()) {
+            node.incomingEdges.add(edgeIndex(dependency));
+        }
+    }
+
+    public void visitArtifacts(ResolvedConfigurationIdentifier parent, ResolvedConfigurationIdentifier child, ArtifactSet artifacts) {
+        if (!cacheable) {
+            return;
+        }
+        Integer parentIndex = nodeIndexes.get(parent);
+        Integer childIndex = nodeIndexes.get(child);
+        if (parentIndex == null || childIndex == null) {
+            cacheable = false;
+            return;
+        }
+        if (!artifactSets.containsKey(artifacts.getId())) {
+            List<ModuleComponentArtifactIdentifier> artifactIds = new ArrayList<ModuleComponentArtifactIdentifier>();
+            for (ResolvedArtifact artifact : artifacts.getArtifacts()) {
+                ComponentArtifactIdentifier artifactId = artifact.getId();
+                if (!(artifactId instanceof DefaultModuleComponentArtifactIdentifier)) {
+                    cacheable = false;
+                    return;
+                }
+                artifactIds.add((ModuleComponentArtifactIdentifier) artifactId);
+            }
+            artifactSets.put(artifacts.getId(), artifactIds);
+        }
+        nodes.get(childIndex).artifacts.add(new RecordedGraph.ArtifactsVisit(parentIndex, artifacts.getId()));
+    }
+
+    public void finish(DependencyGraphNode root) {
+    }
+
+    public void finishArtifacts() {
+    }
+
+    /**
+     * Returns the recorded graph, or null when the graph cannot be cached.
+     *
+     * @param recordedTimestamp The time at which the graph was recorded, which the inputs timestamp of the graph cannot be later than.
+     */
+    @Nullable
+    RecordedGraph getGraph(long recordedTimestamp) {
+        if (!cacheable || rootIndex < 0) {
+            return null;
+        }
+        return new RecordedGraph(recordedTimestamp, rootIndex, nodes, edges, artifactSets);
+    }
+
+    private int edgeIndex(DependencyGraphEdge dependency) {
+        Integer index = edgeIndexes.get(dependency);
+        if (index != null) {
+            return index;
+        }
+        Integer from = nodeIndexes.get(dependency.getFrom().getNodeId());
+        int dependencyIndex = -1;
+        if (dependency.getFrom() == root) {
+            dependencyIndex = firstLevelDependencyIndex(dependency.getModuleDependency());
+        }
+        if (from == null || (dependency.getFrom() == root && dependencyIndex < 0) || dependency.getRequestedModuleVersion().getVersion() == null) {
+            cacheable = false;
+            from = -1;
+        }
+        index = edges.size();
+        edgeIndexes.put(dependency, index);
+        edges.add(new RecordedGraph.Edge(from, dependency.getRequested(), dependency.getRequestedModuleVersion(), dependency.getSelected(), dependencyIndex));
+        return index;
+    }
+
+    private int firstLevelDependencyIndex(ModuleDependency moduleDependency) {
+        for (int i = 0; i < firstLevelDependencies.size(); i++) {
+            DependencyMetaData dependency = firstLevelDependencies.get(i);
+            if (dependency instanceof DslOriginDependencyMetaData && ((DslOriginDependencyMetaData) dependency).getSource() == moduleDependency) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true for the source of a component that was resolved from a remote repository, and whose meta-data is held in the module meta-data cache.
+     */
+    static boolean isCachedRemoteSource(ModuleSource source) {
+        return source instanceof RepositoryChainModuleSource
+            && ((RepositoryChainModuleSource) source).getDelegate() instanceof CachingModuleComponentRepository.CachingModuleSource;
+    }
+}
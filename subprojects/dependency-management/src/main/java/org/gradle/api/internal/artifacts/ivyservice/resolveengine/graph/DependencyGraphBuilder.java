@@ -17,6 +17,7 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
 
 import com.google.common.base.Joiner;
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ModuleDependency;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
@@ -38,6 +39,7 @@ import org.gradle.internal.Cast;
 import org.gradle.internal.component.local.model.DslOriginDependencyMetaData;
 import org.gradle.internal.component.model.*;
 import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataPrefetcher;
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
 import org.gradle.internal.resolve.resolver.ResolveContextToComponentResolver;
@@ -54,12 +56,24 @@ public class DependencyGraphBuilder {
     private final ResolveContextToComponentResolver moduleResolver;
     private final DependencyToComponentIdResolver idResolver;
     private final ComponentMetaDataResolver metaDataResolver;
+    private final ComponentMetaDataPrefetcher metaDataPrefetcher;
 
     public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
                                   ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
                                   ConflictHandler conflictHandler) {
+        this(componentIdResolver, componentMetaDataResolver, null, resolveContextToComponentResolver, dependencyToConfigurationResolver, conflictHandler);
+    }
+
+    /**
+     * Creates a builder that announces the outgoing dependencies of the configurations waiting to be traversed to the given prefetcher, so that the
+     * meta-data for their targets can be resolved while earlier configurations are being traversed.
+     */
+    public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
+                                  @Nullable ComponentMetaDataPrefetcher componentMetaDataPrefetcher, ResolveContextToComponentResolver resolveContextToComponentResolver,
+                                  DependencyToConfigurationResolver dependencyToConfigurationResolver, ConflictHandler conflictHandler) {
         this.idResolver = componentIdResolver;
         this.metaDataResolver = componentMetaDataResolver;
+        this.metaDataPrefetcher = componentMetaDataPrefetcher;
         this.moduleResolver = resolveContextToComponentResolver;
         this.conflictHandler = conflictHandler;
         this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
@@ -69,7 +83,7 @@ public class DependencyGraphBuilder {
         DefaultBuildableComponentResolveResult rootModule = new DefaultBuildableComponentResolveResult();
         moduleResolver.resolve(resolveContext, rootModule);
 
-        ResolveState resolveState = new ResolveState(rootModule, resolveContext.getName(), idResolver, metaDataResolver, dependencyToConfigurationResolver);
+        ResolveState resolveState = new ResolveState(rootModule, resolveContext.getName(), idResolver, metaDataResolver, dependencyToConfigurationResolver, metaDataPrefetcher != null);
         conflictHandler.registerResolver(new DirectDependencyForcingResolver(resolveState.root.moduleRevision));
 
         traverseGraph(resolveState, conflictHandler);
@@ -86,6 +100,9 @@ public class DependencyGraphBuilder {
         List<DependencyEdge> dependencies = new ArrayList<DependencyEdge>();
         while (resolveState.peek() != null || conflictHandler.hasConflicts()) {
             if (resolveState.peek() != null) {
+                if (metaDataPrefetcher != null) {
+                    prefetchQueuedDependencies(resolveState);
+                }
                 ConfigurationNode node = resolveState.pop();
                 LOGGER.debug("Visiting configuration {}.", node);
 
@@ -154,6 +171,19 @@ public class DependencyGraphBuilder {
         }
     }
 
+    /**
+     * Announces the outgoing dependencies of each configuration queued since the previous call, unless they have been announced already. This does not
+     * change the state of the graph, so the configurations are traversed in the same order and with the same result as without prefetching.
+     */
+    private void prefetchQueuedDependencies(ResolveState resolveState) {
+        for (ConfigurationNode node : resolveState.newlyQueued) {
+            if (resolveState.prefetched.add(node)) {
+                node.prefetchOutgoingDependencies(metaDataPrefetcher);
+            }
+        }
+        resolveState.newlyQueued.clear();
+    }
+
     /**
      * Populates the result from the graph traversal state.
      */
@@ -317,9 +347,13 @@ public class DependencyGraphBuilder {
         private final DependencyToConfigurationResolver dependencyToConfigurationResolver;
         private final Set<ConfigurationNode> queued = new HashSet<ConfigurationNode>();
         private final LinkedList<ConfigurationNode> queue = new LinkedList<ConfigurationNode>();
+        private final boolean prefetching;
+        private final List<ConfigurationNode> newlyQueued = new ArrayList<ConfigurationNode>();
+        private final Set<ConfigurationNode> prefetched = new HashSet<ConfigurationNode>();
 
         public ResolveState(ComponentResolveResult rootResult, String rootConfigurationName, DependencyToComponentIdResolver idResolver,
-                            ComponentMetaDataResolver metaDataResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver) {
+                            ComponentMetaDataResolver metaDataResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver, boolean prefetching) {
+            this.prefetching = prefetching;
             this.idResolver = idResolver;
             this.metaDataResolver = metaDataResolver;
             this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
@@ -385,6 +419,9 @@ public class DependencyGraphBuilder {
             // possible before attempting to resolve them
             if (queued.add(configuration)) {
                 queue.addLast(configuration);
+                if (prefetching) {
+                    newlyQueued.add(configuration);
+                }
             }
         }
 
@@ -395,6 +432,9 @@ public class DependencyGraphBuilder {
             // Add to the front of the queue, to flush out configurations that are no longer required.
             if (queued.add(configuration)) {
                 queue.addFirst(configuration);
+                if (prefetching) {
+                    newlyQueued.add(configuration);
+                }
             }
         }
     }
@@ -682,13 +722,7 @@ public class DependencyGraphBuilder {
                 return;
             }
 
-            List<DependencyEdge> transitiveIncoming = new ArrayList<DependencyEdge>();
-            for (DependencyEdge edge : incomingEdges) {
-                if (edge.isTransitive()) {
-                    transitiveIncoming.add(edge);
-                }
-            }
-
+            List<DependencyEdge> transitiveIncoming = getTransitiveIncomingEdges();
             if (transitiveIncoming.isEmpty() && this != resolveState.root) {
                 if (previousTraversal != null) {
                     removeOutgoingEdges();
@@ -724,6 +758,40 @@ public class DependencyGraphBuilder {
             previousTraversal = resolutionFilter;
         }
 
+        /**
+         * Passes the dependencies that would be traversed if this configuration were visited now to the given prefetcher, without changing any state.
+         */
+        public void prefetchOutgoingDependencies(ComponentMetaDataPrefetcher prefetcher) {
+            if (moduleRevision.state != ModuleState.Selected) {
+                return;
+            }
+            List<DependencyEdge> transitiveIncoming = getTransitiveIncomingEdges();
+            if (transitiveIncoming.isEmpty() && this != resolveState.root) {
+                return;
+            }
+            ModuleResolutionFilter resolutionFilter = getModuleResolutionFilter(transitiveIncoming);
+            for (DependencyMetaData dependency : metaData.getDependencies()) {
+                ModuleVersionSelector requested = dependency.getRequested();
+                if (resolveState.selectors.containsKey(requested)) {
+                    // Already resolved
+                    continue;
+                }
+                if (resolutionFilter.acceptModule(DefaultModuleIdentifier.newId(requested.getGroup(), requested.getName()))) {
+                    prefetcher.prefetch(dependency);
+                }
+            }
+        }
+
+        private List<DependencyEdge> getTransitiveIncomingEdges() {
+            List<DependencyEdge> transitiveIncoming = new ArrayList<DependencyEdge>();
+            for (DependencyEdge edge : incomingEdges) {
+                if (edge.isTransitive()) {
+                    transitiveIncoming.add(edge);
+                }
+            }
+            return transitiveIncoming;
+        }
+
         private boolean isExcluded(ModuleResolutionFilter selector, ModuleIdentifier targetModuleId) {
             if(!selector.acceptModule(targetModuleId)) {
                 LOGGER.debug("{} is excluded from {}.", targetModuleId, this);
@@ -26,10 +26,14 @@ import java.io.*;
 
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
+/**
+ * A binary store that appends to a single file. Offsets into the file are longs, so the file may grow beyond 2GB.
+ */
 class DefaultBinaryStore implements BinaryStore, Closeable {
     private File file;
+    private FileOutputStream outputStream;
     private KryoBackedEncoder encoder;
-    private int offset = -1;
+    private long offset = -1;
 
     public DefaultBinaryStore(File file) {
         this.file = file;
@@ -38,17 +42,15 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
     public void write(WriteAction write) {
         if (encoder == null) {
             try {
-                encoder = new KryoBackedEncoder(new FileOutputStream(file));
+                outputStream = new FileOutputStream(file);
+                encoder = new KryoBackedEncoder(outputStream);
             } catch (FileNotFoundException e) {
                 throw throwAsUncheckedException(e);
             }
         }
         if (offset == -1) {
-            offset = encoder.getWritePosition();
-            if (offset == Integer.MAX_VALUE) {
-                throw new IllegalStateException("Unable to write to binary store. "
-                        + "The bytes offset has reached a point where using it is unsafe. Please report this error.");
-            }
+            // The encoder is flushed at the end of each data, so the position of the file is the start of the next one
+            offset = filePosition();
         }
         try {
             write.write(encoder);
@@ -57,6 +59,14 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
         }
     }
 
+    private long filePosition() {
+        try {
+            return outputStream.getChannel().position();
+        } catch (IOException e) {
+            throw throwAsUncheckedException(e);
+        }
+    }
+
     private String diagnose() {
         return toString() + " (exist: " + file.exists() + ")";
     }
@@ -86,6 +96,7 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
                 file.delete();
             }
             encoder = null;
+            outputStream = null;
             file = null;
         }
     }
@@ -99,14 +110,14 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
     }
 
     private static class SimpleBinaryData implements BinaryStore.BinaryData {
-        private final int offset;
+        private final long offset;
         private final File inputFile;
         private final String sourceDescription;
 
         private Decoder decoder;
         private CompositeStoppable resources;
 
-        public SimpleBinaryData(File inputFile, int offset, String sourceDescription) {
+        public SimpleBinaryData(File inputFile, long offset, String sourceDescription) {
             this.inputFile = inputFile;
             this.offset = offset;
             this.sourceDescription = sourceDescription;
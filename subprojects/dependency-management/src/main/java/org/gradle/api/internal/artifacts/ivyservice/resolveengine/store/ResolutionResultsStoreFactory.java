@@ -33,10 +33,10 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class ResolutionResultsStoreFactory implements Closeable {
     private final static Logger LOG = Logging.getLogger(ResolutionResultsStoreFactory.class);
-    private static final int DEFAULT_MAX_SIZE = 2000000000; //2 gigs
+    private static final long DEFAULT_MAX_SIZE = 2000000000; //2 gigs
 
     private final TemporaryFileProvider temp;
-    private int maxSize;
+    private long maxSize;
 
     private CachedStoreFactory<TransientConfigurationResults> oldModelCache;
     private CachedStoreFactory<ResolvedComponentResult> newModelCache;
@@ -51,7 +51,7 @@ public class ResolutionResultsStoreFactory implements Closeable {
      * @param temp - Provider of temporary files.
      * @param maxSize - indicates the approx. maximum size of the binary store that will trigger rolling of the file
      */
-    ResolutionResultsStoreFactory(TemporaryFileProvider temp, int maxSize) {
+    ResolutionResultsStoreFactory(TemporaryFileProvider temp, long maxSize) {
         this.temp = temp;
         this.maxSize = maxSize;
     }
@@ -107,10 +107,8 @@ public class ResolutionResultsStoreFactory implements Closeable {
         };
     }
 
-    //offset based implementation is only safe up to certain figure
-    //because of the int max value
-    //for large streams/files (huge builds), we need to roll the file
-    //otherwise the stream.size() returns max integer and the offset is no longer correct
+    //binary stores use long offsets, so rolling is not needed for correctness
+    //rolling keeps each temp file at a manageable size for huge builds
     private boolean isFull(DefaultBinaryStore store) {
         return store.getSize() > maxSize;
     }
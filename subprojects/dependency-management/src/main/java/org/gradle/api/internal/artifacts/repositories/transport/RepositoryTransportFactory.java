@@ -94,7 +94,7 @@ public class RepositoryTransportFactory {
         if (Collections.singleton("file").containsAll(schemes)) {
             return new FileTransport(name);
         }
-        ResourceConnectorSpecification connectionDetails = new DefaultResourceConnectorSpecification(authentications);
+        ResourceConnectorSpecification connectionDetails = new DefaultResourceConnectorSpecification(name, authentications);
         ExternalResourceConnector resourceConnector = connectorFactory.createResourceConnector(connectionDetails);
         return new ResourceConnectorRepositoryTransport(name, progressLoggerFactory, temporaryFileProvider, cachedExternalResourceIndex, timeProvider, cacheLockingManager, resourceConnector);
     }
@@ -153,12 +153,19 @@ public class RepositoryTransportFactory {
     }
 
     private class DefaultResourceConnectorSpecification implements ResourceConnectorSpecification {
+        private final String name;
         private final Collection<Authentication> authentications;
 
-        private DefaultResourceConnectorSpecification(Collection<Authentication> authentications) {
+        private DefaultResourceConnectorSpecification(String name, Collection<Authentication> authentications) {
+            this.name = name;
             this.authentications = authentications;
         }
 
+        @Override
+        public String getName() {
+            return name;
+        }
+
         @Override
         public <T> T getCredentials(Class<T> type) {
             if (authentications == null || authentications.size() < 1) {
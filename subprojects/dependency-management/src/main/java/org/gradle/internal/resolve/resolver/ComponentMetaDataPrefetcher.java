@@ -0,0 +1,30 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resolve.resolver;
+
+import org.gradle.internal.component.model.DependencyMetaData;
+
+/**
+ * Receives the dependencies that are likely to be traversed soon, so that the meta-data for their target components can be resolved ahead of time.
+ */
+public interface ComponentMetaDataPrefetcher {
+    /**
+     * Notifies this prefetcher that the given dependency is likely to be traversed. This is a hint only: the dependency may later be substituted,
+     * excluded or evicted, and the meta-data must still be resolved via a {@link ComponentMetaDataResolver} when it is actually required.
+     */
+    void prefetch(DependencyMetaData dependency);
+}
@@ -44,6 +44,51 @@ class DefaultResolvedArtifactTest extends Specification {
         artifact != differentId
     }
 
+    def "resolves file once and retains it"() {
+        def file = new File("artifact.jar")
+        def artifact = new DefaultResolvedArtifact(dep("group", "module1", "1.2"), Stub(IvyArtifactName), Stub(ComponentArtifactIdentifier), artifactSource)
+
+        expect:
+        !artifact.resolved
+
+        when:
+        def result = artifact.file
+
+        then:
+        result == file
+        artifact.resolved
+        1 * artifactSource.create() >> file
+
+        when:
+        result = artifact.file
+
+        then:
+        result == file
+        0 * artifactSource._
+    }
+
+    def "resolves file again when previous attempt failed"() {
+        def file = new File("artifact.jar")
+        def failure = new RuntimeException("broken")
+        def artifact = new DefaultResolvedArtifact(dep("group", "module1", "1.2"), Stub(IvyArtifactName), Stub(ComponentArtifactIdentifier), artifactSource)
+
+        when:
+        artifact.file
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+        !artifact.resolved
+        1 * artifactSource.create() >> { throw failure }
+
+        when:
+        def result = artifact.file
+
+        then:
+        result == file
+        1 * artifactSource.create() >> file
+    }
+
     def dep(String group, String moduleName, String version) {
         ResolvedModuleVersion module = Mock()
         _ * module.id >> new DefaultModuleVersionIdentifier(group, moduleName, version)
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.StartParameter
+import org.gradle.api.Task
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.LenientConfiguration
+import org.gradle.api.artifacts.ResolvedConfiguration
+import org.gradle.api.execution.TaskExecutionGraph
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
+import org.gradle.api.internal.file.CompositeFileCollection
+import org.gradle.api.internal.tasks.TaskDependencyResolveContext
+import org.gradle.api.tasks.TaskInputs
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class AheadOfTimeConfigurationResolverTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def resolver = new AheadOfTimeConfigurationResolver(executorFactory, 2)
+
+    def cleanup() {
+        resolver.buildFinished(null)
+        executorFactory.stop()
+    }
+
+    def "is enabled only when requested and parallel execution is enabled"() {
+        def startParameter = new StartParameter()
+        startParameter.parallelProjectExecutionEnabled = true
+
+        expect:
+        !AheadOfTimeConfigurationResolver.isEnabled(startParameter)
+
+        when:
+        System.setProperty(AheadOfTimeConfigurationResolver.TOGGLE_PROPERTY, "true")
+
+        then:
+        AheadOfTimeConfigurationResolver.isEnabled(startParameter)
+
+        when:
+        startParameter.parallelProjectExecutionEnabled = false
+
+        then:
+        !AheadOfTimeConfigurationResolver.isEnabled(startParameter)
+
+        cleanup:
+        System.clearProperty(AheadOfTimeConfigurationResolver.TOGGLE_PROPERTY)
+    }
+
+    def "resolves unresolved configurations used as task inputs"() {
+        def latch = new CountDownLatch(2)
+        def lenientConfiguration = Mock(LenientConfiguration)
+        def resolvedConfiguration = Stub(ResolvedConfiguration) {
+            getLenientConfiguration() >> lenientConfiguration
+        }
+        def config1 = unresolved(resolvedConfiguration, latch)
+        def config2 = unresolved(resolvedConfiguration, latch)
+        def resolved = Mock(ConfigurationInternal) {
+            getState() >> Configuration.State.RESOLVED
+        }
+        def nested = Mock(CompositeFileCollection) {
+            visitDependencies(_) >> { TaskDependencyResolveContext context -> context.add(config2); context.add(resolved) }
+        }
+        def inputs = Mock(CompositeFileCollection) {
+            visitDependencies(_) >> { TaskDependencyResolveContext context -> context.add(config1); context.add(nested) }
+        }
+        def graph = Stub(TaskExecutionGraph) {
+            getAllTasks() >> [task(inputs), task(config1)]
+        }
+
+        when:
+        resolver.graphReady(graph)
+
+        then:
+        latch.await(10, TimeUnit.SECONDS)
+        0 * resolved.getResolvedConfiguration()
+    }
+
+    def "ignores failure to resolve a configuration"() {
+        def latch = new CountDownLatch(1)
+        def configuration = Stub(ConfigurationInternal) {
+            getState() >> Configuration.State.UNRESOLVED
+            getResolvedConfiguration() >> {
+                latch.countDown()
+                throw new RuntimeException("broken")
+            }
+        }
+        def graph = Stub(TaskExecutionGraph) {
+            getAllTasks() >> [task(configuration)]
+        }
+
+        when:
+        resolver.graphReady(graph)
+
+        then:
+        latch.await(10, TimeUnit.SECONDS)
+        noExceptionThrown()
+    }
+
+    def unresolved(ResolvedConfiguration resolvedConfiguration, CountDownLatch latch) {
+        return Stub(ConfigurationInternal) {
+            getState() >> Configuration.State.UNRESOLVED
+            getResolvedConfiguration() >> {
+                latch.countDown()
+                resolvedConfiguration
+            }
+        }
+    }
+
+    def task(Object inputFiles) {
+        def inputs = Stub(TaskInputs) {
+            getFiles() >> inputFiles
+        }
+        return Stub(Task) {
+            getInputs() >> inputs
+        }
+    }
+}
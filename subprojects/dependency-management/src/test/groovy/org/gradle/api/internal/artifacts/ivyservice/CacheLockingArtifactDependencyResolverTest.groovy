@@ -27,9 +27,9 @@ class CacheLockingArtifactDependencyResolverTest extends Specification {
     final target = Mock(ArtifactDependencyResolver)
     final metadataHandler = Stub(GlobalDependencyResolutionRules)
     final List<ResolutionAwareRepository> repositories = [Mock(ResolutionAwareRepository)]
-    final CacheLockingArtifactDependencyResolver resolver = new CacheLockingArtifactDependencyResolver(lockingManager, target)
 
     def "resolves while holding a lock on the cache"() {
+        def resolver = new CacheLockingArtifactDependencyResolver(lockingManager, target, false)
         ConfigurationInternal configuration = Mock()
         def graphVisitor = Mock(DependencyGraphVisitor)
         def artifactVisitor = Mock(DependencyArtifactsVisitor)
@@ -43,4 +43,18 @@ class CacheLockingArtifactDependencyResolverTest extends Specification {
         }
         1 * target.resolve(configuration, repositories, metadataHandler, graphVisitor, artifactVisitor)
     }
+
+    def "resolves without holding a lock on the cache when fine-grained locking is enabled"() {
+        def resolver = new CacheLockingArtifactDependencyResolver(lockingManager, target, true)
+        ConfigurationInternal configuration = Mock()
+        def graphVisitor = Mock(DependencyGraphVisitor)
+        def artifactVisitor = Mock(DependencyArtifactsVisitor)
+
+        when:
+        resolver.resolve(configuration, repositories, metadataHandler, graphVisitor, artifactVisitor)
+
+        then:
+        1 * target.resolve(configuration, repositories, metadataHandler, graphVisitor, artifactVisitor)
+        0 * lockingManager._
+    }
 }
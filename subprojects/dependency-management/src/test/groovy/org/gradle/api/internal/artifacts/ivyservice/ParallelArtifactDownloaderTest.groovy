@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.artifacts.ResolvedArtifact
+import org.gradle.api.artifacts.ResolvedModuleVersion
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact
+import org.gradle.internal.Factory
+import org.gradle.internal.component.model.IvyArtifactName
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.logging.ProgressLogger
+import org.gradle.logging.ProgressLoggerFactory
+import spock.lang.Specification
+
+class ParallelArtifactDownloaderTest extends Specification {
+    def cacheLockingManager = Mock(CacheLockingManager)
+    def progressLogger = Mock(ProgressLogger)
+    def progressLoggerFactory = Stub(ProgressLoggerFactory) {
+        newOperation(_ as Class) >> progressLogger
+    }
+    def executorFactory = new DefaultExecutorFactory()
+    def downloader = new ParallelArtifactDownloader(cacheLockingManager, executorFactory, progressLoggerFactory, 4)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "resolves files of unresolved artifacts concurrently while cache is released"() {
+        def testThread = Thread.currentThread()
+        def threads = [] as Set
+        def sources = (1..3).collect { index ->
+            Stub(Factory) {
+                create() >> {
+                    synchronized (threads) {
+                        threads << Thread.currentThread()
+                    }
+                    new File("artifact-${index}.jar")
+                }
+            }
+        }
+        def artifacts = sources.collect { artifact(it) }
+
+        when:
+        downloader.download("config", artifacts)
+
+        then:
+        1 * progressLogger.start("Resolve files of config", "Resolving files of config") >> progressLogger
+        1 * cacheLockingManager.longRunningOperation("Resolve files of config", _ as Runnable) >> { String name, Runnable action -> action.run() }
+        1 * progressLogger.progress("1 of 3 files resolved")
+        1 * progressLogger.progress("2 of 3 files resolved")
+        1 * progressLogger.progress("3 of 3 files resolved")
+        1 * progressLogger.completed()
+
+        and:
+        artifacts.every { it.resolved }
+        !threads.contains(testThread)
+    }
+
+    def "ignores failure to resolve file"() {
+        def failing = artifact(Stub(Factory) {
+            create() >> { throw new RuntimeException("broken") }
+        })
+        def ok = artifact(Stub(Factory) {
+            create() >> new File("artifact.jar")
+        })
+
+        when:
+        downloader.download("config", [failing, ok])
+
+        then:
+        1 * progressLogger.start(_, _) >> progressLogger
+        1 * cacheLockingManager.longRunningOperation(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+
+        and:
+        !failing.resolved
+        ok.resolved
+    }
+
+    def "does nothing when fewer than two files need to be resolved"() {
+        def resolved = artifact(Stub(Factory) {
+            create() >> new File("resolved.jar")
+        })
+        resolved.file
+        def unresolved = artifact(Mock(Factory))
+
+        when:
+        downloader.download("config", [resolved, unresolved, Stub(ResolvedArtifact)])
+
+        then:
+        !unresolved.resolved
+        0 * cacheLockingManager._
+        0 * progressLogger._
+    }
+
+    def "does nothing when parallel resolution is disabled"() {
+        def downloader = new ParallelArtifactDownloader(cacheLockingManager, executorFactory, progressLoggerFactory, 1)
+        def artifacts = (1..3).collect { artifact(Mock(Factory)) }
+
+        when:
+        downloader.download("config", artifacts)
+
+        then:
+        artifacts.every { !it.resolved }
+        0 * cacheLockingManager._
+        0 * progressLogger._
+    }
+
+    def artifact(Factory<File> source) {
+        return new DefaultResolvedArtifact(Stub(ResolvedModuleVersion), Stub(IvyArtifactName), Stub(ComponentArtifactIdentifier), source)
+    }
+}
@@ -109,6 +109,26 @@ class DefaultDependencySubstitutionsSpec extends Specification {
         0 * _
     }
 
+    def "reports rules added using all() or allWithDependencyResolveDetails()"() {
+        expect:
+        !substitutions.hasRules()
+        !substitutions.hasDependencySubstitutionRules()
+
+        when:
+        substitutions.allWithDependencyResolveDetails(Mock(Action))
+
+        then:
+        substitutions.hasRules()
+        !substitutions.hasDependencySubstitutionRules()
+
+        when:
+        substitutions.all(Mock(Action))
+
+        then:
+        substitutions.hasRules()
+        substitutions.hasDependencySubstitutionRules()
+    }
+
     @Unroll
     def "substitute module() matches only given module: #matchingModule"() {
         given:
@@ -22,7 +22,9 @@ import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePoli
 import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.ModuleVersionsCache
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleArtifactsCache
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.RepositoryMissIndex
 import org.gradle.api.internal.component.ArtifactType
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetaData
 import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetaData
@@ -46,10 +48,11 @@ class CachingModuleComponentRepositoryTest extends Specification {
     def moduleDescriptorCache = Mock(ModuleMetaDataCache)
     def moduleArtifactsCache = Mock(ModuleArtifactsCache)
     def artifactAtRepositoryCache = Mock(CachedArtifactIndex)
+    def repositoryMissIndex = Mock(RepositoryMissIndex)
     def cachePolicy = Stub(CachePolicy)
     def metadataProcessor = Stub(ComponentMetadataProcessor)
     def repo = new CachingModuleComponentRepository(realRepo, moduleResolutionCache, moduleDescriptorCache, moduleArtifactsCache, artifactAtRepositoryCache,
-            cachePolicy, new BuildCommencedTimeProvider(), metadataProcessor)
+            repositoryMissIndex, cachePolicy, new BuildCommencedTimeProvider(), metadataProcessor)
 
     @Unroll
     def "artifact last modified date is cached - lastModified = #lastModified"() {
@@ -149,4 +152,35 @@ class CachingModuleComponentRepositoryTest extends Specification {
         }
         0 * _
     }
+
+    def "does not request meta-data of module version that is missing from repository according to miss index"() {
+        def componentId = DefaultModuleComponentIdentifier.newId("org", "foo", "1.0")
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+
+        when:
+        repo.remoteAccess.resolveComponentMetaData(componentId, Stub(ComponentOverrideMetadata), result)
+
+        then:
+        1 * repositoryMissIndex.isMissing(realRepo, componentId) >> true
+        0 * realRemoteAccess._
+
+        and:
+        result.state == BuildableModuleComponentMetaDataResolveResult.State.Missing
+    }
+
+    def "requests meta-data of module version and records miss when miss index does not know module version to be missing"() {
+        def componentId = DefaultModuleComponentIdentifier.newId("org", "foo", "1.0")
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+
+        when:
+        repo.remoteAccess.resolveComponentMetaData(componentId, Stub(ComponentOverrideMetadata), result)
+
+        then:
+        1 * repositoryMissIndex.isMissing(realRepo, componentId) >> false
+        1 * realRemoteAccess.resolveComponentMetaData(componentId, _, result) >> {
+            result.missing()
+        }
+        1 * moduleDescriptorCache.cacheMissing(realRepo, componentId)
+        1 * repositoryMissIndex.recordMissing(realRepo, componentId)
+    }
 }
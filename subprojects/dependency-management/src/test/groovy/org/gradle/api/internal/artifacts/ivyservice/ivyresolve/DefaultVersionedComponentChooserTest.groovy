@@ -119,6 +119,60 @@ class DefaultVersionedComponentChooserTest extends Specification {
         selectedComponentResult.match == selected
     }
 
+    def "chooses newest version within range"() {
+        given:
+        def selector = new DefaultModuleVersionSelector("group", "name", "[1.0,2.0)")
+        def selected = DefaultModuleComponentIdentifier.newId("group", "name", "1.5")
+        def dependency = Mock(DependencyMetaData)
+        def a = Mock(ModuleComponentResolveState)
+        def b = Mock(ModuleComponentResolveState)
+        def c = Mock(ModuleComponentResolveState)
+        def d = Mock(ModuleComponentResolveState)
+        def selectedComponentResult = new DefaultBuildableComponentSelectionResult()
+
+        when:
+        chooser.selectNewestMatchingComponent([c, a, d, b], selectedComponentResult, dependency.getRequested())
+
+        then:
+        _ * dependency.requested >> selector
+        _ * a.version >> "1.0"
+        _ * b.version >> "1.5"
+        _ * b.id >> selected
+        _ * c.version >> "2.0"
+        _ * d.version >> "3.0"
+        _ * componentSelectionRules.rules >> []
+        0 * _
+
+        and:
+        selectedComponentResult.match == selected
+        selectedComponentResult.unmatchedVersions == ["3.0", "2.0"] as Set
+    }
+
+    def "reports all versions outside of range as not matched"() {
+        given:
+        def selector = new DefaultModuleVersionSelector("group", "name", "]1.0,1.5]")
+        def dependency = Mock(DependencyMetaData)
+        def a = Mock(ModuleComponentResolveState)
+        def b = Mock(ModuleComponentResolveState)
+        def c = Mock(ModuleComponentResolveState)
+        def selectedComponentResult = new DefaultBuildableComponentSelectionResult()
+
+        when:
+        chooser.selectNewestMatchingComponent([b, c, a], selectedComponentResult, dependency.getRequested())
+
+        then:
+        _ * dependency.requested >> selector
+        _ * componentSelectionRules.rules >> []
+        _ * a.version >> "0.9"
+        _ * b.version >> "1.0"
+        _ * c.version >> "2.0"
+        0 * _
+
+        and:
+        selectedComponentResult.state == NoMatch
+        selectedComponentResult.unmatchedVersions == ["2.0", "1.0", "0.9"] as Set
+    }
+
     def "chooses newest matching version requiring metadata"() {
         given:
         def selector = new DefaultModuleVersionSelector("group", "name", "latest.milestone")
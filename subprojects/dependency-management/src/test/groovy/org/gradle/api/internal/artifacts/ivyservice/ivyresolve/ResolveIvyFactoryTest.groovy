@@ -27,6 +27,7 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionC
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleArtifactsCache
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.RepositoryMissIndex
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository
 import org.gradle.api.internal.artifacts.repositories.resolver.ExternalResourceResolver
 import org.gradle.api.internal.artifacts.repositories.resolver.VersionLister
@@ -45,6 +46,7 @@ class ResolveIvyFactoryTest extends Specification {
     ModuleMetaDataCache moduleMetaDataCache
     ModuleArtifactsCache moduleArtifactsCache
     CachedArtifactIndex cachedArtifactIndex
+    RepositoryMissIndex repositoryMissIndex
     CacheLockingManager cacheLockingManager
     StartParameterResolutionOverride startParameterResolutionOverride
     BuildCommencedTimeProvider buildCommencedTimeProvider
@@ -57,9 +59,11 @@ class ResolveIvyFactoryTest extends Specification {
         moduleMetaDataCache = Mock(ModuleMetaDataCache)
         moduleArtifactsCache = Mock(ModuleArtifactsCache)
         cachedArtifactIndex = Mock(CachedArtifactIndex)
+        repositoryMissIndex = Mock(RepositoryMissIndex)
         cacheLockingManager = Mock(CacheLockingManager)
         startParameterResolutionOverride = Mock(StartParameterResolutionOverride) {
             _ * overrideModuleVersionRepository(_) >> { ModuleComponentRepository repository -> repository }
+            _ * overrideRepositoryMissIndex(_) >> { RepositoryMissIndex index -> index }
         }
         buildCommencedTimeProvider = Mock(BuildCommencedTimeProvider)
         inMemoryCachedRepositoryFactory = Mock(InMemoryCachedRepositoryFactory) {
@@ -69,7 +73,7 @@ class ResolveIvyFactoryTest extends Specification {
         versionComparator = Mock(VersionComparator)
 
         resolveIvyFactory = new ResolveIvyFactory(moduleVersionsCache, moduleMetaDataCache, moduleArtifactsCache,
-              cachedArtifactIndex, cacheLockingManager, startParameterResolutionOverride, buildCommencedTimeProvider,
+              cachedArtifactIndex, repositoryMissIndex, cacheLockingManager, startParameterResolutionOverride, buildCommencedTimeProvider,
               inMemoryCachedRepositoryFactory, versionSelectorScheme, versionComparator)
     }
 
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy
+
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.VersionInfo
+import spock.lang.Specification
+
+class VersionIndexTest extends Specification {
+    def versionParser = new VersionParser()
+    def comparator = new DefaultVersionComparator().asVersionComparator()
+
+    def "sorts elements latest first"() {
+        expect:
+        versions(index("1.0", "2.0-rc-1", "1.10", "1.2", "2.0")) == ["2.0", "2.0-rc-1", "1.10", "1.2", "1.0"]
+    }
+
+    def "retains elements already sorted latest first"() {
+        expect:
+        versions(index("3.0", "2.0", "1.0")) == ["3.0", "2.0", "1.0"]
+    }
+
+    def "locates latest element lower than a version"() {
+        def index = index("1.0", "1.5", "2.0", "2.5", "3.0")
+
+        expect:
+        index.indexOfLatestLowerThan(versionParser.transform(version), inclusive) == position
+
+        where:
+        version | inclusive | position
+        "4.0"   | false     | 0
+        "3.0"   | true      | 0
+        "3.0"   | false     | 1
+        "2.1"   | false     | 2
+        "2.0"   | true      | 2
+        "2.0"   | false     | 3
+        "1.0"   | true      | 4
+        "1.0"   | false     | 5
+        "0.5"   | true      | 5
+    }
+
+    def "locates elements in empty index"() {
+        expect:
+        index().indexOfLatestLowerThan(versionParser.transform("1.0"), true) == 0
+    }
+
+    private VersionIndex<VersionInfo> index(String... versions) {
+        return new VersionIndex<VersionInfo>(versions.collect { new VersionInfo(it) }, versionParser, comparator)
+    }
+
+    private static List<String> versions(VersionIndex<VersionInfo> index) {
+        return index.elements*.version
+    }
+}
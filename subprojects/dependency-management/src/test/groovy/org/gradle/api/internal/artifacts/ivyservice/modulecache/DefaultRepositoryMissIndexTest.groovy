@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.serialize.Serializer
+import org.gradle.testfixtures.internal.InMemoryIndexedCache
+import org.gradle.util.BuildCommencedTimeProvider
+import spock.lang.Specification
+
+class DefaultRepositoryMissIndexTest extends Specification {
+    def time = 100000L
+    def timeProvider = Stub(BuildCommencedTimeProvider) {
+        getCurrentTime() >> { time }
+    }
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        createCache("module-version-misses", _, _) >> { String name, Serializer keySerializer, Serializer valueSerializer -> new InMemoryIndexedCache(valueSerializer) }
+    }
+    def index = new DefaultRepositoryMissIndex(timeProvider, cacheLockingManager, 5000)
+    def repo1 = repo("repo1")
+    def repo2 = repo("repo2")
+    def component = DefaultModuleComponentIdentifier.newId("org", "foo", "1.0")
+
+    def "module version is missing when it is absent from repository and has been found in another repository"() {
+        when:
+        index.recordMissing(repo1, component)
+
+        then:
+        !index.isMissing(repo1, component)
+
+        when:
+        index.recordPresent(repo2, component)
+
+        then:
+        index.isMissing(repo1, component)
+        !index.isMissing(repo2, component)
+        !index.isMissing(repo1, DefaultModuleComponentIdentifier.newId("org", "foo", "2.0"))
+    }
+
+    def "miss expires after expiry period"() {
+        given:
+        index.recordPresent(repo2, component)
+        index.recordMissing(repo1, component)
+
+        when:
+        time += 5000
+
+        then:
+        index.isMissing(repo1, component)
+
+        when:
+        time += 1
+
+        then:
+        !index.isMissing(repo1, component)
+    }
+
+    def "module version is no longer missing once found in repository"() {
+        given:
+        index.recordPresent(repo2, component)
+        index.recordMissing(repo1, component)
+
+        when:
+        index.recordPresent(repo1, component)
+
+        then:
+        !index.isMissing(repo1, component)
+    }
+
+    private ModuleComponentRepository repo(String id) {
+        return Stub(ModuleComponentRepository) {
+            getId() >> id
+            getName() >> id
+        }
+    }
+}
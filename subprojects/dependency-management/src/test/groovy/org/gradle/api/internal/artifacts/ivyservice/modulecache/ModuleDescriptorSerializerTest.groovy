@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor
+import org.apache.ivy.plugins.matcher.ExactPatternMatcher
+import org.apache.ivy.plugins.matcher.GlobPatternMatcher
+import org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter
+import org.gradle.api.internal.artifacts.ivyservice.NamespaceId
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.DescriptorParseContext
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.ResolverStrategy
+import org.gradle.internal.serialize.SerializerSpec
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+
+class ModuleDescriptorSerializerTest extends SerializerSpec {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    ResolverStrategy resolverStrategy = Stub()
+    ModuleDescriptorSerializer serializer = new ModuleDescriptorSerializer(resolverStrategy)
+
+    def setup() {
+        resolverStrategy.getPatternMatcher("exact") >> ExactPatternMatcher.INSTANCE
+        resolverStrategy.getPatternMatcher("glob") >> GlobPatternMatcher.INSTANCE
+    }
+
+    def "serializes descriptor"() {
+        given:
+        def md = parse """
+<ivy-module version="2.0" xmlns:e="http://ant.apache.org/ivy/extra">
+    <info organisation="myorg" module="mymodule" branch="trunk" revision="1.2" status="release" publication="20160101120000" e:buildNr="815">
+        <license name="Apache" url="http://www.apache.org/licenses/LICENSE-2.0"/>
+        <description homepage="http://myorg.org/mymodule">Some module</description>
+        <e:someInfo>info</e:someInfo>
+    </info>
+    <configurations>
+        <conf name="compile" description="compile classpath"/>
+        <conf name="runtime" extends="compile" transitive="false"/>
+        <conf name="private" visibility="private" deprecated="20160101"/>
+    </configurations>
+    <publications>
+        <artifact name="mymodule" type="jar" ext="jar" conf="compile,runtime" e:classifier="all"/>
+        <artifact name="mymodule-sources" type="source" ext="jar" conf="private"/>
+    </publications>
+    <dependencies>
+        <dependency org="other" name="lib" rev="1.0" revConstraint="latest.integration" force="true" changing="true" conf="compile->default;runtime->*,@">
+            <artifact name="lib" type="zip" ext="zip" conf="compile"/>
+            <include name="lib" type="jar" ext="jar" matcher="exact" conf="runtime"/>
+            <exclude org="excluded" module="thing" matcher="glob"/>
+        </dependency>
+        <dependency org="other" name="util" branch="b" rev="2.0" transitive="false" conf="runtime->#" e:flavour="light"/>
+        <exclude org="org" module="unwanted" conf="runtime"/>
+    </dependencies>
+</ivy-module>
+"""
+
+        when:
+        def result = serialize(md, serializer)
+
+        then:
+        result.moduleRevisionId == md.moduleRevisionId
+        result.resolvedPublicationDate == md.resolvedPublicationDate
+        result.extraInfo[new NamespaceId("http://ant.apache.org/ivy/extra", "someInfo")] == "info"
+        result.dependencies*.dependencyRevisionId == md.dependencies*.dependencyRevisionId
+        result.dependencies*.dynamicConstraintDependencyRevisionId == md.dependencies*.dynamicConstraintDependencyRevisionId
+        result.getDependencies()[0].getDependencyConfigurations("runtime") == md.getDependencies()[0].getDependencyConfigurations("runtime")
+        asIvyXml(result) == asIvyXml(md)
+    }
+
+    def "serializes minimal descriptor"() {
+        given:
+        def md = parse """
+<ivy-module version="1.0">
+    <info organisation="myorg" module="mymodule" revision="myrev"/>
+</ivy-module>
+"""
+
+        when:
+        def result = serialize(md, serializer)
+
+        then:
+        result.configurationsNames == ["default"]
+        result.getArtifacts("default")*.name == ["mymodule"]
+        asIvyXml(result) == asIvyXml(md)
+    }
+
+    private ModuleDescriptor parse(String ivyXml) {
+        def file = temporaryFolder.file("ivy.xml")
+        file.text = ivyXml
+        return new IvyXmlModuleDescriptorParser(resolverStrategy).parseMetaData(Stub(DescriptorParseContext), file, false).descriptor
+    }
+
+    private String asIvyXml(ModuleDescriptor md) {
+        def file = temporaryFolder.file("written.xml")
+        new IvyXmlModuleDescriptorWriter().write(md, file)
+        return file.text
+    }
+}
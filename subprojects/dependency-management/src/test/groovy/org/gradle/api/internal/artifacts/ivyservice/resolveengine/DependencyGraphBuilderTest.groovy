@@ -29,6 +29,7 @@ import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
 import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
 import org.gradle.api.internal.artifacts.ivyservice.DefaultLenientConfiguration
+import org.gradle.api.internal.artifacts.ivyservice.ParallelArtifactDownloader
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultResolvedArtifactsBuilder
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactsGraphVisitor
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyArtifactsVisitor
@@ -54,6 +55,7 @@ import org.gradle.internal.component.model.*
 import org.gradle.internal.resolve.ModuleVersionNotFoundException
 import org.gradle.internal.resolve.ModuleVersionResolveException
 import org.gradle.internal.resolve.resolver.ArtifactResolver
+import org.gradle.internal.resolve.resolver.ComponentMetaDataPrefetcher
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver
 import org.gradle.internal.resolve.resolver.ResolveContextToComponentResolver
@@ -108,7 +110,7 @@ class DependencyGraphBuilderTest extends Specification {
         def graphResults = modelBuilder.complete()
         def artifactResults = artifactsBuilder.resolve()
 
-        new DefaultLenientConfiguration(configuration, Stub(CacheLockingManager), graphResults.getUnresolvedDependencies(),
+        new DefaultLenientConfiguration(configuration, Stub(CacheLockingManager), Stub(ParallelArtifactDownloader), graphResults.getUnresolvedDependencies(),
                 artifactResults, new TransientConfigurationResultsLoader(transientConfigurationResultsBuilder, graphResults, artifactResults))
     }
 
@@ -493,6 +495,33 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(a, b)
     }
 
+    def "announces the outgoing dependencies of queued configurations to the prefetcher"() {
+        given:
+        def prefetcher = Mock(ComponentMetaDataPrefetcher)
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, prefetcher, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements))
+        def a = revision('a')
+        def b = revision('b')
+        def c = revision('c')
+        def d = revision('d')
+        traverses root, a
+        traverses root, b
+        traverses a, c, exclude: d
+        doesNotResolve c, d
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * prefetcher.prefetch({ it.requested.name == 'a' })
+        1 * prefetcher.prefetch({ it.requested.name == 'b' })
+        1 * prefetcher.prefetch({ it.requested.name == 'c' })
+        0 * prefetcher._
+
+        and:
+        modules(result) == ids(a, b, c)
+    }
+
     def "does not include the artifacts of evicted modules"() {
         given:
         def selected = revision('a', '1.2')
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine
+
+import org.gradle.api.Action
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.internal.Factory
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.local.model.DefaultProjectComponentSelector
+import org.gradle.internal.component.model.ComponentResolveMetaData
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata
+import org.gradle.internal.component.model.DependencyMetaData
+import org.gradle.internal.component.model.IvyArtifactName
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.resolve.ModuleVersionResolveException
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult
+import spock.lang.Specification
+
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionSelector.newSelector
+
+class ParallelComponentMetaDataResolverTest extends Specification {
+    def delegate = Mock(ComponentMetaDataResolver)
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        useCache(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+        longRunningOperation(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+        longRunningOperation(_, _ as Factory) >> { String name, Factory action -> action.create() }
+    }
+    def ivyContextManager = Stub(IvyContextManager) {
+        withIvy(_ as Action) >> { Action action -> action.execute(null) }
+    }
+    def executorFactory = new DefaultExecutorFactory()
+    def testThread = Thread.currentThread()
+    def resolver = new ParallelComponentMetaDataResolver(delegate, cacheLockingManager, ivyContextManager, new DefaultVersionSelectorScheme(new DefaultVersionComparator()), executorFactory, 4)
+
+    def cleanup() {
+        resolver.stop()
+        executorFactory.stop()
+    }
+
+    def "uses prefetched meta-data when component is resolved"() {
+        def id = DefaultModuleComponentIdentifier.newId("group", "a", "1.0")
+        def metaData = Stub(ComponentResolveMetaData)
+        def result = new DefaultBuildableComponentResolveResult()
+
+        when:
+        resolver.prefetch(dependency("group", "a", "1.0"))
+        resolver.resolve(id, new DefaultComponentOverrideMetadata(), result)
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args ->
+            assert Thread.currentThread() != testThread
+            BuildableComponentResolveResult delegateResult = args[2]
+            delegateResult.attempted("somewhere")
+            delegateResult.resolved(metaData)
+        }
+        0 * delegate._
+
+        and:
+        result.metaData == metaData
+        result.attempted == ["somewhere"]
+    }
+
+    def "prefetches each component once"() {
+        def id = DefaultModuleComponentIdentifier.newId("group", "a", "1.0")
+
+        when:
+        resolver.prefetch(dependency("group", "a", "1.0"))
+        resolver.prefetch(dependency("group", "a", "1.0"))
+        resolver.resolve(id, new DefaultComponentOverrideMetadata(), new DefaultBuildableComponentResolveResult())
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args -> args[2].notFound(id) }
+        0 * delegate._
+    }
+
+    def "uses prefetched failure when component is resolved"() {
+        def id = DefaultModuleComponentIdentifier.newId("group", "a", "1.0")
+        def failure = new ModuleVersionResolveException(newSelector("group", "a", "1.0"), "broken")
+        def result = new DefaultBuildableComponentResolveResult()
+
+        when:
+        resolver.prefetch(dependency("group", "a", "1.0"))
+        resolver.resolve(id, new DefaultComponentOverrideMetadata(), result)
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args -> args[2].failed(failure) }
+        0 * delegate._
+
+        and:
+        result.failure == failure
+    }
+
+    def "resolves component again when prefetch fails unexpectedly"() {
+        def id = DefaultModuleComponentIdentifier.newId("group", "a", "1.0")
+        def metaData = Stub(ComponentResolveMetaData)
+        def result = new DefaultBuildableComponentResolveResult()
+
+        when:
+        resolver.prefetch(dependency("group", "a", "1.0"))
+        resolver.resolve(id, new DefaultComponentOverrideMetadata(), result)
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { throw new RuntimeException("broken") }
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args ->
+            assert Thread.currentThread() == testThread
+            args[2].resolved(metaData)
+        }
+        0 * delegate._
+
+        and:
+        result.metaData == metaData
+    }
+
+    def "does not prefetch dynamic versions or project components"() {
+        def dynamic = dependency("group", "a", "1.+")
+        def project = Stub(DependencyMetaData) {
+            getSelector() >> DefaultProjectComponentSelector.newSelector(":a")
+        }
+
+        when:
+        resolver.prefetch(dynamic)
+        resolver.prefetch(project)
+        resolver.stop()
+
+        then:
+        0 * delegate._
+    }
+
+    def "does not use prefetched meta-data when component is resolved with overrides"() {
+        def id = DefaultModuleComponentIdentifier.newId("group", "a", "1.0")
+        def overrides = new DefaultComponentOverrideMetadata().withChanging()
+        def metaData = Stub(ComponentResolveMetaData)
+        def result = new DefaultBuildableComponentResolveResult()
+
+        when:
+        resolver.prefetch(dependency("group", "a", "1.0"))
+        resolver.stop()
+
+        then:
+        (0..1) * delegate.resolve(id, _, _)
+
+        when:
+        resolver.resolve(id, overrides, result)
+
+        then:
+        1 * delegate.resolve(id, overrides, _) >> { args -> args[2].resolved(metaData) }
+        0 * delegate._
+
+        and:
+        result.metaData == metaData
+    }
+
+    def dependency(String group, String module, String version) {
+        return Stub(DependencyMetaData) {
+            getSelector() >> DefaultModuleComponentSelector.newSelector(group, module, version)
+            getRequested() >> newSelector(group, module, version)
+            getArtifacts() >> ([] as Set<IvyArtifactName>)
+        }
+    }
+}
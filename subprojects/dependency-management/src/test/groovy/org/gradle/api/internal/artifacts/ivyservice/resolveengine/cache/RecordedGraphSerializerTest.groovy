@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.cache
+
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.CachingModuleComponentRepository
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.RepositoryChainModuleSource
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DefaultModuleVersionSelection
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.serialize.SerializerSpec
+
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
+
+class RecordedGraphSerializerTest extends SerializerSpec {
+    def serializer = new RecordedGraphSerializer()
+
+    def "serializes graph"() {
+        def rootId = newId("org", "root", "1.0")
+        def childId = newId("org", "child", "2.0")
+        def childComponentId = DefaultModuleComponentIdentifier.newId("org", "child", "2.0")
+        def root = new RecordedGraph.Node(new ResolvedConfigurationIdentifier(rootId, "compile"), new DefaultModuleVersionSelection(rootId, VersionSelectionReasons.ROOT, DefaultModuleComponentIdentifier.newId("org", "root", "1.0")), null)
+        def source = new RepositoryChainModuleSource("repo", new CachingModuleComponentRepository.CachingModuleSource(BigInteger.TEN, false, null))
+        def child = new RecordedGraph.Node(new ResolvedConfigurationIdentifier(childId, "default"), new DefaultModuleVersionSelection(childId, VersionSelectionReasons.CONFLICT_RESOLUTION, childComponentId), source)
+        root.outgoingEdges << 0
+        child.incomingEdges << 0
+        child.artifacts << new RecordedGraph.ArtifactsVisit(0, 12L)
+        def edge = new RecordedGraph.Edge(0, new DefaultModuleComponentSelector("org", "child", "1.+"), new DefaultModuleVersionSelector("org", "child", "1.+"), childId, 0)
+        def artifactId = new DefaultModuleComponentArtifactIdentifier(childComponentId, "child", "jar", "jar")
+        def graph = new RecordedGraph(1234L, 0, [root, child], [edge], [(12L): [artifactId]])
+
+        when:
+        def result = serialize(graph, serializer)
+
+        then:
+        result.inputsTimestamp == 1234L
+        result.rootIndex == 0
+        result.nodes.size() == 2
+        result.nodes[0].id == root.id
+        result.nodes[0].source == null
+        result.nodes[0].outgoingEdges == [0]
+        result.nodes[1].id == child.id
+        result.nodes[1].selection.selectionReason == VersionSelectionReasons.CONFLICT_RESOLUTION
+        result.nodes[1].selection.componentId == childComponentId
+        result.nodes[1].source.repositoryId == "repo"
+        result.nodes[1].source.delegate.descriptorHash == BigInteger.TEN
+        result.nodes[1].incomingEdges == [0]
+        result.nodes[1].artifacts.size() == 1
+        result.nodes[1].artifacts[0].parent == 0
+        result.nodes[1].artifacts[0].artifactSetId == 12L
+
+        and:
+        result.edges.size() == 1
+        result.edges[0].from == 0
+        result.edges[0].requested == edge.requested
+        result.edges[0].requestedModuleVersion == edge.requestedModuleVersion
+        result.edges[0].selected == childId
+        result.edges[0].dependencyIndex == 0
+
+        and:
+        result.artifactSets == [(12L): [artifactId]]
+    }
+
+    def "serializes edge without first level dependency"() {
+        def edge = new RecordedGraph.Edge(1, new DefaultModuleComponentSelector("org", "a", "1.0"), new DefaultModuleVersionSelector("org", "a", "1.0"), newId("org", "a", "1.0"), -1)
+        def graph = new RecordedGraph(0L, 0, [], [edge], [:])
+
+        when:
+        def result = serialize(graph, serializer)
+
+        then:
+        result.edges[0].from == 1
+        result.edges[0].dependencyIndex == -1
+    }
+}
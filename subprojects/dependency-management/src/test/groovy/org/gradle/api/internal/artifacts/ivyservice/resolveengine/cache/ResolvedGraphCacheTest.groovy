@@ -0,0 +1,305 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.cache
+
+import org.apache.ivy.core.module.descriptor.ExcludeRule
+import org.gradle.api.Action
+import org.gradle.api.artifacts.ExternalModuleDependency
+import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DefaultDependencySubstitutions
+import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.ModuleVersionsCache
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.CachingModuleComponentRepository
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.RepositoryChainModuleSource
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.UserResolverChain
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.LatestConflictResolution
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DefaultModuleVersionSelection
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factory
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.local.model.DslOriginDependencyMetaData
+import org.gradle.internal.component.model.ComponentResolveMetaData
+import org.gradle.internal.component.model.ConfigurationMetaData
+import org.gradle.util.BuildCommencedTimeProvider
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
+
+class ResolvedGraphCacheTest extends Specification {
+    @Rule SetSystemProperties sysProp = new SetSystemProperties()
+
+    def entries = [:]
+    def persistentCache = Stub(PersistentIndexedCache) {
+        get(_) >> { String key -> entries[key] }
+        put(_, _) >> { String key, RecordedGraph value -> entries[key] = value }
+    }
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        createCache(_, _, _) >> persistentCache
+        useCache(_, _ as Factory) >> { String operation, Factory action -> action.create() }
+        useCache(_, _ as Runnable) >> { String operation, Runnable action -> action.run() }
+    }
+    def timeProvider = Stub(BuildCommencedTimeProvider) {
+        getCurrentTime() >> 10000L
+    }
+    def moduleMetaDataCache = Mock(ModuleMetaDataCache)
+    def moduleVersionsCache = Mock(ModuleVersionsCache)
+    def cache = new ResolvedGraphCache(cacheLockingManager, timeProvider, moduleMetaDataCache, moduleVersionsCache, new DefaultVersionSelectorScheme(new DefaultVersionComparator()))
+
+    def rootId = newId("org", "root", "1.0")
+    def childId = newId("org", "child", "1.2")
+    def childComponentId = DefaultModuleComponentIdentifier.newId("org", "child", "1.2")
+    def dependencySource = Stub(ExternalModuleDependency)
+    def dependency = dependencyOn("1.+")
+    def configuration = configurationWith([dependency])
+    def rootComponent = Stub(ComponentResolveMetaData) {
+        getId() >> rootId
+        getComponentId() >> DefaultModuleComponentIdentifier.newId("org", "root", "1.0")
+        getConfiguration("compile") >> { configuration }
+    }
+    def substitutions = new DefaultDependencySubstitutions()
+    def componentSelection = Stub(ComponentSelectionRulesInternal) {
+        getRules() >> []
+    }
+    def cachePolicy = Mock(CachePolicy)
+    def resolutionStrategy = Stub(ResolutionStrategyInternal) {
+        getDependencySubstitution() >> substitutions
+        getComponentSelection() >> componentSelection
+        getConflictResolution() >> new LatestConflictResolution()
+        getForcedModules() >> ([] as Set)
+        getCachePolicy() >> cachePolicy
+    }
+    def repositories = Stub(UserResolverChain) {
+        getCachedRepositoryIds() >> ["first", "second"]
+    }
+    def graphVisitor = Mock(DependencyGraphVisitor)
+    def artifactsVisitor = Mock(DependencyArtifactsVisitor)
+
+    def setup() {
+        System.setProperty(ResolvedGraphCache.TOGGLE_PROPERTY, "true")
+    }
+
+    def "does not calculate key unless enabled"() {
+        when:
+        System.clearProperty(ResolvedGraphCache.TOGGLE_PROPERTY)
+
+        then:
+        createKey() == null
+    }
+
+    def "calculates the same key for the same inputs"() {
+        expect:
+        def key = createKey()
+        key != null
+        createKey() == key
+    }
+
+    def "calculates a different key when a declared dependency changes"() {
+        def key = createKey()
+
+        when:
+        configuration = configurationWith([dependencyOn("1.3")])
+
+        then:
+        createKey() != key
+    }
+
+    def "does not calculate key when resolution uses dependency substitution rules"() {
+        when:
+        substitutions.allWithDependencyResolveDetails(Stub(Action))
+
+        then:
+        createKey() == null
+    }
+
+    def "does not calculate key when some repository is local"() {
+        def localRepositories = Stub(UserResolverChain) {
+            getCachedRepositoryIds() >> null
+        }
+
+        expect:
+        cache.createKey(rootComponent, "compile", resolutionStrategy, localRepositories, GlobalDependencyResolutionRules.NO_OP) == null
+    }
+
+    def "replays stored graph when cached inputs are up-to-date"() {
+        given:
+        def key = storeGraph()
+        moduleMetaDataCache.getCachedDescriptorHash("second", childComponentId) >> BigInteger.TEN
+
+        when:
+        def replayed = replay(key)
+
+        then:
+        replayed
+        1 * graphVisitor.start({ it.nodeId == new ResolvedConfigurationIdentifier(rootId, "compile") })
+        1 * graphVisitor.visitNode({ it.nodeId.id == rootId })
+        1 * graphVisitor.visitNode({ it.nodeId.id == childId && it.incomingEdges*.requested == [DefaultModuleComponentSelector.newSelector("org", "child", "1.+")] })
+        2 * graphVisitor.visitEdge(_)
+        1 * graphVisitor.finish(_)
+        1 * artifactsVisitor.finishArtifacts()
+    }
+
+    def "checks cache timeouts against the age of the oldest cached input of the graph"() {
+        given:
+        def key = storeGraph(4000L, 5000L, 3000L)
+        moduleMetaDataCache.getCachedDescriptorHash("second", childComponentId) >> BigInteger.TEN
+
+        when:
+        def replayed = replay(key)
+
+        then:
+        replayed
+        1 * cachePolicy.mustRefreshModule(childComponentId, _, 7000L) >> false
+        1 * cachePolicy.mustRefreshMissingModule(childComponentId, 7000L) >> false
+        1 * cachePolicy.mustRefreshVersionList(DefaultModuleIdentifier.newId("org", "child"), [childId] as Set, 7000L) >> false
+    }
+
+    def "does not replay graph when a dynamic version must be refreshed"() {
+        given:
+        def key = storeGraph()
+        moduleMetaDataCache.getCachedDescriptorHash("second", childComponentId) >> BigInteger.TEN
+        cachePolicy.mustRefreshVersionList(_, _, _) >> true
+
+        when:
+        def replayed = replay(key)
+
+        then:
+        !replayed
+        0 * graphVisitor._
+    }
+
+    def "does not replay graph when a module missing from an earlier repository must be refreshed"() {
+        given:
+        def key = storeGraph()
+        moduleMetaDataCache.getCachedDescriptorHash("second", childComponentId) >> BigInteger.TEN
+        cachePolicy.mustRefreshMissingModule(childComponentId, _) >> true
+
+        when:
+        def replayed = replay(key)
+
+        then:
+        !replayed
+        0 * graphVisitor._
+    }
+
+    def "does not replay graph when the cached descriptor has changed"() {
+        given:
+        def key = storeGraph()
+        moduleMetaDataCache.getCachedDescriptorHash("second", childComponentId) >> BigInteger.ONE
+
+        when:
+        def replayed = replay(key)
+
+        then:
+        !replayed
+        0 * graphVisitor._
+    }
+
+    def "does not replay graph that has not been stored"() {
+        expect:
+        !replay(createKey())
+    }
+
+    private String createKey() {
+        return cache.createKey(rootComponent, "compile", resolutionStrategy, repositories, GlobalDependencyResolutionRules.NO_OP)
+    }
+
+    private boolean replay(String key) {
+        return cache.replay(key, repositories, configuration, resolutionStrategy, GlobalDependencyResolutionRules.NO_OP, graphVisitor, artifactsVisitor, null)
+    }
+
+    /**
+     * Records and stores a graph where the root depends on 'org:child:1.+', which resolves to 'org:child:1.2' from the second repository.
+     */
+    private String storeGraph(Long missingTimestamp = null, Long metaDataTimestamp = null, Long versionListTimestamp = null) {
+        def key = createKey()
+        def root = Stub(DependencyGraphNode)
+        def child = Stub(DependencyGraphNode)
+        def edge = Stub(DependencyGraphEdge) {
+            getFrom() >> root
+            getModuleDependency() >> dependencySource
+            getRequested() >> DefaultModuleComponentSelector.newSelector("org", "child", "1.+")
+            getRequestedModuleVersion() >> DefaultModuleVersionSelector.newSelector("org", "child", "1.+")
+            getSelected() >> childId
+        }
+        def source = new RepositoryChainModuleSource("second", new CachingModuleComponentRepository.CachingModuleSource(BigInteger.TEN, false, null))
+        root.getNodeId() >> new ResolvedConfigurationIdentifier(rootId, "compile")
+        root.getSelection() >> new DefaultModuleVersionSelection(rootId, VersionSelectionReasons.ROOT, rootComponent.componentId)
+        root.getOutgoingEdges() >> ([edge] as Set)
+        root.getIncomingEdges() >> ([] as Set)
+        child.getNodeId() >> new ResolvedConfigurationIdentifier(childId, "default")
+        child.getComponentId() >> childComponentId
+        child.getSelection() >> new DefaultModuleVersionSelection(childId, VersionSelectionReasons.REQUESTED, childComponentId)
+        child.getOutgoingEdges() >> ([] as Set)
+        child.getIncomingEdges() >> ([edge] as Set)
+        child.getMetaData() >> Stub(ConfigurationMetaData) {
+            getComponent() >> Stub(ComponentResolveMetaData) {
+                getSource() >> source
+            }
+        }
+
+        def recorder = new ResolvedGraphRecorder(configuration.dependencies)
+        recorder.start(root)
+        recorder.visitNode(root)
+        recorder.visitNode(child)
+        recorder.visitEdge(root)
+        recorder.visitEdge(child)
+        recorder.finish(root)
+
+        moduleMetaDataCache.getCacheTimestamp("first", childComponentId) >> missingTimestamp
+        moduleMetaDataCache.getCacheTimestamp("second", childComponentId) >> metaDataTimestamp
+        moduleVersionsCache.getCacheTimestamp(_, DefaultModuleIdentifier.newId("org", "child")) >> versionListTimestamp
+        cache.store(key, repositories, recorder)
+        return key
+    }
+
+    private DslOriginDependencyMetaData dependencyOn(String version) {
+        return Stub(DslOriginDependencyMetaData) {
+            getSelector() >> DefaultModuleComponentSelector.newSelector("org", "child", version)
+            getSource() >> dependencySource
+            getModuleConfigurations() >> ([] as String[])
+            getArtifacts() >> ([] as Set)
+            getExcludeRules(_) >> ([] as ExcludeRule[])
+        }
+    }
+
+    private ConfigurationMetaData configurationWith(List<DslOriginDependencyMetaData> dependencies) {
+        return Stub(ConfigurationMetaData) {
+            getName() >> "compile"
+            getHierarchy() >> (["compile"] as Set)
+            getExcludeRules() >> ([] as Set)
+            getDependencies() >> dependencies
+            isTransitive() >> true
+        }
+    }
+}
@@ -18,6 +18,8 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store
 
 import org.gradle.api.internal.cache.BinaryStore
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
 import org.junit.Rule
 import spock.lang.Specification
 
@@ -70,6 +72,33 @@ class DefaultBinaryStoreTest extends Specification {
 
     }
 
+    @Requires(TestPrecondition.NOT_WINDOWS)
+    def "data can start beyond 2GB"() {
+        def store = new DefaultBinaryStore(temp.file("foo.bin"))
+        def beyondIntOffset = Integer.MAX_VALUE + 100L
+
+        when:
+        store.write({ it.writeString("x") } as BinaryStore.WriteAction)
+        def data1 = store.done()
+        // Leave a hole in the (sparse) file rather than writing 2GB of data
+        store.outputStream.channel.position(beyondIntOffset)
+        store.write({ it.writeInt(10) } as BinaryStore.WriteAction)
+        store.write({ it.writeString("y") } as BinaryStore.WriteAction)
+        def data2 = store.done()
+
+        then:
+        store.size > Integer.MAX_VALUE
+        data2.read({ it.readInt() } as BinaryStore.ReadAction) == 10
+        data2.read({ it.readString() } as BinaryStore.ReadAction) == "y"
+        data2.close()
+
+        data1.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+        data1.close()
+
+        cleanup:
+        store.close()
+    }
+
     class SomeException extends RuntimeException {}
 
     def "write action exception is propagated to the client"() {
@@ -136,7 +136,9 @@ public class DefaultGradleDistribution implements GradleDistribution {
     }
 
     public VersionNumber getArtifactCacheLayoutVersion() {
-        if (isSameOrNewer("2.8-rc-1")) {
+        if (isSameOrNewer("2.12-rc-1")) {
+            return VersionNumber.parse("2.17");
+        } else if (isSameOrNewer("2.8-rc-1")) {
             return VersionNumber.parse("2.16");
         } else if (isSameOrNewer("2.4-rc-1")) {
             return VersionNumber.parse("2.15");
@@ -15,6 +15,9 @@
  */
 package org.gradle.language.nativeplatform.internal.incremental;
 
+import org.gradle.api.internal.changedetection.state.EstimatedSize;
+import org.gradle.api.internal.changedetection.state.HeapSizeEstimator;
+import org.gradle.language.nativeplatform.internal.Include;
 import org.gradle.language.nativeplatform.internal.IncludeDirectives;
 import org.gradle.language.nativeplatform.internal.incremental.sourceparser.DefaultIncludeDirectives;
 
@@ -22,7 +25,7 @@ import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
-public class CompilationFileState implements Serializable {
+public class CompilationFileState implements Serializable, EstimatedSize {
     private byte[] hash;
     private IncludeDirectives includeDirectives = new DefaultIncludeDirectives();
     private Set<ResolvedInclude> resolvedIncludes = new HashSet<ResolvedInclude>();
@@ -50,4 +53,15 @@ public class CompilationFileState implements Serializable {
     public void setResolvedIncludes(Set<ResolvedInclude> resolvedIncludes) {
         this.resolvedIncludes = resolvedIncludes;
     }
+
+    public long getEstimatedSize() {
+        long size = 32 + HeapSizeEstimator.estimateSize(hash) + 64;
+        for (Include include : includeDirectives.getIncludesAndImports()) {
+            size += 40 + HeapSizeEstimator.estimateSize(include.getValue());
+        }
+        for (ResolvedInclude resolvedInclude : resolvedIncludes) {
+            size += 56 + HeapSizeEstimator.estimateSize(resolvedInclude.getInclude()) + HeapSizeEstimator.estimateSize(resolvedInclude.getFile());
+        }
+        return size;
+    }
 }
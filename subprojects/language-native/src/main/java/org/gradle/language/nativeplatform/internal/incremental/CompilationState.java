@@ -15,11 +15,14 @@
  */
 package org.gradle.language.nativeplatform.internal.incremental;
 
+import org.gradle.api.internal.changedetection.state.EstimatedSize;
+import org.gradle.api.internal.changedetection.state.HeapSizeEstimator;
+
 import java.io.File;
 import java.io.Serializable;
 import java.util.*;
 
-public class CompilationState implements Serializable {
+public class CompilationState implements Serializable, EstimatedSize {
     List<File> sourceInputs = new ArrayList<File>();
     Map<File, CompilationFileState> fileStates = new HashMap<File, CompilationFileState>();
 
@@ -38,4 +41,8 @@ public class CompilationState implements Serializable {
     public void setState(File file, CompilationFileState compilationFileState) {
         fileStates.put(file, compilationFileState);
     }
+
+    public long getEstimatedSize() {
+        return 24 + HeapSizeEstimator.estimateSize(sourceInputs) + HeapSizeEstimator.estimateSize(fileStates);
+    }
 }
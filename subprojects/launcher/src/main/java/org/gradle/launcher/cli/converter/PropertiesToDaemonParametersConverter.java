@@ -39,6 +39,15 @@ public class PropertiesToDaemonParametersConverter {
             }
         }
 
+        prop = properties.get(SPARE_DAEMONS_PROPERTY);
+        if (prop != null) {
+            try {
+                target.setSpareDaemons(new Integer(prop));
+            } catch (NumberFormatException e) {
+                throw new GradleException(String.format("Unable to parse %s property. The value should be an int but is: %s", SPARE_DAEMONS_PROPERTY, prop));
+            }
+        }
+
         prop = properties.get(JVM_ARGS_PROPERTY);
         if (prop != null) {
             target.setJvmArgs(JvmOptions.fromString(prop));
@@ -21,6 +21,7 @@ import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.nativeintegration.services.NativeServices;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.launcher.bootstrap.EntryPoint;
@@ -31,8 +32,10 @@ import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.launcher.daemon.logging.DaemonMessages;
 import org.gradle.launcher.daemon.server.Daemon;
 import org.gradle.launcher.daemon.server.DaemonServices;
+import org.gradle.launcher.daemon.server.DaemonWarmUp;
 import org.gradle.logging.LoggingManagerInternal;
 import org.gradle.logging.LoggingServiceRegistry;
+import org.gradle.logging.internal.OutputEventRenderer;
 import org.gradle.messaging.remote.Address;
 import org.gradle.process.internal.child.EncodedStream;
 
@@ -50,6 +53,10 @@ import java.util.concurrent.TimeUnit;
  */
 public class DaemonMain extends EntryPoint {
 
+    /**
+     * Renders the output of builds on a separate thread, rather than on the thread that generates it. Disabled by default.
+     */
+    public static final String ASYNC_OUTPUT = "org.gradle.daemon.async-output";
     private static final Logger LOGGER = Logging.getLogger(DaemonMain.class);
 
     private PrintStream originalOut;
@@ -69,6 +76,7 @@ public class DaemonMain extends EntryPoint {
         File daemonBaseDir;
         int idleTimeoutMs;
         String daemonUid;
+        boolean warmUp;
         List<File> additionalClassPath;
 
         KryoBackedDecoder decoder = new KryoBackedDecoder(new EncodedStream.EncodedInput(System.in));
@@ -77,6 +85,7 @@ public class DaemonMain extends EntryPoint {
             daemonBaseDir = new File(decoder.readString());
             idleTimeoutMs = decoder.readSmallInt();
             daemonUid = decoder.readString();
+            warmUp = decoder.readBoolean();
             int argCount = decoder.readSmallInt();
             startupOpts = new ArrayList<String>(argCount);
             for (int i = 0; i < argCount; i++) {
@@ -101,6 +110,10 @@ public class DaemonMain extends EntryPoint {
         File daemonLog = daemonServices.getDaemonLogFile();
 
         initialiseLogging(loggingManager, daemonLog);
+        OutputEventRenderer renderer = loggingRegistry.get(OutputEventRenderer.class);
+        if (Boolean.getBoolean(ASYNC_OUTPUT)) {
+            renderer.startAsyncRendering(daemonServices.get(ExecutorFactory.class));
+        }
 
         Daemon daemon = daemonServices.get(Daemon.class);
         daemon.start();
@@ -109,11 +122,15 @@ public class DaemonMain extends EntryPoint {
             DaemonContext daemonContext = daemonServices.get(DaemonContext.class);
             Long pid = daemonContext.getPid();
             daemonStarted(pid, daemon.getUid(), daemon.getAddress(), daemonLog);
+            if (warmUp) {
+                daemonServices.get(DaemonWarmUp.class).start();
+            }
 
             // Block until idle
             daemon.requestStopOnIdleTimeout(parameters.getIdleTimeout(), TimeUnit.MILLISECONDS);
         } finally {
             daemon.stop();
+            renderer.stopAsyncRendering();
         }
     }
 
@@ -35,6 +35,7 @@ import org.gradle.launcher.daemon.protocol.*;
 import org.gradle.launcher.daemon.server.api.DaemonStoppedException;
 import org.gradle.launcher.exec.BuildActionExecuter;
 import org.gradle.launcher.exec.BuildActionParameters;
+import org.gradle.logging.internal.OutputEvent;
 import org.gradle.logging.internal.OutputEventListener;
 import org.gradle.messaging.remote.internal.Connection;
 
@@ -50,7 +51,7 @@ import java.util.List;
  * <li>The client creates a connection to daemon.</li>
  * <li>The client sends exactly one {@link Build} message.</li>
  * <li>The daemon sends exactly one {@link BuildStarted}, {@link Failure} or {@link DaemonUnavailable} message.</li>
- * <li>If the build is started, the daemon may send zero or more {@link OutputMessage} messages.</li>
+ * <li>If the build is started, the daemon may send zero or more {@link OutputMessage} or {@link OutputMessageBatch} messages.</li>
  * <li>If the build is started, the daemon may send zero or more {@link BuildEvent} messages.</li>
  * <li>If the build is started, the client may send zero or more {@link ForwardInput} messages followed by exactly one {@link CloseInput} message.</li>
  * <li>If the build is started, the client may send {@link org.gradle.launcher.daemon.protocol.Cancel} message before {@link CloseInput} message.</li>
@@ -85,17 +86,24 @@ public class DaemonClient implements BuildActionExecuter<BuildActionParameters>
     private final InputStream buildStandardInput;
     private final ExecutorFactory executorFactory;
     private final IdGenerator<?> idGenerator;
+    private final SpareDaemonPool spareDaemons;
 
     //TODO - outputEventListener and buildStandardInput are per-build settings
     //so down the road we should refactor the code accordingly and potentially attach them to BuildActionParameters
     public DaemonClient(DaemonConnector connector, OutputEventListener outputEventListener, ExplainingSpec<DaemonContext> compatibilitySpec,
                         InputStream buildStandardInput, ExecutorFactory executorFactory, IdGenerator<?> idGenerator) {
+        this(connector, outputEventListener, compatibilitySpec, buildStandardInput, executorFactory, idGenerator, SpareDaemonPool.NONE);
+    }
+
+    public DaemonClient(DaemonConnector connector, OutputEventListener outputEventListener, ExplainingSpec<DaemonContext> compatibilitySpec,
+                        InputStream buildStandardInput, ExecutorFactory executorFactory, IdGenerator<?> idGenerator, SpareDaemonPool spareDaemons) {
         this.connector = connector;
         this.outputEventListener = outputEventListener;
         this.compatibilitySpec = compatibilitySpec;
         this.buildStandardInput = buildStandardInput;
         this.executorFactory = executorFactory;
         this.idGenerator = idGenerator;
+        this.spareDaemons = spareDaemons;
     }
 
     protected IdGenerator<?> getIdGenerator() {
@@ -119,17 +127,22 @@ public class DaemonClient implements BuildActionExecuter<BuildActionParameters>
 
         int saneNumberOfAttempts = 100; //is it sane enough?
 
-        for (int i = 1; i < saneNumberOfAttempts; i++) {
-            final DaemonClientConnection connection = connector.connect(compatibilitySpec);
-            try {
-                return executeBuild(build, connection, requestContext.getCancellationToken(), requestContext.getEventConsumer());
-            } catch (DaemonInitialConnectException e) {
-                // this exception means that we want to try again.
-                LOGGER.debug("{}, Trying a different daemon...", e.getMessage());
-                accumulatedExceptions.add(e);
-            } finally {
-                connection.stop();
+        try {
+            for (int i = 1; i < saneNumberOfAttempts; i++) {
+                final DaemonClientConnection connection = connector.connect(compatibilitySpec);
+                spareDaemons.daemonClaimed(connection.getDaemon(), compatibilitySpec);
+                try {
+                    return executeBuild(build, connection, requestContext.getCancellationToken(), requestContext.getEventConsumer());
+                } catch (DaemonInitialConnectException e) {
+                    // this exception means that we want to try again.
+                    LOGGER.debug("{}, Trying a different daemon...", e.getMessage());
+                    accumulatedExceptions.add(e);
+                } finally {
+                    connection.stop();
+                }
             }
+        } finally {
+            spareDaemons.stop();
         }
 
         throw new NoUsableDaemonFoundException("Unable to find a usable idle daemon. I have connected to "
@@ -198,6 +211,10 @@ public class DaemonClient implements BuildActionExecuter<BuildActionParameters>
                     return handleDaemonDisappearance(build, diagnostics);
                 } else if (object instanceof OutputMessage) {
                     outputEventListener.onOutput(((OutputMessage) object).getEvent());
+                } else if (object instanceof OutputMessageBatch) {
+                    for (OutputEvent event : ((OutputMessageBatch) object).getEvents()) {
+                        outputEventListener.onOutput(event);
+                    }
                 } else if (object instanceof BuildEvent) {
                     buildEventConsumer.dispatch(((BuildEvent)object).getPayload());
                 } else {
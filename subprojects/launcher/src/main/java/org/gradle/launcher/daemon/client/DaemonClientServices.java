@@ -15,13 +15,16 @@
  */
 package org.gradle.launcher.daemon.client;
 
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.launcher.daemon.bootstrap.DaemonGreeter;
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.context.DaemonContextBuilder;
 import org.gradle.launcher.daemon.registry.DaemonDir;
+import org.gradle.launcher.daemon.registry.DaemonRegistry;
 import org.gradle.launcher.daemon.registry.DaemonRegistryServices;
+import org.gradle.launcher.daemon.server.health.MemoryInfo;
 
 import java.io.InputStream;
 
@@ -41,6 +44,17 @@ public class DaemonClientServices extends DaemonClientServicesSupport {
         return new DefaultDaemonStarter(daemonDir, daemonParameters, daemonGreeter, listenerManager.getBroadcaster(DaemonStartListener.class), jvmVersionValidator);
     }
 
+    SpareDaemonPool createSpareDaemonPool() {
+        if (daemonParameters.getSpareDaemons() <= 0) {
+            return SpareDaemonPool.NONE;
+        }
+        // Spare daemons warm themselves up, as no build is waiting for them
+        DaemonStarter spareDaemonStarter = new DefaultDaemonStarter(get(DaemonDir.class), daemonParameters, get(DaemonGreeter.class),
+            get(ListenerManager.class).getBroadcaster(DaemonStartListener.class), get(JvmVersionValidator.class), true);
+        return new DefaultSpareDaemonPool(get(DaemonRegistry.class), spareDaemonStarter, get(ExecutorFactory.class),
+            new MemoryInfo(), daemonParameters.getSpareDaemons(), daemonParameters.getEffectiveMaxHeapSize());
+    }
+
     protected void configureDaemonContextBuilder(DaemonContextBuilder builder) {
         builder.setDaemonRegistryDir(get(DaemonDir.class).getBaseDir());
         builder.useDaemonParameters(daemonParameters);
@@ -62,7 +62,12 @@ public abstract class DaemonClientServicesSupport extends DefaultServiceRegistry
                 matchingContextSpec,
                 buildStandardInput,
                 get(ExecutorFactory.class),
-                get(IdGenerator.class));
+                get(IdGenerator.class),
+                get(SpareDaemonPool.class));
+    }
+
+    SpareDaemonPool createSpareDaemonPool() {
+        return SpareDaemonPool.NONE;
     }
 
     DaemonContext createDaemonContext(ProcessEnvironment processEnvironment) {
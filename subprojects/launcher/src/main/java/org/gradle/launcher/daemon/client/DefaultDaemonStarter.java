@@ -56,13 +56,22 @@ public class DefaultDaemonStarter implements DaemonStarter {
     private final DaemonGreeter daemonGreeter;
     private final DaemonStartListener listener;
     private final JvmVersionValidator versionValidator;
+    private final boolean warmUp;
 
     public DefaultDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter, DaemonStartListener listener, JvmVersionValidator versionValidator) {
+        this(daemonDir, daemonParameters, daemonGreeter, listener, versionValidator, false);
+    }
+
+    /**
+     * @param warmUp whether the started daemons should warm themselves up, because no build is waiting for them
+     */
+    public DefaultDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter, DaemonStartListener listener, JvmVersionValidator versionValidator, boolean warmUp) {
         this.daemonDir = daemonDir;
         this.daemonParameters = daemonParameters;
         this.daemonGreeter = daemonGreeter;
         this.listener = listener;
         this.versionValidator = versionValidator;
+        this.warmUp = warmUp;
     }
 
     public DaemonStartupInfo startDaemon() {
@@ -116,6 +125,7 @@ public class DefaultDaemonStarter implements DaemonStarter {
             encoder.writeString(daemonDir.getBaseDir().getAbsolutePath());
             encoder.writeSmallInt(daemonParameters.getIdleTimeout());
             encoder.writeString(daemonParameters.getUid());
+            encoder.writeBoolean(warmUp);
             encoder.writeSmallInt(daemonOpts.size());
             for (String daemonOpt : daemonOpts) {
                 encoder.writeString(daemonOpt);
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.client;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.specs.ExplainingSpec;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.launcher.daemon.context.DaemonContext;
+import org.gradle.launcher.daemon.context.DaemonInstanceDetails;
+import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
+import org.gradle.launcher.daemon.registry.DaemonInfo;
+import org.gradle.launcher.daemon.registry.DaemonRegistry;
+import org.gradle.launcher.daemon.server.health.MemoryInfo;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Keeps a number of compatible idle daemons available, so that a build does not have to wait for a new daemon to start.
+ *
+ * <p>When a build claims a daemon and fewer compatible idle daemons remain than wanted, spare daemons are started in the background while the build runs.
+ * A spare daemon is only started, the client does not connect to it. It warms itself up and is then idle and can be claimed by a later build.
+ * The number of spare daemons is limited by the free physical memory of the machine.</p>
+ *
+ * <p>Spare daemons that are being started are recorded in the daemon registry until they have registered themselves, so that the clients of
+ * concurrent builds do not each start their own spare daemons.</p>
+ *
+ * <p>The client does not wait for spare daemons that are still starting when it exits. Such a daemon is abandoned.</p>
+ */
+public class DefaultSpareDaemonPool implements SpareDaemonPool {
+    private static final Logger LOGGER = Logging.getLogger(DefaultSpareDaemonPool.class);
+    static final long DEFAULT_DAEMON_MEMORY = 1024L * 1024 * 1024;
+
+    private final DaemonRegistry daemonRegistry;
+    private final DaemonStarter daemonStarter;
+    private final ExecutorFactory executorFactory;
+    private final MemoryInfo memoryInfo;
+    private final int size;
+    private final long daemonMemory;
+    private final Object lock = new Object();
+    private StoppableExecutor executor;
+
+    public DefaultSpareDaemonPool(DaemonRegistry daemonRegistry, DaemonStarter daemonStarter, ExecutorFactory executorFactory,
+                                  MemoryInfo memoryInfo, int size, @Nullable String daemonMaxHeapSize) {
+        this.daemonRegistry = daemonRegistry;
+        this.daemonStarter = daemonStarter;
+        this.executorFactory = executorFactory;
+        this.memoryInfo = memoryInfo;
+        this.size = size;
+        this.daemonMemory = parseMemory(daemonMaxHeapSize);
+    }
+
+    public void daemonClaimed(DaemonInstanceDetails daemon, ExplainingSpec<DaemonContext> constraint) {
+        int idle = 0;
+        for (DaemonInfo info : daemonRegistry.getIdle()) {
+            if (!info.getUid().equals(daemon.getUid()) && constraint.isSatisfiedBy(info.getContext())) {
+                idle++;
+            }
+        }
+        synchronized (lock) {
+            int wanted = Math.min(size, getAffordableDaemons()) - idle - daemonRegistry.getStartingCount();
+            if (wanted <= 0) {
+                return;
+            }
+            LOGGER.info("Starting {} spare daemon(s) in the background.", wanted);
+            if (executor == null) {
+                executor = executorFactory.create("Spare daemon starter");
+            }
+            for (int i = 0; i < wanted; i++) {
+                String id = UUID.randomUUID().toString();
+                daemonRegistry.storeStarting(id);
+                executor.execute(new StartSpareDaemon(id));
+            }
+        }
+    }
+
+    public void stop() {
+        StoppableExecutor executor;
+        synchronized (lock) {
+            executor = this.executor;
+            this.executor = null;
+        }
+        if (executor != null) {
+            executor.requestStop();
+        }
+    }
+
+    private int getAffordableDaemons() {
+        long freeMemory = memoryInfo.getFreePhysicalMemory();
+        if (freeMemory < 0) {
+            return size;
+        }
+        return (int) Math.min(size, freeMemory / daemonMemory);
+    }
+
+    static long parseMemory(@Nullable String heapSize) {
+        if (heapSize == null || heapSize.trim().length() == 0) {
+            return DEFAULT_DAEMON_MEMORY;
+        }
+        String value = heapSize.trim().toLowerCase(Locale.US);
+        long multiplier = 1;
+        switch (value.charAt(value.length() - 1)) {
+            case 'k':
+                multiplier = 1024L;
+                break;
+            case 'm':
+                multiplier = 1024L * 1024;
+                break;
+            case 'g':
+                multiplier = 1024L * 1024 * 1024;
+                break;
+            default:
+                break;
+        }
+        if (multiplier != 1) {
+            value = value.substring(0, value.length() - 1);
+        }
+        try {
+            long memory = Long.parseLong(value) * multiplier;
+            return memory > 0 ? memory : DEFAULT_DAEMON_MEMORY;
+        } catch (NumberFormatException e) {
+            return DEFAULT_DAEMON_MEMORY;
+        }
+    }
+
+    private class StartSpareDaemon implements Runnable {
+        private final String id;
+
+        StartSpareDaemon(String id) {
+            this.id = id;
+        }
+
+        public void run() {
+            try {
+                // The daemon registers itself before it detaches, so it is counted as idle once this returns
+                DaemonStartupInfo startupInfo = daemonStarter.startDaemon();
+                LOGGER.debug("Started spare daemon {}", startupInfo.getUid());
+            } catch (Exception e) {
+                LOGGER.info("Could not start a spare daemon.", e);
+            } finally {
+                daemonRegistry.removeStarting(id);
+            }
+        }
+    }
+}
@@ -74,7 +74,8 @@ public class EmbeddedDaemonClientServices extends DaemonClientServicesSupport {
             get(ProcessEnvironment.class),
             mgr,
             new File("dummy"),
-            new StubDaemonHealthServices()
+            new StubDaemonHealthServices(),
+            get(ExecutorFactory.class)
         );
     }
 
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.client;
+
+import org.gradle.api.internal.specs.ExplainingSpec;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.launcher.daemon.context.DaemonContext;
+import org.gradle.launcher.daemon.context.DaemonInstanceDetails;
+
+/**
+ * Keeps spare daemons available for later builds.
+ */
+public interface SpareDaemonPool extends Stoppable {
+    SpareDaemonPool NONE = new SpareDaemonPool() {
+        public void daemonClaimed(DaemonInstanceDetails daemon, ExplainingSpec<DaemonContext> constraint) {
+        }
+
+        public void stop() {
+        }
+    };
+
+    /**
+     * Called when a build has claimed the given daemon. Starts spare daemons matching the given constraint in the background, when required.
+     */
+    void daemonClaimed(DaemonInstanceDetails daemon, ExplainingSpec<DaemonContext> constraint);
+
+    /**
+     * Stops starting spare daemons. Does not block.
+     */
+    void stop();
+}
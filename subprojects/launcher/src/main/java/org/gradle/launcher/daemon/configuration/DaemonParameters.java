@@ -40,6 +40,7 @@ public class DaemonParameters {
 
     private File baseDir;
     private int idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    private int spareDaemons;
     private final JvmOptions jvmOptions = new JvmOptions(new IdentityFileResolver());
     private DaemonUsage daemonUsage = DaemonUsage.IMPLICITLY_DISABLED;
     private boolean hasJvmArgs;
@@ -94,6 +95,22 @@ public class DaemonParameters {
         this.idleTimeout = idleTimeout;
     }
 
+    /**
+     * Returns the number of idle daemons to keep available for builds, starting spare daemons in the background when there are fewer.
+     */
+    public int getSpareDaemons() {
+        return spareDaemons;
+    }
+
+    public void setSpareDaemons(int spareDaemons) {
+        this.spareDaemons = spareDaemons;
+    }
+
+    @Nullable
+    public String getEffectiveMaxHeapSize() {
+        return jvmOptions.getMaxHeapSize();
+    }
+
     public List<String> getEffectiveJvmArgs() {
         return jvmOptions.getAllImmutableJvmArgs();
     }
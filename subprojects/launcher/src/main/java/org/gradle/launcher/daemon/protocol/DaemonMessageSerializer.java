@@ -19,13 +19,32 @@ package org.gradle.launcher.daemon.protocol;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.internal.progress.OperationIdentifier;
 import org.gradle.internal.serialize.*;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 import org.gradle.logging.StyledTextOutput;
 import org.gradle.logging.internal.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 public class DaemonMessageSerializer {
+    /**
+     * Compresses batches of output events sent to the client. The client reads either form, so this only needs to be set for the daemon.
+     */
+    public static final String COMPRESS_OUTPUT = "org.gradle.daemon.compress-output";
+
     public static Serializer<Message> create() {
+        return create(Boolean.getBoolean(COMPRESS_OUTPUT));
+    }
+
+    public static Serializer<Message> create(boolean compressOutput) {
         BaseSerializerFactory factory = new BaseSerializerFactory();
         Serializer<LogLevel> logLevelSerializer = factory.getSerializerFor(LogLevel.class);
         Serializer<Throwable> throwableSerializer = factory.getSerializerFor(Throwable.class);
@@ -46,7 +65,9 @@ public class DaemonMessageSerializer {
         outputEventRegistry.register(ProgressCompleteEvent.class, new ProgressCompleteEventSerializer());
         outputEventRegistry.register(ProgressEvent.class, new ProgressEventSerializer());
         outputEventRegistry.register(LogLevelChangeEvent.class, new LogLevelChangeEventSerializer(logLevelSerializer));
-        registry.register(OutputMessage.class, new OutputMessageSerializer(outputEventRegistry.build()));
+        Serializer<OutputEvent> outputEventSerializer = outputEventRegistry.build();
+        registry.register(OutputMessage.class, new OutputMessageSerializer(outputEventSerializer));
+        registry.register(OutputMessageBatch.class, new OutputMessageBatchSerializer(logLevelSerializer, throwableSerializer, factory.getSerializerFor(StyledTextOutput.Style.class), outputEventSerializer, compressOutput));
 
         // Default for everything else
         registry.useJavaSerialization(Message.class);
@@ -292,4 +313,166 @@ public class DaemonMessageSerializer {
             return new OutputMessage(eventSerializer.read(decoder));
         }
     }
+
+    /**
+     * Writes a batch of output events using a compact layout:
+     *
+     * <ul>
+     * <li>The category of each log and text event is written once per batch, and referred to by index after that.</li>
+     * <li>The timestamp of each log and text event is written as the difference to the timestamp of the previous such event.</li>
+     * <li>Other events are written using the serializer for single events.</li>
+     * <li>When compression is enabled, a batch whose encoded form is large enough is deflated.</li>
+     * </ul>
+     */
+    private static class OutputMessageBatchSerializer implements Serializer<OutputMessageBatch> {
+        private static final byte LOG_EVENT = 0;
+        private static final byte TEXT_EVENT = 1;
+        private static final byte OTHER_EVENT = 2;
+        private static final int MIN_COMPRESSED_SIZE = 1024;
+        private final Serializer<LogLevel> logLevelSerializer;
+        private final Serializer<Throwable> throwableSerializer;
+        private final Serializer<StyledTextOutput.Style> styleSerializer;
+        private final Serializer<OutputEvent> eventSerializer;
+        private final boolean compress;
+
+        public OutputMessageBatchSerializer(Serializer<LogLevel> logLevelSerializer, Serializer<Throwable> throwableSerializer, Serializer<StyledTextOutput.Style> styleSerializer,
+                                            Serializer<OutputEvent> eventSerializer, boolean compress) {
+            this.logLevelSerializer = logLevelSerializer;
+            this.throwableSerializer = throwableSerializer;
+            this.styleSerializer = styleSerializer;
+            this.eventSerializer = eventSerializer;
+            this.compress = compress;
+        }
+
+        @Override
+        public void write(Encoder encoder, OutputMessageBatch message) throws Exception {
+            if (!compress) {
+                encoder.writeBoolean(false);
+                writeEvents(encoder, message.getEvents());
+                return;
+            }
+
+            ByteArrayOutputStream events = new ByteArrayOutputStream();
+            KryoBackedEncoder eventsEncoder = new KryoBackedEncoder(events);
+            writeEvents(eventsEncoder, message.getEvents());
+            eventsEncoder.flush();
+            if (events.size() < MIN_COMPRESSED_SIZE) {
+                encoder.writeBoolean(false);
+                encoder.writeBytes(events.toByteArray());
+                return;
+            }
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(events.size() / 4);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                DeflaterOutputStream outputStream = new DeflaterOutputStream(compressed, deflater);
+                events.writeTo(outputStream);
+                outputStream.finish();
+            } finally {
+                deflater.end();
+            }
+            encoder.writeBoolean(true);
+            encoder.writeBinary(compressed.toByteArray());
+        }
+
+        @Override
+        public OutputMessageBatch read(Decoder decoder) throws Exception {
+            if (!decoder.readBoolean()) {
+                return new OutputMessageBatch(readEvents(decoder));
+            }
+            KryoBackedDecoder eventsDecoder = new KryoBackedDecoder(new InflaterInputStream(new ByteArrayInputStream(decoder.readBinary())));
+            try {
+                return new OutputMessageBatch(readEvents(eventsDecoder));
+            } finally {
+                eventsDecoder.close();
+            }
+        }
+
+        private void writeEvents(Encoder encoder, List<OutputEvent> events) throws Exception {
+            Map<String, Integer> categories = new HashMap<String, Integer>();
+            long previousTimestamp = 0;
+            encoder.writeSmallInt(events.size());
+            for (OutputEvent event : events) {
+                if (event instanceof LogEvent) {
+                    LogEvent logEvent = (LogEvent) event;
+                    encoder.writeByte(LOG_EVENT);
+                    writeCategory(encoder, categories, logEvent.getCategory());
+                    logLevelSerializer.write(encoder, logEvent.getLogLevel());
+                    encoder.writeSmallLong(logEvent.getTimestamp() - previousTimestamp);
+                    previousTimestamp = logEvent.getTimestamp();
+                    encoder.writeString(logEvent.getMessage());
+                    throwableSerializer.write(encoder, logEvent.getThrowable());
+                } else if (event instanceof StyledTextOutputEvent) {
+                    StyledTextOutputEvent textEvent = (StyledTextOutputEvent) event;
+                    encoder.writeByte(TEXT_EVENT);
+                    writeCategory(encoder, categories, textEvent.getCategory());
+                    logLevelSerializer.write(encoder, textEvent.getLogLevel());
+                    encoder.writeSmallLong(textEvent.getTimestamp() - previousTimestamp);
+                    previousTimestamp = textEvent.getTimestamp();
+                    encoder.writeSmallInt(textEvent.getSpans().size());
+                    for (StyledTextOutputEvent.Span span : textEvent.getSpans()) {
+                        styleSerializer.write(encoder, span.getStyle());
+                        encoder.writeString(span.getText());
+                    }
+                } else {
+                    encoder.writeByte(OTHER_EVENT);
+                    eventSerializer.write(encoder, event);
+                }
+            }
+        }
+
+        private List<OutputEvent> readEvents(Decoder decoder) throws Exception {
+            List<String> categories = new ArrayList<String>();
+            long previousTimestamp = 0;
+            int count = decoder.readSmallInt();
+            List<OutputEvent> events = new ArrayList<OutputEvent>(count);
+            for (int i = 0; i < count; i++) {
+                byte kind = decoder.readByte();
+                if (kind == LOG_EVENT) {
+                    String category = readCategory(decoder, categories);
+                    LogLevel logLevel = logLevelSerializer.read(decoder);
+                    long timestamp = previousTimestamp + decoder.readSmallLong();
+                    previousTimestamp = timestamp;
+                    String message = decoder.readString();
+                    Throwable throwable = throwableSerializer.read(decoder);
+                    events.add(new LogEvent(timestamp, category, logLevel, message, throwable));
+                } else if (kind == TEXT_EVENT) {
+                    String category = readCategory(decoder, categories);
+                    LogLevel logLevel = logLevelSerializer.read(decoder);
+                    long timestamp = previousTimestamp + decoder.readSmallLong();
+                    previousTimestamp = timestamp;
+                    int spanCount = decoder.readSmallInt();
+                    List<StyledTextOutputEvent.Span> spans = new ArrayList<StyledTextOutputEvent.Span>(spanCount);
+                    for (int j = 0; j < spanCount; j++) {
+                        spans.add(new StyledTextOutputEvent.Span(styleSerializer.read(decoder), decoder.readString()));
+                    }
+                    events.add(new StyledTextOutputEvent(timestamp, category, logLevel, spans));
+                } else {
+                    events.add(eventSerializer.read(decoder));
+                }
+            }
+            return events;
+        }
+
+        private void writeCategory(Encoder encoder, Map<String, Integer> categories, String category) throws Exception {
+            Integer index = categories.get(category);
+            if (index != null) {
+                encoder.writeSmallInt(index);
+                return;
+            }
+            encoder.writeSmallInt(categories.size());
+            encoder.writeString(category);
+            categories.put(category, categories.size());
+        }
+
+        private String readCategory(Decoder decoder, List<String> categories) throws Exception {
+            int index = decoder.readSmallInt();
+            if (index < categories.size()) {
+                return categories.get(index);
+            }
+            String category = decoder.readString();
+            categories.add(category);
+            return category;
+        }
+    }
 }
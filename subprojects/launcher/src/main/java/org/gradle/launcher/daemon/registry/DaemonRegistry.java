@@ -39,6 +39,17 @@ public interface DaemonRegistry {
     void markBusy(Address address);
     void markIdle(Address address);
 
+    /**
+     * Records a daemon that is being started in the background and has not registered itself yet.
+     */
+    void storeStarting(String id);
+    void removeStarting(String id);
+
+    /**
+     * Returns the number of daemons recorded by {@link #storeStarting(String)} that are still being started.
+     */
+    int getStartingCount();
+
     static class EmptyRegistryException extends RuntimeException {
         public EmptyRegistryException(String message) {
             super(message);
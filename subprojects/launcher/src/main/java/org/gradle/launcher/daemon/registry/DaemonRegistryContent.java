@@ -27,6 +27,7 @@ import java.util.Map;
 public class DaemonRegistryContent implements Serializable {
 
     private Map<Address, DaemonInfo> infosMap = new HashMap<Address, DaemonInfo>();
+    private Map<String, Long> startingDaemons = new HashMap<String, Long>();
 
     /**
      * returns all statuses. May be empty.
@@ -55,4 +56,11 @@ public class DaemonRegistryContent implements Serializable {
     public void setStatus(Address address, DaemonInfo daemonInfo) {
         infosMap.put(address, daemonInfo);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the time each daemon that is being started was recorded at, keyed by id.
+     */
+    public Map<String, Long> getStartingDaemons() {
+        return startingDaemons;
+    }
+}
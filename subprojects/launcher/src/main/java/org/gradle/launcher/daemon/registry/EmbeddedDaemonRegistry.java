@@ -21,8 +21,10 @@ import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.messaging.remote.Address;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -37,6 +39,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class EmbeddedDaemonRegistry implements DaemonRegistry {
     private final Map<Address, DaemonInfo> daemonInfos = new ConcurrentHashMap<Address, DaemonInfo>();
+    private final Set<String> startingDaemons = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     private final Spec<DaemonInfo> allSpec = new Spec<DaemonInfo>() {
         public boolean isSatisfiedBy(DaemonInfo entry) {
             return true;
@@ -89,6 +92,18 @@ public class EmbeddedDaemonRegistry implements DaemonRegistry {
         }
     }
 
+    public void storeStarting(String id) {
+        startingDaemons.add(id);
+    }
+
+    public void removeStarting(String id) {
+        startingDaemons.remove(id);
+    }
+
+    public int getStartingCount() {
+        return startingDaemons.size();
+    }
+
     private List<DaemonInfo> daemonInfosOfEntriesMatching(Spec<DaemonInfo> spec) {
         List<DaemonInfo> matches = new ArrayList<DaemonInfo>();
         for (DaemonInfo daemonInfo : daemonInfos.values()) {
@@ -28,8 +28,11 @@ import org.gradle.messaging.remote.Address;
 import org.gradle.internal.serialize.DefaultSerializer;
 
 import java.io.File;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -37,6 +40,11 @@ import java.util.concurrent.locks.ReentrantLock;
  * Access to daemon registry files. Useful also for testing.
  */
 public class PersistentDaemonRegistry implements DaemonRegistry {
+    /**
+     * A daemon that has not registered itself this long after it was recorded as starting has failed to start, or the client starting it has died.
+     */
+    static final long STARTING_DAEMON_EXPIRY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
     private final PersistentStateCache<DaemonRegistryContent> cache;
     private final Lock lock = new ReentrantLock();
     private final File registryFile;
@@ -177,6 +185,68 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
         }
     }
 
+    public void storeStarting(final String id) {
+        lock.lock();
+        LOGGER.debug("Storing starting daemon: {}", id);
+        try {
+            cache.update(new PersistentStateCache.UpdateAction<DaemonRegistryContent>() {
+                public DaemonRegistryContent update(DaemonRegistryContent oldValue) {
+                    if (oldValue == null) {
+                        //it means the registry didn't exist yet
+                        oldValue = new DaemonRegistryContent();
+                    }
+                    long now = System.currentTimeMillis();
+                    for (Iterator<Long> iterator = oldValue.getStartingDaemons().values().iterator(); iterator.hasNext();) {
+                        if (now - iterator.next() > STARTING_DAEMON_EXPIRY_MILLIS) {
+                            iterator.remove();
+                        }
+                    }
+                    oldValue.getStartingDaemons().put(id, now);
+                    return oldValue;
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void removeStarting(final String id) {
+        lock.lock();
+        LOGGER.debug("Removing starting daemon: {}", id);
+        try {
+            cache.update(new PersistentStateCache.UpdateAction<DaemonRegistryContent>() {
+                public DaemonRegistryContent update(DaemonRegistryContent oldValue) {
+                    if (oldValue != null) {
+                        oldValue.getStartingDaemons().remove(id);
+                    }
+                    return oldValue;
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getStartingCount() {
+        lock.lock();
+        try {
+            DaemonRegistryContent content = cache.get();
+            if (content == null) {
+                return 0;
+            }
+            long now = System.currentTimeMillis();
+            int count = 0;
+            for (Map.Entry<String, Long> entry : content.getStartingDaemons().entrySet()) {
+                if (now - entry.getValue() <= STARTING_DAEMON_EXPIRY_MILLIS) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public String toString() {
         return String.format("PersistentDaemonRegistry[file=%s]", registryFile);
     }
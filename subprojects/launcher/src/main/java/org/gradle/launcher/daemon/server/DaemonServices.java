@@ -15,8 +15,12 @@
  */
 package org.gradle.launcher.daemon.server;
 
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
+import org.gradle.api.internal.file.TemporaryFileProvider;
+import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.configuration.ImportsReader;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.nativeintegration.ProcessEnvironment;
@@ -78,8 +82,12 @@ public class DaemonServices extends DefaultServiceRegistry {
         return new File(get(DaemonDir.class).getVersionedDir(), fileName);
     }
 
-    protected DaemonHealthServices createDaemonHealthServices() {
-        return new DefaultDaemonHealthServices();
+    protected DaemonHealthServices createDaemonHealthServices(InMemoryTaskArtifactCache taskArtifactCache) {
+        return new DefaultDaemonHealthServices(taskArtifactCache);
+    }
+
+    protected DaemonWarmUp createDaemonWarmUp(ExecutorFactory executorFactory, ClassLoaderCache classLoaderCache, ImportsReader importsReader, TemporaryFileProvider temporaryFileProvider) {
+        return new DaemonWarmUp(executorFactory, classLoaderCache, importsReader, temporaryFileProvider);
     }
 
     protected Daemon createDaemon(BuildExecuter buildActionExecuter) {
@@ -97,7 +105,8 @@ public class DaemonServices extends DefaultServiceRegistry {
                 get(ProcessEnvironment.class),
                 loggingManager,
                 getDaemonLogFile(),
-                get(DaemonHealthServices.class)
+                get(DaemonHealthServices.class),
+                get(ExecutorFactory.class)
             ),
             get(ExecutorFactory.class)
         );
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server;
+
+import org.gradle.api.internal.file.TemporaryFileProvider;
+import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
+import org.gradle.api.internal.project.ProjectScript;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.configuration.ImportsReader;
+import org.gradle.groovy.scripts.StringScriptSource;
+import org.gradle.groovy.scripts.internal.DefaultScriptCompilationHandler;
+import org.gradle.internal.Actions;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.util.Clock;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+
+/**
+ * Warms up a newly started daemon in the background, so that the first build it runs does not pay for initializing the script compiler.
+ *
+ * <p>Compiles a typical build script using the same compilation handler, default imports and script base class as a real build,
+ * which loads and initializes the Groovy compiler and the Gradle API classes that build scripts refer to.</p>
+ */
+public class DaemonWarmUp implements Runnable {
+    private static final Logger LOGGER = Logging.getLogger(DaemonWarmUp.class);
+    private static final String WARM_UP_SCRIPT = "apply plugin: 'java'\n"
+        + "version = '1.0'\n"
+        + "repositories { mavenCentral() }\n"
+        + "dependencies { testCompile 'junit:junit:4.12' }\n"
+        + "sourceSets.main.java.srcDirs = ['src']\n"
+        + "tasks.withType(JavaCompile) { options.encoding = 'UTF-8' }\n"
+        + "task warmUp(type: Copy, dependsOn: compileJava) {\n"
+        + "    from(configurations.runtime.collect { it.directory ? it : zipTree(it) })\n"
+        + "    into \"$buildDir/warm-up/${version}\"\n"
+        + "    doLast { println files('a', 'b').findAll { it.exists() }.size() }\n"
+        + "}\n";
+
+    private final ExecutorFactory executorFactory;
+    private final ClassLoaderCache classLoaderCache;
+    private final ImportsReader importsReader;
+    private final TemporaryFileProvider temporaryFileProvider;
+
+    public DaemonWarmUp(ExecutorFactory executorFactory, ClassLoaderCache classLoaderCache, ImportsReader importsReader, TemporaryFileProvider temporaryFileProvider) {
+        this.executorFactory = executorFactory;
+        this.classLoaderCache = classLoaderCache;
+        this.importsReader = importsReader;
+        this.temporaryFileProvider = temporaryFileProvider;
+    }
+
+    /**
+     * Starts the warm up in the background. Does not block.
+     */
+    public void start() {
+        StoppableExecutor executor = executorFactory.create("Daemon warm up");
+        executor.execute(this);
+        executor.requestStop();
+    }
+
+    public void run() {
+        Clock clock = new Clock();
+        File dir = null;
+        try {
+            dir = temporaryFileProvider.createTemporaryDirectory("gradle-daemon-warm-up", null);
+            new DefaultScriptCompilationHandler(classLoaderCache, importsReader).compileToDir(
+                new StringScriptSource("daemon warm up script", WARM_UP_SCRIPT), getClass().getClassLoader(),
+                new File(dir, "classes"), new File(dir, "metadata"), null, ProjectScript.class, Actions.doNothing());
+            LOGGER.info("Daemon warm up took {}.", clock.getTime());
+        } catch (Exception e) {
+            // The warm up is only an optimization
+            LOGGER.info("Could not warm up the daemon.", e);
+        } finally {
+            if (dir != null) {
+                GFileUtils.deleteQuietly(dir);
+            }
+        }
+    }
+}
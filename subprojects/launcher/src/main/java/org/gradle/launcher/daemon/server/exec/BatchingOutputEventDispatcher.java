@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.exec;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.launcher.daemon.server.api.DaemonConnection;
+import org.gradle.logging.internal.OutputEvent;
+import org.gradle.logging.internal.OutputEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the output events of a build into batches, and dispatches each batch to the client as a single message.
+ * A batch is dispatched when it is full, or once the flush interval has passed since its first event was collected.
+ * Events are dispatched in the order they were collected.
+ */
+class BatchingOutputEventDispatcher implements OutputEventListener, Stoppable {
+    static final long FLUSH_INTERVAL_MILLIS = 20;
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private final DaemonConnection connection;
+    private final long flushIntervalMillis;
+    private final int maxBatchSize;
+    private final Object lock = new Object();
+    private final Object dispatchLock = new Object();
+    private final StoppableExecutor flushExecutor;
+    private List<OutputEvent> pending = new ArrayList<OutputEvent>();
+    private long firstPendingAt;
+    private boolean stopped;
+
+    BatchingOutputEventDispatcher(DaemonConnection connection, ExecutorFactory executorFactory) {
+        this(connection, executorFactory, FLUSH_INTERVAL_MILLIS, MAX_BATCH_SIZE);
+    }
+
+    BatchingOutputEventDispatcher(DaemonConnection connection, ExecutorFactory executorFactory, long flushIntervalMillis, int maxBatchSize) {
+        this.connection = connection;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxBatchSize = maxBatchSize;
+        flushExecutor = executorFactory.create("Daemon client output");
+        flushExecutor.execute(new Runnable() {
+            public void run() {
+                flushPeriodically();
+            }
+        });
+    }
+
+    public void onOutput(OutputEvent event) {
+        boolean full;
+        synchronized (lock) {
+            pending.add(event);
+            if (pending.size() == 1) {
+                firstPendingAt = System.currentTimeMillis();
+                lock.notifyAll();
+            }
+            full = stopped || pending.size() >= maxBatchSize;
+        }
+        if (full) {
+            dispatchPending();
+        }
+    }
+
+    /**
+     * Dispatches any collected events, and stops the flush thread. Events collected after this method has been called are dispatched immediately.
+     */
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+            lock.notifyAll();
+        }
+        flushExecutor.stop();
+        dispatchPending();
+    }
+
+    private void flushPeriodically() {
+        while (true) {
+            synchronized (lock) {
+                while (!stopped) {
+                    if (pending.isEmpty()) {
+                        waitForEvents(0);
+                        continue;
+                    }
+                    long remaining = firstPendingAt + flushIntervalMillis - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    waitForEvents(remaining);
+                }
+                if (stopped) {
+                    return;
+                }
+            }
+            dispatchPending();
+        }
+    }
+
+    private void waitForEvents(long timeoutMillis) {
+        try {
+            lock.wait(timeoutMillis);
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void dispatchPending() {
+        // Take and dispatch the batch while holding the dispatch lock, so that batches are dispatched in order
+        synchronized (dispatchLock) {
+            List<OutputEvent> batch;
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<OutputEvent>();
+            }
+            try {
+                if (batch.size() == 1) {
+                    connection.logEvent(batch.get(0));
+                } else {
+                    connection.logEvents(batch);
+                }
+            } catch (Exception e) {
+                //Ignore. It means the client has disconnected so no point sending him any log output.
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.gradle.launcher.daemon.server.exec;
 
 import com.google.common.collect.ImmutableList;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.nativeintegration.ProcessEnvironment;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.launcher.daemon.context.DaemonContext;
@@ -41,15 +42,17 @@ public class DefaultDaemonCommandExecuter implements DaemonCommandExecuter {
     private final ProcessEnvironment processEnvironment;
     private final File daemonLog;
     private final ServiceRegistry contextServices;
+    private final ExecutorFactory executorFactory;
 
     public DefaultDaemonCommandExecuter(BuildActionExecuter<BuildActionParameters> actionExecuter, ServiceRegistry contextServices, ProcessEnvironment processEnvironment,
-                                        LoggingManagerInternal loggingOutput, File daemonLog, DaemonHealthServices healthServices) {
+                                        LoggingManagerInternal loggingOutput, File daemonLog, DaemonHealthServices healthServices, ExecutorFactory executorFactory) {
         this.processEnvironment = processEnvironment;
         this.daemonLog = daemonLog;
         this.loggingOutput = loggingOutput;
         this.actionExecuter = actionExecuter;
         this.healthServices = healthServices;
         this.contextServices = contextServices;
+        this.executorFactory = executorFactory;
     }
 
     public void executeCommand(DaemonConnection connection, Command command, DaemonContext daemonContext, DaemonStateControl daemonStateControl) {
@@ -71,7 +74,7 @@ public class DefaultDaemonCommandExecuter implements DaemonCommandExecuter {
             new StartBuildOrRespondWithBusy(daemonDiagnostics), // from this point down, the daemon is 'busy'
             healthServices.getGCHintAction(), //TODO SF needs to happen after the result is returned to the client
             new EstablishBuildEnvironment(processEnvironment),
-            new LogToClient(loggingOutput, daemonDiagnostics), // from this point down, logging is sent back to the client
+            new LogToClient(loggingOutput, daemonDiagnostics, executorFactory), // from this point down, logging is sent back to the client
             healthServices.getHealthTrackerAction(),
             new ForwardClientInput(),
             new RequestStopIfSingleUsedDaemon(),
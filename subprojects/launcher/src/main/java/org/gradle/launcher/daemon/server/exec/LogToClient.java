@@ -18,6 +18,7 @@ package org.gradle.launcher.daemon.server.exec;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.launcher.daemon.diagnostics.DaemonDiagnostics;
 import org.gradle.launcher.daemon.logging.DaemonMessages;
 import org.gradle.launcher.daemon.protocol.Build;
@@ -33,10 +34,12 @@ public class LogToClient extends BuildCommandOnly {
 
     private final LoggingOutputInternal loggingOutput;
     private final DaemonDiagnostics diagnostics;
+    private final ExecutorFactory executorFactory;
 
-    public LogToClient(LoggingOutputInternal loggingOutput, DaemonDiagnostics diagnostics) {
+    public LogToClient(LoggingOutputInternal loggingOutput, DaemonDiagnostics diagnostics, ExecutorFactory executorFactory) {
         this.loggingOutput = loggingOutput;
         this.diagnostics = diagnostics;
+        this.executorFactory = executorFactory;
     }
 
     protected void doBuild(final DaemonCommandExecution execution, Build build) {
@@ -46,15 +49,11 @@ public class LogToClient extends BuildCommandOnly {
         }
 
         final LogLevel buildLogLevel = build.getParameters().getLogLevel();
+        final BatchingOutputEventDispatcher dispatcher = new BatchingOutputEventDispatcher(execution.getConnection(), executorFactory);
         OutputEventListener listener = new OutputEventListener() {
             public void onOutput(OutputEvent event) {
-                try {
-                    if (event.getLogLevel() != null && event.getLogLevel().compareTo(buildLogLevel) >= 0) {
-                        execution.getConnection().logEvent(event);
-                    }
-                } catch (Exception e) {
-                    //Ignore. It means the client has disconnected so no point sending him any log output.
-                    //we should be checking if client still listens elsewhere anyway.
+                if (event.getLogLevel() != null && event.getLogLevel().compareTo(buildLogLevel) >= 0) {
+                    dispatcher.onOutput(event);
                 }
             }
         };
@@ -66,6 +65,7 @@ public class LogToClient extends BuildCommandOnly {
             execution.proceed();
         } finally {
             loggingOutput.removeOutputEventListener(listener);
+            dispatcher.stop();
         }
     }
 }
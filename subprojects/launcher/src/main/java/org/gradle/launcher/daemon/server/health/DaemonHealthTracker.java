@@ -16,6 +16,7 @@
 
 package org.gradle.launcher.daemon.server.health;
 
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.launcher.daemon.server.api.DaemonCommandAction;
@@ -28,11 +29,13 @@ class DaemonHealthTracker implements DaemonCommandAction {
     private final DaemonStats stats;
     private final DaemonStatus status;
     private final HealthLogger logger;
+    private final InMemoryTaskArtifactCache taskArtifactCache;
 
-    DaemonHealthTracker(DaemonStats stats, DaemonStatus status, HealthLogger logger) {
+    DaemonHealthTracker(DaemonStats stats, DaemonStatus status, HealthLogger logger, InMemoryTaskArtifactCache taskArtifactCache) {
         this.stats = stats;
         this.status = status;
         this.logger = logger;
+        this.taskArtifactCache = taskArtifactCache;
     }
 
     public void execute(DaemonCommandExecution execution) {
@@ -43,6 +46,7 @@ class DaemonHealthTracker implements DaemonCommandAction {
 
         stats.buildStarted();
         logger.logHealth(stats, LOG);
+        logger.logCacheStatistics(taskArtifactCache.getStatistics(), LOG);
         try {
             execution.proceed();
         } finally {
@@ -51,6 +55,14 @@ class DaemonHealthTracker implements DaemonCommandAction {
 
         if(status.isDaemonTired(stats)) {
             execution.getDaemonStateControl().requestStop();
+            return;
+        }
+
+        String memoryExpirationReason = status.getMemoryExpirationReason(stats);
+        if (memoryExpirationReason != null) {
+            // Logged while the build output is still forwarded to the client
+            LOG.lifecycle("The daemon will stop after this build because {}.", memoryExpirationReason);
+            execution.getDaemonStateControl().requestStop();
         }
     }
 }
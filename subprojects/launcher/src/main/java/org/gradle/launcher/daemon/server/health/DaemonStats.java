@@ -21,10 +21,17 @@ import org.gradle.internal.TrueTimeProvider;
 import org.gradle.internal.util.NumberUtil;
 import org.gradle.util.Clock;
 
+import java.util.LinkedList;
+
 import static java.lang.String.format;
 
 class DaemonStats {
 
+    /**
+     * The number of recent tenured space samples used to determine the trend of the tenured space usage.
+     */
+    static final int TENURED_SAMPLES = 5;
+
     private final Clock totalTime;
     private final TimeProvider timeProvider;
     private final MemoryInfo memory;
@@ -33,6 +40,10 @@ class DaemonStats {
     private long currentBuildStart;
     private long allBuildsTime;
     private int currentPerformance;
+    private long buildStartCollectionTime;
+    private int currentCollectionTime;
+    private long tenuredCollectionCount;
+    private final LinkedList<Integer> tenuredUsage = new LinkedList<Integer>();
 
     DaemonStats() {
         this(new Clock(), new TrueTimeProvider(), new MemoryInfo());
@@ -50,6 +61,7 @@ class DaemonStats {
     void buildStarted() {
         ++buildCount;
         currentBuildStart = timeProvider.getCurrentTime();
+        buildStartCollectionTime = memory.getCollectionTime();
     }
 
     /**
@@ -59,6 +71,26 @@ class DaemonStats {
         long buildTime = Math.max(timeProvider.getCurrentTime() - currentBuildStart, 1);
         allBuildsTime += buildTime;
         currentPerformance = performance(allBuildsTime, memory);
+        long collectionTime = Math.max(memory.getCollectionTime() - buildStartCollectionTime, 0);
+        currentCollectionTime = NumberUtil.percentOf(Math.min(collectionTime, buildTime), buildTime);
+        sampleTenuredUsage();
+    }
+
+    /**
+     * Records the usage of the tenured space after garbage collection, when the tenured space has been collected since the previous sample.
+     */
+    private void sampleTenuredUsage() {
+        long collectionCount = memory.getTenuredCollectionCount();
+        long used = memory.getTenuredUsedAfterCollection();
+        long max = memory.getTenuredMaxMemory();
+        if (collectionCount <= tenuredCollectionCount || used < 0 || max <= 0) {
+            return;
+        }
+        tenuredCollectionCount = collectionCount;
+        tenuredUsage.addLast(NumberUtil.percentOf(used, max));
+        if (tenuredUsage.size() > TENURED_SAMPLES) {
+            tenuredUsage.removeFirst();
+        }
     }
 
     private static int performance(long totalTime, MemoryInfo memoryInfo) {
@@ -77,6 +109,47 @@ class DaemonStats {
         return currentPerformance;
     }
 
+    /**
+     * 0-100, the percentage of the most recent build's time spent in gc
+     */
+    int getCurrentCollectionTime() {
+        return currentCollectionTime;
+    }
+
+    /**
+     * 0-100, the percentage of the tenured space used after the most recent gc, or -1 if not known
+     */
+    int getTenuredUsed() {
+        return tenuredUsage.isEmpty() ? -1 : tenuredUsage.getLast();
+    }
+
+    /**
+     * The growth of the tenured space used after gc, in percentage points per sample, over the most recent samples.
+     * Returns 0 until {@link #TENURED_SAMPLES} samples are available.
+     */
+    double getTenuredGrowth() {
+        int count = tenuredUsage.size();
+        if (count < TENURED_SAMPLES) {
+            return 0;
+        }
+        // slope of the least squares line through the samples
+        double meanX = (count - 1) / 2.0;
+        double meanY = 0;
+        for (int usage : tenuredUsage) {
+            meanY += usage;
+        }
+        meanY /= count;
+        double covariance = 0;
+        double variance = 0;
+        int x = 0;
+        for (int usage : tenuredUsage) {
+            covariance += (x - meanX) * (usage - meanY);
+            variance += (x - meanX) * (x - meanX);
+            x++;
+        }
+        return covariance / variance;
+    }
+
     /**
      * elegant description of daemon's health
      */
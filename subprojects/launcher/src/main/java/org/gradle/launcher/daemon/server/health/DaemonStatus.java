@@ -17,6 +17,8 @@
 package org.gradle.launcher.daemon.server.health;
 
 import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
+import org.gradle.launcher.daemon.configuration.GradleProperties;
 
 import static java.lang.String.format;
 
@@ -24,6 +26,11 @@ class DaemonStatus {
 
     public static final String EXPIRE_AT_PROPERTY = "org.gradle.daemon.performance.expire-at";
     static final int DEFAULT_EXPIRE_AT = 0;
+    public static final String DETECT_LEAKS_PROPERTY = "org.gradle.daemon.performance.detect-leaks";
+    static final int LEAK_TENURED_USED = 70;
+    static final double LEAK_TENURED_GROWTH = 1.0;
+    static final int GC_PRESSURE_TENURED_USED = 90;
+    static final int GC_PRESSURE_COLLECTION_TIME = 25;
 
     boolean isDaemonTired(DaemonStats stats) {
         String expireAt = System.getProperty(EXPIRE_AT_PROPERTY);
@@ -33,6 +40,33 @@ class DaemonStatus {
                 && stats.getCurrentPerformance() <= threshold; //performance below threshold
     }
 
+    /**
+     * Returns the reason why the daemon should be stopped because of its memory usage, or null if it should keep running.
+     * The daemon is stopped when the tenured space used after gc keeps growing across builds (most likely a memory leak),
+     * or when the tenured space is nearly full and builds spend a large share of their time in gc.
+     */
+    @Nullable
+    String getMemoryExpirationReason(DaemonStats stats) {
+        String detectLeaks = System.getProperty(DETECT_LEAKS_PROPERTY);
+        if (detectLeaks != null && !GradleProperties.isTrue(detectLeaks)) {
+            return null;
+        }
+        int tenuredUsed = stats.getTenuredUsed();
+        if (tenuredUsed < 0) {
+            return null;
+        }
+        double growth = stats.getTenuredGrowth();
+        if (tenuredUsed >= LEAK_TENURED_USED && growth >= LEAK_TENURED_GROWTH) {
+            return format("the tenured space used after gc has grown by %.1f%% per build over the last %s builds and is now %s%% (a memory leak is likely)",
+                    growth, DaemonStats.TENURED_SAMPLES, tenuredUsed);
+        }
+        if (tenuredUsed >= GC_PRESSURE_TENURED_USED && stats.getCurrentCollectionTime() >= GC_PRESSURE_COLLECTION_TIME) {
+            return format("the tenured space used after gc is %s%% and the last build spent %s%% of its time in gc",
+                    tenuredUsed, stats.getCurrentCollectionTime());
+        }
+        return null;
+    }
+
     private static int parseValue(String expireAt, int defaultValue) {
         if (expireAt == null) {
             return defaultValue;
@@ -16,19 +16,32 @@
 
 package org.gradle.launcher.daemon.server.health;
 
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
 import org.gradle.api.logging.Logger;
 import org.gradle.launcher.daemon.configuration.GradleProperties;
 
+import java.util.List;
+
 class HealthLogger {
 
     static final String HEALTH_MESSAGE_PROPERTY = "org.gradle.daemon.performance.logging";
 
     void logHealth(DaemonStats stats, Logger logger) {
+        log(stats.getHealthInfo(), logger);
+    }
+
+    void logCacheStatistics(List<InMemoryTaskArtifactCache.CacheStatistics> statistics, Logger logger) {
+        for (InMemoryTaskArtifactCache.CacheStatistics cacheStatistics : statistics) {
+            log(cacheStatistics.toString(), logger);
+        }
+    }
+
+    private void log(String message, Logger logger) {
         if (GradleProperties.isTrue(System.getProperty(HEALTH_MESSAGE_PROPERTY))) {
-            logger.lifecycle(stats.getHealthInfo());
+            logger.lifecycle(message);
         } else {
             //the default
-            logger.info(stats.getHealthInfo());
+            logger.info(message);
         }
     }
 }
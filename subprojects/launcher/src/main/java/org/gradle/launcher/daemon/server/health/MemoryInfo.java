@@ -16,15 +16,24 @@
 
 package org.gradle.launcher.daemon.server.health;
 
+import org.gradle.api.Nullable;
+
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.reflect.Method;
 
-class MemoryInfo {
+public class MemoryInfo {
 
     private final long totalMemory; //this does not change
+    private final MemoryPoolMXBean tenuredPool;
 
-    MemoryInfo() {
+    public MemoryInfo() {
         totalMemory = Runtime.getRuntime().maxMemory();
+        tenuredPool = findTenuredPool();
     }
 
     /**
@@ -49,6 +58,78 @@ class MemoryInfo {
         return totalMemory;
     }
 
+    /**
+     * Free physical memory of the machine in bytes, or -1 when the JVM does not provide it.
+     */
+    public long getFreePhysicalMemory() {
+        OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+        try {
+            // Only available from the JVM specific extension of the bean
+            Class<?> extensionType = Class.forName("com.sun.management.OperatingSystemMXBean");
+            if (!extensionType.isInstance(operatingSystem)) {
+                return -1;
+            }
+            Method method = extensionType.getMethod("getFreePhysicalMemorySize");
+            return (Long) method.invoke(operatingSystem);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Used memory of the tenured space after the most recent garbage collection of that space, in bytes.
+     * Returns -1 when the tenured space of the garbage collector in use is not known.
+     */
+    long getTenuredUsedAfterCollection() {
+        if (tenuredPool == null) {
+            return -1;
+        }
+        MemoryUsage usage = tenuredPool.getCollectionUsage();
+        return usage == null ? -1 : usage.getUsed();
+    }
+
+    /**
+     * Max memory of the tenured space in bytes, or -1 when not known.
+     */
+    long getTenuredMaxMemory() {
+        if (tenuredPool == null) {
+            return -1;
+        }
+        return tenuredPool.getUsage().getMax();
+    }
+
+    /**
+     * Number of garbage collections that have processed the tenured space so far, or -1 when not known.
+     */
+    long getTenuredCollectionCount() {
+        if (tenuredPool == null) {
+            return -1;
+        }
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            for (String poolName : gc.getMemoryPoolNames()) {
+                if (poolName.equals(tenuredPool.getName()) && gc.getCollectionCount() > 0) {
+                    count += gc.getCollectionCount();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The heap pool that holds long-lived objects, named 'Tenured Gen', 'PS Old Gen', 'CMS Old Gen' or 'G1 Old Gen' depending on the garbage collector.
+     */
+    @Nullable
+    private static MemoryPoolMXBean findTenuredPool() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()
+                && (pool.getName().contains("Old Gen") || pool.getName().contains("Tenured"))) {
+                return pool;
+            }
+        }
+        return null;
+    }
+
     /**
      * Currently committed memory of this process in bytes.
      * May return different value depending on how the heap has expanded.
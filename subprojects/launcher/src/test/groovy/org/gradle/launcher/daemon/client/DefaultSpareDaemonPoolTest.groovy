@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.client
+
+import org.gradle.api.internal.specs.ExplainingSpec
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.StoppableExecutor
+import org.gradle.launcher.daemon.context.DaemonContext
+import org.gradle.launcher.daemon.context.DaemonInstanceDetails
+import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo
+import org.gradle.launcher.daemon.registry.DaemonInfo
+import org.gradle.launcher.daemon.registry.DaemonRegistry
+import org.gradle.launcher.daemon.server.health.MemoryInfo
+import spock.lang.Specification
+
+class DefaultSpareDaemonPoolTest extends Specification {
+    static final long GB = 1024L * 1024 * 1024
+
+    final registry = Mock(DaemonRegistry)
+    final daemonStarter = Mock(DaemonStarter)
+    final executor = Mock(StoppableExecutor)
+    final executorFactory = Stub(ExecutorFactory) {
+        create(_) >> executor
+    }
+    final memoryInfo = Stub(MemoryInfo)
+    final constraint = Stub(ExplainingSpec) {
+        isSatisfiedBy(_) >> true
+    }
+    final claimed = Stub(DaemonInstanceDetails) {
+        getUid() >> "claimed"
+    }
+
+    def "starts spare daemons in the background when there are not enough idle daemons"() {
+        def pool = new DefaultSpareDaemonPool(registry, daemonStarter, executorFactory, memoryInfo, 2, "512m")
+        memoryInfo.freePhysicalMemory >> 4 * GB
+
+        when:
+        pool.daemonClaimed(claimed, constraint)
+
+        then:
+        1 * registry.getIdle() >> [idle("claimed")]
+        2 * executor.execute(_)
+        0 * daemonStarter._
+    }
+
+    def "does not start spare daemons when enough idle daemons are available"() {
+        def pool = new DefaultSpareDaemonPool(registry, daemonStarter, executorFactory, memoryInfo, 2, "512m")
+        memoryInfo.freePhysicalMemory >> 4 * GB
+
+        when:
+        pool.daemonClaimed(claimed, constraint)
+
+        then:
+        1 * registry.getIdle() >> [idle("claimed"), idle("one"), idle("two")]
+        0 * executor._
+    }
+
+    def "counts spare daemons that are being started by any client"() {
+        def pool = new DefaultSpareDaemonPool(registry, daemonStarter, executorFactory, memoryInfo, 2, "512m")
+        memoryInfo.freePhysicalMemory >> 4 * GB
+        registry.getIdle() >> []
+
+        when:
+        pool.daemonClaimed(claimed, constraint)
+
+        then:
+        1 * registry.getStartingCount() >> 1
+        1 * registry.storeStarting(_)
+        1 * executor.execute(_)
+    }
+
+    def "limits spare daemons to the free physical memory"() {
+        def pool = new DefaultSpareDaemonPool(registry, daemonStarter, executorFactory, memoryInfo, 3, "1g")
+        memoryInfo.freePhysicalMemory >> GB + 100
+        registry.getIdle() >> []
+
+        when:
+        pool.daemonClaimed(claimed, constraint)
+
+        then:
+        1 * executor.execute(_)
+    }
+
+    def "starts spare daemon without connecting to it"() {
+        def pool = new DefaultSpareDaemonPool(registry, daemonStarter, executorFactory, memoryInfo, 1, null)
+        Runnable action = null
+        String id = null
+        memoryInfo.freePhysicalMemory >> -1
+        registry.getIdle() >> []
+        registry.storeStarting(_) >> { id = it[0] }
+        executor.execute(_) >> { action = it[0] }
+        pool.daemonClaimed(claimed, constraint)
+
+        when:
+        action.run()
+
+        then:
+        1 * daemonStarter.startDaemon() >> new DaemonStartupInfo("uid", null, null)
+
+        then:
+        1 * registry.removeStarting(id)
+        0 * _
+    }
+
+    def "stops counting spare daemon that could not be started"() {
+        def pool = new DefaultSpareDaemonPool(registry, daemonStarter, executorFactory, memoryInfo, 1, null)
+        Runnable action = null
+        String id = null
+        memoryInfo.freePhysicalMemory >> -1
+        registry.getIdle() >> []
+        registry.storeStarting(_) >> { id = it[0] }
+        executor.execute(_) >> { action = it[0] }
+        pool.daemonClaimed(claimed, constraint)
+
+        when:
+        action.run()
+
+        then:
+        1 * daemonStarter.startDaemon() >> { throw new RuntimeException("broken") }
+        1 * registry.removeStarting(id)
+    }
+
+    def "stop does not wait for spare daemons being started"() {
+        def pool = new DefaultSpareDaemonPool(registry, daemonStarter, executorFactory, memoryInfo, 1, null)
+        memoryInfo.freePhysicalMemory >> -1
+        registry.getIdle() >> []
+        pool.daemonClaimed(claimed, constraint)
+
+        when:
+        pool.stop()
+
+        then:
+        1 * executor.requestStop()
+        0 * executor.stop()
+    }
+
+    def "parses daemon heap size"() {
+        expect:
+        DefaultSpareDaemonPool.parseMemory(value) == expected
+
+        where:
+        value   | expected
+        "512m"  | 512L * 1024 * 1024
+        "2G"    | 2 * GB
+        "1024k" | 1024L * 1024
+        "1000"  | 1000L
+        null    | DefaultSpareDaemonPool.DEFAULT_DAEMON_MEMORY
+        "bogus" | DefaultSpareDaemonPool.DEFAULT_DAEMON_MEMORY
+    }
+
+    private DaemonInfo idle(String uid) {
+        def context = Stub(DaemonContext) {
+            getUid() >> uid
+        }
+        return new DaemonInfo(null, context, "password", true)
+    }
+}
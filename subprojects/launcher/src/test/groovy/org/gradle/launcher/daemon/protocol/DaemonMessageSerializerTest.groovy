@@ -133,6 +133,33 @@ class DaemonMessageSerializerTest extends SerializerSpec {
         result.status == "status"
     }
 
+    def "can serialize OutputMessageBatch messages"() {
+        expect:
+        def events = [
+            new LogEvent(1234, "category", LogLevel.LIFECYCLE, "message", null),
+            new StyledTextOutputEvent(1240, "other", LogLevel.QUIET, new StyledTextOutputEvent.Span(StyledTextOutput.Style.Error, "error")),
+            new ProgressEvent(new OperationIdentifier(1234L), 321L, "category", "status"),
+            new LogEvent(1230, "category", LogLevel.ERROR, "failure", new RuntimeException("broken"))
+        ]
+        def result = serialize(new OutputMessageBatch(events), serializer)
+        result instanceof OutputMessageBatch
+        assertSameEvents(result.events, events)
+    }
+
+    def "can serialize compressed OutputMessageBatch messages"() {
+        expect:
+        def events = (1..200).collect { new LogEvent(1234 + it, "category ${it % 3}", LogLevel.LIFECYCLE, "message $it", null) }
+        def compressingSerializer = DaemonMessageSerializer.create(true)
+        def result = serialize(new OutputMessageBatch(events), compressingSerializer)
+        result instanceof OutputMessageBatch
+        assertSameEvents(result.events, events)
+        toBytes(new OutputMessageBatch(events), compressingSerializer).length < toBytes(new OutputMessageBatch(events), serializer).length
+
+        def smallBatch = [new LogEvent(1234, "category", LogLevel.LIFECYCLE, "message", null)]
+        def result2 = serialize(new OutputMessageBatch(smallBatch), compressingSerializer)
+        assertSameEvents(result2.events, smallBatch)
+    }
+
     def "can serialize Failure messages"() {
         expect:
         def failure = new RuntimeException()
@@ -173,6 +200,27 @@ class DaemonMessageSerializerTest extends SerializerSpec {
         messageResult.identifier == "id"
     }
 
+    void assertSameEvents(List<OutputEvent> result, List<OutputEvent> events) {
+        assert result.size() == events.size()
+        result.eachWithIndex { OutputEvent event, int i ->
+            def expected = events[i]
+            assert event.getClass() == expected.getClass()
+            assert event.timestamp == expected.timestamp
+            assert event.category == expected.category
+            assert event.logLevel == expected.logLevel
+            if (event instanceof LogEvent) {
+                assert event.message == expected.message
+                assert event.throwable?.message == expected.throwable?.message
+            } else if (event instanceof StyledTextOutputEvent) {
+                assert event.spans*.style == expected.spans*.style
+                assert event.spans*.text == expected.spans*.text
+            } else {
+                assert event.operationId == expected.operationId
+                assert event.status == expected.status
+            }
+        }
+    }
+
     OutputEvent serialize(OutputEvent event, Serializer<Object> serializer) {
         def result = serialize(new OutputMessage(event), serializer)
         assert result instanceof OutputMessage
@@ -100,6 +100,34 @@ class PersistentDaemonRegistryTest extends Specification {
         registry.all.empty
     }
 
+    def "counts daemons that are being started"() {
+        expect:
+        registry.startingCount == 0
+
+        when:
+        registry.storeStarting("one")
+        registry.storeStarting("two")
+
+        then:
+        registry.startingCount == 2
+        new PersistentDaemonRegistry(file, lockManager).startingCount == 2
+
+        when:
+        registry.removeStarting("one")
+        registry.removeStarting("unknown")
+
+        then:
+        registry.startingCount == 1
+    }
+
+    def "safely removes starting daemon if registry empty"() {
+        when:
+        registry.removeStarting("one")
+
+        then:
+        registry.startingCount == 0
+    }
+
     DaemonContext daemonContext() {
         new DaemonContextBuilder([maybeGetPid: {null}] as ProcessEnvironment).with {
             daemonRegistryDir = tmp.createDir("daemons")
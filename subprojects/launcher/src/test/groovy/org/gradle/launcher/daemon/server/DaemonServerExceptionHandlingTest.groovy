@@ -21,6 +21,7 @@ import org.gradle.api.logging.LogLevel
 import org.gradle.configuration.GradleLauncherMetaData
 import org.gradle.initialization.BuildRequestContext
 import org.gradle.internal.classpath.ClassPath
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.invocation.BuildAction
 import org.gradle.internal.invocation.BuildController
 import org.gradle.internal.nativeintegration.ProcessEnvironment
@@ -85,7 +86,7 @@ class DaemonServerExceptionHandlingTest extends Specification {
             DaemonCommandExecuter createDaemonCommandExecuter() {
                 return new DefaultDaemonCommandExecuter(get(BuildExecuter), this,
                         get(ProcessEnvironment), getFactory(LoggingManagerInternal.class).create(),
-                        new File("dummy"), new StubDaemonHealthServices()) {
+                        new File("dummy"), new StubDaemonHealthServices(), get(ExecutorFactory)) {
                     List<DaemonCommandAction> createActions(DaemonContext daemonContext) {
                         def actions = new LinkedList(super.createActions(daemonContext));
                         configureDeamonActions(actions);
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.exec
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.launcher.daemon.server.api.DaemonConnection
+import org.gradle.logging.internal.LogEvent
+import org.gradle.logging.internal.OutputEvent
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class BatchingOutputEventDispatcherTest extends Specification {
+    final DaemonConnection connection = Mock()
+    final executorFactory = new DefaultExecutorFactory()
+    final List<List<OutputEvent>> dispatched = new CopyOnWriteArrayList<List<OutputEvent>>()
+    BatchingOutputEventDispatcher dispatcher
+
+    def setup() {
+        _ * connection.logEvent(_) >> { OutputEvent event -> dispatched << [event] }
+        _ * connection.logEvents(_) >> { List<OutputEvent> events -> dispatched << events }
+    }
+
+    def cleanup() {
+        dispatcher?.stop()
+        executorFactory.stop()
+    }
+
+    def "dispatches collected events as a batch when stopped"() {
+        def event1 = event("one")
+        def event2 = event("two")
+        def event3 = event("three")
+        dispatcher = new BatchingOutputEventDispatcher(connection, executorFactory, 60000, 100)
+
+        when:
+        dispatcher.onOutput(event1)
+        dispatcher.onOutput(event2)
+        dispatcher.onOutput(event3)
+
+        then:
+        dispatched.empty
+
+        when:
+        dispatcher.stop()
+
+        then:
+        dispatched == [[event1, event2, event3]]
+    }
+
+    def "dispatches batch when it is full"() {
+        def events = (1..5).collect { event("event $it") }
+        dispatcher = new BatchingOutputEventDispatcher(connection, executorFactory, 60000, 2)
+
+        when:
+        events.each { dispatcher.onOutput(it) }
+
+        then:
+        dispatched == [events[0..1], events[2..3]]
+
+        when:
+        dispatcher.stop()
+
+        then:
+        dispatched == [events[0..1], events[2..3], [events[4]]]
+    }
+
+    def "dispatches batch once flush interval has passed"() {
+        def event1 = event("one")
+        def event2 = event("two")
+        def flushed = new CountDownLatch(1)
+        dispatcher = new BatchingOutputEventDispatcher({ flushed.countDown(); dispatched << it } as DaemonConnection, executorFactory, 200, 100)
+
+        when:
+        dispatcher.onOutput(event1)
+        dispatcher.onOutput(event2)
+
+        then:
+        flushed.await(10, TimeUnit.SECONDS)
+        dispatched == [[event1, event2]]
+    }
+
+    def "dispatches single event as a single message"() {
+        def event1 = event("one")
+        dispatcher = new BatchingOutputEventDispatcher(connection, executorFactory, 60000, 100)
+
+        when:
+        dispatcher.onOutput(event1)
+        dispatcher.stop()
+
+        then:
+        1 * connection.logEvent(event1)
+        0 * connection.logEvents(_)
+    }
+
+    def "dispatches events immediately after stop"() {
+        def event1 = event("one")
+        dispatcher = new BatchingOutputEventDispatcher(connection, executorFactory, 60000, 100)
+
+        when:
+        dispatcher.stop()
+        dispatcher.onOutput(event1)
+
+        then:
+        dispatched == [[event1]]
+    }
+
+    def "ignores failure to dispatch"() {
+        dispatcher = new BatchingOutputEventDispatcher(connection, executorFactory, 60000, 1)
+
+        when:
+        dispatcher.onOutput(event("one"))
+
+        then:
+        1 * connection.logEvent(_) >> { throw new RuntimeException("disconnected") }
+        noExceptionThrown()
+    }
+
+    def event(String text) {
+        return new LogEvent(100, "category", LogLevel.LIFECYCLE, text, null)
+    }
+}
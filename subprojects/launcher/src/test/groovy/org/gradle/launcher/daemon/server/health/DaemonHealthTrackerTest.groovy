@@ -16,6 +16,7 @@
 
 package org.gradle.launcher.daemon.server.health
 
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache
 import org.gradle.launcher.daemon.server.api.DaemonCommandExecution
 import org.gradle.launcher.daemon.server.api.DaemonStateControl
 import spock.lang.Specification
@@ -29,13 +30,15 @@ class DaemonHealthTrackerTest extends Specification {
     def stats = Mock(DaemonStats)
     def status = Mock(DaemonStatus)
     def logger = Mock(HealthLogger)
-    def tracker = new DaemonHealthTracker(stats, status, logger)
+    def taskArtifactCache = Mock(InMemoryTaskArtifactCache)
+    def tracker = new DaemonHealthTracker(stats, status, logger, taskArtifactCache)
 
     def "tracks start and complete events"() {
         when: tracker.execute(exec)
 
         then: 1 * stats.buildStarted()
         then: 1 * logger.logHealth(stats, _)
+        then: 1 * logger.logCacheStatistics(_, _)
         then: 1 * exec.proceed()
         then: 1 * stats.buildFinished()
     }
@@ -66,4 +69,13 @@ class DaemonHealthTrackerTest extends Specification {
         then:
         0 * control.requestStop()
     }
+
+    def "stops after the build when the daemon runs out of memory"() {
+        1 * status.getMemoryExpirationReason(stats) >> "the daemon leaks"
+
+        when: tracker.execute(exec)
+
+        then:
+        1 * control.requestStop()
+    }
 }
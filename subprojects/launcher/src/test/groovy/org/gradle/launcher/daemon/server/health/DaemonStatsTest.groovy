@@ -89,4 +89,82 @@ class DaemonStatsTest extends Specification {
         then:
         stats.healthInfo == String.format("Starting 2nd build in daemon [uptime: %s, performance: 98%%, memory: 50%% of %.1f MB]", Clock.prettyTime(1), 10.0)
     }
+
+    def "tracks tenured space used after gc"() {
+        def currentTime = 0L
+        def collectionTime = 0L
+        def collections = 0L
+        def tenuredUsed = 0L
+        time.getCurrentTime() >> { currentTime }
+        memory.getCollectionTime() >> { collectionTime }
+        memory.getTenuredCollectionCount() >> { collections }
+        memory.getTenuredUsedAfterCollection() >> { tenuredUsed }
+        memory.getTenuredMaxMemory() >> 1000
+
+        def stats = new DaemonStats(clock, time, memory)
+
+        expect:
+        stats.tenuredUsed == -1
+
+        when:
+        stats.buildStarted()
+        currentTime = 1000
+        collectionTime = 100
+        collections = 1
+        tenuredUsed = 400
+        stats.buildFinished()
+
+        then:
+        stats.tenuredUsed == 40
+        stats.currentCollectionTime == 10
+
+        when:
+        stats.buildStarted()
+        currentTime = 2000
+        collectionTime = 600
+        collections = 2
+        tenuredUsed = 500
+        stats.buildFinished()
+
+        then:
+        stats.tenuredUsed == 50
+        stats.currentCollectionTime == 50
+
+        when: "the tenured space was not collected during the build"
+        stats.buildStarted()
+        currentTime = 3000
+        tenuredUsed = 100
+        stats.buildFinished()
+
+        then:
+        stats.tenuredUsed == 50
+        stats.currentCollectionTime == 0
+    }
+
+    def "calculates growth of tenured space used after gc"() {
+        def collections = 0
+        def usage = samples.iterator()
+        memory.getTenuredCollectionCount() >> { ++collections }
+        memory.getTenuredUsedAfterCollection() >> { usage.next() }
+        memory.getTenuredMaxMemory() >> 100
+
+        def stats = new DaemonStats(clock, time, memory)
+
+        when:
+        samples.size().times {
+            stats.buildStarted()
+            stats.buildFinished()
+        }
+
+        then:
+        stats.tenuredGrowth == growth
+
+        where:
+        samples                    | growth
+        [50, 60, 70]               | 0
+        [50, 55, 60, 65, 70]       | 5
+        [10, 50, 55, 60, 65, 70]   | 5
+        [70, 70, 70, 70, 70]       | 0
+        [80, 75, 70, 65, 60]       | -5
+    }
 }
@@ -23,6 +23,7 @@ import spock.lang.Specification
 import spock.lang.Subject
 import spock.lang.Unroll
 
+import static org.gradle.launcher.daemon.server.health.DaemonStatus.DETECT_LEAKS_PROPERTY
 import static org.gradle.launcher.daemon.server.health.DaemonStatus.EXPIRE_AT_PROPERTY
 
 class DaemonStatusTest extends Specification {
@@ -73,4 +74,45 @@ class DaemonStatusTest extends Specification {
         then:
         !status.isDaemonTired(stats)
     }
+
+    @Unroll
+    def "knows when daemon leaks memory or is under gc pressure"() {
+        when:
+        stats.getTenuredUsed() >> tenured
+        stats.getTenuredGrowth() >> growth
+        stats.getCurrentCollectionTime() >> gc
+
+        then:
+        (status.getMemoryExpirationReason(stats) != null) == expire
+
+        where:
+        tenured | growth | gc | expire
+        -1      | 10     | 90 | false
+        60      | 5      | 0  | false
+        70      | 1      | 0  | true
+        85      | 0.5    | 50 | false
+        90      | 0      | 24 | false
+        90      | 0      | 25 | true
+        95      | -2     | 30 | true
+    }
+
+    def "reports why the daemon expires"() {
+        stats.getTenuredUsed() >> 80
+        stats.getTenuredGrowth() >> 2.5
+
+        expect:
+        status.getMemoryExpirationReason(stats) == "the tenured space used after gc has grown by 2.5% per build over the last 5 builds and is now 80% (a memory leak is likely)"
+    }
+
+    def "leak detection can be disabled"() {
+        System.setProperty(DETECT_LEAKS_PROPERTY, "false")
+
+        when:
+        stats.getTenuredUsed() >> 95
+        stats.getTenuredGrowth() >> 5
+        stats.getCurrentCollectionTime() >> 50
+
+        then:
+        status.getMemoryExpirationReason(stats) == null
+    }
 }
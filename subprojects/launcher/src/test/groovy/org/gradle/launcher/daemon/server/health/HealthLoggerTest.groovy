@@ -16,6 +16,8 @@
 
 package org.gradle.launcher.daemon.server.health
 
+import com.google.common.cache.CacheStats
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache
 import org.gradle.api.logging.Logger
 import org.gradle.util.SetSystemProperties
 import org.junit.Rule
@@ -41,4 +43,17 @@ class HealthLoggerTest extends Specification {
         when: healthLogger.logHealth(stats, logger)
         then: logger.lifecycle("yyy")
     }
+
+    def "logs cache statistics at info level by default"() {
+        def statistics = new InMemoryTaskArtifactCache.CacheStatistics("zzz", new CacheStats(1, 2, 0, 0, 0, 3), 10, 1000, 2000)
+        when: healthLogger.logCacheStatistics([statistics], logger)
+        then: 1 * logger.info({ it.startsWith("In-memory cache of zzz: entries: 10") })
+    }
+
+    def "may log cache statistics at lifecycle level"() {
+        System.setProperty(HealthLogger.HEALTH_MESSAGE_PROPERTY, "true")
+        def statistics = new InMemoryTaskArtifactCache.CacheStatistics("zzz", new CacheStats(1, 2, 0, 0, 0, 3), 10, 1000, 2000)
+        when: healthLogger.logCacheStatistics([statistics], logger)
+        then: 1 * logger.lifecycle({ it.startsWith("In-memory cache of zzz: entries: 10") })
+    }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance
+
+import org.gradle.performance.categories.Experiment
+import org.junit.experimental.categories.Category
+import spock.lang.Unroll
+
+@Category(Experiment)
+class BuildOperationTracePerformanceTest extends AbstractCrossBuildPerformanceTest {
+    @Unroll
+    def "full build Java build #testProject with build operation trace"() {
+        // The trace should add less than 1% to the build time of the full build Java build scenario
+        when:
+        runner.testId = "full build Java build $testProject with build operation trace"
+        runner.testGroup = "build operation trace"
+        runner.buildSpec {
+            projectName(testProject).displayName("trace").invocation {
+                gradleOpts("-Xms1g", "-Xmx1g", "-XX:MaxPermSize=256m", "-Dorg.gradle.internal.operations.trace=operations.trace")
+                tasksToRun("clean", "build").useDaemon()
+            }
+        }
+        runner.baseline {
+            projectName(testProject).displayName("no trace").invocation {
+                gradleOpts("-Xms1g", "-Xmx1g", "-XX:MaxPermSize=256m")
+                tasksToRun("clean", "build").useDaemon()
+            }
+        }
+
+        then:
+        runner.run()
+
+        where:
+        testProject << ["small", "multi"]
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance
+
+import org.gradle.performance.categories.Experiment
+import org.gradle.test.fixtures.server.http.HttpServer
+import org.junit.Rule
+import org.junit.experimental.categories.Category
+import spock.lang.Unroll
+
+@Category(Experiment)
+class DependencyResolutionPerformanceTest extends AbstractCrossBuildPerformanceTest {
+    @Rule HttpServer server = new HttpServer()
+
+    def setup() {
+        server.logRequests = false
+        server.start()
+    }
+
+    @Unroll
+    def "resolve dependency graph of #testProject"() {
+        // Each graph consists of chains of modules in a generated Maven repository, where every module also requests a newer version
+        // of a module further down its chain. The first build fills the dependency cache, so the measured builds hit the meta-data cache.
+        // The resolved graph cache is disabled, so that every build parses the meta-data, traverses the graph and resolves its conflicts.
+        given:
+        def repoDir = new File(runner.testProjectLocator.findProjectDir(testProject), "mavenRepo")
+        server.allowGetOrHead("/repo", repoDir)
+        def repoUrl = "${server.uri}/repo"
+        def jvmOpts = ["-Xms2g", "-Xmx2g", "-XX:MaxPermSize=256m", "-Dorg.gradle.resolution.graphcache=false"]
+
+        when:
+        runner.testId = "resolve dependency graph $testProject"
+        runner.testGroup = "dependency resolution"
+        runner.buildSpec {
+            projectName(testProject).displayName("file repository").invocation {
+                gradleOpts(*jvmOpts)
+                tasksToRun("resolveDependencies").useDaemon()
+            }
+        }
+        runner.buildSpec {
+            projectName(testProject).displayName("http repository").invocation {
+                gradleOpts(*jvmOpts)
+                args("-PrepositoryUrl=$repoUrl")
+                tasksToRun("resolveDependencies").useDaemon()
+            }
+        }
+        runner.baseline {
+            projectName(testProject).displayName("http repository without in-memory caches").invocation {
+                gradleOpts(*jvmOpts, "-Dorg.gradle.resolution.memorycache=false")
+                args("-PrepositoryUrl=$repoUrl")
+                tasksToRun("resolveDependencies").useDaemon()
+            }
+        }
+
+        then:
+        runner.run()
+
+        where:
+        testProject << ["smallDependencyGraph", "mediumDependencyGraph", "largeDependencyGraph"]
+    }
+}
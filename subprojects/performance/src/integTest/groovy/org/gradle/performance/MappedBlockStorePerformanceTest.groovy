@@ -0,0 +1,52 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance
+
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache
+import org.gradle.performance.categories.Experiment
+import org.junit.experimental.categories.Category
+import spock.lang.Unroll
+
+@Category(Experiment)
+class MappedBlockStorePerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    @Unroll
+    def "memory-mapped cache files on up-to-date build of #testProject"() {
+        // Up-to-date builds look up the hash of every input and output file in the fileHashes cache
+        when:
+        runner.testId = "memory-mapped cache files $testProject"
+        runner.testGroup = "task history cache"
+        runner.buildSpec {
+            projectName(testProject).displayName("memory-mapped").invocation {
+                gradleOpts("-Xms1g", "-Xmx1g", "-D${BTreePersistentIndexedCache.MAPPED_BLOCK_STORE_TOGGLE}=true")
+                tasksToRun("assemble").useDaemon()
+            }
+        }
+        runner.baseline {
+            projectName(testProject).displayName("file-backed").invocation {
+                gradleOpts("-Xms1g", "-Xmx1g")
+                tasksToRun("assemble").useDaemon()
+            }
+        }
+
+        then:
+        runner.run()
+
+        where:
+        testProject << ["bigOldJava", "largeJavaSwModelProject"]
+    }
+}
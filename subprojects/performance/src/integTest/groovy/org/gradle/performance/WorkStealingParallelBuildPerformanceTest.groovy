@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance
+
+import org.gradle.execution.taskgraph.TaskPlanExecutorFactory
+import org.gradle.performance.categories.BasicPerformanceTest
+import org.junit.experimental.categories.Category
+import spock.lang.Unroll
+
+@Category(BasicPerformanceTest)
+class WorkStealingParallelBuildPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    @Unroll
+    def "work stealing scheduler on #testProject"() {
+        when:
+        runner.testId = "work stealing parallel builds $testProject"
+        runner.testGroup = "parallel builds"
+        runner.buildSpec {
+            projectName(testProject).displayName("work stealing").invocation {
+                tasksToRun("clean", "build").args("--parallel", "--max-workers=4", "-D${TaskPlanExecutorFactory.WORK_STEALING_TOGGLE}=true")
+            }
+        }
+        runner.baseline {
+            projectName(testProject).displayName("parallel").invocation {
+                tasksToRun("clean", "build").args("--parallel", "--max-workers=4")
+            }
+        }
+
+        then:
+        runner.run()
+
+        where:
+        testProject << ["multi", "manyProjects"]
+    }
+}
@@ -20,6 +20,7 @@ import org.apache.http.HttpException;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
 import org.apache.http.auth.*;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.HttpRequestRetryHandler;
@@ -27,12 +28,22 @@ import org.apache.http.client.config.AuthSchemes;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.ConnectionConfig;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.DefaultHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.auth.*;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.SystemDefaultCredentialsProvider;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.protocol.HttpCoreContext;
@@ -57,17 +68,42 @@ import java.util.Collection;
 import java.util.Collections;
 
 public class HttpClientConfigurer {
+    /**
+     * The maximum number of connections kept open to each host. Defaults to {@link #DEFAULT_MAX_CONNECTIONS_PER_ROUTE}.
+     */
+    public static final String MAX_CONNECTIONS_PER_ROUTE_PROPERTY = "org.gradle.internal.http.maxConnectionsPerRoute";
+    /**
+     * The maximum number of connections kept open by a client, across all hosts. Defaults to {@link #DEFAULT_MAX_CONNECTIONS}.
+     */
+    public static final String MAX_CONNECTIONS_PROPERTY = "org.gradle.internal.http.maxConnections";
+    /**
+     * The maximum time in milliseconds that an idle connection is kept open for reuse, regardless of the keep-alive timeout requested by the server.
+     * Defaults to {@link #DEFAULT_MAX_KEEP_ALIVE_MILLIS}.
+     */
+    public static final String MAX_KEEP_ALIVE_PROPERTY = "org.gradle.internal.http.maxKeepAliveMillis";
+    static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 8;
+    static final int DEFAULT_MAX_CONNECTIONS = 32;
+    static final int DEFAULT_MAX_KEEP_ALIVE_MILLIS = 30000;
+    // Check that a connection is still open before reusing it when it has been idle for longer than this
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientConfigurer.class);
 
     private final HttpSettings httpSettings;
+    private final HttpClientStatistics statistics;
 
     public HttpClientConfigurer(HttpSettings httpSettings) {
+        this(httpSettings, new HttpClientStatistics());
+    }
+
+    public HttpClientConfigurer(HttpSettings httpSettings, HttpClientStatistics statistics) {
         this.httpSettings = httpSettings;
+        this.statistics = statistics;
     }
 
     public void configure(HttpClientBuilder builder) {
         SystemDefaultCredentialsProvider credentialsProvider = new SystemDefaultCredentialsProvider();
-        configureSslSocketConnectionFactory(builder, httpSettings.getSslContextFactory());
+        configureConnectionManager(builder, httpSettings.getSslContextFactory());
+        configureKeepAlive(builder);
         configureAuthSchemeRegistry(builder);
         configureCredentials(builder, credentialsProvider, httpSettings.getAuthenticationSettings());
         configureProxy(builder, credentialsProvider, httpSettings);
@@ -76,8 +112,23 @@ public class HttpClientConfigurer {
         builder.setDefaultCredentialsProvider(credentialsProvider);
     }
 
-    private void configureSslSocketConnectionFactory(HttpClientBuilder builder, SslContextFactory sslContextFactory) {
-        builder.setSSLSocketFactory(new SSLConnectionSocketFactory(sslContextFactory.createSslContext(), new DefaultHostnameVerifier(null)));
+    private void configureConnectionManager(HttpClientBuilder builder, SslContextFactory sslContextFactory) {
+        SSLConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(sslContextFactory.createSslContext(), new DefaultHostnameVerifier(null));
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", sslSocketFactory)
+            .build(),
+            new CountingConnectionFactory(statistics)
+        );
+        connectionManager.setDefaultMaxPerRoute(Integer.getInteger(MAX_CONNECTIONS_PER_ROUTE_PROPERTY, DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+        connectionManager.setMaxTotal(Integer.getInteger(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS));
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+        statistics.addConnectionPool(connectionManager);
+        builder.setConnectionManager(connectionManager);
+    }
+
+    private void configureKeepAlive(HttpClientBuilder builder) {
+        builder.setKeepAliveStrategy(new BoundedKeepAliveStrategy(Integer.getInteger(MAX_KEEP_ALIVE_PROPERTY, DEFAULT_MAX_KEEP_ALIVE_MILLIS)));
     }
 
     private void configureAuthSchemeRegistry(HttpClientBuilder builder) {
@@ -207,4 +258,36 @@ public class HttpClientConfigurer {
             }
         }
     }
+
+    /**
+     * Uses the keep-alive timeout requested by the server, up to the given maximum. Connections are otherwise kept open indefinitely.
+     */
+    static class BoundedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+        private final long maxKeepAliveMillis;
+
+        BoundedKeepAliveStrategy(long maxKeepAliveMillis) {
+            this.maxKeepAliveMillis = maxKeepAliveMillis;
+        }
+
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            if (duration <= 0 || duration > maxKeepAliveMillis) {
+                return maxKeepAliveMillis;
+            }
+            return duration;
+        }
+    }
+
+    private static class CountingConnectionFactory implements HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> {
+        private final HttpClientStatistics statistics;
+
+        CountingConnectionFactory(HttpClientStatistics statistics) {
+            this.statistics = statistics;
+        }
+
+        public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+            statistics.connectionOpened();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        }
+    }
 }
@@ -23,7 +23,7 @@ import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.gradle.api.UncheckedIOException;
 import org.slf4j.Logger;
@@ -34,16 +34,31 @@ import java.io.IOException;
 
 /**
  * Provides some convenience and unified logging.
+ *
+ * <p>Can be used by multiple threads concurrently. Connections are pooled and reused across requests, up to a limit per host. Each thread uses
+ * its own {@link HttpContext}, so that authentication state is reused by the requests of a thread without being shared between threads.</p>
  */
 public class HttpClientHelper implements Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientHelper.class);
-    private CloseableHttpClient client;
-    private final BasicHttpContext httpContext = new BasicHttpContext();
+    private final Object lock = new Object();
+    private volatile CloseableHttpClient client;
+    private final ThreadLocal<HttpContext> httpContext = new ThreadLocal<HttpContext>() {
+        @Override
+        protected HttpContext initialValue() {
+            return HttpClientContext.create();
+        }
+    };
+    private final HttpClientStatistics statistics;
     private final HttpSettings settings;
 
     public HttpClientHelper(HttpSettings settings) {
+        this(settings, new HttpClientStatistics());
+    }
+
+    HttpClientHelper(HttpSettings settings, HttpClientStatistics statistics) {
         this.settings = settings;
+        this.statistics = statistics;
     }
 
     public HttpResponse performRawHead(String source) {
@@ -96,10 +111,20 @@ public class HttpClientHelper implements Closeable {
     }
 
     public HttpResponse performHttpRequest(HttpRequestBase request) throws IOException {
+        HttpContext context = httpContext.get();
         // Without this, HTTP Client prohibits multiple redirects to the same location within the same context
-        httpContext.removeAttribute(HttpClientContext.REDIRECT_LOCATIONS);
+        context.removeAttribute(HttpClientContext.REDIRECT_LOCATIONS);
         LOGGER.debug("Performing HTTP {}: {}", request.getMethod(), request.getURI());
-        return getClient().execute(request, httpContext);
+        long start = System.nanoTime();
+        HttpResponse response;
+        try {
+            response = getClient().execute(request, context);
+        } catch (IOException e) {
+            statistics.requestFailed(System.nanoTime() - start);
+            throw e;
+        }
+        statistics.requestCompleted(System.nanoTime() - start);
+        return response;
     }
 
     private HttpResponse processResponse(String source, String method, HttpResponse response) {
@@ -116,20 +141,30 @@ public class HttpClientHelper implements Closeable {
         return response;
     }
 
-    private synchronized CloseableHttpClient getClient() {
-        if (client == null) {
-            HttpClientBuilder builder = HttpClientBuilder.create();
-            builder.setRedirectStrategy(new AlwaysRedirectRedirectStrategy());
-            new HttpClientConfigurer(settings).configure(builder);
-            this.client = builder.build();
+    private CloseableHttpClient getClient() {
+        CloseableHttpClient result = client;
+        if (result == null) {
+            synchronized (lock) {
+                result = client;
+                if (result == null) {
+                    HttpClientBuilder builder = HttpClientBuilder.create();
+                    builder.setRedirectStrategy(new AlwaysRedirectRedirectStrategy());
+                    new HttpClientConfigurer(settings, statistics).configure(builder);
+                    result = builder.build();
+                    client = result;
+                }
+            }
         }
-        return client;
+        return result;
     }
 
     @Override
-    public synchronized void close() throws IOException {
-        if (client != null) {
-            client.close();
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (client != null) {
+                LOGGER.debug("Closing HTTP client. {}", statistics);
+                client.close();
+            }
         }
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the requests made and the connections opened by the {@link HttpClientHelper}s of a repository. Can be used concurrently.
+ */
+public class HttpClientStatistics {
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+    private final AtomicLong responseTimeNanos = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final List<ConnPoolControl<HttpRoute>> connectionPools = new CopyOnWriteArrayList<ConnPoolControl<HttpRoute>>();
+
+    void addConnectionPool(ConnPoolControl<HttpRoute> connectionPool) {
+        connectionPools.add(connectionPool);
+    }
+
+    void requestCompleted(long durationNanos) {
+        requests.incrementAndGet();
+        responseTimeNanos.addAndGet(durationNanos);
+    }
+
+    void requestFailed(long durationNanos) {
+        failedRequests.incrementAndGet();
+        requestCompleted(durationNanos);
+    }
+
+    void connectionOpened() {
+        connectionsOpened.incrementAndGet();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFailedRequests() {
+        return failedRequests.get();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * Returns the average time taken to receive the response headers for a request, in milliseconds.
+     */
+    public long getAverageResponseTime() {
+        long count = requests.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(responseTimeNanos.get() / count);
+    }
+
+    /**
+     * Returns the number of connections currently used by requests, or 0 when no connection pool is in use.
+     */
+    public int getLeasedConnections() {
+        int leased = 0;
+        for (ConnPoolControl<HttpRoute> pool : connectionPools) {
+            leased += pool.getTotalStats().getLeased();
+        }
+        return leased;
+    }
+
+    @Override
+    public String toString() {
+        String result = String.format("requests: %s, failed: %s, connections opened: %s, average response time: %sms",
+            getRequests(), getFailedRequests(), getConnectionsOpened(), getAverageResponseTime());
+        if (!connectionPools.isEmpty()) {
+            int leased = 0;
+            int available = 0;
+            int pending = 0;
+            for (ConnPoolControl<HttpRoute> pool : connectionPools) {
+                PoolStats stats = pool.getTotalStats();
+                leased += stats.getLeased();
+                available += stats.getAvailable();
+                pending += stats.getPending();
+            }
+            result += String.format(", leased connections: %s, idle connections: %s, pending requests: %s", leased, available, pending);
+        }
+        return result;
+    }
+}
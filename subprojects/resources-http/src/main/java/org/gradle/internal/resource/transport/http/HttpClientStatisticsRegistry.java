@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import com.google.common.collect.ImmutableMap;
+import org.gradle.internal.concurrent.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Collects the {@link HttpClientStatistics} of each repository used by the current build, and logs them when the build finishes.
+ */
+public class HttpClientStatisticsRegistry implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientStatisticsRegistry.class);
+    private final ConcurrentMap<String, HttpClientStatistics> statistics = new ConcurrentHashMap<String, HttpClientStatistics>();
+
+    /**
+     * Returns the statistics of the given repository. The HTTP clients created for repositories with the same name share their statistics.
+     */
+    public HttpClientStatistics getStatistics(String repositoryName) {
+        HttpClientStatistics result = statistics.get(repositoryName);
+        if (result == null) {
+            HttpClientStatistics newStatistics = new HttpClientStatistics();
+            result = statistics.putIfAbsent(repositoryName, newStatistics);
+            if (result == null) {
+                result = newStatistics;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a snapshot of the statistics of each repository used so far, keyed by repository name.
+     */
+    public Map<String, HttpClientStatistics> getStatistics() {
+        return ImmutableMap.copyOf(statistics);
+    }
+
+    @Override
+    public void stop() {
+        for (Map.Entry<String, HttpClientStatistics> entry : statistics.entrySet()) {
+            LOGGER.info("HTTP statistics for repository '{}': {}", entry.getKey(), entry.getValue());
+        }
+        statistics.clear();
+    }
+}
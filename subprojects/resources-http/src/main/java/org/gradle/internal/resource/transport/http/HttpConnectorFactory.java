@@ -31,9 +31,11 @@ import java.util.Set;
 
 public class HttpConnectorFactory implements ResourceConnectorFactory {
     private SslContextFactory sslContextFactory;
+    private HttpClientStatisticsRegistry statisticsRegistry;
 
-    public HttpConnectorFactory(SslContextFactory sslContextFactory) {
+    public HttpConnectorFactory(SslContextFactory sslContextFactory, HttpClientStatisticsRegistry statisticsRegistry) {
         this.sslContextFactory = sslContextFactory;
+        this.statisticsRegistry = statisticsRegistry;
     }
 
     @Override
@@ -52,7 +54,7 @@ public class HttpConnectorFactory implements ResourceConnectorFactory {
 
     @Override
     public ExternalResourceConnector createResourceConnector(ResourceConnectorSpecification connectionDetails) {
-        HttpClientHelper http = new HttpClientHelper(new DefaultHttpSettings(connectionDetails.getAuthentications(), sslContextFactory));
+        HttpClientHelper http = new HttpClientHelper(new DefaultHttpSettings(connectionDetails.getAuthentications(), sslContextFactory), statisticsRegistry.getStatistics(connectionDetails.getName()));
         HttpResourceAccessor accessor = new HttpResourceAccessor(http);
         HttpResourceLister lister = new HttpResourceLister(accessor);
         HttpResourceUploader uploader = new HttpResourceUploader(http);
@@ -29,14 +29,17 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class HttpResourceAccessor implements ExternalResourceAccessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpResourceAccessor.class);
     private final HttpClientHelper http;
 
-    private final List<HttpResponseResource> openResources = new ArrayList<HttpResponseResource>();
+    // The thread that opened each resource. Guarded by itself
+    private final Map<HttpResponseResource, Thread> openResources = new IdentityHashMap<HttpResponseResource, Thread>();
 
     public HttpResourceAccessor(HttpClientHelper http) {
         this.http = http;
@@ -87,12 +90,25 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
     }
 
     private HttpResponseResource recordOpenGetResource(HttpResponseResource httpResource) {
-        openResources.add(httpResource);
+        synchronized (openResources) {
+            openResources.put(httpResource, Thread.currentThread());
+        }
         return httpResource;
     }
 
+    /**
+     * Closes the resources that the current thread has opened and not closed. Resources opened by other threads are left open, as they may be in use.
+     */
     private void abortOpenResources() {
-        for (Closeable openResource : openResources) {
+        List<Closeable> abandonedResources = new ArrayList<Closeable>();
+        synchronized (openResources) {
+            for (Map.Entry<HttpResponseResource, Thread> entry : openResources.entrySet()) {
+                if (entry.getValue() == Thread.currentThread()) {
+                    abandonedResources.add(entry.getKey());
+                }
+            }
+        }
+        for (Closeable openResource : abandonedResources) {
             LOGGER.warn("Forcing close on abandoned resource: {}", openResource);
             try {
                 openResource.close();
@@ -100,7 +116,9 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
                 LOGGER.warn("Failed to close abandoned resource", e);
             }
         }
-        openResources.clear();
+        synchronized (openResources) {
+            openResources.keySet().removeAll(abandonedResources);
+        }
     }
 
     private HttpResponseResource wrapResponse(URI uri, HttpResponse response) {
@@ -108,7 +126,9 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
             @Override
             public void close() throws IOException {
                 super.close();
-                HttpResourceAccessor.this.openResources.remove(this);
+                synchronized (openResources) {
+                    openResources.remove(this);
+                }
             }
         };
     }
@@ -34,6 +34,7 @@ public class HttpResourcesPluginServiceRegistry implements PluginServiceRegistry
     }
 
     public void registerBuildServices(ServiceRegistration registration) {
+        registration.addProvider(new BuildScopeServices());
         registration.addProvider(new AuthenticationSchemeAction());
     }
 
@@ -47,9 +48,15 @@ public class HttpResourcesPluginServiceRegistry implements PluginServiceRegistry
         SslContextFactory createSslContextFactory() {
             return new DefaultSslContextFactory();
         }
+    }
+
+    private static class BuildScopeServices {
+        HttpClientStatisticsRegistry createHttpClientStatisticsRegistry() {
+            return new HttpClientStatisticsRegistry();
+        }
 
-        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory) {
-            return new HttpConnectorFactory(sslContextFactory);
+        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory, HttpClientStatisticsRegistry statisticsRegistry) {
+            return new HttpConnectorFactory(sslContextFactory, statisticsRegistry);
         }
     }
 
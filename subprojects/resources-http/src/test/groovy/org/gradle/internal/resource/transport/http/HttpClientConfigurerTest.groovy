@@ -15,15 +15,21 @@
  */
 package org.gradle.internal.resource.transport.http
 
+import org.apache.http.HttpVersion
 import org.apache.http.auth.AuthScope
 import org.apache.http.impl.client.HttpClientBuilder
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager
+import org.apache.http.message.BasicHttpResponse
 import org.apache.http.ssl.SSLContexts
 import org.gradle.api.artifacts.repositories.PasswordCredentials
 import org.gradle.internal.authentication.AllSchemesAuthentication
 import org.gradle.internal.resource.UriResource
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
 import spock.lang.Specification
 
 public class HttpClientConfigurerTest extends Specification {
+    @Rule SetSystemProperties sysProp = new SetSystemProperties()
     HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
     PasswordCredentials credentials = Mock()
     AllSchemesAuthentication authentication = Mock() {
@@ -110,4 +116,43 @@ public class HttpClientConfigurerTest extends Specification {
         then:
         httpClientBuilder.userAgent == UriResource.userAgentString
     }
+
+    def "configures http client with pooling connection manager"() {
+        httpSettings.authenticationSettings >> []
+        httpSettings.sslContextFactory >> sslContextFactory
+        System.setProperty(HttpClientConfigurer.MAX_CONNECTIONS_PER_ROUTE_PROPERTY, "3")
+        def statistics = new HttpClientStatistics()
+
+        when:
+        new HttpClientConfigurer(httpSettings, statistics).configure(httpClientBuilder)
+
+        then:
+        def connectionManager = httpClientBuilder.connManager
+        connectionManager instanceof PoolingHttpClientConnectionManager
+        connectionManager.defaultMaxPerRoute == 3
+        connectionManager.maxTotal == HttpClientConfigurer.DEFAULT_MAX_CONNECTIONS
+        statistics.leasedConnections == 0
+    }
+
+    def "bounds keep-alive duration requested by server"() {
+        def strategy = new HttpClientConfigurer.BoundedKeepAliveStrategy(10000)
+
+        expect:
+        strategy.getKeepAliveDuration(response(keepAlive), null) == duration
+
+        where:
+        keepAlive   | duration
+        null        | 10000
+        "timeout=5" | 5000
+        "timeout=0" | 10000
+        "timeout=60"| 10000
+    }
+
+    private static BasicHttpResponse response(String keepAlive) {
+        def response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK")
+        if (keepAlive != null) {
+            response.addHeader("Keep-Alive", keepAlive)
+        }
+        return response
+    }
 }
@@ -43,6 +43,22 @@ class HttpClientHelperTest extends Specification {
         e.cause.message == "ouch"
     }
 
+    def "counts requests that fail"() {
+        def statistics = new HttpClientStatistics()
+        def client = new HttpClientHelper(httpSettings, statistics)
+
+        when:
+        client.performRequest(new HttpGet("http://localhost:0/path"))
+
+        then:
+        thrown(HttpRequestException)
+        statistics.requests == 1
+        statistics.failedRequests == 1
+
+        cleanup:
+        client.close()
+    }
+
     private HttpSettings getHttpSettings() {
         return Stub(HttpSettings) {
             getProxySettings() >> Mock(HttpProxySettings)
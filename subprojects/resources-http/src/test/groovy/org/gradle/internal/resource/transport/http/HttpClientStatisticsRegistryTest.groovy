@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import spock.lang.Specification
+
+class HttpClientStatisticsRegistryTest extends Specification {
+    def registry = new HttpClientStatisticsRegistry()
+
+    def "repositories with the same name share their statistics"() {
+        when:
+        registry.getStatistics("maven").requestCompleted(10)
+        registry.getStatistics("maven").requestFailed(10)
+        registry.getStatistics("ivy").requestCompleted(10)
+
+        then:
+        registry.getStatistics("maven").is(registry.getStatistics("maven"))
+        registry.statistics.keySet() == ["maven", "ivy"] as Set
+        registry.statistics["maven"].requests == 2
+        registry.statistics["maven"].failedRequests == 1
+        registry.statistics["ivy"].requests == 1
+    }
+
+    def "forgets statistics when stopped"() {
+        given:
+        registry.getStatistics("maven").requestCompleted(10)
+
+        when:
+        registry.stop()
+
+        then:
+        registry.statistics.isEmpty()
+        registry.getStatistics("maven").requests == 0
+    }
+}
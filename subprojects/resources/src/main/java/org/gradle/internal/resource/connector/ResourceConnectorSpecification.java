@@ -21,6 +21,11 @@ import org.gradle.authentication.Authentication;
 import java.util.Collection;
 
 public interface ResourceConnectorSpecification {
+    /**
+     * The name of the repository that the connector is created for.
+     */
+    String getName();
+
     <T> T getCredentials(Class<T> type);
 
     Collection<Authentication> getAuthentications();